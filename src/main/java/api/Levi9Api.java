@@ -2,8 +2,10 @@ package api;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class Levi9Api {
     public static void main(String[] args) {
         SpringApplication.run(Levi9Api.class, args);
@@ -3,12 +3,15 @@ package api.config;
 import api.exceptions.DuplicateResourceException;
 import api.exceptions.InvalidInputException;
 import api.exceptions.ResourceNotFoundException;
+import api.exceptions.ServiceBusyException;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -28,7 +31,23 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
     }
 
-    @ExceptionHandler({ConstraintViolationException.class, MethodArgumentNotValidException.class})
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<?> handleMethodArgumentTypeMismatchException(MethodArgumentTypeMismatchException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid value for '" + ex.getName() + "'");
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<?> handleServiceBusyException(ServiceBusyException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ex.getMessage());
+    }
+
+    // The row was updated by someone else since it was read, see Player.version
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<?> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("The resource was changed at the same time, try again.");
+    }
+
+    @ExceptionHandler({ConstraintViolationException.class,MethodArgumentNotValidException.class})
     public ResponseEntity<?> handleValidationExceptions(Exception ex) {
         String errorMessage = ex instanceof MethodArgumentNotValidException ?
                 ((MethodArgumentNotValidException) ex).getBindingResult().getAllErrors().get(0).getDefaultMessage() :
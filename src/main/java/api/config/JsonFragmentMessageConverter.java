@@ -0,0 +1,79 @@
+package api.config;
+
+import api.modelsDTO.PlayerPageDTO;
+import api.modelsDTO.PlayerResponseDTO;
+import api.modelsDTO.TeamResponseDTO;
+import api.services.cache.JsonFragmentCache;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes player and team responses, player pages and player lists from {@link JsonFragmentCache}, ahead of Jackson
+ * (Spring Boot puts converter beans first). The bytes are the ones Jackson would write; only the page envelope is
+ * written here. Hot reads arrive with a version stamp and find their fragment without encoding anything.
+ */
+@Component
+public class JsonFragmentMessageConverter extends WriteOnlyMessageConverter<Object> {
+
+    private static final byte[] PAGE_PLAYERS = "{\"players\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PAGE_NEXT_CURSOR = ",\"nextCursor\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.UTF_8);
+
+    private final JsonFragmentCache fragments;
+
+    public JsonFragmentMessageConverter(JsonFragmentCache fragments) {
+        super(MediaType.APPLICATION_JSON);
+        this.fragments = fragments;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == PlayerResponseDTO.class || clazz == TeamResponseDTO.class || clazz == PlayerPageDTO.class;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (type instanceof ParameterizedType list && list.getRawType() == List.class) {
+            return list.getActualTypeArguments()[0] == PlayerResponseDTO.class && canWrite(mediaType);
+        }
+        return canWrite(clazz, mediaType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        OutputStream out = outputMessage.getBody();
+        if (value instanceof PlayerResponseDTO player) {
+            out.write(fragments.player(player));
+        } else if (value instanceof TeamResponseDTO team) {
+            out.write(fragments.team(team));
+        } else if (value instanceof PlayerPageDTO page) {
+            out.write(PAGE_PLAYERS);
+            fragments.writePlayers(page.getPlayers(), out);
+            out.write(PAGE_NEXT_CURSOR);
+            writeString(page.getNextCursor(), out);
+            out.write('}');
+        } else {
+            fragments.writePlayers((List<PlayerResponseDTO>) value, out);
+        }
+    }
+
+    private static void writeString(String value, OutputStream out) throws IOException {
+        if (value == null) {
+            out.write(NULL);
+            return;
+        }
+        out.write('"');
+        out.write(JsonStringEncoder.getInstance().quoteAsUTF8(value));
+        out.write('"');
+    }
+}
@@ -0,0 +1,44 @@
+package api.config;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.services.lambda.AWSLambda;
+import com.amazonaws.services.lambda.AWSLambdaClientBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// One Lambda client for the whole application, so the HTTP connection pool and the credential chain are reused
+@Configuration
+@ConditionalOnProperty(name = "notifications.transport", havingValue = "lambda", matchIfMissing = true)
+public class LambdaClientConfig {
+
+    @Value("${notifications.lambda.region:eu-central-1}")
+    private String region;
+
+    @Value("${notifications.lambda.connect-timeout-ms:1000}")
+    private int connectTimeoutMs;
+
+    @Value("${notifications.lambda.request-timeout-ms:5000}")
+    private int requestTimeoutMs;
+
+    @Value("${notifications.lambda.max-connections:50}")
+    private int maxConnections;
+
+    @Bean(destroyMethod = "shutdown")
+    public AWSLambda awsLambda() {
+        // Retries are left to the callers (the outbox retries with backoff), the SDK gives up after one attempt
+        ClientConfiguration configuration = new ClientConfiguration()
+                .withConnectionTimeout(connectTimeoutMs)
+                .withSocketTimeout(requestTimeoutMs)
+                .withRequestTimeout(requestTimeoutMs)
+                .withClientExecutionTimeout(requestTimeoutMs)
+                .withMaxConnections(maxConnections)
+                .withMaxErrorRetry(0);
+
+        return AWSLambdaClientBuilder.standard()
+                .withRegion(region)
+                .withClientConfiguration(configuration)
+                .build();
+    }
+}
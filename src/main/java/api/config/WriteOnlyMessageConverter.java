@@ -0,0 +1,43 @@
+package api.config;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.lang.reflect.Type;
+
+/**
+ * Base for converters that only write responses. They never claim a request body, so Spring never reads through
+ * them; its converter contract still declares the read side, which is closed here once.
+ */
+public abstract class WriteOnlyMessageConverter<T> extends AbstractGenericHttpMessageConverter<T> {
+
+    protected WriteOnlyMessageConverter(MediaType... supportedMediaTypes) {
+        super(supportedMediaTypes);
+    }
+
+    @Override
+    public final boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public final boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public final T read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw notReadable(inputMessage);
+    }
+
+    @Override
+    protected final T readInternal(Class<? extends T> clazz, HttpInputMessage inputMessage) {
+        throw notReadable(inputMessage);
+    }
+
+    private HttpMessageNotReadableException notReadable(HttpInputMessage inputMessage) {
+        return new HttpMessageNotReadableException(getClass().getSimpleName() + " does not read request bodies", inputMessage);
+    }
+}
@@ -0,0 +1,32 @@
+package api.controllers;
+
+import api.modelsDTO.RatingReplayProgressDTO;
+import api.services.replay.RatingReplayService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin")
+@CrossOrigin()
+public class AdminController {
+
+    private final RatingReplayService ratingReplayService;
+
+    @Autowired
+    public AdminController(RatingReplayService ratingReplayService) {
+        this.ratingReplayService = ratingReplayService;
+    }
+
+    @PostMapping("/ratings/replay")
+    public ResponseEntity<RatingReplayProgressDTO> startRatingReplay() {
+        RatingReplayProgressDTO progress = ratingReplayService.start();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(progress);
+    }
+
+    @GetMapping("/ratings/replay")
+    public ResponseEntity<RatingReplayProgressDTO> getRatingReplayProgress() {
+        return ResponseEntity.ok(ratingReplayService.getProgress());
+    }
+}
@@ -1,15 +1,29 @@
 package api.controllers;
 
+import api.exceptions.InvalidInputException;
 import api.modelsDTO.CreateMatchRequestDTO;
-import api.modelsDTO.MatchResponseDTO;
+import api.modelsDTO.MatchBatchResponseDTO;
 import api.servicesInterface.MatchServiceI;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/matches")
@@ -17,10 +31,12 @@ import java.util.List;
 public class MatchesController {
 
     private final MatchServiceI matchService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public MatchesController(MatchServiceI matchService) {
+    public MatchesController(MatchServiceI matchService, ObjectMapper objectMapper) {
         this.matchService = matchService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -29,11 +45,42 @@ public class MatchesController {
         return ResponseEntity.ok("Match created successfully");
     }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<MatchBatchResponseDTO> createMatches(InputStream body) throws IOException {
+        MatchBatchResponseDTO response = matchService.createMatches(readMatchBatch(body));
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping
-    public ResponseEntity<List<MatchResponseDTO>> getAllMatches() {
-        List<MatchResponseDTO> matches = matchService.getAllMatches();
-        return new ResponseEntity<>(matches, HttpStatus.OK);
+    public ResponseEntity<StreamingResponseBody> getMatches(
+            @RequestParam(required = false) UUID teamId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        Consumer<OutputStream> matches = matchService.streamMatches(teamId, from, to, cursor, limit);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(matches::accept);
     }
 
-}
+    // Reads the array element by element so the whole request body is never held as a JSON tree
+    private List<CreateMatchRequestDTO> readMatchBatch(InputStream body) throws IOException {
+        List<CreateMatchRequestDTO> requests = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new InvalidInputException("Match batch must be a JSON array");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                requests.add(objectMapper.readValue(parser, CreateMatchRequestDTO.class));
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new InvalidInputException("Match batch must only contain match objects");
+            }
+        } catch (JsonProcessingException e) {
+            throw new InvalidInputException("Malformed match batch: " + e.getOriginalMessage());
+        }
+        return requests;
+    }
 
+}
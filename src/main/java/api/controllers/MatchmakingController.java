@@ -0,0 +1,42 @@
+package api.controllers;
+
+import api.modelsDTO.JoinMatchmakingRequestDTO;
+import api.modelsDTO.MatchmakingTicketDTO;
+import api.services.matchmaking.MatchmakingService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/matchmaking")
+@CrossOrigin()
+public class MatchmakingController {
+
+    private final MatchmakingService matchmakingService;
+
+    @Autowired
+    public MatchmakingController(MatchmakingService matchmakingService) {
+        this.matchmakingService = matchmakingService;
+    }
+
+    @PostMapping("/queue")
+    public ResponseEntity<MatchmakingTicketDTO> joinQueue(@Valid @RequestBody JoinMatchmakingRequestDTO request) {
+        MatchmakingTicketDTO ticket = matchmakingService.join(request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ticket);
+    }
+
+    @GetMapping("/queue/{playerId}")
+    public ResponseEntity<MatchmakingTicketDTO> getTicket(@PathVariable UUID playerId) {
+        return ResponseEntity.ok(matchmakingService.getTicket(playerId));
+    }
+
+    @DeleteMapping("/queue/{playerId}")
+    public ResponseEntity<Void> leaveQueue(@PathVariable UUID playerId) {
+        matchmakingService.leave(playerId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,15 +1,20 @@
 package api.controllers;
 
 import api.modelsDTO.CreatePlayerRequestDTO;
+import api.modelsDTO.LeaderboardEntryDTO;
+import api.modelsDTO.PlayerPageDTO;
 import api.modelsDTO.PlayerResponseDTO;
 import api.modelsDTO.UpdatePlayerRequestDTO;
 import api.services.DataService;
+import api.services.players.PlayerExporter;
 import api.servicesInterface.PlayerServiceI;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.UUID;
@@ -21,11 +26,13 @@ public class PlayersController {
 
     private final PlayerServiceI playerService;
     private final DataService dataService;
+    private final PlayerExporter playerExporter;
 
     @Autowired
-    public PlayersController(PlayerServiceI playerService, DataService dataService) {
+    public PlayersController(PlayerServiceI playerService, DataService dataService, PlayerExporter playerExporter) {
         this.playerService = playerService;
         this.dataService = dataService;
+        this.playerExporter = playerExporter;
     }
 
 
@@ -42,11 +49,41 @@ public class PlayersController {
     }
 
     @GetMapping
+    public ResponseEntity<PlayerPageDTO> getPlayers(
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        PlayerPageDTO response = playerService.getPlayers(sort, cursor, limit);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping(params = "unpaged=true")
     public ResponseEntity<List<PlayerResponseDTO>> getAllPlayers() {
         List<PlayerResponseDTO> response = playerService.getAllPlayers();
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPlayers() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(playerExporter::export);
+    }
+
+    @GetMapping("/leaderboard")
+    public ResponseEntity<List<LeaderboardEntryDTO>> getLeaderboard(
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "20") int limit) {
+        List<LeaderboardEntryDTO> response = playerService.getLeaderboard(offset, limit);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{id}/rank")
+    public ResponseEntity<LeaderboardEntryDTO> getPlayerRank(@PathVariable UUID id) {
+        LeaderboardEntryDTO response = playerService.getPlayerRank(id);
+        return ResponseEntity.ok(response);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<PlayerResponseDTO> updatePlayer(
             @PathVariable("id") UUID playerId,
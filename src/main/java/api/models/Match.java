@@ -1,15 +1,26 @@
 package api.models;
 
+import api.models.ids.TimeOrderedId;
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "matches")
+@Table(name = "matches", indexes = {
+        @Index(name = "idx_matches_created", columnList = "created, id"),
+        @Index(name = "idx_matches_team1_created", columnList = "team1_id, created"),
+        @Index(name = "idx_matches_team2_created", columnList = "team2_id, created")
+})
 public class Match {
 
     @Id
-    @GeneratedValue
+    @TimeOrderedId
+    @JdbcTypeCode(SqlTypes.BINARY)
     private UUID id;
 
     @ManyToOne
@@ -27,6 +38,20 @@ public class Match {
     @Column(nullable = false)
     private int duration; // in hours
 
+    @Column(updatable = false)
+    private Instant created; // null for matches recorded before it existed
+
+    @ElementCollection
+    @CollectionTable(name = "match_players", joinColumns = @JoinColumn(name = "match_id"))
+    private List<MatchPlayer> roster = new ArrayList<>();
+
+    @PrePersist
+    void onCreate() {
+        if (created == null) {
+            created = Instant.now();
+        }
+    }
+
     public UUID getId() {
         return id;
     }
@@ -67,5 +92,21 @@ public class Match {
         this.duration = duration;
     }
 
+    public Instant getCreated() {
+        return created;
+    }
+
+    public void setCreated(Instant created) {
+        this.created = created;
+    }
+
+    public List<MatchPlayer> getRoster() {
+        return roster;
+    }
+
+    public void setRoster(List<MatchPlayer> roster) {
+        this.roster = roster;
+    }
+
 
 }
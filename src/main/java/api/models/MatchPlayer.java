@@ -0,0 +1,44 @@
+package api.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.util.UUID;
+
+// Who played on which side, captured when the match is recorded so it can be replayed after rosters change
+@Embeddable
+public class MatchPlayer {
+
+    @Column(name = "player_id", nullable = false)
+    @JdbcTypeCode(SqlTypes.BINARY)
+    private UUID playerId;
+
+    @Column(name = "team_number", nullable = false)
+    private int teamNumber; // 1 or 2
+
+    public MatchPlayer() {
+    }
+
+    public MatchPlayer(UUID playerId, int teamNumber) {
+        this.playerId = playerId;
+        this.teamNumber = teamNumber;
+    }
+
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    public void setPlayerId(UUID playerId) {
+        this.playerId = playerId;
+    }
+
+    public int getTeamNumber() {
+        return teamNumber;
+    }
+
+    public void setTeamNumber(int teamNumber) {
+        this.teamNumber = teamNumber;
+    }
+}
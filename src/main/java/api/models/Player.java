@@ -1,15 +1,19 @@
 package api.models;
 
+import api.models.ids.TimeOrderedId;
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.util.UUID;
 
 @Entity
-@Table(name = "players")
+@Table(name = "players", indexes = @Index(name = "idx_players_team_elo", columnList = "team_id, elo desc"))
 public class Player {
 
     @Id
-    @GeneratedValue
+    @TimeOrderedId
+    @JdbcTypeCode(SqlTypes.BINARY)
     private UUID id;
 
     @Column(unique = true, nullable = false)
@@ -26,6 +30,10 @@ public class Player {
 
     private Integer ratingAdjustment = null; // Starting ratingAdjustment
 
+    // Checked by every update, so a write based on an older read fails instead of overwriting a newer one
+    @Version
+    private long version;
+
 
     public UUID getId() {
         return id;
@@ -90,4 +98,12 @@ public class Player {
     public void setRatingAdjustment(Integer ratingAdjustment) {
         this.ratingAdjustment = ratingAdjustment;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
@@ -1,16 +1,21 @@
 package api.models;
 
+import api.models.ids.TimeOrderedId;
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "teams")
+@Table(name = "teams", indexes = @Index(name = "idx_teams_random_created", columnList = "isRandom, createdAt"))
 public class Team {
 
     @Id
-    @GeneratedValue
+    @TimeOrderedId
+    @JdbcTypeCode(SqlTypes.BINARY)
     private UUID id;
 
     @Column(unique = true, nullable = false)
@@ -30,6 +35,16 @@ public class Team {
     @OneToMany(mappedBy = "team", cascade = CascadeType.ALL)
     private List<Player> players;
 
+    @Column(updatable = false)
+    private Instant createdAt; // null for teams created before it existed
+
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
+    }
+
     public UUID getId() {
         return id;
     }
@@ -53,4 +68,12 @@ public class Team {
     public void setPlayers(List<Player> players) {
         this.players = players;
     }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
 }
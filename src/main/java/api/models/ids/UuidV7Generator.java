@@ -0,0 +1,15 @@
+package api.models.ids;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+// One UuidV7 for every entity, so ids stay increasing across tables and session factories
+public class UuidV7Generator implements IdentifierGenerator {
+
+    private static final UuidV7 IDS = new UuidV7();
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return IDS.next();
+    }
+}
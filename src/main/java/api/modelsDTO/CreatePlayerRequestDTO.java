@@ -1,5 +1,6 @@
 package api.modelsDTO;
 
+import api.models.Player;
 import jakarta.validation.constraints.NotBlank;
 
 public class CreatePlayerRequestDTO {
@@ -7,6 +8,12 @@ public class CreatePlayerRequestDTO {
     @NotBlank(message = "Nickname is mandatory")
     private String nickname;
 
+    public Player toPlayer() {
+        Player player = new Player();
+        player.setNickname(nickname);
+        return player;
+    }
+
     public String getNickname() {
         return nickname;
     }
@@ -0,0 +1,31 @@
+package api.modelsDTO;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.UUID;
+
+public class JoinMatchmakingRequestDTO {
+
+    @NotNull(message = "PlayerId is mandatory")
+    private UUID playerId;
+
+    @Min(value = 1, message = "Team size must be at least 1")
+    private int teamSize = 5;
+
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    public void setPlayerId(UUID playerId) {
+        this.playerId = playerId;
+    }
+
+    public int getTeamSize() {
+        return teamSize;
+    }
+
+    public void setTeamSize(int teamSize) {
+        this.teamSize = teamSize;
+    }
+}
@@ -0,0 +1,53 @@
+package api.modelsDTO;
+
+import java.util.UUID;
+
+public class LeaderboardEntryDTO {
+
+    private int rank; // players with equal elo share a rank
+    private UUID playerId;
+    private String nickname;
+    private int elo;
+
+    public LeaderboardEntryDTO() {
+    }
+
+    public LeaderboardEntryDTO(int rank, UUID playerId, String nickname, int elo) {
+        this.rank = rank;
+        this.playerId = playerId;
+        this.nickname = nickname;
+        this.elo = elo;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public void setRank(int rank) {
+        this.rank = rank;
+    }
+
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    public void setPlayerId(UUID playerId) {
+        this.playerId = playerId;
+    }
+
+    public String getNickname() {
+        return nickname;
+    }
+
+    public void setNickname(String nickname) {
+        this.nickname = nickname;
+    }
+
+    public int getElo() {
+        return elo;
+    }
+
+    public void setElo(int elo) {
+        this.elo = elo;
+    }
+}
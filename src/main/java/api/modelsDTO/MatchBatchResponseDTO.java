@@ -0,0 +1,45 @@
+package api.modelsDTO;
+
+import java.util.List;
+
+public class MatchBatchResponseDTO {
+
+    private int applied;
+    private int rejected;
+    private List<MatchBatchResultDTO> results;
+
+    public MatchBatchResponseDTO() {
+    }
+
+    public MatchBatchResponseDTO(List<MatchBatchResultDTO> results) {
+        this.results = results;
+        for (MatchBatchResultDTO result : results) {
+            if (MatchBatchResultDTO.APPLIED.equals(result.getStatus())) applied++;
+            else rejected++;
+        }
+    }
+
+    public int getApplied() {
+        return applied;
+    }
+
+    public void setApplied(int applied) {
+        this.applied = applied;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<MatchBatchResultDTO> getResults() {
+        return results;
+    }
+
+    public void setResults(List<MatchBatchResultDTO> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,56 @@
+package api.modelsDTO;
+
+import java.util.UUID;
+
+public class MatchBatchResultDTO {
+
+    public static final String APPLIED = "APPLIED";
+    public static final String REJECTED = "REJECTED";
+
+    private int index;
+    private String status;
+    private UUID matchId; // null for rejected matches and matches between random teams
+    private String message;
+
+    public MatchBatchResultDTO() {
+    }
+
+    public MatchBatchResultDTO(int index, String status, UUID matchId, String message) {
+        this.index = index;
+        this.status = status;
+        this.matchId = matchId;
+        this.message = message;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public UUID getMatchId() {
+        return matchId;
+    }
+
+    public void setMatchId(UUID matchId) {
+        this.matchId = matchId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,33 @@
+package api.modelsDTO;
+
+import java.util.List;
+
+public class MatchPageDTO {
+
+    private List<MatchResponseDTO> matches;
+    private String nextCursor;
+
+    public MatchPageDTO() {
+    }
+
+    public MatchPageDTO(List<MatchResponseDTO> matches, String nextCursor) {
+        this.matches = matches;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<MatchResponseDTO> getMatches() {
+        return matches;
+    }
+
+    public void setMatches(List<MatchResponseDTO> matches) {
+        this.matches = matches;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -1,5 +1,9 @@
 package api.modelsDTO;
 
+import api.models.Match;
+import api.repositories.MatchView;
+
+import java.time.Instant;
 import java.util.UUID;
 
 public class MatchResponseDTO {
@@ -9,6 +13,28 @@ public class MatchResponseDTO {
     private UUID team2Id;
     private UUID winningTeamId;
     private Integer duration;
+    private Instant created;
+
+    public MatchResponseDTO() {
+    }
+
+    public MatchResponseDTO(Match match) {
+        this.id = match.getId();
+        this.team1Id = match.getTeam1() != null ? match.getTeam1().getId() : null;
+        this.team2Id = match.getTeam2() != null ? match.getTeam2().getId() : null;
+        this.winningTeamId = match.getWinningTeam() != null ? match.getWinningTeam().getId() : null;
+        this.duration = match.getDuration();
+        this.created = match.getCreated();
+    }
+
+    public MatchResponseDTO(MatchView match) {
+        this.id = match.getId();
+        this.team1Id = match.getTeam1Id();
+        this.team2Id = match.getTeam2Id();
+        this.winningTeamId = match.getWinningTeamId();
+        this.duration = match.getDuration();
+        this.created = match.getCreated();
+    }
 
     public UUID getId() {
         return id;
@@ -49,4 +75,12 @@ public class MatchResponseDTO {
     public void setDuration(Integer duration) {
         this.duration = duration;
     }
+
+    public Instant getCreated() {
+        return created;
+    }
+
+    public void setCreated(Instant created) {
+        this.created = created;
+    }
 }
@@ -0,0 +1,70 @@
+package api.modelsDTO;
+
+import java.util.UUID;
+
+public class MatchmakingTicketDTO {
+
+    private UUID playerId;
+    private int teamSize;
+    private String status; // WAITING or MATCHED
+    private long waitedMs;
+    private int eloWindow; // current tolerance while WAITING
+    private UUID teamId; // the player's random team once MATCHED
+    private UUID opponentTeamId;
+
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    public void setPlayerId(UUID playerId) {
+        this.playerId = playerId;
+    }
+
+    public int getTeamSize() {
+        return teamSize;
+    }
+
+    public void setTeamSize(int teamSize) {
+        this.teamSize = teamSize;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public long getWaitedMs() {
+        return waitedMs;
+    }
+
+    public void setWaitedMs(long waitedMs) {
+        this.waitedMs = waitedMs;
+    }
+
+    public int getEloWindow() {
+        return eloWindow;
+    }
+
+    public void setEloWindow(int eloWindow) {
+        this.eloWindow = eloWindow;
+    }
+
+    public UUID getTeamId() {
+        return teamId;
+    }
+
+    public void setTeamId(UUID teamId) {
+        this.teamId = teamId;
+    }
+
+    public UUID getOpponentTeamId() {
+        return opponentTeamId;
+    }
+
+    public void setOpponentTeamId(UUID opponentTeamId) {
+        this.opponentTeamId = opponentTeamId;
+    }
+}
@@ -0,0 +1,33 @@
+package api.modelsDTO;
+
+import java.util.List;
+
+public class PlayerPageDTO {
+
+    private List<PlayerResponseDTO> players;
+    private String nextCursor;
+
+    public PlayerPageDTO() {
+    }
+
+    public PlayerPageDTO(List<PlayerResponseDTO> players, String nextCursor) {
+        this.players = players;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<PlayerResponseDTO> getPlayers() {
+        return players;
+    }
+
+    public void setPlayers(List<PlayerResponseDTO> players) {
+        this.players = players;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
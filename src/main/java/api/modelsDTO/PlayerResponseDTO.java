@@ -1,6 +1,7 @@
 package api.modelsDTO;
 
 import api.models.Player;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.util.UUID;
 
@@ -15,17 +16,25 @@ public class PlayerResponseDTO {
     private UUID teamId;
     private Integer ratingAdjustment;
 
+    // Set on the responses ResponseCache and JsonFragmentCache load, 0 for the rest
+    private long version;
+
     public PlayerResponseDTO() {
     }
 
     public PlayerResponseDTO(Player player) {
+        this(player, player.getTeam() != null ? player.getTeam().getId() : null);
+    }
+
+    // For players whose team is known to the caller, like the members of a random team that is not stored
+    public PlayerResponseDTO(Player player, UUID teamId) {
         this.id = player.getId();
         this.nickname = player.getNickname();
         this.wins = player.getWins();
         this.losses = player.getLosses();
         this.elo = player.getElo();
         this.hoursPlayed = player.getHoursPlayed();
-        this.teamId = player.getTeam() != null ? player.getTeam().getId() : null;
+        this.teamId = teamId;
         this.ratingAdjustment = player.getRatingAdjustment();
     }
 
@@ -92,4 +101,13 @@ public class PlayerResponseDTO {
     public void setRatingAdjustment(Integer ratingAdjustment) {
         this.ratingAdjustment = ratingAdjustment;
     }
+
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,97 @@
+package api.modelsDTO;
+
+import java.time.Instant;
+
+public class RatingReplayProgressDTO {
+
+    private String state; // IDLE, RUNNING, COMPLETED or FAILED
+    private long totalMatches;
+    private long matchesReplayed;
+    private long matchesSkipped; // matches recorded without a roster snapshot
+    private long totalPlayers;
+    private long playersWritten;
+    private long playersSkipped; // stored hours, wins or losses not reproduced by the replay, left as they are
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public long getTotalMatches() {
+        return totalMatches;
+    }
+
+    public void setTotalMatches(long totalMatches) {
+        this.totalMatches = totalMatches;
+    }
+
+    public long getMatchesReplayed() {
+        return matchesReplayed;
+    }
+
+    public void setMatchesReplayed(long matchesReplayed) {
+        this.matchesReplayed = matchesReplayed;
+    }
+
+    public long getMatchesSkipped() {
+        return matchesSkipped;
+    }
+
+    public void setMatchesSkipped(long matchesSkipped) {
+        this.matchesSkipped = matchesSkipped;
+    }
+
+    public long getTotalPlayers() {
+        return totalPlayers;
+    }
+
+    public void setTotalPlayers(long totalPlayers) {
+        this.totalPlayers = totalPlayers;
+    }
+
+    public long getPlayersWritten() {
+        return playersWritten;
+    }
+
+    public void setPlayersWritten(long playersWritten) {
+        this.playersWritten = playersWritten;
+    }
+
+    public long getPlayersSkipped() {
+        return playersSkipped;
+    }
+
+    public void setPlayersSkipped(long playersSkipped) {
+        this.playersSkipped = playersSkipped;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
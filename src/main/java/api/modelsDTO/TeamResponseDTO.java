@@ -1,5 +1,9 @@
 package api.modelsDTO;
 
+import api.models.Team;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -9,6 +13,19 @@ public class TeamResponseDTO {
     private String teamName;
     private List<PlayerResponseDTO> players;
 
+    // Set by ResponseCache on the responses it loads, 0 for the rest, see JsonFragmentCache
+    private long version;
+
+    public TeamResponseDTO() {
+    }
+
+    public TeamResponseDTO(Team team) {
+        this.id = team.getId();
+        this.teamName = team.getTeamName();
+        this.players = new ArrayList<>(team.getPlayers().size());
+        team.getPlayers().forEach(player -> players.add(new PlayerResponseDTO(player, team.getId())));
+    }
+
     public UUID getId() {
         return id;
     }
@@ -32,4 +49,13 @@ public class TeamResponseDTO {
     public void setPlayers(List<PlayerResponseDTO> players) {
         this.players = players;
     }
+
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
@@ -1,13 +1,63 @@
 package api.repositories;
 
 import api.models.Match;
-import api.models.Team;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-import java.util.List;
+import java.time.Instant;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface MatchRepositoryI extends JpaRepository<Match, UUID> {
 
-    List<Match> findByTeam1OrTeam2(Team team1, Team team2);
+    boolean existsByTeam1Id(UUID teamId);
+
+    boolean existsByTeam2Id(UUID teamId);
+
+    // Keyset pages of GET /matches, newest first: created in [from, before), or equal to before with a smaller id.
+    // Team ids are read off the foreign keys, no Team is loaded. Each query walks one (created) or (team, created) index backwards;
+    // InnoDB appends the id to secondary indexes, so the tie-break needs no extra column. Streamed: the response writes
+    // each row as it is read.
+    @Query("select m.id as id, m.team1.id as team1Id, m.team2.id as team2Id, m.winningTeam.id as winningTeamId, " +
+            "m.duration as duration, m.created as created from Match m " +
+            "where m.created >= :from and (m.created < :before or (m.created = :before and m.id < :beforeId)) " +
+            "order by m.created desc, m.id desc")
+    Stream<MatchView> findPageCreatedBefore(@Param("from") Instant from, @Param("before") Instant before,
+                                          @Param("beforeId") UUID beforeId, Pageable page);
+
+    @Query("select m.id as id, m.team1.id as team1Id, m.team2.id as team2Id, m.winningTeam.id as winningTeamId, " +
+            "m.duration as duration, m.created as created from Match m " +
+            "where m.team1.id = :teamId and m.created >= :from " +
+            "and (m.created < :before or (m.created = :before and m.id < :beforeId)) " +
+            "order by m.created desc, m.id desc")
+    Stream<MatchView> findTeam1PageCreatedBefore(@Param("teamId") UUID teamId, @Param("from") Instant from, @Param("before") Instant before,
+                                               @Param("beforeId") UUID beforeId, Pageable page);
+
+    @Query("select m.id as id, m.team1.id as team1Id, m.team2.id as team2Id, m.winningTeam.id as winningTeamId, " +
+            "m.duration as duration, m.created as created from Match m " +
+            "where m.team2.id = :teamId and m.created >= :from " +
+            "and (m.created < :before or (m.created = :before and m.id < :beforeId)) " +
+            "order by m.created desc, m.id desc")
+    Stream<MatchView> findTeam2PageCreatedBefore(@Param("teamId") UUID teamId, @Param("from") Instant from, @Param("before") Instant before,
+                                               @Param("beforeId") UUID beforeId, Pageable page);
+
+    // Matches recorded before created existed, by id after all the dated ones. A fixed set, so it goes unindexed.
+    @Query("select m.id as id, m.team1.id as team1Id, m.team2.id as team2Id, m.winningTeam.id as winningTeamId, " +
+            "m.duration as duration, m.created as created from Match m " +
+            "where m.created is null and (:teamId is null or m.team1.id = :teamId or m.team2.id = :teamId) " +
+            "and (:beforeId is null or m.id < :beforeId) " +
+            "order by m.id desc")
+    Stream<MatchView> findUndatedPage(@Param("teamId") UUID teamId, @Param("beforeId") UUID beforeId, Pageable page);
+
+    // One row per (match, player) in play order: id, duration, team1 id, winning team id, player id, team number.
+    // With useCursorFetch=true on the JDBC url the MySQL driver reads this through a server-side cursor in fetch-size
+    // chunks instead of buffering the whole result.
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "10000"))
+    @Query("select m.id, m.duration, m.team1.id, m.winningTeam.id, r.playerId, r.teamNumber " +
+            "from Match m join m.roster r order by m.created, m.id")
+    Stream<Object[]> streamRostersInPlayOrder();
 }
@@ -0,0 +1,19 @@
+package api.repositories;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public interface MatchView {
+
+    UUID getId();
+
+    UUID getTeam1Id();
+
+    UUID getTeam2Id();
+
+    UUID getWinningTeamId();
+
+    int getDuration();
+
+    Instant getCreated();
+}
@@ -0,0 +1,24 @@
+package api.repositories;
+
+import api.models.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public interface OutboxRepositoryI extends JpaRepository<OutboxEvent, UUID> {
+
+    // Lock timeout -2 is SKIP LOCKED, so several instances can claim batches without waiting on each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select e from OutboxEvent e where e.dead = false and e.nextAttemptAt <= :now order by e.nextAttemptAt")
+    List<OutboxEvent> findDue(@Param("now") Instant now, Pageable pageable);
+}
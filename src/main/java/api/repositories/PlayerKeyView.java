@@ -0,0 +1,10 @@
+package api.repositories;
+
+import java.util.UUID;
+
+public interface PlayerKeyView {
+
+    UUID getId();
+
+    String getNickname();
+}
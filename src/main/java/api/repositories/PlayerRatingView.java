@@ -0,0 +1,12 @@
+package api.repositories;
+
+import java.util.UUID;
+
+public interface PlayerRatingView {
+
+    UUID getId();
+
+    String getNickname();
+
+    int getElo();
+}
@@ -2,14 +2,19 @@ package api.repositories;
 
 import api.models.Player;
 import api.models.Team;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface PlayerRepositoryI extends JpaRepository<Player, UUID> {
 
@@ -17,6 +22,50 @@ public interface PlayerRepositoryI extends JpaRepository<Player, UUID> {
 
     boolean existsByNickname(String nickname);
 
-    @Query("select p from Player p where p.team is null order by p.elo desc")
-    Set<Player> findAllForGeneratedTeam();
+    boolean existsByTeamId(UUID teamId);
+
+    List<Player> findAllByTeamIdIn(Collection<UUID> teamIds);
+
+    @Query("select p.id from Player p")
+    List<UUID> findAllIds();
+
+    @Query("select p.id as id, p.version as version from Player p")
+    List<PlayerVersionView> findAllVersions();
+
+    @Query("select p.id as id, p.nickname as nickname, p.elo as elo from Player p")
+    List<PlayerRatingView> findAllRatings();
+
+    // Best free players first, read off idx_players_team_elo: the database stops after one page instead of sorting every free player
+    @Query("select p from Player p where p.team is null order by p.elo desc, p.id")
+    List<Player> findAllForGeneratedTeam(Pageable page);
+
+    // The next page after (elo, id) in the same order, a seek on the same index instead of skipping an offset
+    @Query("select p from Player p where p.team is null and (p.elo < :elo or (p.elo = :elo and p.id > :id)) order by p.elo desc, p.id")
+    List<Player> findAllForGeneratedTeamAfter(@Param("elo") int elo, @Param("id") UUID id, Pageable page);
+
+    // Keyset pages for GET /players: each page starts right after the last key of the previous one, read off the
+    // primary key or the unique nickname index, so page n costs the same as page 1. Only the keys: the players come
+    // from JsonFragmentCache, which loads the ones it does not have.
+    @Query("select p.id as id, p.nickname as nickname from Player p order by p.id")
+    List<PlayerKeyView> findPageOrderById(Pageable page);
+
+    @Query("select p.id as id, p.nickname as nickname from Player p where p.id > :after order by p.id")
+    List<PlayerKeyView> findPageOrderByIdAfter(@Param("after") UUID after, Pageable page);
+
+    @Query("select p.id as id, p.nickname as nickname from Player p order by p.nickname")
+    List<PlayerKeyView> findPageOrderByNickname(Pageable page);
+
+    @Query("select p.id as id, p.nickname as nickname from Player p where p.nickname > :after order by p.nickname")
+    List<PlayerKeyView> findPageOrderByNicknameAfter(@Param("after") String after, Pageable page);
+
+    // Every player as id, nickname, wins, losses, elo, hoursPlayed, team id, ratingAdjustment, read through a server-side
+    // cursor like MatchRepositoryI.streamRostersInPlayOrder. Plain rows, so nothing piles up in the persistence context.
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "10000"))
+    @Query("select p.id, p.nickname, p.wins, p.losses, p.elo, p.hoursPlayed, t.id, p.ratingAdjustment " +
+            "from Player p left join p.team t")
+    Stream<Object[]> streamAllForExport();
+
+    @Modifying
+    @Query("update Player p set p.team = null where p.team.id in :teamIds")
+    int releaseFromTeams(@Param("teamIds") Collection<UUID> teamIds);
 }
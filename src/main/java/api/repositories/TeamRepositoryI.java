@@ -1,12 +1,27 @@
 package api.repositories;
 
 import api.models.Team;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface TeamRepositoryI extends JpaRepository<Team, UUID> {
 
     boolean existsByTeamName(String teamName);
+
+    // The team and its players in one select instead of a second one when the players are first touched
+    @EntityGraph(attributePaths = "players")
+    Optional<Team> findWithPlayersById(UUID id);
+
+    // Stored random teams older than the cutoff, oldest first, off idx_teams_random_created. Teams from before
+    // created_at existed have none and count as stale.
+    @Query("select t.id from Team t where t.isRandom = true and (t.createdAt is null or t.createdAt < :cutoff) order by t.createdAt")
+    List<UUID> findStaleRandomTeamIds(@Param("cutoff") Instant cutoff, Pageable pageable);
 }
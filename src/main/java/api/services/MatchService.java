@@ -1,26 +1,48 @@
 package api.services;
 
-import api.config.BucketLambdaInvoker;
-import api.config.EmailLambdaInvoker;
 import api.exceptions.InvalidInputException;
 import api.exceptions.ResourceNotFoundException;
+import api.exceptions.ServiceBusyException;
 import api.models.Match;
 import api.models.Player;
 import api.models.Team;
 import api.modelsDTO.CreateMatchRequestDTO;
+import api.modelsDTO.MatchBatchResponseDTO;
+import api.modelsDTO.MatchBatchResultDTO;
+import api.modelsDTO.MatchPageDTO;
 import api.modelsDTO.MatchResponseDTO;
 import api.repositories.MatchRepositoryI;
+import api.repositories.MatchView;
 import api.repositories.PlayerRepositoryI;
 import api.repositories.TeamRepositoryI;
+import api.services.cache.ResponseCache;
+import api.services.pipeline.MatchPipeline;
+import api.services.pipeline.MatchTask;
+import api.services.teams.RandomTeamRegistry;
 import api.servicesInterface.MatchServiceI;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.modelmapper.ModelMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-
-import java.util.List;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class MatchService implements MatchServiceI {
@@ -28,152 +50,376 @@ public class MatchService implements MatchServiceI {
     private final TeamRepositoryI teamRepository;
     private final MatchRepositoryI matchRepository;
     private final PlayerRepositoryI playerRepository;
-    private final ModelMapper modelMapper;
-    private final EmailLambdaInvoker emailLambdaInvoker;
-    private final BucketLambdaInvoker bucketLambdaInvoker;
+    private final MatchPipeline matchPipeline;
+    private final RandomTeamRegistry randomTeamRegistry;
+    private final ResponseCache responseCache;
     private final ObjectMapper objectMapper;
+    private final ObjectWriter matchWriter;
+    private final TransactionTemplate readTransaction;
 
     @Autowired
-    public MatchService(TeamRepositoryI teamRepository, MatchRepositoryI matchRepository, PlayerRepositoryI playerRepository, ModelMapper modelMapper) {
+    public MatchService(TeamRepositoryI teamRepository, MatchRepositoryI matchRepository, PlayerRepositoryI playerRepository, MatchPipeline matchPipeline,
+                        RandomTeamRegistry randomTeamRegistry, ResponseCache responseCache, ObjectMapper objectMapper,
+                        PlatformTransactionManager transactionManager) {
         this.teamRepository = teamRepository;
         this.matchRepository = matchRepository;
         this.playerRepository = playerRepository;
-        this.modelMapper = modelMapper;
-        this.emailLambdaInvoker = new EmailLambdaInvoker();
-        this.bucketLambdaInvoker = new BucketLambdaInvoker();
-        this.objectMapper = new ObjectMapper();
+        this.matchPipeline = matchPipeline;
+        this.randomTeamRegistry = randomTeamRegistry;
+        this.responseCache = responseCache;
+        this.objectMapper = objectMapper;
+        // As in PlayerExporter: the servlet buffer decides when a chunk goes out, not every match
+        this.matchWriter = objectMapper.writerFor(MatchResponseDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
     }
 
+    // Validated here, then applied by the team's pipeline partition; returns once the match is committed
     @Override
     public void createMatch(CreateMatchRequestDTO request) {
+        validateRequest(request);
+
+        Team team1 = findTeam(request.getTeam1Id(), "Team 1 not found");
+        Team team2 = findTeam(request.getTeam2Id(), "Team 2 not found");
+
+        MatchTask task = buildTask(request, team1, team2, team1.getPlayers(), team2.getPlayers());
+        List<Team> randomTeams = claimRandomTeams(team1, team2);
+        CompletableFuture<UUID> result;
+        try {
+            result = matchPipeline.submit(task);
+        } catch (RuntimeException e) {
+            unclaim(randomTeams);
+            throw e;
+        }
+        await(afterWrite(result, task, randomTeams));
+    }
+
+    // Teams and players are loaded up front with two set-based queries. The valid matches go to the pipeline as one
+    // group, applied in request order and committed in one transaction: an entry is APPLIED once they all are, and
+    // every submitted entry is REJECTED if the commit fails.
+    @Override
+    public MatchBatchResponseDTO createMatches(List<CreateMatchRequestDTO> requests) {
+        Set<UUID> teamIds = new HashSet<>();
+        for (CreateMatchRequestDTO request : requests) {
+            if (request.getTeam1Id() != null) teamIds.add(request.getTeam1Id());
+            if (request.getTeam2Id() != null) teamIds.add(request.getTeam2Id());
+        }
+
+        Map<UUID, Team> teams = new HashMap<>();
+        Map<UUID, List<Player>> rosters = new HashMap<>();
+        if (!teamIds.isEmpty()) {
+            for (Team team : teamRepository.findAllById(teamIds)) {
+                teams.put(team.getId(), team);
+                rosters.put(team.getId(), new ArrayList<>());
+            }
+            for (Player player : playerRepository.findAllByTeamIdIn(teams.keySet())) {
+                rosters.get(player.getTeam().getId()).add(player);
+            }
+            for (UUID teamId : teamIds) {
+                if (!teams.containsKey(teamId)) {
+                    randomTeamRegistry.find(teamId).ifPresent(team -> {
+                        teams.put(teamId, team);
+                        rosters.put(teamId, team.getPlayers());
+                    });
+                }
+            }
+        }
+
+        List<MatchTask> tasks = new ArrayList<>();
+        List<List<Team>> claimed = new ArrayList<>();
+        List<Integer> submitted = new ArrayList<>();
+        List<MatchBatchResultDTO> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            CreateMatchRequestDTO request = requests.get(i);
+            try {
+                validateRequest(request);
+
+                Team team1 = teams.get(request.getTeam1Id());
+                if (team1 == null) throw new ResourceNotFoundException("Team 1 not found");
+                Team team2 = teams.get(request.getTeam2Id());
+                if (team2 == null) throw new ResourceNotFoundException("Team 2 not found");
+
+                List<Player> team1Players = rosters.get(team1.getId());
+                List<Player> team2Players = rosters.get(team2.getId());
+                MatchTask task = buildTask(request, team1, team2, team1Players, team2Players);
+                claimed.add(claimRandomTeams(team1, team2));
+                tasks.add(task);
+                submitted.add(i);
+                results.add(null);
+
+                // Random teams only live for one match, later entries in the batch can no longer use them
+                for (Team team : List.of(team1, team2)) {
+                    if (team.isRandom()) {
+                        teams.remove(team.getId());
+                    }
+                }
+            } catch (InvalidInputException | ResourceNotFoundException e) {
+                results.add(new MatchBatchResultDTO(i, MatchBatchResultDTO.REJECTED, null, e.getMessage()));
+            }
+        }
+
+        List<CompletableFuture<UUID>> committed;
+        try {
+            committed = matchPipeline.submitAll(tasks);
+        } catch (ServiceBusyException e) {
+            claimed.forEach(this::unclaim);
+            submitted.forEach(i -> results.set(i, new MatchBatchResultDTO(i, MatchBatchResultDTO.REJECTED, null, e.getMessage())));
+            return new MatchBatchResponseDTO(results);
+        }
+        List<CompletableFuture<UUID>> written = new ArrayList<>(tasks.size());
+        for (int j = 0; j < tasks.size(); j++) {
+            written.add(afterWrite(committed.get(j), tasks.get(j), claimed.get(j)));
+        }
+        for (int j = 0; j < tasks.size(); j++) {
+            int i = submitted.get(j);
+            try {
+                results.set(i, new MatchBatchResultDTO(i, MatchBatchResultDTO.APPLIED, await(written.get(j)), null));
+            } catch (RuntimeException e) {
+                results.set(i, new MatchBatchResultDTO(i, MatchBatchResultDTO.REJECTED, null, e.getMessage()));
+            }
+        }
+
+        return new MatchBatchResponseDTO(results);
+    }
+
+    private static final Instant LATEST = Instant.parse("9999-12-31T00:00:00Z");
+
+    // Newest first; ids compare as the database stores them, byte by byte, not like UUID.compareTo
+    private static final Comparator<MatchView> NEWEST_FIRST = Comparator.comparing(MatchView::getCreated)
+            .thenComparing(MatchView::getId, Comparator.comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+                    .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned))
+            .reversed();
+
+    // Keyset pages over (created, id), off the team's two (team, created) indexes or the created index. Matches without
+    // a created time follow the dated ones, by id, unless the request asks for a time range.
+    @Override
+    @Transactional(readOnly = true)
+    public MatchPageDTO getMatches(UUID teamId, Instant from, Instant to, String cursor, int limit) {
+        List<MatchResponseDTO> matches = new ArrayList<>();
+        String nextCursor = forEachMatch(matchQuery(teamId, from, to, cursor, limit), match -> matches.add(new MatchResponseDTO(match)));
+        return new MatchPageDTO(matches, nextCursor);
+    }
+
+    // The page of getMatches as JSON of the same shape, each match written as its row comes off the query. The query
+    // is checked right away, so bad input is still a 400 before anything was written.
+    @Override
+    public Consumer<OutputStream> streamMatches(UUID teamId, Instant from, Instant to, String cursor, int limit) {
+        MatchQuery query = matchQuery(teamId, from, to, cursor, limit);
+        return out -> readTransaction.executeWithoutResult(status -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                json.writeStartObject();
+                json.writeArrayFieldStart("matches");
+                String nextCursor = forEachMatch(query, match -> {
+                    try {
+                        matchWriter.writeValue(json, new MatchResponseDTO(match));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+                json.writeStringField("nextCursor", nextCursor);
+                json.writeEndObject();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private MatchQuery matchQuery(UUID teamId, Instant from, Instant to, String cursor, int limit) {
+        if (limit < 1 || limit > 1000) {
+            throw new InvalidInputException("Limit must be between 1 and 1000");
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new InvalidInputException("from must be before to");
+        }
+
+        boolean dated = true;
+        Instant before = to != null ? to : LATEST;
+        UUID beforeId = null;
+        if (cursor != null) {
+            String[] position = decodeCursor(cursor);
+            dated = position.length == 3;
+            before = dated ? parseCursor(position[1], Instant::parse) : null;
+            beforeId = parseCursor(position[position.length - 1], UUID::fromString);
+        }
+        return new MatchQuery(teamId, from, to, dated, before, beforeId, limit);
+    }
+
+    // Hands the page's matches to the consumer in order and returns the cursor of the next page, or null
+    private String forEachMatch(MatchQuery query, Consumer<MatchView> consumer) {
+        PageSink page = new PageSink(query.limit(), consumer);
+        int rowsWanted = query.limit() + 1; // one past the page tells whether there is a next one
+        if (query.dated()) {
+            Instant earliest = query.from() != null ? query.from() : Instant.EPOCH;
+            PageRequest rows = PageRequest.of(0, rowsWanted);
+            try (Stream<MatchView> first = query.teamId() == null
+                    ? matchRepository.findPageCreatedBefore(earliest, query.before(), query.beforeId(), rows)
+                    : matchRepository.findTeam1PageCreatedBefore(query.teamId(), earliest, query.before(), query.beforeId(), rows);
+                 Stream<MatchView> second = query.teamId() == null
+                         ? Stream.empty()
+                         : matchRepository.findTeam2PageCreatedBefore(query.teamId(), earliest, query.before(), query.beforeId(), rows)) {
+                if (!page.offer(newestFirst(first.iterator(), second.iterator()))) {
+                    return encodeCursor(page.last);
+                }
+            }
+        }
+        if (query.from() == null && query.to() == null) {
+            try (Stream<MatchView> undated = matchRepository.findUndatedPage(query.teamId(), query.dated() ? null : query.beforeId(),
+                    PageRequest.of(0, rowsWanted - page.taken))) {
+                if (!page.offer(undated.iterator())) {
+                    return encodeCursor(page.last);
+                }
+            }
+        }
+        return null;
+    }
+
+    // Merges the team's matches as team 1 and as team 2, both already newest first
+    private static Iterator<MatchView> newestFirst(Iterator<MatchView> first, Iterator<MatchView> second) {
+        return new Iterator<>() {
+            private MatchView nextFirst = first.hasNext() ? first.next() : null;
+            private MatchView nextSecond = second.hasNext() ? second.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return nextFirst != null || nextSecond != null;
+            }
+
+            @Override
+            public MatchView next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                MatchView match;
+                if (nextSecond == null || (nextFirst != null && NEWEST_FIRST.compare(nextFirst, nextSecond) <= 0)) {
+                    match = nextFirst;
+                    nextFirst = first.hasNext() ? first.next() : null;
+                } else {
+                    match = nextSecond;
+                    nextSecond = second.hasNext() ? second.next() : null;
+                }
+                return match;
+            }
+        };
+    }
+
+    // Opaque to clients: "d/created/id" for a dated match, "u/id" for one without a created time, base64url encoded
+    private static String encodeCursor(MatchView last) {
+        String position = last.getCreated() != null ? "d/" + last.getCreated() + "/" + last.getId() : "u/" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        String[] position;
+        try {
+            position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("/");
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInputException("Invalid cursor");
+        }
+        boolean valid = (position.length == 3 && position[0].equals("d")) || (position.length == 2 && position[0].equals("u"));
+        if (!valid) {
+            throw new InvalidInputException("Invalid cursor");
+        }
+        return position;
+    }
+
+    private static <T> T parseCursor(String value, Function<String, T> parser) {
+        try {
+            return parser.apply(value);
+        } catch (RuntimeException e) {
+            throw new InvalidInputException("Invalid cursor");
+        }
+    }
+
+    private void validateRequest(CreateMatchRequestDTO request) {
         if (request.getDuration() < 1) {
             throw new InvalidInputException("Duration must be at least 1");
         }
 
+        if (request.getTeam1Id() == null || request.getTeam2Id() == null) {
+            throw new InvalidInputException("Team1Id and Team2Id are mandatory");
+        }
+
         if (request.getTeam1Id().equals(request.getTeam2Id())) {
             throw new InvalidInputException("Team1 and Team2 must be different teams");
         }
+    }
 
-
-        Team team1 = teamRepository.findById(request.getTeam1Id())
-                .orElseThrow(() -> new ResourceNotFoundException("Team 1 not found"));
-
-        Team team2 = teamRepository.findById(request.getTeam2Id())
-                .orElseThrow(() -> new ResourceNotFoundException("Team 2 not found"));
-
-        if (team1.getPlayers().size() != team2.getPlayers().size()){
+    private MatchTask buildTask(CreateMatchRequestDTO request, Team team1, Team team2, List<Player> team1Players, List<Player> team2Players) {
+        if (team1Players.size() != team2Players.size()) {
             throw new InvalidInputException("Team1 and Team2 must have same player count");
         }
 
+        if (team1Players.isEmpty()) {
+            throw new InvalidInputException("Teams must have at least one player");
+        }
+
         Team winningTeam = null;
         if (request.getWinningTeamId() != null) {
-            if (!request.getWinningTeamId().equals(team1.getId()) && !request.getWinningTeamId().equals(team2.getId())) {
+            if (request.getWinningTeamId().equals(team1.getId())) {
+                winningTeam = team1;
+            } else if (request.getWinningTeamId().equals(team2.getId())) {
+                winningTeam = team2;
+            } else {
                 throw new InvalidInputException("Winning team must be either team1 or team2");
             }
-            winningTeam = teamRepository.findById(request.getWinningTeamId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Winning team not found"));
         }
 
-        Match match = new Match();
-        match.setTeam1(team1);
-        match.setTeam2(team2);
-        match.setWinningTeam(winningTeam);
-        match.setDuration(request.getDuration());
+        return new MatchTask(team1, team1Players, team2, team2Players, winningTeam, request.getDuration());
+    }
 
-        if (!team1.isRandom() && !team2.isRandom()) {
-            matchRepository.save(match);
+    // Random teams from generate_teams live in memory only, stored teams are looked up after them
+    private Team findTeam(UUID teamId, String notFoundMessage) {
+        Optional<Team> random = randomTeamRegistry.find(teamId);
+        if (random.isPresent()) {
+            return random.get();
         }
+        // With its players: the match needs the roster ids, not only its size
+        return teamRepository.findWithPlayersById(teamId).orElseThrow(() -> new ResourceNotFoundException(notFoundMessage));
+    }
 
-        try {
-            String jsonString = objectMapper.writeValueAsString(match);
-            emailLambdaInvoker.invokeSendEmailFunction(jsonString);
-            bucketLambdaInvoker.invokeStoreStringDataFunction(jsonString);
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
+    // A random team plays one match: it is claimed before the match is submitted and its players are released once
+    // the match is written
+    private List<Team> claimRandomTeams(Team team1, Team team2) {
+        List<Team> randomTeams = new ArrayList<>(2);
+        if (team1.isRandom()) randomTeams.add(team1);
+        if (team2.isRandom()) randomTeams.add(team2);
+        if (!randomTeams.isEmpty() && !randomTeamRegistry.claim(randomTeams)) {
+            throw new ResourceNotFoundException("Random team has expired or already played a match");
         }
+        return randomTeams;
+    }
 
+    private void unclaim(List<Team> randomTeams) {
+        if (!randomTeams.isEmpty()) {
+            randomTeamRegistry.unclaim(randomTeams);
+        }
+    }
 
-        // Update player stats
-        updatePlayerStats(team1.getPlayers(), team2.getPlayers(), winningTeam, request.getDuration());
-
-        deleteRandomTeam(team1);
-        deleteRandomTeam(team2);
+    // The cached responses of both teams and their players go once the match is committed
+    private CompletableFuture<UUID> afterWrite(CompletableFuture<UUID> result, MatchTask task, List<Team> randomTeams) {
+        return result.whenComplete((matchId, error) -> {
+            randomTeams.forEach(randomTeamRegistry::release);
+            invalidate(task);
+        });
+    }
 
+    private void invalidate(MatchTask task) {
+        responseCache.invalidateTeam(task.getTeam1Id());
+        responseCache.invalidateTeam(task.getTeam2Id());
+        responseCache.invalidatePlayers(task.getTeam1PlayerIds());
+        responseCache.invalidatePlayers(task.getTeam2PlayerIds());
     }
 
-    // Metoda za dobijanje svih mečeva
-    public List<MatchResponseDTO> getAllMatches() {
-        List<Match> matches = matchRepository.findAll();
-        return matches.stream()
-                .map(match -> {
-                    MatchResponseDTO dto = modelMapper.map(match, MatchResponseDTO.class);
-                    dto.setTeam1Id(match.getTeam1().getId());
-                    dto.setTeam2Id(match.getTeam2().getId());
-                    dto.setWinningTeamId(match.getWinningTeam() != null ? match.getWinningTeam().getId() : null);
-                    return dto;
-                })
-                .collect(Collectors.toList());
-    }
-
-    private void updatePlayerStats(List<Player> team1Players, List<Player> team2Players, Team winningTeam, int duration) {
-        double S_team1, S_team2;
-
-        if (winningTeam == null) {// Draw
-            S_team1 = S_team2 = 0.5;
-        } else if (winningTeam.getId().equals(team1Players.get(0).getTeam().getId())) {// Team1 won
-            S_team1 = 1.0;
-            S_team2 = 0.0;
-            team1Players.forEach(player -> player.setWins(player.getWins() + 1));
-            team2Players.forEach(player -> player.setLosses(player.getLosses() + 1));
-        } else {// Team2 won
-            S_team1 = 0.0;
-            S_team2 = 1.0;
-            team2Players.forEach(player -> player.setWins(player.getWins() + 1));
-            team1Players.forEach(player -> player.setLosses(player.getLosses() + 1));
-        }
-
-        // Calculate avg elo
-        int avgEloTeam1 = team1Players.stream().mapToInt(Player::getElo).sum() / team1Players.size();
-        int avgEloTeam2 = team2Players.stream().mapToInt(Player::getElo).sum() / team2Players.size();
-
-        // Update player elo
-        for (Player player : team1Players)
-            updatePlayerElo(player, avgEloTeam2, S_team1, duration);
-        for (Player player : team2Players)
-            updatePlayerElo(player, avgEloTeam1, S_team2, duration);
-    }
-
-    //https://calculator.academy/elo-rating-calculator/
-    private void updatePlayerElo(Player player, int opponentAvgElo, double S, int duration) {
-        double E = 1 / (1 + Math.pow(10, (opponentAvgElo - player.getElo()) / 400.0));
-
-        // Determine K factor
-        int hoursPlayed = player.getHoursPlayed() + duration;
-        int K = getKFactor(hoursPlayed);
-
-        // Update ELO
-        int newElo = (int) Math.round(player.getElo() + K * (S - E));
-        player.setElo(newElo);
-
-        // Update hours played and rating adjustment
-        player.setHoursPlayed(hoursPlayed);
-        player.setRatingAdjustment(K);
-
-        // Save player
-        playerRepository.save(player);
-    }
-
-    private int getKFactor(int hoursPlayed) {
-        if (hoursPlayed < 500) {
-            return 50;
-        } else if (hoursPlayed < 1000) {
-            return 40;
-        } else if (hoursPlayed < 3000) {
-            return 30;
-        } else if (hoursPlayed < 5000) {
-            return 20;
-        } else {
-            return 10;
+    private UUID await(CompletableFuture<UUID> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
     }
 
@@ -182,10 +428,33 @@ public class MatchService implements MatchServiceI {
         matchRepository.deleteAll(matches);
     }
 
-    private void deleteRandomTeam(Team team) {
-        if (team.isRandom()) {
-            teamRepository.delete(team);
-        }
+    private record MatchQuery(UUID teamId, Instant from, Instant to, boolean dated, Instant before, UUID beforeId, int limit) {
     }
 
+    private static final class PageSink {
+
+        private final int limit;
+        private final Consumer<MatchView> consumer;
+        private int taken;
+        private MatchView last;
+
+        PageSink(int limit, Consumer<MatchView> consumer) {
+            this.limit = limit;
+            this.consumer = consumer;
+        }
+
+        // False once a row past the full page turned up
+        boolean offer(Iterator<MatchView> rows) {
+            while (rows.hasNext()) {
+                MatchView row = rows.next();
+                if (taken == limit) {
+                    return false;
+                }
+                consumer.accept(row);
+                last = row;
+                taken++;
+            }
+            return true;
+        }
+    }
 }
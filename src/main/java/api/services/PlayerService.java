@@ -1,24 +1,35 @@
 package api.services;
 
-import api.config.BucketLambdaInvoker;
-import api.config.EmailLambdaInvoker;
 import api.exceptions.DuplicateResourceException;
 import api.exceptions.InvalidInputException;
 import api.exceptions.ResourceNotFoundException;
 import api.models.Player;
 import api.models.Team;
 import api.modelsDTO.CreatePlayerRequestDTO;
+import api.modelsDTO.LeaderboardEntryDTO;
+import api.modelsDTO.PlayerPageDTO;
 import api.modelsDTO.PlayerResponseDTO;
 import api.modelsDTO.UpdatePlayerRequestDTO;
+import api.repositories.PlayerKeyView;
 import api.repositories.PlayerRepositoryI;
 import api.repositories.TeamRepositoryI;
+import api.services.audit.AuditHook;
+import api.services.cache.JsonFragmentCache;
+import api.services.cache.ResponseCache;
+import api.services.leaderboard.Leaderboard;
+import api.services.teams.RandomTeamRegistry;
 import api.servicesInterface.PlayerServiceI;
-import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -26,20 +37,29 @@ import java.util.stream.Collectors;
 public class PlayerService implements PlayerServiceI {
 
     private final PlayerRepositoryI playerRepository;
-    private final ModelMapper modelMapper;
     private final TeamRepositoryI teamRepository;
-    private final EmailLambdaInvoker emailLambdaInvoker;
-    private final BucketLambdaInvoker bucketLambdaInvoker;
+    private final RandomTeamRegistry randomTeamRegistry;
+    private final Leaderboard leaderboard;
+    private final AuditHook auditHook;
+    private final ResponseCache responseCache;
+    private final JsonFragmentCache fragments;
+    private final TransactionTemplate readTransaction;
 
 
     @Autowired
-    public PlayerService(PlayerRepositoryI playerRepository, ModelMapper modelMapper, TeamRepositoryI teamRepository) {
+    public PlayerService(PlayerRepositoryI playerRepository, TeamRepositoryI teamRepository, RandomTeamRegistry randomTeamRegistry,
+                         Leaderboard leaderboard, AuditHook auditHook, ResponseCache responseCache, JsonFragmentCache fragments,
+                         PlatformTransactionManager transactionManager) {
         this.playerRepository = playerRepository;
-        this.modelMapper = modelMapper;
         this.teamRepository = teamRepository;
-        this.emailLambdaInvoker = new EmailLambdaInvoker();
-        this.bucketLambdaInvoker = new BucketLambdaInvoker();
-
+        this.randomTeamRegistry = randomTeamRegistry;
+        this.leaderboard = leaderboard;
+        this.auditHook = auditHook;
+        this.responseCache = responseCache;
+        this.fragments = fragments;
+        // Read-only: Hibernate keeps no dirty-check snapshots of what it loads. Only opened on a cache miss.
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
 
     }
 
@@ -50,7 +70,7 @@ public class PlayerService implements PlayerServiceI {
             throw new DuplicateResourceException("Nickname '" + request.getNickname() + "' already exists.");
         }
 
-        Player player = modelMapper.map(request, Player.class);
+        Player player = request.toPlayer();
         player.setWins(0);
         player.setLosses(0);
         player.setElo(0);
@@ -58,39 +78,92 @@ public class PlayerService implements PlayerServiceI {
         player.setRatingAdjustment(null);
 
         Player savedPlayer = playerRepository.save(player);
+        leaderboard.update(savedPlayer);
 
-        PlayerResponseDTO responseDTO = modelMapper.map(savedPlayer, PlayerResponseDTO.class);
-        responseDTO.setTeamId(null); // team is null at creation
-
-        return responseDTO;
+        return new PlayerResponseDTO(savedPlayer, null); // team is null at creation
     }
 
     @Override
     public PlayerResponseDTO getPlayerById(UUID playerId) {
-        Player player = playerRepository.findById(playerId).orElseThrow(() -> new ResourceNotFoundException("Player not found"));
+        return responseCache.getPlayer(playerId, id -> readTransaction.execute(status -> {
+            Player player = playerRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Player not found"));
+            return new PlayerResponseDTO(player);
+        }));
+    }
 
-        PlayerResponseDTO responseDTO = modelMapper.map(player, PlayerResponseDTO.class);
-        responseDTO.setTeamId(player.getTeam() != null ? player.getTeam().getId() : null);
+    @Override
+    @Transactional(readOnly = true)
+    public List<PlayerResponseDTO> getAllPlayers() {
+        List<PlayerResponseDTO> players = fragments.players(playerRepository.findAllIds(), this::loadPlayers);
+
+        // Read path, no outbound calls unless audit.sample-rate.players.list is set
+        auditHook.record("players.list", Map.of("players", players.size()));
+
+        return players;
 
-        return responseDTO;
     }
 
     @Override
-    public List<PlayerResponseDTO> getAllPlayers() {
-        List<Player> players = playerRepository.findAll();
+    @Transactional(readOnly = true)
+    public PlayerPageDTO getPlayers(String sort, String cursor, int limit) {
+        if (limit < 1 || limit > 1000) {
+            throw new InvalidInputException("Limit must be between 1 and 1000");
+        }
 
-        emailLambdaInvoker.invokeSendEmailFunction("This is a test string :)");
-        bucketLambdaInvoker.invokeStoreStringDataFunction("Test string store :D");
+        // One row past the page tells whether there is a next one
+        PageRequest page = PageRequest.of(0, limit + 1);
+        String after = cursor != null ? decodeCursor(sort, cursor) : null;
+        List<PlayerKeyView> keys = switch (sort) {
+            case "id" -> after == null
+                    ? playerRepository.findPageOrderById(page)
+                    : playerRepository.findPageOrderByIdAfter(parseCursorId(after), page);
+            case "nickname" -> after == null
+                    ? playerRepository.findPageOrderByNickname(page)
+                    : playerRepository.findPageOrderByNicknameAfter(after, page);
+            default -> throw new InvalidInputException("Sort must be id or nickname");
+        };
+
+        String nextCursor = null;
+        if (keys.size() > limit) {
+            keys = keys.subList(0, limit);
+            PlayerKeyView last = keys.get(limit - 1);
+            nextCursor = encodeCursor(sort, sort.equals("id") ? last.getId().toString() : last.getNickname());
+        }
 
+        List<PlayerResponseDTO> players = fragments.players(keys.stream().map(PlayerKeyView::getId).toList(), this::loadPlayers);
+        auditHook.record("players.list", Map.of("players", players.size()));
 
-        return players.stream()
-                .map(player -> {
-                    PlayerResponseDTO dto = modelMapper.map(player, PlayerResponseDTO.class);
-                    dto.setTeamId(player.getTeam() != null ? player.getTeam().getId() : null);
-                    return dto;
-                })
-                .collect(Collectors.toList());
+        return new PlayerPageDTO(players, nextCursor);
+    }
+
+    private List<PlayerResponseDTO> loadPlayers(List<UUID> ids) {
+        return playerRepository.findAllById(ids).stream().map(PlayerResponseDTO::new).collect(Collectors.toList());
+    }
+
+    // Cursors are opaque to clients: the sort and the last key of the page, base64url encoded
+    private static String encodeCursor(String sort, String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((sort + ":" + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String sort, String cursor) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInputException("Invalid cursor");
+        }
+        if (!decoded.startsWith(sort + ":")) {
+            throw new InvalidInputException("Cursor does not belong to sort '" + sort + "'");
+        }
+        return decoded.substring(sort.length() + 1);
+    }
 
+    private static UUID parseCursorId(String key) {
+        try {
+            return UUID.fromString(key);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInputException("Invalid cursor");
+        }
     }
 
 
@@ -110,11 +183,11 @@ public class PlayerService implements PlayerServiceI {
         existingPlayer.setHoursPlayed(request.getHoursPlayed());
 
         Player updatedPlayer = playerRepository.save(existingPlayer);
+        leaderboard.update(updatedPlayer);
+        responseCache.invalidatePlayer(playerId);
+        responseCache.invalidateTeam(updatedPlayer.getTeam() != null ? updatedPlayer.getTeam().getId() : null);
 
-        PlayerResponseDTO responseDTO = modelMapper.map(updatedPlayer, PlayerResponseDTO.class);
-        responseDTO.setTeamId(updatedPlayer.getTeam() != null ? updatedPlayer.getTeam().getId() : null);
-
-        return responseDTO;
+        return new PlayerResponseDTO(updatedPlayer);
     }
 
     public void deletePlayer(UUID playerId) {
@@ -125,7 +198,40 @@ public class PlayerService implements PlayerServiceI {
             throw new InvalidInputException("Cannot delete player who is part of a team.");
         }
 
-        playerRepository.delete(existingPlayer);
+        // A random team lives only in memory, its players are held in the registry. Held here until the row is gone.
+        UUID holderId = UUID.randomUUID();
+        List<Player> held = randomTeamRegistry.reserve(holderId, List.of(existingPlayer), 1);
+        try {
+            if (held.isEmpty()) {
+                throw new InvalidInputException("Cannot delete player who is part of a team.");
+            }
+
+            playerRepository.delete(existingPlayer);
+            leaderboard.remove(playerId);
+            responseCache.invalidatePlayer(playerId);
+        } finally {
+            randomTeamRegistry.release(holderId, held);
+        }
+    }
+
+    @Override
+    public List<LeaderboardEntryDTO> getLeaderboard(int offset, int limit) {
+        if (offset < 0) {
+            throw new InvalidInputException("Offset cannot be negative");
+        }
+        if (limit < 1 || limit > 1000) {
+            throw new InvalidInputException("Limit must be between 1 and 1000");
+        }
+        return leaderboard.page(offset, limit);
+    }
+
+    @Override
+    public LeaderboardEntryDTO getPlayerRank(UUID playerId) {
+        LeaderboardEntryDTO entry = leaderboard.rankOf(playerId);
+        if (entry == null) {
+            throw new ResourceNotFoundException("Player not found");
+        }
+        return entry;
     }
 
 
@@ -134,17 +240,14 @@ public class PlayerService implements PlayerServiceI {
         Player player = playerRepository.findById(playerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Player not found"));
 
+        // The player owns the relation: clearing it is one update, the team and its other players are never loaded
         Team team = player.getTeam();
-
+        player.setTeam(null);
+        playerRepository.save(player);
         if (team != null) {
-            team.getPlayers().remove(player);
-            player.setTeam(null);
-
-            teamRepository.save(team);
-        } else {
-            player.setTeam(null);
+            responseCache.invalidateTeam(team.getId());
         }
-        playerRepository.save(player);
+        responseCache.invalidatePlayer(playerId);
 
         return new PlayerResponseDTO(player);
     }
@@ -152,5 +255,7 @@ public class PlayerService implements PlayerServiceI {
     public void deleteData() {
         List<Player> players = playerRepository.findAll();
         playerRepository.deleteAll(players);
+        leaderboard.clear();
+        responseCache.invalidateAll();
     }
 }
@@ -3,17 +3,21 @@ package api.services;
 import api.exceptions.DuplicateResourceException;
 import api.exceptions.InvalidInputException;
 import api.exceptions.ResourceNotFoundException;
-import api.models.Match;
 import api.models.Player;
 import api.models.Team;
 import api.modelsDTO.*;
 import api.repositories.MatchRepositoryI;
 import api.repositories.PlayerRepositoryI;
 import api.repositories.TeamRepositoryI;
+import api.services.cache.ResponseCache;
+import api.services.teams.RandomTeamRegistry;
+import api.services.teams.partition.TeamPartitionEngine;
 import api.servicesInterface.TeamServiceI;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -21,18 +25,29 @@ import java.util.stream.Collectors;
 @Service
 public class TeamService implements TeamServiceI {
 
+    private static final int MAX_CANDIDATE_PAGE = 1000;
 
     private final TeamRepositoryI teamRepository;
     private final PlayerRepositoryI playerRepository;
     private final MatchRepositoryI matchRepository;
-    private final ModelMapper modelMapper;
+    private final RandomTeamRegistry randomTeamRegistry;
+    private final TeamPartitionEngine teamPartitionEngine;
+    private final ResponseCache responseCache;
+    private final TransactionTemplate readTransaction;
 
     @Autowired
-    public TeamService(TeamRepositoryI teamRepository, PlayerRepositoryI playerRepository, ModelMapper modelMapper, MatchRepositoryI matchRepositoryI) {
+    public TeamService(TeamRepositoryI teamRepository, PlayerRepositoryI playerRepository, MatchRepositoryI matchRepositoryI,
+                       RandomTeamRegistry randomTeamRegistry, TeamPartitionEngine teamPartitionEngine, ResponseCache responseCache,
+                       PlatformTransactionManager transactionManager) {
         this.teamRepository = teamRepository;
         this.playerRepository = playerRepository;
-        this.modelMapper = modelMapper;
         this.matchRepository = matchRepositoryI;
+        this.randomTeamRegistry = randomTeamRegistry;
+        this.teamPartitionEngine = teamPartitionEngine;
+        this.responseCache = responseCache;
+        // Read-only: Hibernate keeps no dirty-check snapshots of what it loads. Only opened on a cache miss.
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
     }
 
 
@@ -58,50 +73,49 @@ public class TeamService implements TeamServiceI {
             }
         }
 
-        Team team = new Team();
-        team.setTeamName(request.getTeamName());
-        team.setPlayers(players);
+        // Players in a random team are still free in the database. Holding them until the team is stored keeps
+        // generate_teams and the matchmaker from picking them in between.
+        UUID holderId = UUID.randomUUID();
+        List<Player> held = randomTeamRegistry.reserve(holderId, players, players.size());
+        try {
+            for (Player player : players) {
+                if (!held.contains(player)) {
+                    throw new InvalidInputException("Player '" + player.getNickname() + "' is already in a random team.");
+                }
+            }
 
-        for (Player player : players) {
-            player.setTeam(team);
-            player.setRatingAdjustment(50);
-        }
+            Team team = new Team();
+            team.setTeamName(request.getTeamName());
+            team.setPlayers(players);
 
-        Team savedTeam = teamRepository.save(team);
+            for (Player player : players) {
+                player.setTeam(team);
+                player.setRatingAdjustment(50);
+            }
 
-        TeamResponseDTO responseDTO = modelMapper.map(savedTeam, TeamResponseDTO.class);
-        List<PlayerResponseDTO> playerResponseDTOs = players.stream()
-                .map(player -> {
-                    PlayerResponseDTO dto = modelMapper.map(player, PlayerResponseDTO.class);
-                    dto.setTeamId(savedTeam.getId());
-                    return dto;
-                })
-                .collect(Collectors.toList());
-        responseDTO.setPlayers(playerResponseDTOs);
+            Team savedTeam = teamRepository.save(team);
+            responseCache.invalidatePlayers(request.getPlayers());
 
-        return responseDTO;
+            return new TeamResponseDTO(savedTeam);
+        } finally {
+            randomTeamRegistry.release(holderId, held);
+        }
     }
 
     @Override
     public TeamResponseDTO getTeamById(UUID teamId) {
-        Team team = teamRepository.findById(teamId).orElseThrow(() -> new ResourceNotFoundException("Team not found"));
-
-        TeamResponseDTO responseDTO = modelMapper.map(team, TeamResponseDTO.class);
-        List<PlayerResponseDTO> playerResponseDTOs = team.getPlayers().stream()
-                .map(player -> {
-                    PlayerResponseDTO dto = modelMapper.map(player, PlayerResponseDTO.class);
-                    dto.setTeamId(team.getId());
-                    return dto;
-                })
-                .collect(Collectors.toList());
-        responseDTO.setPlayers(playerResponseDTOs);
-
-        return responseDTO;
+        Optional<Team> randomTeam = randomTeamRegistry.find(teamId);
+        if (randomTeam.isPresent()) {
+            return new TeamResponseDTO(randomTeam.get());
+        }
+
+        return responseCache.getTeam(teamId, id -> readTransaction.execute(status ->
+                new TeamResponseDTO(teamRepository.findWithPlayersById(id).orElseThrow(() -> new ResourceNotFoundException("Team not found")))));
     }
 
 
     public TeamResponseDTO updateTeam(UUID teamId, UpdateTeamRequestDTO request) {
-        Team existingTeam = teamRepository.findById(teamId)
+        Team existingTeam = teamRepository.findWithPlayersById(teamId)
                 .orElseThrow(() -> new ResourceNotFoundException("Team not found"));
 
         if (!existingTeam.getTeamName().equals(request.getTeamName()) &&
@@ -112,30 +126,26 @@ public class TeamService implements TeamServiceI {
         existingTeam.setTeamName(request.getTeamName());
 
         Team updatedTeam = teamRepository.save(existingTeam);
+        responseCache.invalidateTeam(teamId);
 
-        TeamResponseDTO responseDTO = modelMapper.map(updatedTeam, TeamResponseDTO.class);
-        responseDTO.setPlayers(updatedTeam.getPlayers().stream()
-                .map(player -> modelMapper.map(player, PlayerResponseDTO.class))
-                .collect(Collectors.toList()));
-
-        return responseDTO;
+        return new TeamResponseDTO(updatedTeam);
     }
 
     public void deleteTeam(UUID teamId) {
         Team existingTeam = teamRepository.findById(teamId)
                 .orElseThrow(() -> new ResourceNotFoundException("Team not found"));
 
-        if (!existingTeam.getPlayers().isEmpty()) {
+        if (playerRepository.existsByTeamId(teamId)) {
             throw new InvalidInputException("Cannot delete team with assigned players.");
         }
 
-        // Optionally, check for matches involving this team
-        List<Match> matches = matchRepository.findByTeam1OrTeam2(existingTeam, existingTeam);
-        if (!matches.isEmpty()) {
+        // One probe into each (team, created) index instead of loading every match of the team
+        if (matchRepository.existsByTeam1Id(teamId) || matchRepository.existsByTeam2Id(teamId)) {
             throw new InvalidInputException("Cannot delete team with associated matches.");
         }
 
         teamRepository.delete(existingTeam);
+        responseCache.invalidateTeam(teamId);
     }
 
     public void swapPlayers(SwapPlayersRequestDTO request) {
@@ -187,96 +197,49 @@ public class TeamService implements TeamServiceI {
         // Sačuvaj promene
         playerRepository.saveAll(team1PlayersToSwap);
         playerRepository.saveAll(team2PlayersToSwap);
+        responseCache.invalidateTeam(team1.getId());
+        responseCache.invalidateTeam(team2.getId());
+        responseCache.invalidatePlayers(request.getTeam1PlayerIds());
+        responseCache.invalidatePlayers(request.getTeam2PlayerIds());
     }
 
     @Override
     public List<TeamResponseDTO> generateTeams(Integer teamSize) {
+        if (teamSize == null || teamSize < 1)
+            throw new InvalidInputException("Team size must be at least 1");
+
         int playersNumber = teamSize * 2;
-        Set<Player> allPlayersForMatch =
-                playerRepository.findAllForGeneratedTeam().stream().limit(playersNumber).collect(Collectors.toSet());
+        UUID holderId = UUID.randomUUID();
+        List<Player> allPlayersForMatch = new ArrayList<>(playersNumber);
+        List<Team> randomTeams;
+        try {
+            // Reserved players are still free in the database and come first. The page is sized to read past them in one
+            // go, and every further page seeks from the last candidate instead of rereading from the top.
+            PageRequest page = PageRequest.of(0, Math.min(playersNumber + randomTeamRegistry.reservedCount(), MAX_CANDIDATE_PAGE));
+            List<Player> candidates = playerRepository.findAllForGeneratedTeam(page);
+            while (true) {
+                allPlayersForMatch.addAll(randomTeamRegistry.reserve(holderId, candidates, playersNumber - allPlayersForMatch.size()));
+                if (allPlayersForMatch.size() == playersNumber || candidates.size() < page.getPageSize())
+                    break;
+                Player last = candidates.get(candidates.size() - 1);
+                candidates = playerRepository.findAllForGeneratedTeamAfter(last.getElo(), last.getId(), page);
+            }
 
-        if (allPlayersForMatch.size() < playersNumber)
-            throw new RuntimeException("Not enough players for this match");
+            if (allPlayersForMatch.size() < playersNumber)
+                throw new RuntimeException("Not enough players for this match");
 
-        GeneratedTeamsDto generatedTeamsDto = generateTeams(allPlayersForMatch);
-        TeamResponseDTO team1 = createRandomTeam(generatedTeamsDto.getTeam1().stream().toList());
-        TeamResponseDTO team2 = createRandomTeam(generatedTeamsDto.getTeam1().stream().toList());
+            randomTeams = randomTeamRegistry.create(holderId, teamPartitionEngine.split(allPlayersForMatch));
+        } catch (RuntimeException e) {
+            randomTeamRegistry.release(holderId, allPlayersForMatch);
+            throw e;
+        }
 
-        return List.of(team1, team2);
+        return randomTeams.stream().map(TeamResponseDTO::new).collect(Collectors.toList());
     }
 
     public void deleteData() {
         List<Team> teams = teamRepository.findAll();
         teamRepository.deleteAll(teams);
+        responseCache.invalidateAll();
     }
-
-    private TeamResponseDTO createRandomTeam(List<Player> players) {
-        Team team = new Team();
-        team.setTeamName(UUID.randomUUID().toString());
-        team.setPlayers(players);
-        team.setRandom(true);
-
-        for (Player player : players) {
-            player.setTeam(team);
-            player.setRatingAdjustment(50);
-        }
-
-        Team savedTeam = teamRepository.save(team);
-
-        TeamResponseDTO responseDTO = modelMapper.map(savedTeam, TeamResponseDTO.class);
-        List<PlayerResponseDTO> playerResponseDTOs = players.stream()
-                .map(player -> {
-                    PlayerResponseDTO dto = modelMapper.map(player, PlayerResponseDTO.class);
-                    dto.setTeamId(savedTeam.getId());
-                    return dto;
-                })
-                .collect(Collectors.toList());
-        responseDTO.setPlayers(playerResponseDTOs);
-        return responseDTO;
-    }
-
-    private GeneratedTeamsDto generateTeams(Set<Player> players) {
-        List<Player> listOfPlayer = new ArrayList<>(players);
-
-        Set<Player> team1 = new HashSet<>();
-        Set<Player> team2 = new HashSet<>();
-
-        int totalPlayers = listOfPlayer.size();
-        int N = totalPlayers / 2;
-
-        int left = 0;
-        int right = totalPlayers - 1;
-
-        while (left <= right) {
-            team1.add(listOfPlayer.get(left));
-            if (left != right) {
-                team1.add(listOfPlayer.get(right));
-            }
-            left++;
-            right--;
-
-            if (left <= right) {
-                team2.add(listOfPlayer.get(left));
-                if (left != right) {
-                    team2.add(listOfPlayer.get(right));
-                }
-                left++;
-                right--;
-            }
-        }
-
-        if (totalPlayers % 2 != 0) {
-            // If N is odd, first team gets the N-th player (index N-1)
-            team1.add(listOfPlayer.get(N));
-        } else if (N % 2 == 0 && left == right + 1) {
-            // If N is even, second team gets the N-th (index N-1) and N+1-th (index N) players
-            team2.add(listOfPlayer.get(N - 1));
-            team2.add(listOfPlayer.get(N));
-        }
-
-        var teams = new GeneratedTeamsDto();
-        teams.setTeam1(team1);
-        teams.setTeam2(team2);
-        return teams;
-    }
-}
+}
\ No newline at end of file
@@ -0,0 +1,74 @@
+package api.services.archive;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * How records are framed inside a segment's blocks: NDJSON lines of the event JSON, or the binary
+ * {@link api.services.events.MatchEventCodec} encoding with a 4 byte length in front of each record.
+ */
+enum ArchiveFormat {
+
+    NDJSON(".ndjson.gz", "application/x-ndjson") {
+        @Override
+        void write(ByteArrayOutputStream block, byte[] record) {
+            block.writeBytes(record);
+            block.write('\n');
+        }
+
+        @Override
+        byte[] read(InputStream block, int record) throws IOException {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(block, StandardCharsets.UTF_8));
+            for (int i = 0; i < record; i++) {
+                reader.readLine();
+            }
+            String line = reader.readLine();
+            return line == null ? null : line.getBytes(StandardCharsets.UTF_8);
+        }
+    },
+
+    BINARY(".events.gz", "application/octet-stream") {
+        @Override
+        void write(ByteArrayOutputStream block, byte[] record) throws IOException {
+            new DataOutputStream(block).writeInt(record.length);
+            block.writeBytes(record);
+        }
+
+        @Override
+        byte[] read(InputStream block, int record) throws IOException {
+            DataInputStream input = new DataInputStream(block);
+            for (int i = 0; i < record; i++) {
+                input.skipNBytes(input.readInt());
+            }
+            return input.readNBytes(input.readInt());
+        }
+    };
+
+    final String dataSuffix;
+    final String contentType;
+
+    ArchiveFormat(String dataSuffix, String contentType) {
+        this.dataSuffix = dataSuffix;
+        this.contentType = contentType;
+    }
+
+    static ArchiveFormat forDataFile(String fileName) {
+        for (ArchiveFormat format : values()) {
+            if (fileName.endsWith(format.dataSuffix) || fileName.endsWith(format.dataSuffix + ArchiveSegmentWriter.PART_SUFFIX)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    abstract void write(ByteArrayOutputStream block, byte[] record) throws IOException;
+
+    // The record-th record of an inflated block
+    abstract byte[] read(InputStream block, int record) throws IOException;
+}
@@ -0,0 +1,94 @@
+package api.services.archive;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * Segment index files: fixed 32 byte records of match id (two longs), block offset, block length and line number
+ * within the block. Sealed indexes are sorted by id, so a lookup is a binary search over the file.
+ */
+final class ArchiveIndex {
+
+    static final int RECORD_SIZE = 32;
+
+    static final Comparator<long[]> ORDER = Comparator.<long[]>comparingLong(e -> e[0]).thenComparingLong(e -> e[1]);
+
+    private ArchiveIndex() {
+    }
+
+    static void write(DataOutput output, UUID id, long blockOffset, int blockLength, int line) throws IOException {
+        output.writeLong(id.getMostSignificantBits());
+        output.writeLong(id.getLeastSignificantBits());
+        output.writeLong(blockOffset);
+        output.writeInt(blockLength);
+        output.writeInt(line);
+    }
+
+    static void write(DataOutput output, long[] entry) throws IOException {
+        output.writeLong(entry[0]);
+        output.writeLong(entry[1]);
+        output.writeLong(entry[2]);
+        output.writeInt((int) entry[3]);
+        output.writeInt((int) entry[4]);
+    }
+
+    // {msb, lsb, block offset, block length, line}, or null at the end. A record cut short by a crash counts as the end.
+    static long[] read(DataInput input) throws IOException {
+        try {
+            return new long[]{input.readLong(), input.readLong(), input.readLong(), input.readInt(), input.readInt()};
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    // Linear search of an unsorted index (the open segment), the last entry for id wins
+    static long[] scan(Path index, UUID id) throws IOException {
+        long[] found = null;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(index)))) {
+            long[] entry;
+            while ((entry = read(input)) != null) {
+                if (entry[0] == id.getMostSignificantBits() && entry[1] == id.getLeastSignificantBits() && entry[4] >= 0) {
+                    found = entry;
+                }
+            }
+        }
+        return found;
+    }
+
+    static long[] find(Path sortedIndex, UUID id) throws IOException {
+        long[] key = {id.getMostSignificantBits(), id.getLeastSignificantBits()};
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        try (FileChannel channel = FileChannel.open(sortedIndex, StandardOpenOption.READ)) {
+            long low = 0;
+            long high = channel.size() / RECORD_SIZE - 1;
+            while (low <= high) {
+                long mid = (low + high) >>> 1;
+                record.clear();
+                channel.read(record, mid * RECORD_SIZE);
+                record.flip();
+                long[] entry = {record.getLong(), record.getLong(), record.getLong(), record.getInt(), record.getInt()};
+
+                int cmp = ORDER.compare(entry, key);
+                if (cmp == 0) {
+                    return entry;
+                } else if (cmp < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+        }
+        return null;
+    }
+}
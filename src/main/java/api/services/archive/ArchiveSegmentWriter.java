@@ -0,0 +1,199 @@
+package api.services.archive;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes one archive segment: records framed by its {@link ArchiveFormat}, gzip-compressed in blocks of about
+ * {@code blockSize} bytes, each block its own gzip member. Concatenated members are still one valid .gz file, and a
+ * single record can be read by inflating just its block.
+ * <p>
+ * While open the segment is e.g. {@code name.ndjson.gz.part} with an unsorted {@code name.idx.part} next to it, which
+ * also gets an end marker per block. {@link #seal()} sorts the index into {@code name.idx} and renames the data file;
+ * {@link #recover(Path, String, ArchiveFormat)} does the same for a segment left open by a crash, cut back to its last whole block.
+ */
+class ArchiveSegmentWriter {
+
+    static final String INDEX_SUFFIX = ".idx";
+    static final String PART_SUFFIX = ".part";
+
+    private static final UUID BLOCK_END_ID = new UUID(0, 0);
+    private static final int BLOCK_END = -1;
+
+    private final Path dataPart;
+    private final Path indexPart;
+    private final ArchiveFormat format;
+    private final FileChannel data;
+    private final FileChannel index;
+    private final int blockSize;
+    private final long createdAt;
+
+    private final ByteArrayOutputStream block;
+    private final ByteArrayOutputStream compressed;
+    private final ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+    private final DataOutputStream indexEntries = new DataOutputStream(indexBytes);
+    private final List<UUID> blockIds = new ArrayList<>();
+    private final List<Integer> blockLines = new ArrayList<>();
+    private int blockLineCount;
+    private long size;
+
+    ArchiveSegmentWriter(Path directory, String name, ArchiveFormat format, int blockSize, long createdAt) throws IOException {
+        this.dataPart = directory.resolve(name + format.dataSuffix + PART_SUFFIX);
+        this.indexPart = directory.resolve(name + INDEX_SUFFIX + PART_SUFFIX);
+        this.format = format;
+        this.data = FileChannel.open(dataPart, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        this.index = FileChannel.open(indexPart, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        this.blockSize = blockSize;
+        this.createdAt = createdAt;
+        this.block = new ByteArrayOutputStream(blockSize + 1024);
+        this.compressed = new ByteArrayOutputStream(blockSize / 2);
+    }
+
+    // id may be null for events that are archived but can not be looked up
+    void append(UUID id, byte[] record) throws IOException {
+        format.write(block, record);
+        if (id != null) {
+            blockIds.add(id);
+            blockLines.add(blockLineCount);
+        }
+        blockLineCount++;
+        if (block.size() >= blockSize) {
+            flushBlock();
+        }
+    }
+
+    // Compressed bytes written so far, what segments roll on
+    long size() {
+        return size;
+    }
+
+    long createdAt() {
+        return createdAt;
+    }
+
+    boolean isEmpty() {
+        return size == 0 && blockLineCount == 0;
+    }
+
+    // Writes the pending block and forces data and index to disk
+    void flush() throws IOException {
+        flushBlock();
+        data.force(false);
+        index.force(false);
+    }
+
+    void seal() throws IOException {
+        flush();
+        data.close();
+        index.close();
+
+        String name = dataPart.getFileName().toString();
+        finish(dataPart.getParent(), name.substring(0, name.length() - format.dataSuffix.length() - PART_SUFFIX.length()), format);
+    }
+
+    // Seals a segment left open by a crash. Data after the last block with an end marker is cut off, the events in it
+    // were never confirmed to the outbox and are delivered again.
+    static void recover(Path directory, String name, ArchiveFormat format) throws IOException {
+        Path dataPart = directory.resolve(name + format.dataSuffix + PART_SUFFIX);
+        Path indexPart = directory.resolve(name + INDEX_SUFFIX + PART_SUFFIX);
+        if (!Files.exists(indexPart)) {
+            Files.write(indexPart, new byte[0]);
+        }
+
+        long end = 0;
+        for (long[] entry : readEntries(indexPart)) {
+            if (entry[4] == BLOCK_END) {
+                end = Math.max(end, entry[2] + entry[3]);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(dataPart, StandardOpenOption.WRITE)) {
+            channel.truncate(end);
+        }
+        finish(directory, name, format);
+    }
+
+    private static void finish(Path directory, String name, ArchiveFormat format) throws IOException {
+        Path dataPart = directory.resolve(name + format.dataSuffix + PART_SUFFIX);
+        Path indexPart = directory.resolve(name + INDEX_SUFFIX + PART_SUFFIX);
+        writeSorted(readEntries(indexPart), directory.resolve(name + INDEX_SUFFIX));
+        Files.move(dataPart, directory.resolve(name + format.dataSuffix), StandardCopyOption.ATOMIC_MOVE);
+        Files.delete(indexPart);
+    }
+
+    private void flushBlock() throws IOException {
+        if (blockLineCount == 0) {
+            return;
+        }
+
+        compressed.reset();
+        try (OutputStream gzip = new GZIPOutputStream(compressed, 8192)) {
+            block.writeTo(gzip);
+        }
+
+        long offset = size;
+        writeFully(data, compressed);
+        size += compressed.size();
+
+        // Index entries only after the block itself, so an entry never points past the data
+        indexBytes.reset();
+        for (int i = 0; i < blockIds.size(); i++) {
+            ArchiveIndex.write(indexEntries, blockIds.get(i), offset, compressed.size(), blockLines.get(i));
+        }
+        ArchiveIndex.write(indexEntries, BLOCK_END_ID, offset, compressed.size(), BLOCK_END);
+        writeFully(index, indexBytes);
+
+        block.reset();
+        blockIds.clear();
+        blockLines.clear();
+        blockLineCount = 0;
+    }
+
+    private static void writeFully(FileChannel channel, ByteArrayOutputStream bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static List<long[]> readEntries(Path index) throws IOException {
+        List<long[]> entries = new ArrayList<>();
+        try (InputStream in = Files.newInputStream(index)) {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(in));
+            long[] entry;
+            while ((entry = ArchiveIndex.read(input)) != null) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    // Block end markers are dropped, the sealed index only holds lookups
+    private static void writeSorted(List<long[]> entries, Path sorted) throws IOException {
+        entries.removeIf(entry -> entry[4] == BLOCK_END);
+        entries.sort(ArchiveIndex.ORDER);
+
+        Path tmp = sorted.resolveSibling(sorted.getFileName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            for (long[] entry : entries) {
+                ArchiveIndex.write(output, entry);
+            }
+        }
+        Files.move(tmp, sorted, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
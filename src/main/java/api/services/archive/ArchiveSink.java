@@ -0,0 +1,10 @@
+package api.services.archive;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// Receives sealed archive segments, one call per segment. Throws if the segment has to be offered again later.
+public interface ArchiveSink {
+
+    void upload(String name, Path data, Path index) throws IOException;
+}
@@ -0,0 +1,44 @@
+package api.services.archive;
+
+import api.services.notification.NotificationGateway;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stores a sealed segment through the bucket function: one call for the data and one for its index, each base64 in a
+ * JSON envelope. Segments are kept well below the 6 MB Lambda payload limit by archive.segment-max-bytes.
+ */
+@Component
+public class BucketArchiveSink implements ArchiveSink {
+
+    private final NotificationGateway notificationGateway;
+    private final ObjectMapper objectMapper;
+
+    public BucketArchiveSink(NotificationGateway notificationGateway, ObjectMapper objectMapper) {
+        this.notificationGateway = notificationGateway;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void upload(String name, Path data, Path index) throws IOException {
+        String dataFile = data.getFileName().toString();
+        notificationGateway.send(NotificationGateway.BUCKET, envelope(dataFile, ArchiveFormat.forDataFile(dataFile).contentType, "gzip", data));
+        notificationGateway.send(NotificationGateway.BUCKET, envelope(index.getFileName().toString(), "application/octet-stream", null, index));
+    }
+
+    private String envelope(String key, String contentType, String contentEncoding, Path file) throws IOException {
+        Map<String, Object> envelope = new LinkedHashMap<>();
+        envelope.put("key", "archive/" + key);
+        envelope.put("contentType", contentType);
+        envelope.put("contentEncoding", contentEncoding);
+        envelope.put("data", Base64.getEncoder().encodeToString(Files.readAllBytes(file)));
+        return objectMapper.writeValueAsString(envelope);
+    }
+}
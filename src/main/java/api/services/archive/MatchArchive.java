@@ -0,0 +1,264 @@
+package api.services.archive;
+
+import api.services.events.MatchEvent;
+import api.services.events.MatchEventCodec;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Local archive of match events. Events are appended to the open segment ({@link ArchiveSegmentWriter}), which is
+ * sealed once it reaches {@code segmentMaxBytes} compressed or {@code segmentMaxAgeMs} old. Sealed segments are
+ * handed to the {@link ArchiveSink} whole and marked with a {@code name.uploaded} file once that succeeded.
+ * <p>
+ * Events reach the archive through the outbox (target {@link #TARGET}); the dispatcher calls {@link #flush()} before
+ * it deletes the delivered rows, so an event is on disk before it leaves the outbox.
+ * <p>
+ * {@code archive.format=binary} stores events in the {@link MatchEventCodec} binary encoding instead of NDJSON;
+ * {@link #find(UUID)} returns JSON either way, and segments of both formats can sit in the same directory.
+ */
+@Component
+public class MatchArchive {
+
+    public static final String TARGET = "archive";
+
+    private static final Logger log = LoggerFactory.getLogger(MatchArchive.class);
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC);
+    private static final String UPLOADED_SUFFIX = ".uploaded";
+
+    private final ArchiveSink sink;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final Path directory;
+    private final ArchiveFormat format;
+    private final int blockSize;
+    private final long segmentMaxBytes;
+    private final long segmentMaxAgeMs;
+
+    private ArchiveSegmentWriter current;
+    private String currentName;
+    private int sequence;
+
+    public MatchArchive(ArchiveSink sink,
+                        @Value("${archive.directory:archive}") String directory,
+                        @Value("${archive.format:ndjson}") String format,
+                        @Value("${archive.block-size:65536}") int blockSize,
+                        @Value("${archive.segment-max-bytes:2000000}") long segmentMaxBytes,
+                        @Value("${archive.segment-max-age-ms:300000}") long segmentMaxAgeMs) {
+        this.sink = sink;
+        this.directory = Paths.get(directory);
+        this.format = ArchiveFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        this.blockSize = blockSize;
+        this.segmentMaxBytes = segmentMaxBytes;
+        this.segmentMaxAgeMs = segmentMaxAgeMs;
+    }
+
+    // Seals segments a previous run left open
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        for (ArchiveFormat partFormat : ArchiveFormat.values()) {
+            for (String name : list(partFormat.dataSuffix + ArchiveSegmentWriter.PART_SUFFIX)) {
+                log.warn("Recovering archive segment {} left open", name);
+                ArchiveSegmentWriter.recover(directory, name, partFormat);
+            }
+        }
+    }
+
+    // The event's top-level "id" is indexed; events without one (random team matches) are archived but not indexed
+    public synchronized void append(String json) {
+        try {
+            if (current == null) {
+                currentName = "matches-" + NAME_FORMAT.format(Instant.now()) + "-" + String.format("%03d", sequence++ % 1000);
+                current = new ArchiveSegmentWriter(directory, currentName, format, blockSize, System.currentTimeMillis());
+            }
+            if (format == ArchiveFormat.BINARY) {
+                MatchEvent event = MatchEventCodec.fromJson(json);
+                current.append(event.getId(), MatchEventCodec.toBinary(event));
+            } else {
+                current.append(readId(json), json.getBytes(StandardCharsets.UTF_8));
+            }
+            if (current.size() >= segmentMaxBytes) {
+                roll();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized void flush() {
+        try {
+            if (current != null) {
+                current.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized void roll() {
+        if (current == null) {
+            return;
+        }
+        try {
+            current.seal();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            current = null;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${archive.upload-interval-ms:10000}")
+    public void maintain() {
+        synchronized (this) {
+            if (current != null && System.currentTimeMillis() - current.createdAt() >= segmentMaxAgeMs) {
+                roll();
+            }
+        }
+        uploadSealed();
+    }
+
+    @PreDestroy
+    public void close() {
+        roll();
+    }
+
+    // Sealed segments not uploaded yet, oldest first; stops at the first failure and retries on the next run
+    public void uploadSealed() {
+        try {
+            for (Path data : sealed()) {
+                String name = segmentName(data);
+                if (Files.exists(directory.resolve(name + UPLOADED_SUFFIX))) {
+                    continue;
+                }
+                sink.upload(name, data, directory.resolve(name + ArchiveSegmentWriter.INDEX_SUFFIX));
+                Files.createFile(directory.resolve(name + UPLOADED_SUFFIX));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Archive upload failed, retrying later: {}", e.getMessage());
+        }
+    }
+
+    // The archived event, or null. Sealed segments are searched newest first through their index.
+    public String find(UUID id) {
+        try {
+            synchronized (this) {
+                if (current != null) {
+                    current.flush();
+                    long[] entry = ArchiveIndex.scan(directory.resolve(currentName + ArchiveSegmentWriter.INDEX_SUFFIX + ArchiveSegmentWriter.PART_SUFFIX), id);
+                    if (entry != null) {
+                        return readRecord(directory.resolve(currentName + format.dataSuffix + ArchiveSegmentWriter.PART_SUFFIX), entry);
+                    }
+                }
+            }
+
+            // A sealed data file always has its index, it is renamed after the index is written
+            List<Path> sealed = sealed();
+            for (int i = sealed.size() - 1; i >= 0; i--) {
+                long[] entry = ArchiveIndex.find(directory.resolve(segmentName(sealed.get(i)) + ArchiveSegmentWriter.INDEX_SUFFIX), id);
+                if (entry != null) {
+                    return readRecord(sealed.get(i), entry);
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String readRecord(Path data, long[] entry) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate((int) entry[3]);
+        try (FileChannel channel = FileChannel.open(data, StandardOpenOption.READ)) {
+            while (block.hasRemaining()) {
+                if (channel.read(block, entry[2] + block.position()) < 0) {
+                    throw new EOFException("Archive block past the end of " + data);
+                }
+            }
+        }
+
+        ArchiveFormat dataFormat = ArchiveFormat.forDataFile(data.getFileName().toString());
+        byte[] record;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(block.array()))) {
+            record = dataFormat.read(in, (int) entry[4]);
+        }
+        if (record == null) {
+            return null;
+        }
+        return dataFormat == ArchiveFormat.BINARY
+                ? MatchEventCodec.toJson(MatchEventCodec.fromBinary(record, 0, record.length))
+                : new String(record, StandardCharsets.UTF_8);
+    }
+
+    private UUID readId(String json) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("id".equals(field)) {
+                    return value == JsonToken.VALUE_STRING ? UUID.fromString(parser.getText()) : null;
+                }
+                parser.skipChildren();
+            }
+            return null;
+        }
+    }
+
+    // Sealed data files of every format, oldest first
+    private List<Path> sealed() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String fileName = file.getFileName().toString();
+                        return !fileName.endsWith(ArchiveSegmentWriter.PART_SUFFIX) && ArchiveFormat.forDataFile(fileName) != null;
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static String segmentName(Path data) {
+        String fileName = data.getFileName().toString();
+        return fileName.substring(0, fileName.length() - ArchiveFormat.forDataFile(fileName).dataSuffix.length());
+    }
+
+    // Segment names with files ending in suffix, sorted (names sort by creation time)
+    private List<String> list(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(file -> file.endsWith(suffix))
+                    .map(file -> file.substring(0, file.length() - suffix.length()))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
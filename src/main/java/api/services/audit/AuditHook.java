@@ -0,0 +1,68 @@
+package api.services.audit;
+
+import api.services.notification.NotificationGateway;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sampled audit events for endpoints. Each endpoint has its own rate, audit.sample-rate.&lt;endpoint&gt; (falling back
+ * to audit.sample-rate.default), from 0 for never to 1 for every request. Sampled events are sent as Event
+ * invocations on the gateway's own threads, so recording never blocks or fails the request.
+ */
+@Component
+public class AuditHook {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditHook.class);
+
+    private final NotificationGateway notificationGateway;
+    private final Environment environment;
+    private final ObjectMapper objectMapper;
+    private final String target;
+    private final double defaultSampleRate;
+    private final Map<String, Double> sampleRates = new ConcurrentHashMap<>();
+
+    public AuditHook(NotificationGateway notificationGateway, Environment environment, ObjectMapper objectMapper) {
+        this.notificationGateway = notificationGateway;
+        this.environment = environment;
+        this.objectMapper = objectMapper;
+        this.target = environment.getProperty("audit.target", NotificationGateway.BUCKET);
+        this.defaultSampleRate = environment.getProperty("audit.sample-rate.default", Double.class, 0.0);
+    }
+
+    public void record(String endpoint, Map<String, Object> details) {
+        double sampleRate = sampleRates.computeIfAbsent(endpoint,
+                e -> environment.getProperty("audit.sample-rate." + e, Double.class, defaultSampleRate));
+        if (sampleRate <= 0 || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return;
+        }
+
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("endpoint", endpoint);
+        event.put("at", Instant.now().toString());
+        event.put("sampleRate", sampleRate);
+        event.putAll(details);
+
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            log.warn("Audit event for {} can not be serialized", endpoint, e);
+            return;
+        }
+
+        notificationGateway.sendEvent(target, payload).exceptionally(e -> {
+            log.debug("Audit event for {} not sent: {}", endpoint, e.getMessage());
+            return null;
+        });
+    }
+}
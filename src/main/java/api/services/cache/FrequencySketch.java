@@ -0,0 +1,64 @@
+package api.services.cache;
+
+/**
+ * Count-min sketch of 4-bit counters estimating how often a key was seen recently, the admission filter of
+ * {@link TinyLfuCache}. Every counter is halved once the additions reach ten times the table width, so old
+ * popularity fades. Not thread-safe, the owning shard guards it.
+ */
+final class FrequencySketch {
+
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    private final long[] table;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(long expectedEntries) {
+        int width = Integer.highestOneBit((int) Math.max(8, Math.min(expectedEntries, 1 << 24)) - 1) << 1;
+        table = new long[width];
+        sampleSize = 10 * width;
+    }
+
+    int frequency(int hash) {
+        int min = 15;
+        for (int depth = 0; depth < SEEDS.length; depth++) {
+            int shift = shift(hash, depth);
+            min = Math.min(min, (int) ((table[index(hash, depth)] >>> shift) & 15L));
+        }
+        return min;
+    }
+
+    void increment(int hash) {
+        boolean added = false;
+        for (int depth = 0; depth < SEEDS.length; depth++) {
+            int index = index(hash, depth);
+            long counter = 15L << shift(hash, depth);
+            if ((table[index] & counter) != counter) {
+                table[index] += 1L << shift(hash, depth);
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    private int index(int hash, int depth) {
+        long h = (hash + SEEDS[depth]) * SEEDS[depth];
+        h += h >>> 32;
+        return (int) h & (table.length - 1);
+    }
+
+    // Each row reads another of the sixteen counters in its word
+    private static int shift(int hash, int depth) {
+        return ((hash >>> (depth << 3)) & 15) << 2;
+    }
+}
@@ -0,0 +1,161 @@
+package api.services.cache;
+
+import api.modelsDTO.PlayerResponseDTO;
+import api.modelsDTO.TeamResponseDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Player and team responses kept as the UTF-8 JSON Jackson wrote for them, so player lists and hot reads go out by
+ * copying bytes instead of serializing the same unchanged responses again. Weighed like {@link ResponseCache}.
+ * <p>
+ * A fragment is keyed by id and stamped with the {@link ResponseCache} version it was encoded at. Every write path
+ * already invalidates the response there, which bumps the version, so a fragment is current while the two numbers
+ * match. GET /players/{id} and GET /teams/{id} bring the stamped response from ResponseCache; player lists read only
+ * the ids of a page and take every current player from here, without loading its row or building its response, and
+ * load the rest in one query. Responses without a version (fresh from a write, or the members of a random team) are
+ * encoded every time and not kept. Responses must not be modified once they were written.
+ * <p>
+ * Metrics per cache (tag {@code cache}: players.json, teams.json): as for {@link ResponseCache}, plus
+ * {@code cache.fragments.stale}, fragments encoded again because their player or team changed.
+ */
+@Component
+public class JsonFragmentCache {
+
+    private final ResponseCache responseCache;
+    private final TinyLfuCache<UUID, Fragment<PlayerResponseDTO>> players;
+    private final TinyLfuCache<UUID, Fragment<TeamResponseDTO>> teams;
+    private final ObjectWriter playerWriter;
+    private final ObjectWriter teamWriter;
+    private final Counter stalePlayers;
+    private final Counter staleTeams;
+
+    @Autowired
+    public JsonFragmentCache(ObjectMapper objectMapper, MeterRegistry meterRegistry, ResponseCache responseCache,
+                             @Value("${cache.json.players.max-weight:100000}") long playersMaxWeight,
+                             @Value("${cache.json.teams.max-weight:100000}") long teamsMaxWeight,
+                             @Value("${cache.responses.ttl-ms:300000}") long ttlMs) {
+        this(objectMapper, meterRegistry, responseCache, playersMaxWeight, teamsMaxWeight, ttlMs, System::nanoTime);
+    }
+
+    public JsonFragmentCache(ObjectMapper objectMapper, MeterRegistry meterRegistry, ResponseCache responseCache,
+                             long playersMaxWeight, long teamsMaxWeight, long ttlMs, LongSupplier clock) {
+        this.responseCache = responseCache;
+        this.players = new TinyLfuCache<>(playersMaxWeight, ttlMs, player -> 1, clock);
+        this.teams = new TinyLfuCache<>(teamsMaxWeight, ttlMs,
+                team -> 1 + (team.source().getPlayers() != null ? team.source().getPlayers().size() : 0), clock);
+        this.playerWriter = objectMapper.writerFor(PlayerResponseDTO.class);
+        this.teamWriter = objectMapper.writerFor(TeamResponseDTO.class);
+        ResponseCache.bind(meterRegistry, "players.json", players);
+        ResponseCache.bind(meterRegistry, "teams.json", teams);
+        this.stalePlayers = Counter.builder("cache.fragments.stale").tag("cache", "players.json").register(meterRegistry);
+        this.staleTeams = Counter.builder("cache.fragments.stale").tag("cache", "teams.json").register(meterRegistry);
+    }
+
+    public byte[] player(PlayerResponseDTO player) {
+        return fragment(players, player.getId(), player.getVersion(), player, playerWriter, stalePlayers);
+    }
+
+    public byte[] team(TeamResponseDTO team) {
+        return fragment(teams, team.getId(), team.getVersion(), team, teamWriter, staleTeams);
+    }
+
+    // The players with these ids, in their order. Current ones come from their fragments, the loader gets the ids of
+    // the rest and may leave out players that are gone.
+    public List<PlayerResponseDTO> players(List<UUID> ids, Function<List<UUID>, List<PlayerResponseDTO>> loader) {
+        PlayerResponseDTO[] found = new PlayerResponseDTO[ids.size()];
+        Map<UUID, Integer> missing = new HashMap<>();
+        long[] versions = new long[ids.size()];
+        List<Fragment<PlayerResponseDTO>> cached = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            UUID id = ids.get(i);
+            versions[i] = responseCache.playerVersion(id);
+            Fragment<PlayerResponseDTO> fragment = players.get(id, key -> null);
+            cached.add(fragment);
+            if (fragment != null && fragment.version() == versions[i]) {
+                found[i] = fragment.source();
+            } else {
+                missing.put(id, i);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (PlayerResponseDTO player : loader.apply(List.copyOf(missing.keySet()))) {
+                int i = missing.get(player.getId());
+                player.setVersion(versions[i]);
+                found[i] = player;
+                replace(players, player.getId(), cached.get(i), new Fragment<>(versions[i], player, encode(playerWriter, player)), stalePlayers);
+            }
+        }
+        return Arrays.stream(found).filter(Objects::nonNull).toList();
+    }
+
+    // The same JSON array Jackson writes for the list
+    public void writePlayers(List<PlayerResponseDTO> players, OutputStream out) throws IOException {
+        out.write('[');
+        for (int i = 0; i < players.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(player(players.get(i)));
+        }
+        out.write(']');
+    }
+
+    private static <T> byte[] fragment(TinyLfuCache<UUID, Fragment<T>> cache, UUID id, long version, T response,
+                                       ObjectWriter writer, Counter stale) {
+        if (id == null || version == 0) {
+            return encode(writer, response);
+        }
+        Fragment<T> fragment = cache.get(id, key -> new Fragment<>(version, response, encode(writer, response)));
+        if (fragment.version() == version) {
+            return fragment.json();
+        }
+
+        Fragment<T> current = new Fragment<>(version, response, encode(writer, response));
+        replace(cache, id, fragment, current, stale);
+        return current.json();
+    }
+
+    // Keeps the newer of the two; a response loaded before a write may arrive after one loaded since
+    private static <T> void replace(TinyLfuCache<UUID, Fragment<T>> cache, UUID id, Fragment<T> cached, Fragment<T> current, Counter stale) {
+        if (cached != null && cached.version() >= current.version()) {
+            return;
+        }
+        if (cached != null) {
+            stale.increment();
+            cache.invalidate(id);
+        }
+        cache.get(id, key -> current);
+    }
+
+    private static byte[] encode(ObjectWriter writer, Object response) {
+        try {
+            return writer.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Fragment<T>(long version, T source, byte[] json) {
+    }
+}
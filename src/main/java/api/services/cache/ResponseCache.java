@@ -0,0 +1,165 @@
+package api.services.cache;
+
+import api.modelsDTO.PlayerResponseDTO;
+import api.modelsDTO.TeamResponseDTO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * GET /players/{id} and GET /teams/{id} responses, kept in {@link TinyLfuCache}s so rereads of hot players and teams
+ * skip the database and the mapping. A player weighs 1 and a team 1 plus its players.
+ * <p>
+ * Every path that changes what a response shows invalidates it: the player's own response and that of their team.
+ * Inside a transaction the entries are invalidated again after commit, so a read that runs before the commit can
+ * not put the old state back. Cached responses are shared, callers must not modify them.
+ * <p>
+ * Every invalidation also bumps the entry's version, a counter shared by the ids of one stripe (plus a generation for
+ * {@link #invalidateAll}). Loaded responses are stamped with the version read before the load, so whoever keeps data
+ * derived from a response ({@link JsonFragmentCache}) can tell it is current by comparing two numbers.
+ * <p>
+ * Misses go through a {@link SingleFlight} per cache, so a herd of requests for an entry that just went out of the
+ * cache (say, the teams of a match that finished) runs one database load between them.
+ * <p>
+ * Metrics per cache (tag {@code cache}): {@code cache.gets} (result hit/miss), {@code cache.hit.ratio},
+ * {@code cache.evictions}, {@code cache.size}, {@code cache.weight} and {@code cache.loads.coalesced}.
+ */
+@Component
+public class ResponseCache {
+
+    // 64k stripes: a match bumps 12, and marks stale only the few other players that share them
+    private static final int VERSION_STRIPES = 1 << 16;
+
+    private final TinyLfuCache<UUID, PlayerResponseDTO> players;
+    private final TinyLfuCache<UUID, TeamResponseDTO> teams;
+    private final SingleFlight<UUID, PlayerResponseDTO> playerLoads = new SingleFlight<>();
+    private final SingleFlight<UUID, TeamResponseDTO> teamLoads = new SingleFlight<>();
+    private final AtomicLongArray playerVersions = new AtomicLongArray(VERSION_STRIPES);
+    private final AtomicLongArray teamVersions = new AtomicLongArray(VERSION_STRIPES);
+    private final AtomicLong generation = new AtomicLong(1); // versions start at 1, 0 stands for not versioned
+
+    @Autowired
+    public ResponseCache(MeterRegistry meterRegistry,
+                         @Value("${cache.responses.players.max-weight:100000}") long playersMaxWeight,
+                         @Value("${cache.responses.teams.max-weight:100000}") long teamsMaxWeight,
+                         @Value("${cache.responses.ttl-ms:300000}") long ttlMs) {
+        this(meterRegistry, playersMaxWeight, teamsMaxWeight, ttlMs, System::nanoTime);
+    }
+
+    public ResponseCache(MeterRegistry meterRegistry, long playersMaxWeight, long teamsMaxWeight, long ttlMs, LongSupplier clock) {
+        this.players = new TinyLfuCache<>(playersMaxWeight, ttlMs, player -> 1, clock);
+        this.teams = new TinyLfuCache<>(teamsMaxWeight, ttlMs,
+                team -> 1 + (team.getPlayers() != null ? team.getPlayers().size() : 0), clock);
+        bind(meterRegistry, "players", players);
+        bind(meterRegistry, "teams", teams);
+        FunctionCounter.builder("cache.loads.coalesced", playerLoads, SingleFlight::coalescedCount).tag("cache", "players").register(meterRegistry);
+        FunctionCounter.builder("cache.loads.coalesced", teamLoads, SingleFlight::coalescedCount).tag("cache", "teams").register(meterRegistry);
+    }
+
+    public PlayerResponseDTO getPlayer(UUID playerId, Function<UUID, PlayerResponseDTO> loader) {
+        return players.get(playerId, id -> playerLoads.load(id, key -> {
+            long version = playerVersion(key);
+            PlayerResponseDTO player = loader.apply(key);
+            player.setVersion(version);
+            return player;
+        }));
+    }
+
+    public TeamResponseDTO getTeam(UUID teamId, Function<UUID, TeamResponseDTO> loader) {
+        return teams.get(teamId, id -> teamLoads.load(id, key -> {
+            long version = teamVersion(key);
+            TeamResponseDTO team = loader.apply(key);
+            team.setVersion(version);
+            return team;
+        }));
+    }
+
+    // Read before loading a player's response, it is current for as long as this does not change
+    public long playerVersion(UUID playerId) {
+        return generation.get() + playerVersions.get(stripe(playerId));
+    }
+
+    public long teamVersion(UUID teamId) {
+        return generation.get() + teamVersions.get(stripe(teamId));
+    }
+
+    public void invalidatePlayer(UUID playerId) {
+        afterCommit(() -> {
+            playerVersions.incrementAndGet(stripe(playerId));
+            playerLoads.forget(playerId);
+            players.invalidate(playerId);
+        });
+    }
+
+    public void invalidatePlayers(Collection<UUID> playerIds) {
+        afterCommit(() -> playerIds.forEach(playerId -> {
+            playerVersions.incrementAndGet(stripe(playerId));
+            playerLoads.forget(playerId);
+            players.invalidate(playerId);
+        }));
+    }
+
+    public void invalidateTeam(UUID teamId) {
+        if (teamId != null) {
+            afterCommit(() -> {
+                teamVersions.incrementAndGet(stripe(teamId));
+                teamLoads.forget(teamId);
+                teams.invalidate(teamId);
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            playerLoads.forgetAll();
+            teamLoads.forgetAll();
+            players.invalidateAll();
+            teams.invalidateAll();
+        });
+    }
+
+    private static int stripe(UUID id) {
+        long bits = id.getMostSignificantBits() ^ id.getLeastSignificantBits();
+        return (int) (bits ^ (bits >>> 32)) & (VERSION_STRIPES - 1);
+    }
+
+    private static void afterCommit(Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+
+    static void bind(MeterRegistry meterRegistry, String name, TinyLfuCache<?, ?> cache) {
+        FunctionCounter.builder("cache.gets", cache, TinyLfuCache::hitCount).tag("cache", name).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("cache.gets", cache, TinyLfuCache::missCount).tag("cache", name).tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", cache, TinyLfuCache::evictionCount).tag("cache", name).register(meterRegistry);
+        Gauge.builder("cache.hit.ratio", cache, ResponseCache::hitRatio).tag("cache", name).register(meterRegistry);
+        Gauge.builder("cache.size", cache, TinyLfuCache::size).tag("cache", name).register(meterRegistry);
+        Gauge.builder("cache.weight", cache, TinyLfuCache::weight).tag("cache", name).register(meterRegistry);
+    }
+
+    private static double hitRatio(TinyLfuCache<?, ?> cache) {
+        long hits = cache.hitCount();
+        long total = hits + cache.missCount();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,326 @@
+package api.services.cache;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bounded read-through cache with W-TinyLFU eviction. Every entry has a weight and the cache holds at most
+ * {@code maxWeight}; entries also expire {@code ttlMs} after they were loaded.
+ * <p>
+ * New entries land in a small LRU window (1% of the weight). What falls out of the window only gets into the main
+ * segmented LRU if a {@link FrequencySketch} says it was asked for more often than the entry it would push out, so a
+ * burst of one-off reads can not flush the hot set. Main is split into probation and protected (80%); a second hit in
+ * probation promotes an entry.
+ * <p>
+ * Keys are spread over shards, each with its own lock and sketch. Loads run outside the lock. An invalidation that
+ * lands while a key is loading drops the loaded value instead of caching it, so a read racing a write never
+ * reinstates what the write replaced.
+ */
+public class TinyLfuCache<K, V> {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    private static final int STAMPS_PER_SHARD = 16;
+
+    private final Shard<K, V>[] shards;
+    private final ToIntFunction<V> weigher;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TinyLfuCache(long maxWeight, long ttlMs, ToIntFunction<V> weigher) {
+        this(maxWeight, ttlMs, weigher, System::nanoTime);
+    }
+
+    @SuppressWarnings("unchecked")
+    public TinyLfuCache(long maxWeight, long ttlMs, ToIntFunction<V> weigher, LongSupplier clock) {
+        this.weigher = weigher;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.clock = clock;
+
+        // A shard per 4096 of weight, up to 64, so small caches keep one exact LRU order
+        int shardCount = Integer.highestOneBit((int) Math.max(1, Math.min(64, maxWeight / 4096)));
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard<>(this, maxWeight / shardCount);
+        }
+    }
+
+    // The cached value, or loader's which is cached unless it is null
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        int hash = spread(key.hashCode());
+        Shard<K, V> shard = shards[hash & (shards.length - 1)];
+
+        long stamp;
+        synchronized (shard) {
+            V cached = shard.get(key, hash);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            stamp = shard.stamp(hash);
+        }
+
+        misses.increment();
+        V loaded = loader.apply(key);
+        if (loaded != null) {
+            synchronized (shard) {
+                if (shard.stamp(hash) == stamp) {
+                    shard.put(key, hash, loaded);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    public void invalidate(K key) {
+        int hash = spread(key.hashCode());
+        Shard<K, V> shard = shards[hash & (shards.length - 1)];
+        synchronized (shard) {
+            shard.invalidate(key, hash);
+        }
+    }
+
+    public void invalidateAll() {
+        for (Shard<K, V> shard : shards) {
+            synchronized (shard) {
+                shard.clear();
+            }
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Shard<K, V> shard : shards) {
+            synchronized (shard) {
+                size += shard.nodes.size();
+            }
+        }
+        return size;
+    }
+
+    public long weight() {
+        long weight = 0;
+        for (Shard<K, V> shard : shards) {
+            synchronized (shard) {
+                weight += shard.windowWeight + shard.probationWeight + shard.protectedWeight;
+            }
+        }
+        return weight;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x45d9f3b;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        final int hash;
+        V value;
+        int weight;
+        long loadedAt;
+        int queue;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, int hash) {
+            this.key = key;
+            this.hash = hash;
+        }
+    }
+
+    private static final class Shard<K, V> {
+
+        private final TinyLfuCache<K, V> cache;
+        private final Map<K, Node<K, V>> nodes = new HashMap<>();
+        private final FrequencySketch sketch;
+        private final long[] stamps = new long[STAMPS_PER_SHARD];
+        private final long maxWeight;
+        private final long windowMax;
+        private final long protectedMax;
+
+        // Circular lists with a sentinel each, most recently used at head.next
+        private final Node<K, V> window = sentinel();
+        private final Node<K, V> probation = sentinel();
+        private final Node<K, V> protect = sentinel();
+        private long windowWeight;
+        private long probationWeight;
+        private long protectedWeight;
+
+        Shard(TinyLfuCache<K, V> cache, long maxWeight) {
+            this.cache = cache;
+            this.maxWeight = Math.max(1, maxWeight);
+            this.windowMax = Math.max(1, this.maxWeight / 100);
+            this.protectedMax = (this.maxWeight - windowMax) * 8 / 10;
+            this.sketch = new FrequencySketch(this.maxWeight);
+        }
+
+        V get(K key, int hash) {
+            sketch.increment(hash);
+            Node<K, V> node = nodes.get(key);
+            if (node == null) {
+                return null;
+            }
+            if (cache.clock.getAsLong() - node.loadedAt >= cache.ttlNanos) {
+                remove(node);
+                return null;
+            }
+
+            if (node.queue == PROBATION) {
+                unlink(node);
+                probationWeight -= node.weight;
+                node.queue = PROTECTED;
+                linkFirst(protect, node);
+                protectedWeight += node.weight;
+                demoteProtected();
+            } else {
+                unlink(node);
+                linkFirst(node.queue == WINDOW ? window : protect, node);
+            }
+            return node.value;
+        }
+
+        long stamp(int hash) {
+            return stamps[(hash >>> 24) & (STAMPS_PER_SHARD - 1)];
+        }
+
+        void put(K key, int hash, V value) {
+            int weight = Math.max(1, cache.weigher.applyAsInt(value));
+            if (weight > maxWeight) {
+                return;
+            }
+
+            Node<K, V> node = nodes.get(key);
+            if (node != null) {
+                remove(node);
+            }
+            node = new Node<>(key, hash);
+            node.value = value;
+            node.weight = weight;
+            node.loadedAt = cache.clock.getAsLong();
+            node.queue = WINDOW;
+            nodes.put(key, node);
+            linkFirst(window, node);
+            windowWeight += weight;
+            evict();
+        }
+
+        void invalidate(K key, int hash) {
+            stamps[(hash >>> 24) & (STAMPS_PER_SHARD - 1)]++;
+            Node<K, V> node = nodes.get(key);
+            if (node != null) {
+                remove(node);
+            }
+        }
+
+        void clear() {
+            for (int i = 0; i < stamps.length; i++) {
+                stamps[i]++;
+            }
+            nodes.clear();
+            for (Node<K, V> head : List.of(window, probation, protect)) {
+                head.next = head;
+                head.prev = head;
+            }
+            windowWeight = probationWeight = protectedWeight = 0;
+        }
+
+        // Window overflow competes with the main victims on frequency
+        private void evict() {
+            while (windowWeight > windowMax) {
+                Node<K, V> candidate = window.prev;
+                unlink(candidate);
+                windowWeight -= candidate.weight;
+
+                boolean admitted = true;
+                while (probationWeight + protectedWeight + candidate.weight > maxWeight - windowMax) {
+                    Node<K, V> victim = probation.prev != probation ? probation.prev : protect.prev;
+                    if (victim == protect) {
+                        break;
+                    }
+                    if (sketch.frequency(candidate.hash) <= sketch.frequency(victim.hash)) {
+                        admitted = false;
+                        break;
+                    }
+                    remove(victim);
+                    cache.evictions.increment();
+                }
+
+                if (admitted) {
+                    candidate.queue = PROBATION;
+                    linkFirst(probation, candidate);
+                    probationWeight += candidate.weight;
+                } else {
+                    nodes.remove(candidate.key);
+                    cache.evictions.increment();
+                }
+            }
+        }
+
+        private void demoteProtected() {
+            while (protectedWeight > protectedMax) {
+                Node<K, V> demoted = protect.prev;
+                unlink(demoted);
+                protectedWeight -= demoted.weight;
+                demoted.queue = PROBATION;
+                linkFirst(probation, demoted);
+                probationWeight += demoted.weight;
+            }
+        }
+
+        private void remove(Node<K, V> node) {
+            unlink(node);
+            nodes.remove(node.key);
+            switch (node.queue) {
+                case WINDOW -> windowWeight -= node.weight;
+                case PROBATION -> probationWeight -= node.weight;
+                default -> protectedWeight -= node.weight;
+            }
+        }
+
+        private static <K, V> Node<K, V> sentinel() {
+            Node<K, V> head = new Node<>(null, 0);
+            head.next = head;
+            head.prev = head;
+            return head;
+        }
+
+        private static <K, V> void linkFirst(Node<K, V> head, Node<K, V> node) {
+            node.prev = head;
+            node.next = head.next;
+            head.next.prev = node;
+            head.next = node;
+        }
+
+        private static <K, V> void unlink(Node<K, V> node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+        }
+    }
+}
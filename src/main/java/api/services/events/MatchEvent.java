@@ -0,0 +1,120 @@
+package api.services.events;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Flat record of a played match for notifications and the archive: ids, winner, duration and every player's elo
+ * before and after the match. Players are kept in parallel arrays, team 1 first. Encoded by {@link MatchEventCodec}.
+ */
+public class MatchEvent {
+
+    private UUID id; // null for random team matches, which are not stored
+    private UUID team1Id;
+    private UUID team2Id;
+    private UUID winningTeamId; // null for a draw
+    private int duration;
+    private long createdAt; // epoch millis
+
+    private int playerCount;
+    private UUID[] playerIds;
+    private byte[] teams;
+    private int[] eloBefore;
+    private int[] eloAfter;
+
+    public MatchEvent() {
+        this(10);
+    }
+
+    public MatchEvent(int expectedPlayers) {
+        int capacity = Math.max(expectedPlayers, 2);
+        this.playerIds = new UUID[capacity];
+        this.teams = new byte[capacity];
+        this.eloBefore = new int[capacity];
+        this.eloAfter = new int[capacity];
+    }
+
+    public void addPlayer(UUID playerId, int team, int before, int after) {
+        if (playerCount == playerIds.length) {
+            int capacity = playerCount * 2;
+            playerIds = Arrays.copyOf(playerIds, capacity);
+            teams = Arrays.copyOf(teams, capacity);
+            eloBefore = Arrays.copyOf(eloBefore, capacity);
+            eloAfter = Arrays.copyOf(eloAfter, capacity);
+        }
+        playerIds[playerCount] = playerId;
+        teams[playerCount] = (byte) team;
+        eloBefore[playerCount] = before;
+        eloAfter[playerCount] = after;
+        playerCount++;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getTeam1Id() {
+        return team1Id;
+    }
+
+    public void setTeam1Id(UUID team1Id) {
+        this.team1Id = team1Id;
+    }
+
+    public UUID getTeam2Id() {
+        return team2Id;
+    }
+
+    public void setTeam2Id(UUID team2Id) {
+        this.team2Id = team2Id;
+    }
+
+    public UUID getWinningTeamId() {
+        return winningTeamId;
+    }
+
+    public void setWinningTeamId(UUID winningTeamId) {
+        this.winningTeamId = winningTeamId;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public void setDuration(int duration) {
+        this.duration = duration;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    public UUID getPlayerId(int index) {
+        return playerIds[index];
+    }
+
+    // 1 or 2
+    public int getTeam(int index) {
+        return teams[index];
+    }
+
+    public int getEloBefore(int index) {
+        return eloBefore[index];
+    }
+
+    public int getEloAfter(int index) {
+        return eloAfter[index];
+    }
+}
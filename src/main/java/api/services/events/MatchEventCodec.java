@@ -0,0 +1,255 @@
+package api.services.events;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * JSON and binary encodings of {@link MatchEvent}, both written straight from the fields into per-thread buffers
+ * that are reused between calls.
+ * <p>
+ * JSON: {@code {"id":..,"team1Id":..,"team2Id":..,"winningTeamId":..,"duration":..,"createdAt":..,
+ * "players":[{"id":..,"team":..,"eloBefore":..,"eloAfter":..},..]}}, null ids are left out.
+ * <p>
+ * Binary (version 1): version byte, flags byte (1 = has id), [id], team1 id, team2 id, winner byte (0 draw, 1, 2),
+ * varint duration, 8 byte createdAt, varint player count, then per player: id, team byte, zigzag varint elo before,
+ * zigzag varint elo change. UUIDs are 16 raw bytes.
+ */
+public final class MatchEventCodec {
+
+    public static final byte BINARY_VERSION = 1;
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final ThreadLocal<ByteArrayBuilder> JSON_BUFFERS = ThreadLocal.withInitial(() -> new ByteArrayBuilder(2048));
+    private static final ThreadLocal<BinaryBuffer> BINARY_BUFFERS = ThreadLocal.withInitial(BinaryBuffer::new);
+
+    private MatchEventCodec() {
+    }
+
+    public static byte[] toJsonBytes(MatchEvent event) {
+        ByteArrayBuilder buffer = JSON_BUFFERS.get();
+        buffer.reset();
+        try (JsonGenerator generator = JSON.createGenerator(buffer)) {
+            writeJson(event, generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    public static String toJson(MatchEvent event) {
+        return new String(toJsonBytes(event), StandardCharsets.UTF_8);
+    }
+
+    public static void writeJson(MatchEvent event, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        writeUuid(generator, "id", event.getId());
+        writeUuid(generator, "team1Id", event.getTeam1Id());
+        writeUuid(generator, "team2Id", event.getTeam2Id());
+        writeUuid(generator, "winningTeamId", event.getWinningTeamId());
+        generator.writeNumberField("duration", event.getDuration());
+        generator.writeNumberField("createdAt", event.getCreatedAt());
+        generator.writeArrayFieldStart("players");
+        for (int i = 0; i < event.getPlayerCount(); i++) {
+            generator.writeStartObject();
+            writeUuid(generator, "id", event.getPlayerId(i));
+            generator.writeNumberField("team", event.getTeam(i));
+            generator.writeNumberField("eloBefore", event.getEloBefore(i));
+            generator.writeNumberField("eloAfter", event.getEloAfter(i));
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    // Unknown fields are skipped, so older payloads without players still read
+    public static MatchEvent fromJson(String json) {
+        try (JsonParser parser = JSON.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Match event must be a JSON object");
+            }
+
+            MatchEvent event = new MatchEvent();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "id" -> event.setId(readUuid(parser, value));
+                    case "team1Id" -> event.setTeam1Id(readUuid(parser, value));
+                    case "team2Id" -> event.setTeam2Id(readUuid(parser, value));
+                    case "winningTeamId" -> event.setWinningTeamId(readUuid(parser, value));
+                    case "duration" -> event.setDuration(parser.getIntValue());
+                    case "createdAt" -> event.setCreatedAt(parser.getLongValue());
+                    case "players" -> readPlayers(parser, value, event);
+                    default -> parser.skipChildren();
+                }
+            }
+            return event;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid match event JSON", e);
+        }
+    }
+
+    public static byte[] toBinary(MatchEvent event) {
+        BinaryBuffer buffer = BINARY_BUFFERS.get();
+        buffer.size = 0;
+        buffer.writeByte(BINARY_VERSION);
+        buffer.writeByte(event.getId() != null ? 1 : 0);
+        if (event.getId() != null) {
+            buffer.writeUuid(event.getId());
+        }
+        buffer.writeUuid(event.getTeam1Id());
+        buffer.writeUuid(event.getTeam2Id());
+        buffer.writeByte(winner(event));
+        buffer.writeVarint(event.getDuration());
+        buffer.writeLong(event.getCreatedAt());
+        buffer.writeVarint(event.getPlayerCount());
+        for (int i = 0; i < event.getPlayerCount(); i++) {
+            buffer.writeUuid(event.getPlayerId(i));
+            buffer.writeByte(event.getTeam(i));
+            buffer.writeVarint(zigzag(event.getEloBefore(i)));
+            buffer.writeVarint(zigzag(event.getEloAfter(i) - event.getEloBefore(i)));
+        }
+        return Arrays.copyOf(buffer.bytes, buffer.size);
+    }
+
+    public static MatchEvent fromBinary(byte[] bytes, int offset, int length) {
+        ByteBuffer in = ByteBuffer.wrap(bytes, offset, length);
+        byte version = in.get();
+        if (version != BINARY_VERSION) {
+            throw new IllegalArgumentException("Unknown match event version " + version);
+        }
+
+        boolean hasId = (in.get() & 1) != 0;
+        MatchEvent event = new MatchEvent();
+        if (hasId) {
+            event.setId(readUuid(in));
+        }
+        event.setTeam1Id(readUuid(in));
+        event.setTeam2Id(readUuid(in));
+        byte winner = in.get();
+        event.setWinningTeamId(winner == 1 ? event.getTeam1Id() : winner == 2 ? event.getTeam2Id() : null);
+        event.setDuration(readVarint(in));
+        event.setCreatedAt(in.getLong());
+
+        int players = readVarint(in);
+        for (int i = 0; i < players; i++) {
+            UUID playerId = readUuid(in);
+            int team = in.get();
+            int before = unzigzag(readVarint(in));
+            int after = before + unzigzag(readVarint(in));
+            event.addPlayer(playerId, team, before, after);
+        }
+        return event;
+    }
+
+    private static int winner(MatchEvent event) {
+        if (event.getWinningTeamId() == null) return 0;
+        return event.getWinningTeamId().equals(event.getTeam1Id()) ? 1 : 2;
+    }
+
+    private static void writeUuid(JsonGenerator generator, String field, UUID value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(field, value.toString());
+        }
+    }
+
+    private static UUID readUuid(JsonParser parser, JsonToken value) throws IOException {
+        return value == JsonToken.VALUE_NULL ? null : UUID.fromString(parser.getText());
+    }
+
+    private static void readPlayers(JsonParser parser, JsonToken value, MatchEvent event) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            UUID playerId = null;
+            int team = 0;
+            int before = 0;
+            int after = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken fieldValue = parser.nextToken();
+                switch (field) {
+                    case "id" -> playerId = readUuid(parser, fieldValue);
+                    case "team" -> team = parser.getIntValue();
+                    case "eloBefore" -> before = parser.getIntValue();
+                    case "eloAfter" -> after = parser.getIntValue();
+                    default -> parser.skipChildren();
+                }
+            }
+            event.addPlayer(playerId, team, before, after);
+        }
+    }
+
+    private static UUID readUuid(ByteBuffer in) {
+        return new UUID(in.getLong(), in.getLong());
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class BinaryBuffer {
+        private byte[] bytes = new byte[512];
+        private int size;
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeUuid(UUID value) {
+            writeLong(value.getMostSignificantBits());
+            writeLong(value.getLeastSignificantBits());
+        }
+
+        void writeVarint(int value) {
+            ensure(5);
+            while ((value & ~0x7f) != 0) {
+                bytes[size++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package api.services.leaderboard;
+
+import api.models.Player;
+import api.modelsDTO.LeaderboardEntryDTO;
+import api.repositories.PlayerRatingView;
+import api.repositories.PlayerRepositoryI;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory ranking of all players by elo. Loaded once at startup and kept in sync by the services that change
+ * ratings; changes made inside a transaction are applied only after it commits.
+ * <p>
+ * A rebuild reads the ratings without holding the lock. Every change applied from before that read until the new
+ * ranking is in place is recorded and applied again on top of it, in the same order: a change the read already saw
+ * sets the same values again, one it missed is not lost.
+ */
+@Component
+public class Leaderboard {
+
+    private final PlayerRepositoryI playerRepository;
+    private final RankedSkipList ranking = new RankedSkipList();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Changes applied while a rebuild runs, null otherwise; guarded by the write lock
+    private List<Runnable> sinceSnapshot;
+
+    public Leaderboard(PlayerRepositoryI playerRepository) {
+        this.playerRepository = playerRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        recordChanges(new ArrayList<>());
+        List<PlayerRatingView> ratings;
+        try {
+            ratings = playerRepository.findAllRatings();
+        } catch (RuntimeException e) {
+            recordChanges(null);
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            List<Runnable> changes = sinceSnapshot;
+            sinceSnapshot = null;
+            ranking.clear();
+            for (PlayerRatingView rating : ratings) {
+                ranking.put(rating.getId(), rating.getNickname(), rating.getElo());
+            }
+            changes.forEach(Runnable::run);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void update(Player player) {
+        UUID id = player.getId();
+        String nickname = player.getNickname();
+        int elo = player.getElo();
+        afterCommit(() -> ranking.put(id, nickname, elo));
+    }
+
+    public void remove(UUID playerId) {
+        afterCommit(() -> ranking.remove(playerId));
+    }
+
+    public void clear() {
+        afterCommit(ranking::clear);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ranking.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<LeaderboardEntryDTO> page(int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<LeaderboardEntryDTO> entries = new ArrayList<>(Math.min(limit, Math.max(ranking.size() - offset, 0)));
+            RankedSkipList.Node node = ranking.atPosition(offset + 1);
+            if (node == null) {
+                return entries;
+            }
+
+            int rank = ranking.countAbove(node.getElo()) + 1;
+            int position = offset + 1;
+            int previousElo = node.getElo();
+            while (node != null && entries.size() < limit) {
+                if (node.getElo() != previousElo) {
+                    rank = position;
+                    previousElo = node.getElo();
+                }
+                entries.add(new LeaderboardEntryDTO(rank, node.getId(), node.getNickname(), node.getElo()));
+                node = node.getNext();
+                position++;
+            }
+            return entries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // null if the player is not ranked
+    public LeaderboardEntryDTO rankOf(UUID playerId) {
+        lock.readLock().lock();
+        try {
+            RankedSkipList.Node node = ranking.get(playerId);
+            if (node == null) {
+                return null;
+            }
+            return new LeaderboardEntryDTO(ranking.countAbove(node.getElo()) + 1, node.getId(), node.getNickname(), node.getElo());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    private void recordChanges(List<Runnable> changes) {
+        lock.writeLock().lock();
+        try {
+            sinceSnapshot = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (sinceSnapshot != null) {
+                sinceSnapshot.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package api.services.leaderboard;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Skip list ordered by elo (descending) then id, where every forward link also stores how many positions it skips.
+ * That makes insert, remove, position lookup and "n-th entry" all O(log n). Not thread safe.
+ */
+public class RankedSkipList {
+
+    private static final int MAX_LEVEL = 32;
+
+    public static final class Node {
+        private final UUID id;
+        private final int elo;
+        private String nickname;
+        private final Node[] next;
+        private final int[] span;
+
+        private Node(UUID id, int elo, String nickname, int level) {
+            this.id = id;
+            this.elo = elo;
+            this.nickname = nickname;
+            this.next = new Node[level];
+            this.span = new int[level];
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        public int getElo() {
+            return elo;
+        }
+
+        public String getNickname() {
+            return nickname;
+        }
+
+        public Node getNext() {
+            return next[0];
+        }
+    }
+
+    private final Node head = new Node(null, 0, null, MAX_LEVEL);
+    private final Map<UUID, Node> nodes = new HashMap<>();
+    private int level = 1;
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public Node get(UUID id) {
+        return nodes.get(id);
+    }
+
+    // Inserts the player, or moves it if its elo changed
+    public void put(UUID id, String nickname, int elo) {
+        Node existing = nodes.get(id);
+        if (existing != null) {
+            if (existing.elo == elo) {
+                existing.nickname = nickname;
+                return;
+            }
+            remove(id);
+        }
+        insert(id, nickname, elo);
+    }
+
+    public boolean remove(UUID id) {
+        Node node = nodes.remove(id);
+        if (node == null) {
+            return false;
+        }
+
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && compare(x.next[i], node.elo, node.id) < 0) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == node) {
+                update[i].span[i] += node.span[i] - 1;
+                update[i].next[i] = node.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        return true;
+    }
+
+    public void clear() {
+        nodes.clear();
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            head.next[i] = null;
+            head.span[i] = 0;
+        }
+        level = 1;
+    }
+
+    // 1-based position of the player in the ordering, 0 if absent
+    public int position(UUID id) {
+        Node node = nodes.get(id);
+        if (node == null) {
+            return 0;
+        }
+
+        int position = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && compare(x.next[i], node.elo, node.id) <= 0) {
+                position += x.span[i];
+                x = x.next[i];
+            }
+            if (x == node) {
+                return position;
+            }
+        }
+        return 0;
+    }
+
+    // Entry at the given 1-based position, null if out of range
+    public Node atPosition(int position) {
+        if (position < 1 || position > size()) {
+            return null;
+        }
+
+        int traversed = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= position) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+            if (traversed == position) {
+                return x;
+            }
+        }
+        return null;
+    }
+
+    // Number of entries with strictly higher elo
+    public int countAbove(int elo) {
+        int count = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && x.next[i].elo > elo) {
+                count += x.span[i];
+                x = x.next[i];
+            }
+        }
+        return count;
+    }
+
+    private void insert(UUID id, String nickname, int elo) {
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && compare(x.next[i], elo, id) < 0) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        int nodeLevel = randomLevel();
+        if (nodeLevel > level) {
+            for (int i = level; i < nodeLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                update[i].span[i] = size();
+            }
+            level = nodeLevel;
+        }
+
+        Node node = new Node(id, elo, nickname, nodeLevel);
+        for (int i = 0; i < nodeLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = (rank[0] - rank[i]) + 1;
+        }
+        for (int i = nodeLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+        nodes.put(id, node);
+    }
+
+    private static int compare(Node node, int elo, UUID id) {
+        if (node.elo != elo) {
+            return Integer.compare(elo, node.elo);
+        }
+        return node.id.compareTo(id);
+    }
+
+    private static int randomLevel() {
+        int level = 1;
+        while (level < MAX_LEVEL && ThreadLocalRandom.current().nextInt(4) == 0) {
+            level++;
+        }
+        return level;
+    }
+}
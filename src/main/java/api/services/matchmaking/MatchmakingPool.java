@@ -0,0 +1,186 @@
+package api.services.matchmaking;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.LongToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The waiting players of one team size, sorted by elo. Elo and join times are kept in primitive arrays next to the
+ * tickets, so scanning the pool reads two sequential arrays instead of following a pointer per player. Only the tick
+ * thread touches it: matched and departed players are marked removed and dropped, together with merging in the
+ * arrivals, in one O(n) rebuild at the start of the next tick.
+ */
+final class MatchmakingPool {
+
+    private static final Comparator<Ticket> BY_ELO = Comparator.comparingInt(ticket -> ticket.elo);
+
+    final int teamSize;
+    final Timer queueTime;
+    final Counter matches;
+    private Ticket[] tickets = new Ticket[0];
+    private int[] elo = new int[0];
+    private long[] joinedAt = new long[0];
+    private int size;
+    private final BitSet removed = new BitSet();
+
+    // The arrays of the previous rebuild, reused by the next one
+    private Ticket[] spareTickets = new Ticket[0];
+    private int[] spareElo = new int[0];
+    private long[] spareJoinedAt = new long[0];
+    private int spareSize;
+
+    MatchmakingPool(int teamSize, Timer queueTime, Counter matches) {
+        this.teamSize = teamSize;
+        this.queueTime = queueTime;
+        this.matches = matches;
+    }
+
+    int size() {
+        return size;
+    }
+
+    Ticket get(int index) {
+        return tickets[index];
+    }
+
+    void remove(int index) {
+        removed.set(index);
+    }
+
+    // Marks a player that left; found by binary search on their elo
+    void depart(Ticket ticket) {
+        int index = Arrays.binarySearch(elo, 0, size, ticket.elo);
+        if (index < 0) {
+            return; // joined and left before being merged in
+        }
+        while (index > 0 && elo[index - 1] == ticket.elo) {
+            index--;
+        }
+        for (; index < size && elo[index] == ticket.elo; index++) {
+            if (tickets[index] == ticket) {
+                removed.set(index);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Merges the arrivals still waiting into the sorted pool and drops the removed players. The players between two
+     * insertion points or removals are moved with one array copy, into the spare arrays.
+     */
+    void rebuild(List<Ticket> arrivals) {
+        arrivals.removeIf(ticket -> !ticket.isWaiting());
+        if (arrivals.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        arrivals.sort(BY_ELO);
+
+        int capacity = size - removed.cardinality() + arrivals.size();
+        if (spareTickets.length < capacity) {
+            int length = Math.max(capacity, spareTickets.length * 2);
+            spareTickets = new Ticket[length];
+            spareElo = new int[length];
+            spareJoinedAt = new long[length];
+            spareSize = 0;
+        }
+
+        int out = 0;
+        int a = 0;
+        int i = 0;
+        while (i < size || a < arrivals.size()) {
+            // An arrival goes after the players of the same elo
+            int insertAt = a < arrivals.size() ? upperBound(i, arrivals.get(a).elo) : size;
+            int removeAt = removed.nextSetBit(i);
+            int end = Math.min(insertAt, removeAt < 0 || removeAt > size ? size : removeAt);
+            System.arraycopy(tickets, i, spareTickets, out, end - i);
+            System.arraycopy(elo, i, spareElo, out, end - i);
+            System.arraycopy(joinedAt, i, spareJoinedAt, out, end - i);
+            out += end - i;
+            i = end;
+            if (a < arrivals.size() && i == insertAt) {
+                Ticket arrival = arrivals.get(a++);
+                spareTickets[out] = arrival;
+                spareElo[out] = arrival.elo;
+                spareJoinedAt[out++] = arrival.joinedAt;
+            } else if (i < size) {
+                i++; // removed
+            }
+        }
+        Arrays.fill(spareTickets, out, Math.max(out, spareSize), null);
+
+        Ticket[] previousTickets = tickets;
+        int[] previousElo = elo;
+        long[] previousJoinedAt = joinedAt;
+        tickets = spareTickets;
+        elo = spareElo;
+        joinedAt = spareJoinedAt;
+        spareTickets = previousTickets;
+        spareElo = previousElo;
+        spareJoinedAt = previousJoinedAt;
+        spareSize = size;
+        size = out;
+        removed.clear();
+    }
+
+    // First index from `from` whose elo is above value
+    private int upperBound(int from, int value) {
+        int low = from;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (elo[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Start indexes of groups of 2 * teamSize neighbours whose elo spread fits every member's window. The pool is
+     * scanned in chunks, in parallel once it holds at least {@code parallelThreshold} players; a group never spans
+     * two chunks, so a few players at chunk edges may wait one more tick.
+     */
+    List<Integer> findGroups(long now, LongToIntFunction window, int parallelThreshold) {
+        int groupSize = 2 * teamSize;
+        int chunks = size < parallelThreshold ? 1 : size / (parallelThreshold / 2);
+        if (chunks <= 1) {
+            return scan(now, window, 0, size, groupSize);
+        }
+        int chunkSize = (size + chunks - 1) / chunks;
+        return IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> scan(now, window, chunk * chunkSize, Math.min(size, (chunk + 1) * chunkSize), groupSize))
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    // Greedy from the lowest elo: take the first group that fits, continue after it
+    private List<Integer> scan(long now, LongToIntFunction window, int from, int to, int groupSize) {
+        List<Integer> groups = new ArrayList<>();
+        int start = from;
+        while (start + groupSize <= to) {
+            int last = start + groupSize - 1;
+            int spread = elo[last] - elo[start];
+            boolean fits = true;
+            for (int i = start; i <= last && fits; i++) {
+                fits = window.applyAsInt(now - joinedAt[i]) >= spread;
+            }
+            if (fits) {
+                groups.add(start);
+                start += groupSize;
+            } else {
+                start++;
+            }
+        }
+        return groups;
+    }
+}
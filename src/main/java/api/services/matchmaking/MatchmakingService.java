@@ -0,0 +1,308 @@
+package api.services.matchmaking;
+
+import api.exceptions.DuplicateResourceException;
+import api.exceptions.InvalidInputException;
+import api.exceptions.ResourceNotFoundException;
+import api.models.Player;
+import api.models.Team;
+import api.modelsDTO.JoinMatchmakingRequestDTO;
+import api.modelsDTO.MatchmakingTicketDTO;
+import api.repositories.PlayerRepositoryI;
+import api.services.teams.RandomTeamRegistry;
+import api.services.teams.partition.EnumerationPartition;
+import api.services.teams.partition.KarmarkarKarpPartition;
+import api.services.teams.partition.PartitionStrategy;
+import api.services.teams.partition.TeamSplit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Continuous matchmaking. Players join a queue per team size and wait there, sorted by elo, until a tick finds
+ * 2 * teamSize neighbours whose elo spread fits each one's window. A window starts at
+ * {@code matchmaking.window.initial} and grows by {@code matchmaking.window.growth-per-second} of waiting, up to
+ * {@code matchmaking.window.max}. Each group is split into two balanced teams, which are handed out as random teams
+ * (see {@link RandomTeamRegistry}); the players find their team ids through the status endpoint. A queued player is
+ * reserved in the registry under the queue's holder id until they leave or are matched, so createTeam, generate_teams
+ * and deletePlayer leave them alone, and a match hands the reservations straight to its two teams.
+ * <p>
+ * Joins go through a lock-free arrivals queue and are merged into the sorted pools on the tick thread, which is the
+ * only one touching the pools. Leaving, forming and matching are state changes on the ticket, so a player that leaves
+ * while their group is formed is either matched or gone, never both. Metrics: {@code matchmaking.queue.time}
+ * (histogram, by team size), {@code matchmaking.queue.size}, {@code matchmaking.matches} and {@code matchmaking.tick}.
+ */
+@Service
+public class MatchmakingService {
+
+    private static final Logger log = LoggerFactory.getLogger(MatchmakingService.class);
+    private static final int ENUMERATION_MAX_PLAYERS = 16;
+
+    private final PlayerRepositoryI playerRepository;
+    private final RandomTeamRegistry randomTeamRegistry;
+    private final MeterRegistry meterRegistry;
+    private final int initialWindow;
+    private final int windowGrowthPerSecond;
+    private final int maxWindow;
+    private final int maxTeamSize;
+    private final int parallelThreshold;
+    private final long matchedRetentionNanos;
+    private final LongSupplier clock;
+    private final UUID queueId = UUID.randomUUID(); // holder of the queued players' reservations
+
+    private final Map<UUID, Ticket> tickets = new ConcurrentHashMap<>();
+    private final Queue<Ticket> arrivals = new ConcurrentLinkedQueue<>();
+    private final Queue<Ticket> departures = new ConcurrentLinkedQueue<>();
+    private final Queue<Ticket> matched = new ConcurrentLinkedQueue<>();
+    private final Map<Integer, MatchmakingPool> pools = new HashMap<>(); // tick thread only
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final PartitionStrategy exact = new EnumerationPartition(ENUMERATION_MAX_PLAYERS);
+    private final PartitionStrategy karmarkarKarp = new KarmarkarKarpPartition();
+    private final Timer ticks;
+
+    @Autowired
+    public MatchmakingService(PlayerRepositoryI playerRepository, RandomTeamRegistry randomTeamRegistry, MeterRegistry meterRegistry,
+                              @Value("${matchmaking.window.initial:50}") int initialWindow,
+                              @Value("${matchmaking.window.growth-per-second:10}") int windowGrowthPerSecond,
+                              @Value("${matchmaking.window.max:500}") int maxWindow,
+                              @Value("${matchmaking.max-team-size:50}") int maxTeamSize,
+                              @Value("${matchmaking.parallel-threshold:8192}") int parallelThreshold,
+                              @Value("${teams.random.ttl-ms:3600000}") long matchedRetentionMs) {
+        this(playerRepository, randomTeamRegistry, meterRegistry, initialWindow, windowGrowthPerSecond, maxWindow, maxTeamSize,
+                parallelThreshold, matchedRetentionMs, System::nanoTime);
+    }
+
+    public MatchmakingService(PlayerRepositoryI playerRepository, RandomTeamRegistry randomTeamRegistry, MeterRegistry meterRegistry,
+                              int initialWindow, int windowGrowthPerSecond, int maxWindow, int maxTeamSize, int parallelThreshold,
+                              long matchedRetentionMs, LongSupplier clock) {
+        this.playerRepository = playerRepository;
+        this.randomTeamRegistry = randomTeamRegistry;
+        this.meterRegistry = meterRegistry;
+        this.initialWindow = initialWindow;
+        this.windowGrowthPerSecond = windowGrowthPerSecond;
+        this.maxWindow = maxWindow;
+        this.maxTeamSize = maxTeamSize;
+        this.parallelThreshold = parallelThreshold;
+        this.matchedRetentionNanos = TimeUnit.MILLISECONDS.toNanos(matchedRetentionMs);
+        this.clock = clock;
+        Gauge.builder("matchmaking.queue.size", waiting, AtomicInteger::get).register(meterRegistry);
+        this.ticks = Timer.builder("matchmaking.tick").register(meterRegistry);
+    }
+
+    public MatchmakingTicketDTO join(JoinMatchmakingRequestDTO request) {
+        if (request.getTeamSize() > maxTeamSize) {
+            throw new InvalidInputException("Team size must be at most " + maxTeamSize);
+        }
+        Player player = playerRepository.findById(request.getPlayerId())
+                .orElseThrow(() -> new ResourceNotFoundException("Player not found"));
+        if (player.getTeam() != null) {
+            throw new InvalidInputException("Player '" + player.getNickname() + "' is already in a team.");
+        }
+        return enqueue(player, request.getTeamSize());
+    }
+
+    // Queues a player already known to be free
+    public MatchmakingTicketDTO enqueue(Player player, int teamSize) {
+        if (randomTeamRegistry.reserve(queueId, List.of(player), 1).isEmpty()) {
+            Ticket queued = tickets.get(player.getId());
+            if (queued != null && (queued.state.get() == Ticket.State.WAITING || queued.state.get() == Ticket.State.FORMING)) {
+                throw new DuplicateResourceException("Player '" + player.getNickname() + "' is already in the matchmaking queue.");
+            }
+            throw new InvalidInputException("Player '" + player.getNickname() + "' is already in a random team.");
+        }
+        Ticket ticket = new Ticket(player, teamSize, clock.getAsLong());
+        Ticket previous = tickets.putIfAbsent(player.getId(), ticket);
+        if (previous != null && (previous.state.get() == Ticket.State.WAITING || previous.state.get() == Ticket.State.FORMING
+                || !tickets.replace(player.getId(), previous, ticket))) {
+            randomTeamRegistry.release(queueId, List.of(player));
+            throw new DuplicateResourceException("Player '" + player.getNickname() + "' is already in the matchmaking queue.");
+        }
+        waiting.incrementAndGet();
+        arrivals.add(ticket);
+        return toResponse(ticket, ticket.joinedAt);
+    }
+
+    public MatchmakingTicketDTO getTicket(UUID playerId) {
+        Ticket ticket = tickets.get(playerId);
+        if (ticket == null || ticket.state.get() == Ticket.State.LEFT) {
+            throw new ResourceNotFoundException("Player is not in the matchmaking queue");
+        }
+        return toResponse(ticket, clock.getAsLong());
+    }
+
+    public void leave(UUID playerId) {
+        Ticket ticket = tickets.get(playerId);
+        if (ticket == null || !ticket.state.compareAndSet(Ticket.State.WAITING, Ticket.State.LEFT)) {
+            throw new ResourceNotFoundException("Player is not waiting in the matchmaking queue");
+        }
+        // Let go before the ticket is gone, so joining again right away finds the player free
+        randomTeamRegistry.release(queueId, List.of(ticket.player));
+        tickets.remove(playerId, ticket);
+        departures.add(ticket);
+        waiting.decrementAndGet();
+    }
+
+    @Scheduled(fixedDelayString = "${matchmaking.tick-ms:200}")
+    public void tick() {
+        ticks.record(() -> {
+            long now = clock.getAsLong();
+            Map<Integer, List<Ticket>> arrived = new HashMap<>();
+            for (Ticket ticket = arrivals.poll(); ticket != null; ticket = arrivals.poll()) {
+                arrived.computeIfAbsent(ticket.teamSize, size -> new ArrayList<>()).add(ticket);
+            }
+            for (Ticket ticket = departures.poll(); ticket != null; ticket = departures.poll()) {
+                MatchmakingPool pool = pools.get(ticket.teamSize);
+                if (pool != null) {
+                    pool.depart(ticket);
+                }
+            }
+            arrived.keySet().forEach(this::pool);
+
+            for (MatchmakingPool pool : pools.values()) {
+                pool.rebuild(arrived.getOrDefault(pool.teamSize, new ArrayList<>()));
+                formMatches(pool, now);
+            }
+            expireMatched(now);
+        });
+    }
+
+    public int queueSize() {
+        return waiting.get();
+    }
+
+    private void formMatches(MatchmakingPool pool, long now) {
+        int groupSize = 2 * pool.teamSize;
+        if (pool.size() < groupSize) {
+            return;
+        }
+        List<Integer> groups = pool.findGroups(now, this::window, parallelThreshold);
+        List<Integer> formed = (groups.size() * groupSize >= parallelThreshold ? groups.parallelStream() : groups.stream())
+                .filter(start -> form(pool, start, now))
+                .collect(Collectors.toList());
+        for (int start : formed) {
+            for (int i = start; i < start + groupSize; i++) {
+                pool.remove(i);
+            }
+        }
+    }
+
+    // Claims the group's tickets, splits it into two teams and registers them as random teams
+    private boolean form(MatchmakingPool pool, int start, long now) {
+        int groupSize = 2 * pool.teamSize;
+        List<Ticket> group = new ArrayList<>(groupSize);
+        for (int i = start; i < start + groupSize; i++) {
+            Ticket ticket = pool.get(i);
+            if (!ticket.state.compareAndSet(Ticket.State.WAITING, Ticket.State.FORMING)) {
+                group.forEach(claimed -> claimed.state.set(Ticket.State.WAITING));
+                return false; // a player left, the others are retried next tick
+            }
+            group.add(ticket);
+        }
+
+        int[] elo = new int[groupSize];
+        for (int i = 0; i < groupSize; i++) {
+            elo[i] = group.get(i).elo;
+        }
+        TeamSplit split = exact.split(elo, null, Long.MAX_VALUE);
+        if (split == null) {
+            split = karmarkarKarp.split(elo, null, Long.MAX_VALUE);
+        }
+        List<Player> team1 = new ArrayList<>(pool.teamSize);
+        List<Player> team2 = new ArrayList<>(pool.teamSize);
+        for (int i = 0; i < groupSize; i++) {
+            (split.isTeam1(i) ? team1 : team2).add(group.get(i).player);
+        }
+
+        List<Team> teams;
+        try {
+            teams = randomTeamRegistry.create(queueId, List.of(team1, team2));
+        } catch (IllegalStateException e) {
+            // Only if a reservation was lost: those players leave the queue, the others are retried next tick
+            for (Ticket ticket : group) {
+                boolean taken = !randomTeamRegistry.isReservedBy(ticket.player.getId(), queueId);
+                ticket.state.set(taken ? Ticket.State.LEFT : Ticket.State.WAITING);
+                if (taken) {
+                    tickets.remove(ticket.player.getId(), ticket);
+                    departures.add(ticket);
+                    waiting.decrementAndGet();
+                }
+            }
+            log.warn("Matchmaking group at elo {} lost players from the queue", elo[0]);
+            return false;
+        }
+
+        for (int i = 0; i < groupSize; i++) {
+            Ticket ticket = group.get(i);
+            boolean inTeam1 = split.isTeam1(i);
+            ticket.teamId = teams.get(inTeam1 ? 0 : 1).getId();
+            ticket.opponentTeamId = teams.get(inTeam1 ? 1 : 0).getId();
+            ticket.matchedAt = now;
+            ticket.state.set(Ticket.State.MATCHED);
+            pool.queueTime.record(now - ticket.joinedAt, TimeUnit.NANOSECONDS);
+            matched.add(ticket);
+        }
+        waiting.addAndGet(-groupSize);
+        pool.matches.increment();
+        return true;
+    }
+
+    // Matched tickets are answered for as long as their random team may exist
+    private void expireMatched(long now) {
+        for (Ticket ticket = matched.peek(); ticket != null && now - ticket.matchedAt > matchedRetentionNanos; ticket = matched.peek()) {
+            matched.poll();
+            tickets.remove(ticket.player.getId(), ticket);
+        }
+    }
+
+    private int window(long waitedNanos) {
+        long grown = initialWindow + windowGrowthPerSecond * waitedNanos / TimeUnit.SECONDS.toNanos(1);
+        return (int) Math.min(maxWindow, grown);
+    }
+
+    private MatchmakingPool pool(int teamSize) {
+        return pools.computeIfAbsent(teamSize, size -> new MatchmakingPool(size,
+                Timer.builder("matchmaking.queue.time")
+                        .tag("team_size", String.valueOf(size))
+                        .publishPercentileHistogram()
+                        .register(meterRegistry),
+                Counter.builder("matchmaking.matches")
+                        .tag("team_size", String.valueOf(size))
+                        .register(meterRegistry)));
+    }
+
+    private MatchmakingTicketDTO toResponse(Ticket ticket, long now) {
+        MatchmakingTicketDTO response = new MatchmakingTicketDTO();
+        response.setPlayerId(ticket.player.getId());
+        response.setTeamSize(ticket.teamSize);
+        if (ticket.state.get() == Ticket.State.MATCHED) {
+            response.setStatus("MATCHED");
+            response.setWaitedMs(TimeUnit.NANOSECONDS.toMillis(ticket.matchedAt - ticket.joinedAt));
+            response.setTeamId(ticket.teamId);
+            response.setOpponentTeamId(ticket.opponentTeamId);
+        } else {
+            response.setStatus("WAITING");
+            response.setWaitedMs(TimeUnit.NANOSECONDS.toMillis(now - ticket.joinedAt));
+            response.setEloWindow(window(now - ticket.joinedAt));
+        }
+        return response;
+    }
+}
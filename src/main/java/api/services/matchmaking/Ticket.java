@@ -0,0 +1,32 @@
+package api.services.matchmaking;
+
+import api.models.Player;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+// A player waiting in the matchmaking queue, or matched and kept for the status endpoint until the random team expires
+final class Ticket {
+
+    enum State {WAITING, FORMING, MATCHED, LEFT}
+
+    final Player player;
+    final int elo;
+    final int teamSize;
+    final long joinedAt; // nanos
+    final AtomicReference<State> state = new AtomicReference<>(State.WAITING);
+    volatile UUID teamId;
+    volatile UUID opponentTeamId;
+    volatile long matchedAt;
+
+    Ticket(Player player, int teamSize, long joinedAt) {
+        this.player = player;
+        this.elo = player.getElo();
+        this.teamSize = teamSize;
+        this.joinedAt = joinedAt;
+    }
+
+    boolean isWaiting() {
+        return state.get() == State.WAITING;
+    }
+}
@@ -0,0 +1,46 @@
+package api.services.notification;
+
+import com.amazonaws.services.lambda.AWSLambda;
+import com.amazonaws.services.lambda.model.InvocationType;
+import com.amazonaws.services.lambda.model.InvokeRequest;
+import com.amazonaws.services.lambda.model.InvokeResult;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@ConditionalOnProperty(name = "notifications.transport", havingValue = "lambda", matchIfMissing = true)
+public class LambdaNotificationTransport implements NotificationTransport {
+
+    private final AWSLambda awsLambda;
+    private final Map<String, String> functions;
+
+    public LambdaNotificationTransport(AWSLambda awsLambda,
+                                       @Value("${notifications.lambda.email-function}") String emailFunction,
+                                       @Value("${notifications.lambda.bucket-function}") String bucketFunction) {
+        this.awsLambda = awsLambda;
+        this.functions = Map.of(NotificationGateway.EMAIL, emailFunction, NotificationGateway.BUCKET, bucketFunction);
+    }
+
+    @Override
+    public void send(String target, String payload, boolean event) {
+        String function = functions.get(target);
+        if (function == null) {
+            throw new IllegalArgumentException("Unknown notification target " + target);
+        }
+
+        // The functions take the message as a JSON string
+        InvokeRequest request = new InvokeRequest()
+                .withFunctionName(function)
+                .withInvocationType(event ? InvocationType.Event : InvocationType.RequestResponse)
+                .withPayload("\"" + new String(JsonStringEncoder.getInstance().quoteAsString(payload)) + "\"");
+
+        InvokeResult result = awsLambda.invoke(request);
+        if (result.getFunctionError() != null) {
+            throw new IllegalStateException("Lambda function for " + target + " failed: " + result.getFunctionError());
+        }
+    }
+}
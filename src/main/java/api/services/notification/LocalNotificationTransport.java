@@ -0,0 +1,47 @@
+package api.services.notification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Stand-in for local runs and tests: logs and keeps every notification in memory instead of calling Lambda.
+ * {@link #setFailing(boolean)} simulates an outage of the downstream.
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.transport", havingValue = "local")
+public class LocalNotificationTransport implements NotificationTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalNotificationTransport.class);
+
+    private final Map<String, List<String>> sent = new ConcurrentHashMap<>();
+    private volatile boolean failing;
+
+    @Override
+    public void send(String target, String payload, boolean event) {
+        if (failing) {
+            throw new IllegalStateException("Local transport is set to fail");
+        }
+        sent.computeIfAbsent(target, t -> new CopyOnWriteArrayList<>()).add(payload);
+        log.info("Notification to {}: {}", target, payload);
+    }
+
+    public List<String> getSent(String target) {
+        return new ArrayList<>(sent.getOrDefault(target, List.of()));
+    }
+
+    public void setFailing(boolean failing) {
+        this.failing = failing;
+    }
+
+    public void clear() {
+        sent.clear();
+    }
+}
@@ -0,0 +1,186 @@
+package api.services.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The only way out to the notification downstreams. Every target gets its own bulkhead (a cap on calls in flight)
+ * and circuit breaker, so one slow or failing function can neither tie up every thread nor keep being hammered.
+ * <p>
+ * Metrics: {@code notifications.calls} (timer by target, invocation and outcome), {@code notifications.rejected}
+ * (by target and reason), {@code notifications.circuit.state} (0 closed, 1 open, 2 half open) and
+ * {@code notifications.bulkhead.available}.
+ */
+@Component
+public class NotificationGateway {
+
+    public static final String EMAIL = "email";
+    public static final String BUCKET = "bucket";
+
+    private final NotificationTransport transport;
+    private final MeterRegistry meterRegistry;
+    private final int maxConcurrentCalls;
+    private final long maxWaitMs;
+    private final long slowCallNanos;
+    private final int circuitWindowSize;
+    private final int circuitMinimumCalls;
+    private final int circuitFailureRatePercent;
+    private final long circuitOpenNanos;
+    private final int circuitHalfOpenCalls;
+    private final Map<String, Guard> guards = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor eventSenders;
+
+    public NotificationGateway(NotificationTransport transport, MeterRegistry meterRegistry,
+                               @Value("${notifications.gateway.max-concurrent-calls:16}") int maxConcurrentCalls,
+                               @Value("${notifications.gateway.max-wait-ms:100}") long maxWaitMs,
+                               @Value("${notifications.gateway.slow-call-ms:3000}") long slowCallMs,
+                               @Value("${notifications.gateway.circuit.window-size:20}") int circuitWindowSize,
+                               @Value("${notifications.gateway.circuit.minimum-calls:10}") int circuitMinimumCalls,
+                               @Value("${notifications.gateway.circuit.failure-rate-percent:50}") int circuitFailureRatePercent,
+                               @Value("${notifications.gateway.circuit.open-ms:30000}") long circuitOpenMs,
+                               @Value("${notifications.gateway.circuit.half-open-calls:3}") int circuitHalfOpenCalls,
+                               @Value("${notifications.gateway.event-threads:4}") int eventThreads,
+                               @Value("${notifications.gateway.event-queue-size:1000}") int eventQueueSize) {
+        this.transport = transport;
+        this.meterRegistry = meterRegistry;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWaitMs = maxWaitMs;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMs);
+        this.circuitWindowSize = circuitWindowSize;
+        this.circuitMinimumCalls = circuitMinimumCalls;
+        this.circuitFailureRatePercent = circuitFailureRatePercent;
+        this.circuitOpenNanos = TimeUnit.MILLISECONDS.toNanos(circuitOpenMs);
+        this.circuitHalfOpenCalls = circuitHalfOpenCalls;
+
+        AtomicInteger threads = new AtomicInteger();
+        this.eventSenders = new ThreadPoolExecutor(eventThreads, eventThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(eventQueueSize), r -> {
+            Thread thread = new Thread(r, "notification-event-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Waits for the downstream to process the notification. Throws if it failed or was rejected.
+    public void send(String target, String payload) {
+        call(target, payload, false);
+    }
+
+    // Fire and forget: hands the notification to the downstream's async queue (Lambda Event invocation) from the
+    // gateway's own threads. The future fails if the notification was rejected or not accepted.
+    public CompletableFuture<Void> sendEvent(String target, String payload) {
+        try {
+            return CompletableFuture.runAsync(() -> call(target, payload, true), eventSenders);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(rejected(guard(target), "queue_full"));
+        }
+    }
+
+    public CircuitBreaker.State getCircuitState(String target) {
+        return guard(target).breaker.getState();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        eventSenders.shutdownNow();
+    }
+
+    private void call(String target, String payload, boolean event) {
+        Guard guard = guard(target);
+        if (!acquire(guard.bulkhead)) {
+            throw rejected(guard, "bulkhead_full");
+        }
+
+        try {
+            if (!guard.breaker.tryAcquire()) {
+                throw rejected(guard, "circuit_open");
+            }
+
+            String invocation = event ? "event" : "request";
+            long start = System.nanoTime();
+            try {
+                transport.send(target, payload, event);
+            } catch (RuntimeException e) {
+                guard.breaker.onFailure();
+                timer(target, invocation, "failure").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw e;
+            }
+
+            // A slow success still counts against the breaker, a downstream that hangs is as harmful as one that fails
+            long elapsed = System.nanoTime() - start;
+            if (elapsed > slowCallNanos) {
+                guard.breaker.onFailure();
+            } else {
+                guard.breaker.onSuccess();
+            }
+            timer(target, invocation, "success").record(elapsed, TimeUnit.NANOSECONDS);
+        } finally {
+            guard.bulkhead.release();
+        }
+    }
+
+    private boolean acquire(Semaphore bulkhead) {
+        try {
+            return bulkhead.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private NotificationRejectedException rejected(Guard guard, String reason) {
+        guard.rejections(reason).increment();
+        return new NotificationRejectedException("Notification to " + guard.target + " rejected: " + reason);
+    }
+
+    private Timer timer(String target, String invocation, String outcome) {
+        return Timer.builder("notifications.calls")
+                .tag("target", target)
+                .tag("invocation", invocation)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private Guard guard(String target) {
+        return guards.computeIfAbsent(target, Guard::new);
+    }
+
+    private class Guard {
+        private final String target;
+        private final Semaphore bulkhead = new Semaphore(maxConcurrentCalls);
+        private final CircuitBreaker breaker = new CircuitBreaker(circuitWindowSize, circuitMinimumCalls,
+                circuitFailureRatePercent, circuitOpenNanos, circuitHalfOpenCalls, System::nanoTime);
+
+        Guard(String target) {
+            this.target = target;
+            Gauge.builder("notifications.circuit.state", breaker, b -> b.getState().ordinal())
+                    .tag("target", target)
+                    .register(meterRegistry);
+            Gauge.builder("notifications.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                    .tag("target", target)
+                    .register(meterRegistry);
+        }
+
+        Counter rejections(String reason) {
+            return Counter.builder("notifications.rejected")
+                    .tag("target", target)
+                    .tag("reason", reason)
+                    .register(meterRegistry);
+        }
+    }
+}
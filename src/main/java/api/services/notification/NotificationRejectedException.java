@@ -0,0 +1,8 @@
+package api.services.notification;
+
+// Thrown without calling the downstream, because its bulkhead is full or its circuit breaker is open
+public class NotificationRejectedException extends RuntimeException {
+    public NotificationRejectedException(String message) {
+        super(message);
+    }
+}
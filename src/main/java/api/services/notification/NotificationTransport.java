@@ -0,0 +1,9 @@
+package api.services.notification;
+
+// Delivers one notification, always called through NotificationGateway. Selected with notifications.transport (lambda or local).
+public interface NotificationTransport {
+
+    // Throws when the notification was not delivered. With event the transport only waits until the downstream has
+    // accepted the notification, not until it has been processed.
+    void send(String target, String payload, boolean event);
+}
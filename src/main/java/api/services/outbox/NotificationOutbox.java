@@ -0,0 +1,51 @@
+package api.services.outbox;
+
+import api.models.OutboxEvent;
+import api.repositories.OutboxRepositoryI;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.transaction.Transactional;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Records notifications in the outbox table. Must be called inside the transaction of the change being announced, so
+ * the notification is stored exactly when that change commits; {@link OutboxDispatcher} sends it afterwards.
+ */
+@Component
+public class NotificationOutbox {
+
+    private final OutboxRepositoryI outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    public NotificationOutbox(OutboxRepositoryI outboxRepository, ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void enqueue(Object payload, String... targets) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Notification payload can not be serialized", e);
+        }
+        enqueueJson(json, targets);
+    }
+
+    // For payloads the caller already encoded, such as match events
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void enqueueJson(String json, String... targets) {
+        Instant now = Instant.now();
+        for (String target : targets) {
+            OutboxEvent event = new OutboxEvent();
+            event.setTarget(target);
+            event.setPayload(json);
+            event.setCreatedAt(now);
+            event.setNextAttemptAt(now);
+            outboxRepository.save(event);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package api.services.outbox;
+
+import api.models.OutboxEvent;
+import api.repositories.OutboxRepositoryI;
+import api.services.archive.MatchArchive;
+import api.services.notification.NotificationGateway;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drains the outbox in the background. Due events are claimed in batches by pushing their next attempt out by a lease,
+ * sent with at most {@code concurrency} calls in flight, then deleted on success or rescheduled with exponential
+ * backoff. After {@code maxAttempts} failures an event is marked dead and left in the table.
+ * <p>
+ * Events for {@link MatchArchive#TARGET} go to the local archive instead of the gateway.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private final OutboxRepositoryI outboxRepository;
+    private final NotificationGateway notificationGateway;
+    private final MatchArchive matchArchive;
+    private final TransactionTemplate writeTransaction;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+    private final ExecutorService senders;
+
+    public OutboxDispatcher(OutboxRepositoryI outboxRepository, NotificationGateway notificationGateway, MatchArchive matchArchive,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${notifications.outbox.batch-size:100}") int batchSize,
+                            @Value("${notifications.outbox.concurrency:8}") int concurrency,
+                            @Value("${notifications.outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${notifications.outbox.initial-backoff-ms:1000}") long initialBackoffMs,
+                            @Value("${notifications.outbox.max-backoff-ms:300000}") long maxBackoffMs,
+                            @Value("${notifications.outbox.lease-ms:60000}") long leaseMs) {
+        this.outboxRepository = outboxRepository;
+        this.notificationGateway = notificationGateway;
+        this.matchArchive = matchArchive;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = Duration.ofMillis(initialBackoffMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+        this.lease = Duration.ofMillis(leaseMs);
+
+        AtomicInteger threads = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread thread = new Thread(r, "outbox-sender-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.outbox.poll-interval-ms:500}")
+    public void drain() {
+        List<OutboxEvent> batch;
+        do {
+            batch = claim();
+            if (!batch.isEmpty()) {
+                dispatch(batch);
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    // Claimed events are invisible to other pollers until the lease runs out, so a crash mid-send only delays them
+    private List<OutboxEvent> claim() {
+        return writeTransaction.execute(status -> {
+            Instant now = Instant.now();
+            List<OutboxEvent> due = outboxRepository.findDue(now, PageRequest.of(0, batchSize));
+            due.forEach(event -> event.setNextAttemptAt(now.plus(lease)));
+            return due;
+        });
+    }
+
+    private void dispatch(List<OutboxEvent> batch) {
+        String[] errors = new String[batch.size()];
+        CompletableFuture<?>[] sends = new CompletableFuture<?>[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            int index = i;
+            OutboxEvent event = batch.get(i);
+            sends[i] = CompletableFuture.runAsync(() -> deliver(event), senders)
+                    .exceptionally(e -> {
+                        errors[index] = describe(e);
+                        return null;
+                    });
+        }
+        CompletableFuture.allOf(sends).join();
+        flushArchive(batch, errors);
+
+        Instant now = Instant.now();
+        List<UUID> delivered = new ArrayList<>();
+        List<OutboxEvent> failed = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEvent event = batch.get(i);
+            if (errors[i] == null) {
+                delivered.add(event.getId());
+                continue;
+            }
+
+            event.setAttempts(event.getAttempts() + 1);
+            event.setLastError(errors[i]);
+            if (event.getAttempts() >= maxAttempts) {
+                event.setDead(true);
+                log.error("Giving up on {} notification {} after {} attempts: {}", event.getTarget(), event.getId(), event.getAttempts(), errors[i]);
+            } else {
+                event.setNextAttemptAt(now.plus(backoff(event.getAttempts())));
+            }
+            failed.add(event);
+        }
+
+        writeTransaction.executeWithoutResult(status -> {
+            if (!delivered.isEmpty()) {
+                outboxRepository.deleteAllByIdInBatch(delivered);
+            }
+            if (!failed.isEmpty()) {
+                outboxRepository.saveAll(failed);
+            }
+        });
+    }
+
+    private void deliver(OutboxEvent event) {
+        if (MatchArchive.TARGET.equals(event.getTarget())) {
+            matchArchive.append(event.getPayload());
+        } else {
+            notificationGateway.send(event.getTarget(), event.getPayload());
+        }
+    }
+
+    // Archived events only count as delivered once they are on disk
+    private void flushArchive(List<OutboxEvent> batch, String[] errors) {
+        boolean archived = false;
+        for (int i = 0; i < batch.size(); i++) {
+            archived |= errors[i] == null && MatchArchive.TARGET.equals(batch.get(i).getTarget());
+        }
+        if (!archived) {
+            return;
+        }
+
+        try {
+            matchArchive.flush();
+        } catch (RuntimeException e) {
+            for (int i = 0; i < batch.size(); i++) {
+                if (errors[i] == null && MatchArchive.TARGET.equals(batch.get(i).getTarget())) {
+                    errors[i] = describe(e);
+                }
+            }
+        }
+    }
+
+    // initialBackoff * 2^(attempts - 1), capped, with jitter over the upper half so retries of a batch spread out
+    Duration backoff(int attempts) {
+        long delay = initialBackoff.toMillis() << Math.min(attempts - 1, 30);
+        if (delay <= 0 || delay > maxBackoff.toMillis()) {
+            delay = maxBackoff.toMillis();
+        }
+        return Duration.ofMillis(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+    }
+
+    private static String describe(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        String message = cause.getClass().getSimpleName() + ": " + cause.getMessage();
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
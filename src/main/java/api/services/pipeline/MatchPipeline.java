@@ -0,0 +1,613 @@
+package api.services.pipeline;
+
+import api.exceptions.ResourceNotFoundException;
+import api.exceptions.ServiceBusyException;
+import api.models.Match;
+import api.models.MatchPlayer;
+import api.models.Player;
+import api.repositories.MatchRepositoryI;
+import api.repositories.PlayerRepositoryI;
+import api.repositories.TeamRepositoryI;
+import api.services.archive.MatchArchive;
+import api.services.events.MatchEvent;
+import api.services.events.MatchEventCodec;
+import api.services.leaderboard.Leaderboard;
+import api.services.notification.NotificationGateway;
+import api.services.outbox.NotificationOutbox;
+import api.services.rating.RatingEngine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Applies matches on N single-threaded partitions. A team belongs to the partition its id hashes to, and only that
+ * partition's thread changes its players' ratings, so concurrent matches of the same team are applied one after the
+ * other without database locks. Each partition drains up to {@code batchSize} matches from its ring buffer, loads the
+ * players it owns for them with one query, applies the matches in memory and writes the batch back in one
+ * transaction: the new ratings, the stored matches and their outbox events. Random teams are never stored, their
+ * matches only write the players' ratings and the outbox events.
+ * <p>
+ * Matches are published in groups: one match, or every match of a {@link #submitAll batch}. A group is published
+ * once to each partition owning one of its teams. When that is more than one, the others hand what they applied so
+ * far to the home partition (the first match's team 1's) and park on the group; the home partition applies all of
+ * its matches to the players of every partition and writes their work in one transaction right away, so a match's
+ * two sides and a batch's matches are committed or rolled back together. A parked partition holds nothing
+ * uncommitted, so it never waits on the rest of another's batch. Publishing happens under one sequencer lock, so any
+ * two partitions see their shared groups in the same order and the parked partitions can never wait on each other in
+ * a cycle.
+ * <p>
+ * Backpressure: {@link #submit} waits up to {@code submitTimeoutMs} for room in the queues and then throws
+ * {@link ServiceBusyException}, as it does while the pipeline is {@link #pause paused}. Metrics: {@code matches.pipeline.queue.depth} (by partition),
+ * {@code matches.pipeline.rejected}, {@code matches.pipeline.batch.size} and {@code matches.pipeline.flush}.
+ */
+@Component
+public class MatchPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(MatchPipeline.class);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long SUBMIT_RETRY_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private final TeamRepositoryI teamRepository;
+    private final MatchRepositoryI matchRepository;
+    private final PlayerRepositoryI playerRepository;
+    private final Leaderboard leaderboard;
+    private final NotificationOutbox notificationOutbox;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+    private final long submitTimeoutNanos;
+    private final Partition[] partitions;
+    private final Object sequencer = new Object();
+    private final Counter rejected;
+    private final DistributionSummary batchSizes;
+    private final Timer flushes;
+
+    private volatile boolean stopping;
+    private volatile boolean paused;
+
+    public MatchPipeline(TeamRepositoryI teamRepository, MatchRepositoryI matchRepository, PlayerRepositoryI playerRepository,
+                         Leaderboard leaderboard, NotificationOutbox notificationOutbox,
+                         PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                         @Value("${matches.pipeline.partitions:0}") int partitions,
+                         @Value("${matches.pipeline.queue-capacity:4096}") int queueCapacity,
+                         @Value("${matches.pipeline.batch-size:256}") int batchSize,
+                         @Value("${matches.pipeline.submit-timeout-ms:2000}") long submitTimeoutMs) {
+        this.teamRepository = teamRepository;
+        this.matchRepository = matchRepository;
+        this.playerRepository = playerRepository;
+        this.leaderboard = leaderboard;
+        this.notificationOutbox = notificationOutbox;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.submitTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(submitTimeoutMs);
+
+        this.partitions = new Partition[partitions > 0 ? partitions : Runtime.getRuntime().availableProcessors()];
+        for (int i = 0; i < this.partitions.length; i++) {
+            Partition partition = new Partition(i, queueCapacity);
+            this.partitions[i] = partition;
+            Gauge.builder("matches.pipeline.queue.depth", partition.queue, RingBuffer::size)
+                    .tag("partition", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+        this.rejected = Counter.builder("matches.pipeline.rejected").register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("matches.pipeline.batch.size").register(meterRegistry);
+        this.flushes = Timer.builder("matches.pipeline.flush").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        for (Partition partition : partitions) {
+            partition.thread.start();
+        }
+    }
+
+    // Completes with the stored match id (null for random team matches) once the match is committed
+    public CompletableFuture<UUID> submit(MatchTask task) {
+        publish(new MatchGroup(List.of(task)));
+        return task.result();
+    }
+
+    // Commits the matches in one transaction, in order. A match that cannot be applied fails on its own and leaves
+    // nothing behind; the others complete once they are all committed, or all fail if the commit does.
+    public List<CompletableFuture<UUID>> submitAll(List<MatchTask> tasks) {
+        if (!tasks.isEmpty()) {
+            publish(new MatchGroup(List.copyOf(tasks)));
+        }
+        return tasks.stream().map(MatchTask::result).toList();
+    }
+
+    public int queueDepth() {
+        int depth = 0;
+        for (Partition partition : partitions) {
+            depth += partition.queue.size();
+        }
+        return depth;
+    }
+
+    // Stops taking matches and returns once every match taken before is committed. Until resume(), submit throws
+    // ServiceBusyException and no player's rating is changed by the pipeline.
+    public void pause() {
+        synchronized (sequencer) {
+            paused = true;
+        }
+        // Nothing is published any more: a partition with an empty queue that is not processing stays idle
+        for (Partition partition : partitions) {
+            while (partition.queue.size() > 0 || partition.busy) {
+                LockSupport.unpark(partition.thread);
+                LockSupport.parkNanos(SUBMIT_RETRY_NANOS);
+            }
+        }
+    }
+
+    public void resume() {
+        synchronized (sequencer) {
+            paused = false;
+        }
+    }
+
+    // Stops taking matches; the partitions finish what is queued before they exit
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        synchronized (sequencer) {
+            stopping = true;
+        }
+        for (Partition partition : partitions) {
+            LockSupport.unpark(partition.thread);
+        }
+        for (Partition partition : partitions) {
+            partition.thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    private void publish(MatchGroup group) {
+        Set<Partition> involved = new LinkedHashSet<>();
+        for (MatchTask task : group.tasks) {
+            involved.add(partitionOf(task.getTeam1Id()));
+            involved.add(partitionOf(task.getTeam2Id()));
+        }
+        group.route(List.copyOf(involved));
+
+        long deadline = System.nanoTime() + submitTimeoutNanos;
+        while (!offer(group)) {
+            if (System.nanoTime() - deadline >= 0) {
+                rejected.increment();
+                throw new ServiceBusyException("Too many matches waiting to be processed, try again later.");
+            }
+            LockSupport.parkNanos(SUBMIT_RETRY_NANOS);
+        }
+
+        for (Partition partition : group.partitions) {
+            LockSupport.unpark(partition.thread);
+        }
+    }
+
+    private boolean offer(MatchGroup group) {
+        synchronized (sequencer) {
+            if (stopping) {
+                throw new ServiceBusyException("Match processing is shutting down.");
+            }
+            if (paused) {
+                throw new ServiceBusyException("Match processing is paused while ratings are replayed, try again later.");
+            }
+            for (Partition partition : group.partitions) {
+                if (partition.queue.remainingCapacity() == 0) {
+                    return false;
+                }
+            }
+            for (Partition partition : group.partitions) {
+                partition.queue.offer(group);
+            }
+            return true;
+        }
+    }
+
+    private Partition partitionOf(UUID teamId) {
+        return partitions[Math.floorMod(teamId.hashCode(), partitions.length)];
+    }
+
+    private final class Partition implements Runnable {
+
+        private final int index;
+        private final RingBuffer<MatchGroup> queue;
+        private final Thread thread;
+
+        // The batch in progress: this partition's players (also changed by other partitions' groups while this one
+        // is parked), the matches applied here and the players of this partition they changed, since the last commit
+        private final Map<UUID, Player> players = new HashMap<>();
+        private final List<MatchTask> applied = new ArrayList<>();
+        private final List<MatchEvent> events = new ArrayList<>();
+        private final Set<UUID> changed = new HashSet<>();
+        // What the database held for each player when it was loaded or last written here, and the rows the
+        // transaction in progress writes
+        private final Map<UUID, Stored> stored = new HashMap<>();
+        private final List<Player> written = new ArrayList<>();
+        private RuntimeException loadFailure;
+        // Rating scratch, reused by every match since only this partition's thread rates; grown for a bigger match
+        private int[] elo = new int[10];
+        private int[] hours = new int[10];
+        private int[] k = new int[10];
+        // Set before draining, cleared once what was drained is committed, for pause()
+        private volatile boolean busy;
+
+        Partition(int index, int queueCapacity) {
+            this.index = index;
+            this.queue = new RingBuffer<>(queueCapacity);
+            this.thread = new Thread(this, "match-partition-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<MatchGroup> batch = new ArrayList<>(batchSize);
+            while (true) {
+                batch.clear();
+                busy = true;
+                if (queue.drainTo(batch, batchSize) == 0) {
+                    busy = false;
+                    // Everything published before stopping was set is visible once it is
+                    if (stopping && queue.size() == 0) {
+                        return;
+                    }
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    continue;
+                }
+                process(batch);
+                busy = false;
+            }
+        }
+
+        private void process(List<MatchGroup> batch) {
+            batchSizes.record(batch.size());
+            load(batch);
+
+            for (MatchGroup group : batch) {
+                if (group.home() != this) {
+                    // The home partition commits the group together with what this one applied so far
+                    group.arrive();
+                    group.awaitApplied();
+                } else if (group.isSplit()) {
+                    try {
+                        group.awaitArrivals();
+                        group.tasks.forEach(this::apply);
+                        flush(group.partitions);
+                    } finally {
+                        group.markApplied();
+                    }
+                } else {
+                    group.tasks.forEach(this::apply);
+                }
+            }
+            flush(List.of(this));
+            players.clear();
+            stored.clear();
+            loadFailure = null;
+        }
+
+        // One query for every player of this partition's teams in the batch
+        private void load(List<MatchGroup> batch) {
+            Set<UUID> missing = new HashSet<>();
+            for (MatchGroup group : batch) {
+                for (MatchTask task : group.tasks) {
+                    for (int team = 1; team <= 2; team++) {
+                        if (partitionOf(task.teamId(team)) == this) {
+                            missing.addAll(task.playerIds(team));
+                        }
+                    }
+                }
+            }
+            try {
+                for (Player player : playerRepository.findAllById(missing)) {
+                    players.put(player.getId(), player);
+                    stored.put(player.getId(), new Stored(player));
+                }
+            } catch (RuntimeException e) {
+                loadFailure = e;
+            }
+        }
+
+        // Applies a match of a group this partition is home to; its teams' partitions are this one or parked on the group
+        private void apply(MatchTask task) {
+            try {
+                Partition team1Partition = partitionOf(task.getTeam1Id());
+                Partition team2Partition = partitionOf(task.getTeam2Id());
+                List<Player> team1Players = team1Partition.resolve(task.playerIds(1));
+                List<Player> team2Players = team2Partition.resolve(task.playerIds(2));
+
+                MatchEvent event = new MatchEvent(team1Players.size() + team2Players.size());
+                event.setTeam1Id(task.getTeam1Id());
+                event.setTeam2Id(task.getTeam2Id());
+                event.setWinningTeamId(task.getWinningTeamId());
+                event.setDuration(task.getDuration());
+                rate(team1Players, team2Players, task, event);
+
+                applied.add(task);
+                events.add(event);
+                team1Partition.changed.addAll(task.playerIds(1));
+                team2Partition.changed.addAll(task.playerIds(2));
+            } catch (RuntimeException e) {
+                task.fail(e);
+            }
+        }
+
+        private void rate(List<Player> team1Players, List<Player> team2Players, MatchTask task, MatchEvent event) {
+            double team1Score;
+
+            if (task.getWinningTeamId() == null) {// Draw
+                team1Score = RatingEngine.DRAW;
+            } else if (task.getWinningTeamId().equals(task.getTeam1Id())) {// Team1 won
+                team1Score = RatingEngine.TEAM1_WIN;
+                team1Players.forEach(player -> player.setWins(player.getWins() + 1));
+                team2Players.forEach(player -> player.setLosses(player.getLosses() + 1));
+            } else {// Team2 won
+                team1Score = RatingEngine.TEAM2_WIN;
+                team2Players.forEach(player -> player.setWins(player.getWins() + 1));
+                team1Players.forEach(player -> player.setLosses(player.getLosses() + 1));
+            }
+
+            // Team1 players go to [0, n1) and team2 players to [n1, n1 + n2)
+            int size = team1Players.size() + team2Players.size();
+            if (elo.length < size) {
+                elo = new int[size];
+                hours = new int[size];
+                k = new int[size];
+            }
+            for (int i = 0; i < size; i++) {
+                Player player = playerAt(team1Players, team2Players, i);
+                elo[i] = player.getElo();
+                hours[i] = player.getHoursPlayed();
+            }
+
+            RatingEngine.rateMatch(elo, hours, k, team1Players.size(), team2Players.size(), team1Score, task.getDuration());
+
+            for (int i = 0; i < size; i++) {
+                Player player = playerAt(team1Players, team2Players, i);
+                event.addPlayer(player.getId(), i < team1Players.size() ? 1 : 2, player.getElo(), elo[i]);
+                player.setElo(elo[i]);
+                player.setHoursPlayed(hours[i]);
+                player.setRatingAdjustment(k[i]);
+            }
+        }
+
+        private List<Player> resolve(List<UUID> playerIds) {
+            List<Player> resolved = new ArrayList<>(playerIds.size());
+            for (UUID playerId : playerIds) {
+                Player player = players.get(playerId);
+                if (player == null) {
+                    throw loadFailure != null ? loadFailure : new ResourceNotFoundException("Player not found");
+                }
+                resolved.add(player);
+            }
+            return resolved;
+        }
+
+        // Commits what the partitions (this one and those parked on its group) applied since their last commit, in one
+        // transaction
+        private void flush(List<Partition> involved) {
+            int matches = 0;
+            for (Partition partition : involved) {
+                matches += partition.applied.size();
+            }
+            if (matches == 0) {
+                return;
+            }
+            Timer.Sample sample = Timer.start();
+            try {
+                transaction.executeWithoutResult(status -> involved.forEach(Partition::write));
+                involved.forEach(Partition::committed);
+                completeApplied(involved, null);
+            } catch (RuntimeException e) {
+                log.error("Writing {} matches of partition {} failed", matches, index, e);
+                completeApplied(involved, e);
+                involved.forEach(Partition::reload);
+            } finally {
+                sample.stop(flushes);
+                involved.forEach(Partition::clearApplied);
+            }
+        }
+
+        private void completeApplied(List<Partition> involved, RuntimeException error) {
+            for (Partition partition : involved) {
+                for (MatchTask task : partition.applied) {
+                    if (error == null) {
+                        task.flushed();
+                    } else {
+                        task.fail(error);
+                    }
+                }
+            }
+        }
+
+        // The rolled back changes are still on the loaded players: later matches of the batch start from the stored state
+        private void reload() {
+            try {
+                for (Player player : playerRepository.findAllById(changed)) {
+                    players.put(player.getId(), player);
+                    stored.put(player.getId(), new Stored(player));
+                }
+            } catch (RuntimeException e) {
+                changed.forEach(players::remove);
+                changed.forEach(stored::remove);
+                loadFailure = e;
+            }
+        }
+
+        // The written rows are what the database holds now, with their new versions: later matches of the batch go on
+        // from them
+        private void committed() {
+            for (Player player : written) {
+                Player state = players.get(player.getId());
+                state.setElo(player.getElo());
+                state.setHoursPlayed(player.getHoursPlayed());
+                state.setWins(player.getWins());
+                state.setLosses(player.getLosses());
+                stored.put(player.getId(), new Stored(player));
+            }
+        }
+
+        private void clearApplied() {
+            applied.clear();
+            events.clear();
+            changed.clear();
+            written.clear();
+        }
+
+        private void write() {
+            for (int i = 0; i < applied.size(); i++) {
+                MatchTask task = applied.get(i);
+                MatchEvent event = events.get(i);
+                Instant created = Instant.now();
+                if (task.isStored()) {
+                    Match match = toMatch(task);
+                    matchRepository.save(match);
+                    task.setMatchId(match.getId());
+                    event.setId(match.getId());
+                    if (match.getCreated() != null) {
+                        created = match.getCreated();
+                    }
+                }
+                event.setCreatedAt(created.toEpochMilli());
+                notificationOutbox.enqueueJson(MatchEventCodec.toJson(event), NotificationGateway.EMAIL, MatchArchive.TARGET);
+            }
+
+            // Unchanged players are skipped by the dirty check, the rest go out as one JDBC batch at commit. A row updated
+            // between that read and the commit fails the version check and the whole write with it.
+            if (!changed.isEmpty()) {
+                for (Player player : playerRepository.findAllById(changed)) {
+                    Player state = players.get(player.getId());
+                    Stored before = stored.get(player.getId());
+                    if (player.getVersion() == before.version()) {
+                        player.setElo(state.getElo());
+                        player.setHoursPlayed(state.getHoursPlayed());
+                        player.setWins(state.getWins());
+                        player.setLosses(state.getLosses());
+                    } else {
+                        // Updated since it was loaded, by an edit or the rating replay: that update stays and what
+                        // this partition's matches changed is added on top of it
+                        player.setElo(player.getElo() + state.getElo() - before.elo());
+                        player.setHoursPlayed(player.getHoursPlayed() + state.getHoursPlayed() - before.hoursPlayed());
+                        player.setWins(player.getWins() + state.getWins() - before.wins());
+                        player.setLosses(player.getLosses() + state.getLosses() - before.losses());
+                    }
+                    player.setRatingAdjustment(state.getRatingAdjustment());
+                    leaderboard.update(player);
+                    written.add(player);
+                }
+            }
+        }
+    }
+
+    /**
+     * Matches committed in one transaction, published once to each partition in {@code partitions}; the first of them,
+     * the first match's team 1's, is home to the group and applies every match.
+     */
+    private static final class MatchGroup {
+
+        private final List<MatchTask> tasks;
+        private List<Partition> partitions;
+
+        // Only set for groups over more than one partition
+        private CountDownLatch arrivals;
+        private CountDownLatch applied;
+
+        MatchGroup(List<MatchTask> tasks) {
+            this.tasks = tasks;
+        }
+
+        // Called before the group is published
+        void route(List<Partition> partitions) {
+            this.partitions = partitions;
+            if (partitions.size() > 1) {
+                arrivals = new CountDownLatch(partitions.size() - 1);
+                applied = new CountDownLatch(1);
+            }
+        }
+
+        Partition home() {
+            return partitions.get(0);
+        }
+
+        boolean isSplit() {
+            return applied != null;
+        }
+
+        void arrive() {
+            arrivals.countDown();
+        }
+
+        void awaitArrivals() {
+            awaitUninterruptibly(arrivals);
+        }
+
+        void markApplied() {
+            applied.countDown();
+        }
+
+        void awaitApplied() {
+            awaitUninterruptibly(applied);
+        }
+
+        // A partition thread is only interrupted by a JVM going down; leaving a group early would let its home write
+        // a parked partition's players while that one runs on
+        private static void awaitUninterruptibly(CountDownLatch latch) {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    latch.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Match toMatch(MatchTask task) {
+        Match match = new Match();
+        match.setTeam1(teamRepository.getReferenceById(task.getTeam1Id()));
+        match.setTeam2(teamRepository.getReferenceById(task.getTeam2Id()));
+        if (task.getWinningTeamId() != null) {
+            match.setWinningTeam(teamRepository.getReferenceById(task.getWinningTeamId()));
+        }
+        match.setDuration(task.getDuration());
+        task.playerIds(1).forEach(playerId -> match.getRoster().add(new MatchPlayer(playerId, 1)));
+        task.playerIds(2).forEach(playerId -> match.getRoster().add(new MatchPlayer(playerId, 2)));
+        return match;
+    }
+
+    private record Stored(long version, int elo, int hoursPlayed, int wins, int losses) {
+
+        Stored(Player player) {
+            this(player.getVersion(), player.getElo(), player.getHoursPlayed(), player.getWins(), player.getLosses());
+        }
+    }
+
+    private static Player playerAt(List<Player> team1Players, List<Player> team2Players, int index) {
+        return index < team1Players.size() ? team1Players.get(index) : team2Players.get(index - team1Players.size());
+    }
+}
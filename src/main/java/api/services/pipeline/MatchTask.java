@@ -0,0 +1,93 @@
+package api.services.pipeline;
+
+import api.models.Player;
+import api.models.Team;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A validated match waiting in the pipeline, alone or in a batch. The home partition of its group applies and commits
+ * it; the other partitions owning one of the group's teams park on the group until it is committed, see
+ * {@link MatchPipeline}.
+ */
+public class MatchTask {
+
+    private final UUID team1Id;
+    private final UUID team2Id;
+    private final boolean team1Random;
+    private final boolean team2Random;
+    private final List<UUID> team1PlayerIds;
+    private final List<UUID> team2PlayerIds;
+    private final UUID winningTeamId; // null for a draw
+    private final int duration;
+
+    private final CompletableFuture<UUID> result = new CompletableFuture<>();
+    private volatile UUID matchId;
+
+    public MatchTask(Team team1, List<Player> team1Players, Team team2, List<Player> team2Players, Team winningTeam, int duration) {
+        this.team1Id = team1.getId();
+        this.team2Id = team2.getId();
+        this.team1Random = team1.isRandom();
+        this.team2Random = team2.isRandom();
+        this.team1PlayerIds = team1Players.stream().map(Player::getId).toList();
+        this.team2PlayerIds = team2Players.stream().map(Player::getId).toList();
+        this.winningTeamId = winningTeam != null ? winningTeam.getId() : null;
+        this.duration = duration;
+    }
+
+    public UUID getTeam1Id() {
+        return team1Id;
+    }
+
+    public UUID getTeam2Id() {
+        return team2Id;
+    }
+
+    public UUID getWinningTeamId() {
+        return winningTeamId;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public List<UUID> getTeam1PlayerIds() {
+        return team1PlayerIds;
+    }
+
+    public List<UUID> getTeam2PlayerIds() {
+        return team2PlayerIds;
+    }
+
+    // Random team matches are rated but not stored
+    public boolean isStored() {
+        return !team1Random && !team2Random;
+    }
+
+    List<UUID> playerIds(int team) {
+        return team == 1 ? team1PlayerIds : team2PlayerIds;
+    }
+
+    UUID teamId(int team) {
+        return team == 1 ? team1Id : team2Id;
+    }
+
+    CompletableFuture<UUID> result() {
+        return result;
+    }
+
+    void setMatchId(UUID matchId) {
+        this.matchId = matchId;
+    }
+
+    // Completes the task once it is committed
+    void flushed() {
+        result.complete(matchId);
+    }
+
+    void fail(Throwable error) {
+        result.completeExceptionally(error);
+    }
+}
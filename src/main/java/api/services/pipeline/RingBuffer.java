@@ -0,0 +1,57 @@
+package api.services.pipeline;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded ring buffer for one consumer thread. Producers must not offer concurrently; {@link MatchPipeline} only
+ * offers while holding its sequencer lock. Neither side blocks: offer fails when full and drain returns 0 when empty.
+ */
+final class RingBuffer<T> {
+
+    private final Object[] slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // next slot to read, written by the consumer
+    private final AtomicLong tail = new AtomicLong(); // next slot to write, written by the producer
+
+    RingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.slots = new Object[size];
+        this.mask = size - 1;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    int remainingCapacity() {
+        return slots.length - size();
+    }
+
+    boolean offer(T item) {
+        long t = tail.get();
+        if (t - head.get() == slots.length) {
+            return false;
+        }
+        slots[(int) t & mask] = item;
+        tail.lazySet(t + 1); // publishes the slot write
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    int drainTo(List<T> out, int max) {
+        long h = head.get();
+        int count = (int) Math.min(tail.get() - h, max);
+        for (int i = 0; i < count; i++) {
+            int slot = (int) (h + i) & mask;
+            out.add((T) slots[slot]);
+            slots[slot] = null;
+        }
+        head.lazySet(h + count); // frees the slots for the producer
+        return count;
+    }
+}
@@ -0,0 +1,84 @@
+package api.services.players;
+
+import api.modelsDTO.PlayerResponseDTO;
+import api.repositories.PlayerRepositoryI;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Writes every player to a stream as one JSON array, the same shape as GET /players?unpaged=true, for
+ * GET /players/export. Rows come off a database cursor and go out one by one, so memory stays flat however big the
+ * table is; the response is only as consistent as the read-only transaction it runs in.
+ * <p>
+ * Metrics: {@code players.exported} (rows) and {@code players.export} (time per export).
+ */
+@Component
+public class PlayerExporter {
+
+    private final PlayerRepositoryI playerRepository;
+    private final TransactionTemplate readTransaction;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter playerWriter;
+    private final Counter exported;
+    private final Timer exports;
+
+    @Autowired
+    public PlayerExporter(PlayerRepositoryI playerRepository, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry) {
+        this.playerRepository = playerRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        // Flushing after every player would send a chunk per row; the servlet buffer decides instead
+        this.playerWriter = objectMapper.writerFor(PlayerResponseDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.exported = Counter.builder("players.exported").register(meterRegistry);
+        this.exports = Timer.builder("players.export").register(meterRegistry);
+    }
+
+    public void export(OutputStream out) {
+        exports.record(() -> readTransaction.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = playerRepository.streamAllForExport();
+                 JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                json.writeStartArray();
+                Iterator<Object[]> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    playerWriter.writeValue(json, toResponse(iterator.next()));
+                    exported.increment();
+                }
+                json.writeEndArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+
+    private static PlayerResponseDTO toResponse(Object[] row) {
+        PlayerResponseDTO player = new PlayerResponseDTO();
+        player.setId((UUID) row[0]);
+        player.setNickname((String) row[1]);
+        player.setWins((Integer) row[2]);
+        player.setLosses((Integer) row[3]);
+        player.setElo((Integer) row[4]);
+        player.setHoursPlayed((Integer) row[5]);
+        player.setTeamId((UUID) row[6]);
+        player.setRatingAdjustment((Integer) row[7]);
+        return player;
+    }
+}
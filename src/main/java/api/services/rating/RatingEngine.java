@@ -0,0 +1,101 @@
+package api.services.rating;
+
+/**
+ * Elo math for team matches, working on primitive arrays so rating a match allocates nothing.
+ * <p>
+ * Players of a match are addressed through a roster: {@code roster[offset, offset + team1Size)} are indexes of team1
+ * players into the elo/hours/k arrays, the following {@code team2Size} entries are team2 players.
+ */
+public final class RatingEngine {
+
+    public static final double TEAM1_WIN = 1.0;
+    public static final double DRAW = 0.5;
+    public static final double TEAM2_WIN = 0.0;
+
+    // Expected scores are looked up for Elo differences in [-MAX_TABLE_DIFF, MAX_TABLE_DIFF], and computed outside it
+    static final int MAX_TABLE_DIFF = 4000;
+    private static final double[] EXPECTED_SCORE = new double[2 * MAX_TABLE_DIFF + 1];
+
+    static {
+        for (int diff = -MAX_TABLE_DIFF; diff <= MAX_TABLE_DIFF; diff++) {
+            EXPECTED_SCORE[diff + MAX_TABLE_DIFF] = computeExpectedScore(diff);
+        }
+    }
+
+    private RatingEngine() {
+    }
+
+    // diff = opponent elo - player elo
+    public static double expectedScore(int diff) {
+        if (diff >= -MAX_TABLE_DIFF && diff <= MAX_TABLE_DIFF) {
+            return EXPECTED_SCORE[diff + MAX_TABLE_DIFF];
+        }
+        return computeExpectedScore(diff);
+    }
+
+    //https://calculator.academy/elo-rating-calculator/
+    public static int newElo(int elo, int opponentAvgElo, double score, int k) {
+        return (int) Math.round(elo + k * (score - expectedScore(opponentAvgElo - elo)));
+    }
+
+    public static int kFactor(int hoursPlayed) {
+        if (hoursPlayed < 500) {
+            return 50;
+        } else if (hoursPlayed < 1000) {
+            return 40;
+        } else if (hoursPlayed < 3000) {
+            return 30;
+        } else if (hoursPlayed < 5000) {
+            return 20;
+        } else {
+            return 10;
+        }
+    }
+
+    // Team1 players sit at [0, team1Size) and team2 players at [team1Size, team1Size + team2Size)
+    public static void rateMatch(int[] elo, int[] hours, int[] k, int team1Size, int team2Size, double team1Score, int duration) {
+        int avgEloTeam1 = averageElo(elo, 0, team1Size);
+        int avgEloTeam2 = averageElo(elo, team1Size, team2Size);
+
+        for (int i = 0; i < team1Size; i++)
+            ratePlayer(elo, hours, k, i, avgEloTeam2, team1Score, duration);
+        for (int i = team1Size; i < team1Size + team2Size; i++)
+            ratePlayer(elo, hours, k, i, avgEloTeam1, 1.0 - team1Score, duration);
+    }
+
+    public static void rateMatch(int[] elo, int[] hours, int[] k, int[] roster, int offset, int team1Size, int team2Size,
+                                 double team1Score, int duration) {
+        int team2Offset = offset + team1Size;
+        int avgEloTeam1 = averageElo(elo, roster, offset, team1Size);
+        int avgEloTeam2 = averageElo(elo, roster, team2Offset, team2Size);
+
+        for (int i = offset; i < team2Offset; i++)
+            ratePlayer(elo, hours, k, roster[i], avgEloTeam2, team1Score, duration);
+        for (int i = team2Offset; i < team2Offset + team2Size; i++)
+            ratePlayer(elo, hours, k, roster[i], avgEloTeam1, 1.0 - team1Score, duration);
+    }
+
+    private static void ratePlayer(int[] elo, int[] hours, int[] k, int player, int opponentAvgElo, double score, int duration) {
+        int hoursPlayed = hours[player] + duration;
+        int K = kFactor(hoursPlayed);
+        elo[player] = newElo(elo[player], opponentAvgElo, score, K);
+        hours[player] = hoursPlayed;
+        k[player] = K;
+    }
+
+    private static int averageElo(int[] elo, int from, int size) {
+        int sum = 0;
+        for (int i = from; i < from + size; i++) sum += elo[i];
+        return sum / size;
+    }
+
+    private static int averageElo(int[] elo, int[] roster, int from, int size) {
+        int sum = 0;
+        for (int i = from; i < from + size; i++) sum += elo[roster[i]];
+        return sum / size;
+    }
+
+    private static double computeExpectedScore(int diff) {
+        return 1 / (1 + Math.pow(10, diff / 400.0));
+    }
+}
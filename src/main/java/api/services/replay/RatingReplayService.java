@@ -0,0 +1,249 @@
+package api.services.replay;
+
+import api.exceptions.DuplicateResourceException;
+import api.models.Player;
+import api.modelsDTO.RatingReplayProgressDTO;
+import api.repositories.MatchRepositoryI;
+import api.repositories.PlayerRepositoryI;
+import api.repositories.PlayerVersionView;
+import api.services.cache.ResponseCache;
+import api.services.leaderboard.Leaderboard;
+import api.services.pipeline.MatchPipeline;
+import api.services.rating.RatingEngine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Rebuilds the players' elo and rating adjustment from the stored match history. Runs one replay at a time on a
+ * background thread while matches keep coming in; the {@link MatchPipeline} is only paused while the ratings are
+ * written back.
+ * <p>
+ * A player is written back only when the replay saw their whole history:
+ * <ul>
+ *     <li>their row still has the version read when the replay started, so no match or edit changed it since;</li>
+ *     <li>the replay reproduces their stored hours, wins and losses. Stored matches without a roster (recorded before
+ *     rosters were kept, counted in matchesSkipped) and matches of random teams, which are never stored, are missing
+ *     from it.</li>
+ * </ul>
+ * Everyone else keeps their ratings and is counted in playersSkipped.
+ */
+@Service
+public class RatingReplayService {
+
+    private static final Logger log = LoggerFactory.getLogger(RatingReplayService.class);
+    private static final int WRITE_ATTEMPTS = 3;
+
+    private final MatchRepositoryI matchRepository;
+    private final PlayerRepositoryI playerRepository;
+    private final Leaderboard leaderboard;
+    private final ResponseCache responseCache;
+    private final MatchPipeline matchPipeline;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final int parallelism;
+    private final int windowSize;
+    private final int writeChunkSize;
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "rating-replay");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile String state = "IDLE";
+    private volatile long totalMatches;
+    private volatile long matchesReplayed;
+    private volatile long matchesSkipped;
+    private volatile long totalPlayers;
+    private volatile long playersWritten;
+    private volatile long playersSkipped;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    public RatingReplayService(MatchRepositoryI matchRepository, PlayerRepositoryI playerRepository, Leaderboard leaderboard, ResponseCache responseCache,
+                               MatchPipeline matchPipeline, PlatformTransactionManager transactionManager,
+                               @Value("${ratings.replay.parallelism:0}") int parallelism,
+                               @Value("${ratings.replay.window-size:8192}") int windowSize,
+                               @Value("${ratings.replay.write-chunk-size:1000}") int writeChunkSize) {
+        this.matchRepository = matchRepository;
+        this.playerRepository = playerRepository;
+        this.leaderboard = leaderboard;
+        this.responseCache = responseCache;
+        this.matchPipeline = matchPipeline;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.windowSize = windowSize;
+        this.writeChunkSize = writeChunkSize;
+    }
+
+    public RatingReplayProgressDTO start() {
+        if (!running.compareAndSet(false, true)) {
+            throw new DuplicateResourceException("A rating replay is already running.");
+        }
+
+        totalMatches = matchesReplayed = matchesSkipped = totalPlayers = playersWritten = playersSkipped = 0;
+        startedAt = Instant.now();
+        finishedAt = null;
+        error = null;
+        state = "RUNNING";
+        runner.submit(this::run);
+        return getProgress();
+    }
+
+    public RatingReplayProgressDTO getProgress() {
+        RatingReplayProgressDTO progress = new RatingReplayProgressDTO();
+        progress.setState(state);
+        progress.setTotalMatches(totalMatches);
+        progress.setMatchesReplayed(matchesReplayed);
+        progress.setMatchesSkipped(matchesSkipped);
+        progress.setTotalPlayers(totalPlayers);
+        progress.setPlayersWritten(playersWritten);
+        progress.setPlayersSkipped(playersSkipped);
+        progress.setStartedAt(startedAt);
+        progress.setFinishedAt(finishedAt);
+        progress.setError(error);
+        return progress;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    private void run() {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            // Read before the history: a player whose version is still this one at the end played no match the
+            // history below misses
+            List<PlayerVersionView> versions = playerRepository.findAllVersions();
+            totalPlayers = versions.size();
+
+            RatingReplayer replayer = new RatingReplayer(pool, windowSize);
+            versions.forEach(player -> replayer.addPlayer(player.getId()));
+
+            readTransaction.executeWithoutResult(status -> {
+                totalMatches = matchRepository.count();
+                try (Stream<Object[]> rows = matchRepository.streamRostersInPlayOrder()) {
+                    replay(rows.iterator(), replayer);
+                }
+            });
+            replayer.finish();
+            matchesReplayed = replayer.getMatchesReplayed();
+            matchesSkipped = Math.max(totalMatches - matchesReplayed, 0);
+
+            matchPipeline.pause();
+            try {
+                writeBack(versions, replayer);
+            } finally {
+                matchPipeline.resume();
+            }
+            responseCache.invalidateAll();
+            leaderboard.rebuild();
+
+            state = "COMPLETED";
+            log.info("Rating replay finished: {} matches replayed, {} skipped, {} players written, {} skipped", matchesReplayed,
+                    matchesSkipped, playersWritten, playersSkipped);
+        } catch (RuntimeException e) {
+            log.error("Rating replay failed", e);
+            error = e.getMessage();
+            state = "FAILED";
+        } finally {
+            pool.shutdown();
+            finishedAt = Instant.now();
+            running.set(false);
+        }
+    }
+
+    private void replay(Iterator<Object[]> rows, RatingReplayer replayer) {
+        UUID currentMatch = null;
+        long assembled = 0;
+        while (rows.hasNext()) {
+            Object[] row = rows.next();
+            UUID matchId = (UUID) row[0];
+            if (!matchId.equals(currentMatch)) {
+                if (currentMatch != null) {
+                    replayer.endMatch();
+                    if (++assembled % 1024 == 0) matchesReplayed = replayer.getMatchesReplayed();
+                }
+                currentMatch = matchId;
+
+                UUID team1Id = (UUID) row[2];
+                UUID winningTeamId = (UUID) row[3];
+                double team1Score = winningTeamId == null ? RatingEngine.DRAW
+                        : winningTeamId.equals(team1Id) ? RatingEngine.TEAM1_WIN : RatingEngine.TEAM2_WIN;
+                replayer.beginMatch(team1Score, (Integer) row[1]);
+            }
+            replayer.addMatchPlayer((UUID) row[4], (Integer) row[5] == 1);
+        }
+        if (currentMatch != null) {
+            replayer.endMatch();
+        }
+    }
+
+    // Each chunk is its own transaction, the dirty players are flushed at commit as one JDBC batch. An edit committed
+    // between a chunk's read and its commit fails the version check; the chunk is read again and skips that player.
+    private void writeBack(List<PlayerVersionView> versions, RatingReplayer replayer) {
+        for (int from = 0; from < versions.size(); from += writeChunkSize) {
+            Map<UUID, Long> chunk = new HashMap<>();
+            for (PlayerVersionView player : versions.subList(from, Math.min(from + writeChunkSize, versions.size()))) {
+                chunk.put(player.getId(), player.getVersion());
+            }
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    int written = writeTransaction.execute(status -> writeChunk(chunk, replayer));
+                    playersWritten += written;
+                    playersSkipped += chunk.size() - written;
+                    break;
+                } catch (OptimisticLockingFailureException e) {
+                    if (attempt == WRITE_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+            }
+        }
+    }
+
+    private int writeChunk(Map<UUID, Long> versions, RatingReplayer replayer) {
+        int written = 0;
+        for (Player player : playerRepository.findAllById(versions.keySet())) {
+            int index = replayer.indexOf(player.getId());
+            if (player.getVersion() != versions.get(player.getId()) || !covered(player, replayer, index)) {
+                continue;
+            }
+            player.setElo(replayer.getElo(index));
+            if (replayer.getK(index) != 0) {
+                player.setRatingAdjustment(replayer.getK(index));
+            }
+            written++;
+        }
+        return written;
+    }
+
+    // Hours, wins and losses only change with matches (or edits): reproducing them means the replay saw every match
+    private static boolean covered(Player player, RatingReplayer replayer, int index) {
+        return player.getHoursPlayed() == replayer.getHours(index)
+                && player.getWins() == replayer.getWins(index)
+                && player.getLosses() == replayer.getLosses(index);
+    }
+}
@@ -0,0 +1,270 @@
+package api.services.replay;
+
+import api.services.rating.RatingEngine;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Recomputes ratings from scratch for matches fed in play order. All player state lives in primitive arrays indexed
+ * by a dense player number.
+ * <p>
+ * Matches are buffered into windows. Inside a window every match gets a level one higher than the last earlier match
+ * sharing a player with it, so matches on the same level never overlap. Levels are rated one after another and the
+ * matches of a level in parallel, which gives exactly the same ratings as rating the matches one by one.
+ */
+public class RatingReplayer {
+
+    private static final int PARALLEL_THRESHOLD = 64;
+
+    private final ForkJoinPool pool;
+    private final int windowSize;
+
+    // Player state
+    private final Map<UUID, Integer> playerIndexes = new HashMap<>();
+    private UUID[] playerIds = new UUID[1024];
+    private int[] elo = new int[1024];
+    private int[] hours = new int[1024];
+    private int[] k = new int[1024];
+    private int[] wins = new int[1024];
+    private int[] losses = new int[1024];
+    private int[] lastLevel = new int[1024];
+    private int[] lastWindow = new int[1024];
+    private int playerCount;
+
+    // Current window, player indexes of match m are roster[offset[m], offset[m] + team1Size[m] + team2Size[m])
+    private int[] roster;
+    private int rosterSize;
+    private final int[] offset;
+    private final int[] team1Size;
+    private final int[] team2Size;
+    private final double[] team1Score;
+    private final int[] duration;
+    private final int[] level;
+    private final int[] byLevel;
+    private int windowMatches;
+    private int windowNumber = 1;
+
+    // Match being assembled
+    private int[] pendingTeam1 = new int[16];
+    private int[] pendingTeam2 = new int[16];
+    private int pendingTeam1Size;
+    private int pendingTeam2Size;
+    private double pendingScore;
+    private int pendingDuration;
+
+    private long matchesReplayed;
+    private long matchesSkipped;
+
+    public RatingReplayer(ForkJoinPool pool, int windowSize) {
+        this.pool = pool;
+        this.windowSize = windowSize;
+        this.roster = new int[windowSize * 10];
+        this.offset = new int[windowSize];
+        this.team1Size = new int[windowSize];
+        this.team2Size = new int[windowSize];
+        this.team1Score = new double[windowSize];
+        this.duration = new int[windowSize];
+        this.level = new int[windowSize];
+        this.byLevel = new int[windowSize];
+    }
+
+    // Players that never appear in a match keep the starting rating
+    public void addPlayer(UUID playerId) {
+        playerIndex(playerId);
+    }
+
+    public void beginMatch(double team1Score, int duration) {
+        pendingTeam1Size = 0;
+        pendingTeam2Size = 0;
+        pendingScore = team1Score;
+        pendingDuration = duration;
+    }
+
+    public void addMatchPlayer(UUID playerId, boolean team1) {
+        int index = playerIndex(playerId);
+        if (team1) {
+            if (pendingTeam1Size == pendingTeam1.length) pendingTeam1 = Arrays.copyOf(pendingTeam1, pendingTeam1Size * 2);
+            pendingTeam1[pendingTeam1Size++] = index;
+        } else {
+            if (pendingTeam2Size == pendingTeam2.length) pendingTeam2 = Arrays.copyOf(pendingTeam2, pendingTeam2Size * 2);
+            pendingTeam2[pendingTeam2Size++] = index;
+        }
+    }
+
+    public void endMatch() {
+        if (pendingTeam1Size == 0 || pendingTeam2Size == 0) {
+            matchesSkipped++;
+            return;
+        }
+
+        int m = windowMatches;
+        int size = pendingTeam1Size + pendingTeam2Size;
+        if (rosterSize + size > roster.length) {
+            roster = Arrays.copyOf(roster, Math.max(roster.length * 2, rosterSize + size));
+        }
+        offset[m] = rosterSize;
+        System.arraycopy(pendingTeam1, 0, roster, rosterSize, pendingTeam1Size);
+        System.arraycopy(pendingTeam2, 0, roster, rosterSize + pendingTeam1Size, pendingTeam2Size);
+        rosterSize += size;
+        team1Size[m] = pendingTeam1Size;
+        team2Size[m] = pendingTeam2Size;
+        team1Score[m] = pendingScore;
+        duration[m] = pendingDuration;
+
+        int matchLevel = 1;
+        for (int i = offset[m]; i < offset[m] + size; i++) {
+            int player = roster[i];
+            if (lastWindow[player] == windowNumber) matchLevel = Math.max(matchLevel, lastLevel[player] + 1);
+        }
+        for (int i = offset[m]; i < offset[m] + size; i++) {
+            lastWindow[roster[i]] = windowNumber;
+            lastLevel[roster[i]] = matchLevel;
+        }
+        level[m] = matchLevel;
+
+        if (++windowMatches == windowSize) {
+            flushWindow();
+        }
+    }
+
+    public void finish() {
+        flushWindow();
+    }
+
+    public long getMatchesReplayed() {
+        return matchesReplayed;
+    }
+
+    public long getMatchesSkipped() {
+        return matchesSkipped;
+    }
+
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    public UUID getPlayerId(int index) {
+        return playerIds[index];
+    }
+
+    public Integer indexOf(UUID playerId) {
+        return playerIndexes.get(playerId);
+    }
+
+    public int getElo(int index) {
+        return elo[index];
+    }
+
+    public int getHours(int index) {
+        return hours[index];
+    }
+
+    // 0 if the player has not played a replayed match
+    public int getK(int index) {
+        return k[index];
+    }
+
+    public int getWins(int index) {
+        return wins[index];
+    }
+
+    public int getLosses(int index) {
+        return losses[index];
+    }
+
+    private void flushWindow() {
+        if (windowMatches == 0) {
+            return;
+        }
+
+        // Counting sort of the window's matches by level
+        int maxLevel = 0;
+        for (int m = 0; m < windowMatches; m++) maxLevel = Math.max(maxLevel, level[m]);
+        int[] levelStart = new int[maxLevel + 2];
+        for (int m = 0; m < windowMatches; m++) levelStart[level[m] + 1]++;
+        for (int l = 1; l <= maxLevel + 1; l++) levelStart[l] += levelStart[l - 1];
+        int[] fill = Arrays.copyOf(levelStart, levelStart.length);
+        for (int m = 0; m < windowMatches; m++) byLevel[fill[level[m]]++] = m;
+
+        for (int l = 1; l <= maxLevel; l++) {
+            int from = levelStart[l];
+            int to = levelStart[l + 1];
+            if (to - from <= PARALLEL_THRESHOLD) {
+                rateRange(from, to);
+            } else {
+                pool.invoke(new RateLevel(from, to));
+            }
+        }
+
+        matchesReplayed += windowMatches;
+        windowMatches = 0;
+        rosterSize = 0;
+        windowNumber++;
+    }
+
+    private void rateRange(int from, int to) {
+        for (int i = from; i < to; i++) {
+            int m = byLevel[i];
+            RatingEngine.rateMatch(elo, hours, k, roster, offset[m], team1Size[m], team2Size[m], team1Score[m], duration[m]);
+
+            if (team1Score[m] != RatingEngine.DRAW) {
+                boolean team1Won = team1Score[m] == RatingEngine.TEAM1_WIN;
+                int team2Offset = offset[m] + team1Size[m];
+                for (int p = offset[m]; p < team2Offset; p++) {
+                    if (team1Won) wins[roster[p]]++;
+                    else losses[roster[p]]++;
+                }
+                for (int p = team2Offset; p < team2Offset + team2Size[m]; p++) {
+                    if (team1Won) losses[roster[p]]++;
+                    else wins[roster[p]]++;
+                }
+            }
+        }
+    }
+
+    private int playerIndex(UUID playerId) {
+        Integer index = playerIndexes.get(playerId);
+        if (index != null) {
+            return index;
+        }
+        if (playerCount == playerIds.length) {
+            int capacity = playerCount * 2;
+            playerIds = Arrays.copyOf(playerIds, capacity);
+            elo = Arrays.copyOf(elo, capacity);
+            hours = Arrays.copyOf(hours, capacity);
+            k = Arrays.copyOf(k, capacity);
+            wins = Arrays.copyOf(wins, capacity);
+            losses = Arrays.copyOf(losses, capacity);
+            lastLevel = Arrays.copyOf(lastLevel, capacity);
+            lastWindow = Arrays.copyOf(lastWindow, capacity);
+        }
+        playerIds[playerCount] = playerId;
+        playerIndexes.put(playerId, playerCount);
+        return playerCount++;
+    }
+
+    private class RateLevel extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        RateLevel(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                rateRange(from, to);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RateLevel(from, mid), new RateLevel(mid, to));
+            }
+        }
+    }
+}
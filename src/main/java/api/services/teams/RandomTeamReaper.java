@@ -0,0 +1,101 @@
+package api.services.teams;
+
+import api.repositories.PlayerRepositoryI;
+import api.repositories.TeamRepositoryI;
+import api.services.cache.ResponseCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Deletes random teams left in the teams table. Random teams are kept in {@link RandomTeamRegistry} now, but the
+ * ones generated before that were stored, and so were their players' team_id, until a match deleted them: a team
+ * that never played holds its players forever and hides them from generate_teams.
+ * <p>
+ * Every run walks the stale random teams oldest first in chunks of {@code chunkSize}, each in its own transaction:
+ * one bulk update frees the chunk's players, one delete removes the teams. Metrics: {@code teams.random.reaped} and
+ * {@code teams.random.reaper.run}.
+ */
+@Component
+public class RandomTeamReaper {
+
+    private static final Logger log = LoggerFactory.getLogger(RandomTeamReaper.class);
+
+    private final TeamRepositoryI teamRepository;
+    private final PlayerRepositoryI playerRepository;
+    private final TransactionTemplate writeTransaction;
+    private final ResponseCache responseCache;
+    private final long maxAgeMs;
+    private final int chunkSize;
+    private final LongSupplier clock;
+    private final Counter reaped;
+    private final Timer runs;
+
+    @Autowired
+    public RandomTeamReaper(TeamRepositoryI teamRepository, PlayerRepositoryI playerRepository, PlatformTransactionManager transactionManager,
+                            ResponseCache responseCache, MeterRegistry meterRegistry,
+                            @Value("${teams.random.ttl-ms:3600000}") long maxAgeMs,
+                            @Value("${teams.random.reaper.chunk-size:500}") int chunkSize) {
+        this(teamRepository, playerRepository, transactionManager, responseCache, meterRegistry, maxAgeMs, chunkSize, System::currentTimeMillis);
+    }
+
+    public RandomTeamReaper(TeamRepositoryI teamRepository, PlayerRepositoryI playerRepository, PlatformTransactionManager transactionManager,
+                            ResponseCache responseCache, MeterRegistry meterRegistry, long maxAgeMs, int chunkSize, LongSupplier clock) {
+        this.teamRepository = teamRepository;
+        this.playerRepository = playerRepository;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.responseCache = responseCache;
+        this.maxAgeMs = maxAgeMs;
+        this.chunkSize = chunkSize;
+        this.clock = clock;
+        this.reaped = Counter.builder("teams.random.reaped").register(meterRegistry);
+        this.runs = Timer.builder("teams.random.reaper.run").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${teams.random.reaper.interval-ms:300000}")
+    public void reap() {
+        Timer.Sample sample = Timer.start();
+        Instant cutoff = Instant.ofEpochMilli(clock.getAsLong() - maxAgeMs);
+        long total = 0;
+        int chunk;
+        do {
+            chunk = reapChunk(cutoff);
+            total += chunk;
+        } while (chunk == chunkSize);
+        sample.stop(runs);
+
+        if (total > 0) {
+            // The freed players are not known by id
+            responseCache.invalidateAll();
+            log.info("Reaped {} random teams created before {}", total, cutoff);
+        }
+    }
+
+    private int reapChunk(Instant cutoff) {
+        Integer count = writeTransaction.execute(status -> {
+            List<UUID> teamIds = teamRepository.findStaleRandomTeamIds(cutoff, PageRequest.of(0, chunkSize));
+            if (teamIds.isEmpty()) {
+                return 0;
+            }
+            playerRepository.releaseFromTeams(teamIds);
+            teamRepository.deleteAllByIdInBatch(teamIds);
+            return teamIds.size();
+        });
+        reaped.increment(count);
+        return count;
+    }
+}
@@ -0,0 +1,220 @@
+package api.services.teams;
+
+import api.models.Player;
+import api.models.Team;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Random teams from generate_teams. They are never stored: a team is a transient {@link Team} (isRandom, not
+ * persisted) kept here until it plays its one match or its TTL runs out. Its players are reserved in memory for as
+ * long, so they are not handed to another random team; their team_id is never written.
+ * <p>
+ * generate_teams {@link #reserve reserves} its players one by one under a holder id while it picks them, so a player
+ * another request got first is simply skipped, then {@link #create(UUID, List) hands them} to the teams it built.
+ * A match {@link #claim claims} its random teams, which removes them so they can not play twice, and
+ * {@link #release releases} the players once the match is written. Expired teams are dropped by
+ * {@link #evictExpired()}. Metrics: {@code teams.random.active}, {@code teams.random.reserved.players} and
+ * {@code teams.random.expired}.
+ */
+@Component
+public class RandomTeamRegistry {
+
+    private final Map<UUID, Entry> teams = new ConcurrentHashMap<>();
+    private final Map<UUID, UUID> reservations = new ConcurrentHashMap<>(); // player id -> random team id
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final Counter expired;
+
+    @Autowired
+    public RandomTeamRegistry(MeterRegistry meterRegistry, @Value("${teams.random.ttl-ms:3600000}") long ttlMs) {
+        this(meterRegistry, ttlMs, System::nanoTime);
+    }
+
+    public RandomTeamRegistry(MeterRegistry meterRegistry, long ttlMs, LongSupplier clock) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.clock = clock;
+        Gauge.builder("teams.random.active", teams, Map::size).register(meterRegistry);
+        Gauge.builder("teams.random.reserved.players", reservations, Map::size).register(meterRegistry);
+        this.expired = Counter.builder("teams.random.expired").register(meterRegistry);
+    }
+
+    // One random team per roster. Reserves every player or none: null if any of them is already in a random team.
+    public List<Team> create(List<List<Player>> rosters) {
+        long expiresAt = clock.getAsLong() + ttlNanos;
+        List<Team> created = new ArrayList<>(rosters.size());
+        for (List<Player> roster : rosters) {
+            Team team = new Team();
+            team.setId(UUID.randomUUID());
+            team.setTeamName(team.getId().toString());
+            team.setRandom(true);
+            team.setPlayers(new ArrayList<>(roster));
+
+            for (Player player : roster) {
+                if (!reserve(player.getId(), team.getId())) {
+                    created.forEach(this::release);
+                    release(team);
+                    return null;
+                }
+            }
+            created.add(team);
+        }
+
+        for (Team team : created) {
+            teams.put(team.getId(), new Entry(team, expiresAt));
+        }
+        return created;
+    }
+
+    // Reserves up to count of the candidates under holderId, skipping players already in a random team
+    public List<Player> reserve(UUID holderId, List<Player> candidates, int count) {
+        List<Player> reserved = new ArrayList<>(Math.min(count, candidates.size()));
+        for (Player player : candidates) {
+            if (reserved.size() == count) {
+                break;
+            }
+            if (reserve(player.getId(), holderId)) {
+                reserved.add(player);
+            }
+        }
+        return reserved;
+    }
+
+    // One random team per roster, from players reserved under holderId
+    public List<Team> create(UUID holderId, List<List<Player>> rosters) {
+        long expiresAt = clock.getAsLong() + ttlNanos;
+        List<Team> created = new ArrayList<>(rosters.size());
+        for (List<Player> roster : rosters) {
+            Team team = new Team();
+            team.setId(UUID.randomUUID());
+            team.setTeamName(team.getId().toString());
+            team.setRandom(true);
+            team.setPlayers(new ArrayList<>(roster));
+            created.add(team);
+            for (Player player : roster) {
+                if (!reservations.replace(player.getId(), holderId, team.getId())) {
+                    // Back to the holder, which releases them
+                    for (Team previous : created) {
+                        previous.getPlayers().forEach(taken -> reservations.replace(taken.getId(), previous.getId(), holderId));
+                    }
+                    throw new IllegalStateException("Player " + player.getId() + " is not reserved by " + holderId);
+                }
+            }
+        }
+
+        for (Team team : created) {
+            teams.put(team.getId(), new Entry(team, expiresAt));
+        }
+        return created;
+    }
+
+    // Gives up players reserved under holderId that did not make it into a team
+    public void release(UUID holderId, List<Player> players) {
+        for (Player player : players) {
+            reservations.remove(player.getId(), holderId);
+        }
+    }
+
+    public Optional<Team> find(UUID teamId) {
+        Entry entry = teams.get(teamId);
+        if (entry == null || isExpired(entry)) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.team);
+    }
+
+    public boolean isReserved(UUID playerId) {
+        return reservations.containsKey(playerId);
+    }
+
+    public boolean isReservedBy(UUID playerId, UUID holderId) {
+        return holderId.equals(reservations.get(playerId));
+    }
+
+    // Takes the teams out of the registry for a match, all or none. Their players stay reserved until release.
+    public boolean claim(List<Team> randomTeams) {
+        List<Entry> claimed = new ArrayList<>(randomTeams.size());
+        for (Team team : randomTeams) {
+            Entry entry = teams.remove(team.getId());
+            if (entry == null || isExpired(entry)) {
+                if (entry != null) {
+                    release(entry.team);
+                    expired.increment();
+                }
+                claimed.forEach(previous -> teams.put(previous.team.getId(), previous));
+                return false;
+            }
+            claimed.add(entry);
+        }
+        return true;
+    }
+
+    // Puts claimed teams back, for a match that could not be started
+    public void unclaim(List<Team> randomTeams) {
+        long expiresAt = clock.getAsLong() + ttlNanos;
+        for (Team team : randomTeams) {
+            teams.put(team.getId(), new Entry(team, expiresAt));
+        }
+    }
+
+    public void release(Team team) {
+        for (Player player : team.getPlayers()) {
+            reservations.remove(player.getId(), team.getId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${teams.random.evict-interval-ms:60000}")
+    public void evictExpired() {
+        for (Entry entry : teams.values()) {
+            if (isExpired(entry) && teams.remove(entry.team.getId(), entry)) {
+                release(entry.team);
+                expired.increment();
+            }
+        }
+    }
+
+    public int size() {
+        return teams.size();
+    }
+
+    // Players held by random teams or by a generation in progress
+    public int reservedCount() {
+        return reservations.size();
+    }
+
+    private boolean reserve(UUID playerId, UUID teamId) {
+        UUID holder = reservations.putIfAbsent(playerId, teamId);
+        if (holder == null) {
+            return true;
+        }
+        // The holder may have expired without the eviction having run yet
+        Entry entry = teams.get(holder);
+        if (entry != null && isExpired(entry) && teams.remove(holder, entry)) {
+            release(entry.team);
+            expired.increment();
+            return reservations.putIfAbsent(playerId, teamId) == null;
+        }
+        return false;
+    }
+
+    private boolean isExpired(Entry entry) {
+        return clock.getAsLong() - entry.expiresAt >= 0;
+    }
+
+    private record Entry(Team team, long expiresAt) {
+    }
+}
@@ -0,0 +1,73 @@
+package api.services.teams.partition;
+
+/**
+ * Optimal split of a small pool by trying every team 1 that contains player 0: C(n - 1, n/2 - 1) teams, 126 for
+ * 5v5. Cheaper than {@link ExactPartition} for the handful of players of one match, as it allocates nothing per
+ * team. Gives up on pools of more than {@code maxPlayers}.
+ */
+public class EnumerationPartition implements PartitionStrategy {
+
+    private final int maxPlayers;
+
+    public EnumerationPartition(int maxPlayers) {
+        this.maxPlayers = maxPlayers;
+    }
+
+    @Override
+    public TeamSplit split(int[] elo, TeamSplit start, long deadlineNanos) {
+        int n = elo.length;
+        if (n > maxPlayers || n > 30) {
+            return null;
+        }
+        long total = 0;
+        for (int value : elo) {
+            total += value;
+        }
+
+        Search search = new Search(elo, total, TeamSplit.lowerBound(elo));
+        search.extend(1, 1, elo[0], 1);
+
+        boolean[] team1 = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            team1[i] = (search.bestMask & (1 << i)) != 0;
+        }
+        return new TeamSplit(elo, team1);
+    }
+
+    @Override
+    public boolean isExact() {
+        return true;
+    }
+
+    private static final class Search {
+
+        private final int[] elo;
+        private final int half;
+        private final long total;
+        private final long lowerBound;
+        private long bestDifference = Long.MAX_VALUE;
+        private int bestMask;
+
+        Search(int[] elo, long total, long lowerBound) {
+            this.elo = elo;
+            this.half = elo.length / 2;
+            this.total = total;
+            this.lowerBound = lowerBound;
+        }
+
+        // Players [0, next) are placed, size of them in team 1 (the mask) with an elo sum of sum
+        void extend(int next, int size, long sum, int mask) {
+            if (size == half) {
+                long difference = Math.abs(2 * sum - total);
+                if (difference < bestDifference) {
+                    bestDifference = difference;
+                    bestMask = mask;
+                }
+                return;
+            }
+            for (int i = next; i <= elo.length - (half - size) && bestDifference > lowerBound; i++) {
+                extend(i + 1, size + 1, sum + elo[i], mask | (1 << i));
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package api.services.teams.partition;
+
+/**
+ * Optimal split by dynamic programming over (team size, elo sum), for small pools. Elo values are shifted to start at
+ * zero, which does not change the difference of two equally sized teams. reach[k] is the bitset of sums some k players
+ * reach; the player that first reached (k, sum) is recorded, which is enough to walk the optimal team back because
+ * the state it came from was reached with earlier players only.
+ * <p>
+ * Only sums up to half the total are tracked (the weaker team is one of them), and the strategy gives up on pools
+ * needing more than {@code maxCells} (team size × sum) cells, about four bytes each.
+ */
+public class ExactPartition implements PartitionStrategy {
+
+    private final long maxCells;
+
+    public ExactPartition(long maxCells) {
+        this.maxCells = maxCells;
+    }
+
+    @Override
+    public TeamSplit split(int[] elo, TeamSplit start, long deadlineNanos) {
+        int n = elo.length;
+        int half = n / 2;
+
+        int min = Integer.MAX_VALUE;
+        for (int value : elo) {
+            min = Math.min(min, value);
+        }
+        long total = 0;
+        int[] weight = new int[n];
+        for (int i = 0; i < n; i++) {
+            weight[i] = elo[i] - min;
+            total += weight[i];
+        }
+
+        long maxSum = total / 2;
+        if ((half + 1) * (maxSum + 1) > maxCells) {
+            return null;
+        }
+        int sums = (int) maxSum + 1;
+        int words = (sums + 63) >>> 6;
+        long lastWordMask = sums % 64 == 0 ? -1L : (1L << (sums % 64)) - 1;
+
+        long[][] reach = new long[half + 1][words];
+        int[][] reachedBy = new int[half + 1][sums];
+        long[] shifted = new long[words];
+        reach[0][0] = 1L;
+
+        for (int i = 0; i < n; i++) {
+            if (System.nanoTime() - deadlineNanos >= 0 || Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+            for (int k = Math.min(i, half - 1); k >= 0; k--) {
+                shiftLeft(reach[k], weight[i], shifted);
+                shifted[words - 1] &= lastWordMask;
+                long[] next = reach[k + 1];
+                for (int w = 0; w < words; w++) {
+                    long added = shifted[w] & ~next[w];
+                    next[w] |= added;
+                    while (added != 0) {
+                        reachedBy[k + 1][(w << 6) + Long.numberOfTrailingZeros(added)] = i;
+                        added &= added - 1;
+                    }
+                }
+            }
+        }
+
+        int sum = highestBit(reach[half]);
+        boolean[] team1 = new boolean[n];
+        for (int k = half; k > 0; k--) {
+            int player = reachedBy[k][sum];
+            team1[player] = true;
+            sum -= weight[player];
+        }
+        return new TeamSplit(elo, team1);
+    }
+
+    @Override
+    public boolean isExact() {
+        return true;
+    }
+
+    // target = source << bits, dropping what falls off the end
+    private static void shiftLeft(long[] source, int bits, long[] target) {
+        int wordShift = bits >>> 6;
+        int bitShift = bits & 63;
+        for (int w = target.length - 1; w >= 0; w--) {
+            int from = w - wordShift;
+            if (from < 0) {
+                target[w] = 0;
+            } else if (bitShift == 0) {
+                target[w] = source[from];
+            } else {
+                target[w] = (source[from] << bitShift) | (from > 0 ? source[from - 1] >>> (64 - bitShift) : 0);
+            }
+        }
+    }
+
+    private static int highestBit(long[] bits) {
+        for (int w = bits.length - 1; w >= 0; w--) {
+            if (bits[w] != 0) {
+                return (w << 6) + 63 - Long.numberOfLeadingZeros(bits[w]);
+            }
+        }
+        return -1;
+    }
+}
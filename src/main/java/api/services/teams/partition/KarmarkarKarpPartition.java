@@ -0,0 +1,62 @@
+package api.services.teams.partition;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Balanced largest differencing method (Karmarkar–Karp with equal team sizes), O(n log n). Sorted players are paired
+ * off, strongest with the next strongest, and the two go to opposite teams. Then the two pairs with the largest elo
+ * differences are merged repeatedly, each one's stronger side joining the other's weaker side, until one group is
+ * left. Every pair puts one player on each side, so the teams stay the same size.
+ */
+public class KarmarkarKarpPartition implements PartitionStrategy {
+
+    @Override
+    public TeamSplit split(int[] elo, TeamSplit start, long deadlineNanos) {
+        int n = elo.length;
+        int pairs = n / 2;
+
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = ((long) elo[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        // Pair p: stronger[p] starts on its group's leading side, weaker[p] on the other one
+        int[] stronger = new int[pairs];
+        int[] weaker = new int[pairs];
+        PriorityQueue<long[]> groups = new PriorityQueue<>(pairs, Comparator.comparingLong((long[] group) -> group[0]).reversed());
+        for (int p = 0; p < pairs; p++) {
+            stronger[p] = (int) keys[n - 1 - 2 * p];
+            weaker[p] = (int) keys[n - 2 - 2 * p];
+            groups.add(new long[]{(long) elo[stronger[p]] - elo[weaker[p]], p});
+        }
+
+        // Merging group b into a flips b: its leading side joins a's trailing side
+        int[] parent = new int[pairs];
+        int[] merged = new int[pairs];
+        int merges = 0;
+        while (groups.size() > 1) {
+            long[] a = groups.poll();
+            long[] b = groups.poll();
+            parent[(int) b[1]] = (int) a[1];
+            merged[merges++] = (int) b[1];
+            a[0] -= b[0];
+            groups.add(a);
+        }
+
+        // A group is flipped relative to the final one if it was flipped an odd number of times on the way up
+        boolean[] flipped = new boolean[pairs];
+        for (int m = merges - 1; m >= 0; m--) {
+            int group = merged[m];
+            flipped[group] = !flipped[parent[group]];
+        }
+
+        boolean[] team1 = new boolean[n];
+        for (int p = 0; p < pairs; p++) {
+            team1[flipped[p] ? weaker[p] : stronger[p]] = true;
+        }
+        return new TeamSplit(elo, team1);
+    }
+}
@@ -0,0 +1,129 @@
+package api.services.teams.partition;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Time-bounded local search from a starting split. Each step makes the single swap of one player per team that best
+ * closes the gap: with team 1 ahead by d, the best partner for a team 1 player of elo a is the team 2 player closest
+ * to a - d/2, found by binary search, so a step is O(n log n). When no swap helps, a few random swaps shake the best
+ * split found so far and the search goes on, until the deadline or until the gap can not get any smaller.
+ */
+public class LocalSearchPartition implements PartitionStrategy {
+
+    private final long seed;
+
+    public LocalSearchPartition(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public TeamSplit split(int[] elo, TeamSplit start, long deadlineNanos) {
+        if (start == null) {
+            return null;
+        }
+        long lowerBound = TeamSplit.lowerBound(elo);
+        Random random = new Random(seed);
+        TeamSplit best = start;
+
+        boolean[] team1 = start.team1().clone();
+        while (best.getDifference() > lowerBound && !expired(deadlineNanos)) {
+            descend(elo, team1, lowerBound, deadlineNanos);
+            TeamSplit candidate = new TeamSplit(elo, team1);
+            if (candidate.getDifference() < best.getDifference()) {
+                best = candidate;
+            }
+            team1 = best.team1().clone();
+            shake(team1, random);
+        }
+        return best;
+    }
+
+    // Applies the best single swap until none makes the gap smaller
+    private static void descend(int[] elo, boolean[] team1, long lowerBound, long deadlineNanos) {
+        int half = elo.length / 2;
+        long[] ahead = new long[half];
+        long[] behind = new long[half];
+
+        while (!expired(deadlineNanos)) {
+            long gap = 0;
+            for (int i = 0; i < elo.length; i++) {
+                gap += team1[i] ? elo[i] : -elo[i];
+            }
+            if (Math.abs(gap) <= lowerBound) {
+                return;
+            }
+            boolean team1Ahead = gap > 0;
+            gap = Math.abs(gap);
+
+            // (elo, index) keys of the leading and the trailing team, sorted by elo
+            int a = 0;
+            int b = 0;
+            for (int i = 0; i < elo.length; i++) {
+                long key = ((long) elo[i] << 32) | i;
+                if (team1[i] == team1Ahead) {
+                    ahead[a++] = key;
+                } else {
+                    behind[b++] = key;
+                }
+            }
+            Arrays.sort(behind);
+
+            // Swapping x (ahead) with y (behind) changes the gap to |gap - 2(x - y)|
+            long bestGap = gap;
+            int bestAhead = -1;
+            int bestBehind = -1;
+            for (long x : ahead) {
+                int xElo = (int) (x >> 32);
+                long target = 2L * xElo - gap; // 2y closest to this
+                int at = lowerIndex(behind, target);
+                for (int c = Math.max(0, at - 1); c <= Math.min(half - 1, at); c++) {
+                    int yElo = (int) (behind[c] >> 32);
+                    long newGap = Math.abs(gap - 2L * (xElo - yElo));
+                    if (newGap < bestGap) {
+                        bestGap = newGap;
+                        bestAhead = (int) x;
+                        bestBehind = (int) behind[c];
+                    }
+                }
+            }
+            if (bestAhead < 0) {
+                return;
+            }
+            team1[bestAhead] = !team1[bestAhead];
+            team1[bestBehind] = !team1[bestBehind];
+        }
+    }
+
+    private static boolean expired(long deadlineNanos) {
+        return System.nanoTime() - deadlineNanos >= 0 || Thread.currentThread().isInterrupted();
+    }
+
+    // First index whose 2 * elo is at least target
+    private static int lowerIndex(long[] sorted, long target) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (2L * (int) (sorted[mid] >> 32) < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Swaps a few random players of team 1 with random players of team 2
+    private static void shake(boolean[] team1, Random random) {
+        int swaps = 1 + random.nextInt(Math.max(1, team1.length / 16));
+        for (int s = 0; s < swaps; s++) {
+            int x = random.nextInt(team1.length);
+            int y = random.nextInt(team1.length);
+            if (team1[x] != team1[y]) {
+                team1[x] = !team1[x];
+                team1[y] = !team1[y];
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package api.services.teams.partition;
+
+/**
+ * One way of splitting an even pool of players into two teams of equal size with close elo sums. Strategies run
+ * side by side in {@link TeamPartitionEngine}, which keeps the best split found within its time budget.
+ */
+public interface PartitionStrategy {
+
+    /**
+     * @param elo           the pool, an even number of players
+     * @param start         the split found so far, for strategies that improve on one
+     * @param deadlineNanos {@link System#nanoTime()} by which the strategy has to return; it should also return
+     *                      early once its thread is interrupted
+     * @return a split, or null if the strategy does not apply to this pool or ran out of time
+     */
+    TeamSplit split(int[] elo, TeamSplit start, long deadlineNanos);
+
+    // The split of an exact strategy is optimal, nothing else has to run once it returned one
+    default boolean isExact() {
+        return false;
+    }
+}
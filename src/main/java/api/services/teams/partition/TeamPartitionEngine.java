@@ -0,0 +1,144 @@
+package api.services.teams.partition;
+
+import api.models.Player;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Splits a pool of players into two equally sized teams with elo sums as close as possible. The seed strategy
+ * (Karmarkar–Karp) always runs first; if its split can still be improved, the refining strategies run in parallel
+ * from it: the exact DP when the pool is small enough and local search with different random seeds on the other
+ * threads. The best split any of them returned within {@code teams.partition.time-budget-ms} is used, or the seed
+ * split if none did. The refiners still running are interrupted as soon as the DP returned (its split is optimal) or
+ * a split reached the lower bound.
+ */
+@Component
+public class TeamPartitionEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(TeamPartitionEngine.class);
+
+    private final PartitionStrategy seed;
+    private final List<PartitionStrategy> refiners;
+    private final long timeBudgetNanos;
+    private final ExecutorService workers;
+
+    @Autowired
+    public TeamPartitionEngine(@Value("${teams.partition.time-budget-ms:50}") long timeBudgetMs,
+                               @Value("${teams.partition.parallelism:0}") int parallelism,
+                               @Value("${teams.partition.exact-max-cells:2000000}") long exactMaxCells) {
+        this(new KarmarkarKarpPartition(), refiners(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(), exactMaxCells),
+                timeBudgetMs);
+    }
+
+    public TeamPartitionEngine(PartitionStrategy seed, List<PartitionStrategy> refiners, long timeBudgetMs) {
+        this.seed = seed;
+        this.refiners = refiners;
+        this.timeBudgetNanos = TimeUnit.MILLISECONDS.toNanos(timeBudgetMs);
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, refiners.size()), r -> {
+            Thread thread = new Thread(r, "team-partition-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Two teams of players.size() / 2
+    public List<List<Player>> split(List<Player> players) {
+        int[] elo = new int[players.size()];
+        for (int i = 0; i < elo.length; i++) {
+            elo[i] = players.get(i).getElo();
+        }
+
+        TeamSplit split = split(elo);
+        List<Player> team1 = new ArrayList<>(elo.length / 2);
+        List<Player> team2 = new ArrayList<>(elo.length / 2);
+        for (int i = 0; i < elo.length; i++) {
+            (split.isTeam1(i) ? team1 : team2).add(players.get(i));
+        }
+        return List.of(team1, team2);
+    }
+
+    public TeamSplit split(int[] elo) {
+        if (elo.length % 2 != 0) {
+            throw new IllegalArgumentException("Can not split " + elo.length + " players into two equal teams");
+        }
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        TeamSplit start = seed.split(elo, null, deadline);
+        long lowerBound = TeamSplit.lowerBound(elo);
+        if (start.getDifference() <= lowerBound || refiners.isEmpty()) {
+            return start;
+        }
+
+        Map<Future<TeamSplit>, PartitionStrategy> runs = new IdentityHashMap<>();
+        CompletionService<TeamSplit> finished = new ExecutorCompletionService<>(workers);
+        for (PartitionStrategy refiner : refiners) {
+            runs.put(finished.submit(() -> refiner.split(elo, start, deadline)), refiner);
+        }
+
+        // Until the time is up, every refiner returned, one of them reached the lower bound or an exact one returned
+        TeamSplit best = start;
+        try {
+            for (int pending = runs.size(); pending > 0 && best.getDifference() > lowerBound; pending--) {
+                Future<TeamSplit> run = finished.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (run == null) {
+                    break;
+                }
+                TeamSplit split = resultOf(run);
+                if (split == null) {
+                    continue;
+                }
+                if (split.getDifference() < best.getDifference()) {
+                    best = split;
+                }
+                if (runs.get(run).isExact()) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            runs.keySet().forEach(run -> run.cancel(true));
+        }
+        return best;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private static TeamSplit resultOf(Future<TeamSplit> run) throws InterruptedException {
+        try {
+            return run.get();
+        } catch (ExecutionException e) {
+            log.warn("Team partition strategy failed", e.getCause());
+            return null;
+        }
+    }
+
+    private static List<PartitionStrategy> refiners(int threads, long exactMaxCells) {
+        List<PartitionStrategy> refiners = new ArrayList<>(threads);
+        refiners.add(new ExactPartition(exactMaxCells));
+        for (int i = 1; i < Math.max(2, threads); i++) {
+            refiners.add(new LocalSearchPartition(i));
+        }
+        return refiners;
+    }
+}
@@ -0,0 +1,41 @@
+package api.services.teams.partition;
+
+/**
+ * Two equally sized teams drawn from a pool: {@code team1[i]} tells whether player {@code i} of the pool plays for
+ * team 1. The difference is |elo sum of team 1 - elo sum of team 2|.
+ */
+public final class TeamSplit {
+
+    private final boolean[] team1;
+    private final long difference;
+
+    public TeamSplit(int[] elo, boolean[] team1) {
+        long difference = 0;
+        for (int i = 0; i < elo.length; i++) {
+            difference += team1[i] ? elo[i] : -elo[i];
+        }
+        this.team1 = team1;
+        this.difference = Math.abs(difference);
+    }
+
+    public boolean isTeam1(int player) {
+        return team1[player];
+    }
+
+    public long getDifference() {
+        return difference;
+    }
+
+    boolean[] team1() {
+        return team1;
+    }
+
+    // The best any split of this pool can do: team sums differ by the parity of the total
+    static long lowerBound(int[] elo) {
+        long total = 0;
+        for (int value : elo) {
+            total += value;
+        }
+        return Math.abs(total % 2);
+    }
+}
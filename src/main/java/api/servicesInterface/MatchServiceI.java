@@ -2,14 +2,23 @@ package api.servicesInterface;
 
 
 import api.modelsDTO.CreateMatchRequestDTO;
-import api.modelsDTO.MatchResponseDTO;
+import api.modelsDTO.MatchBatchResponseDTO;
+import api.modelsDTO.MatchPageDTO;
 
+import java.io.OutputStream;
+import java.time.Instant;
 import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface MatchServiceI {
 
     void createMatch(CreateMatchRequestDTO request);
 
-    List<MatchResponseDTO> getAllMatches();
+    MatchBatchResponseDTO createMatches(List<CreateMatchRequestDTO> requests);
+
+    MatchPageDTO getMatches(UUID teamId, Instant from, Instant to, String cursor, int limit);
+
+    Consumer<OutputStream> streamMatches(UUID teamId, Instant from, Instant to, String cursor, int limit);
 
 }
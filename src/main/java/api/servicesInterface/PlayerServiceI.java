@@ -2,6 +2,8 @@ package api.servicesInterface;
 
 
 import api.modelsDTO.CreatePlayerRequestDTO;
+import api.modelsDTO.LeaderboardEntryDTO;
+import api.modelsDTO.PlayerPageDTO;
 import api.modelsDTO.PlayerResponseDTO;
 import api.modelsDTO.UpdatePlayerRequestDTO;
 
@@ -12,6 +14,8 @@ public interface PlayerServiceI {
 
     List<PlayerResponseDTO> getAllPlayers();
 
+    PlayerPageDTO getPlayers(String sort, String cursor, int limit);
+
     PlayerResponseDTO createPlayer(CreatePlayerRequestDTO request);
 
     PlayerResponseDTO getPlayerById(UUID playerId);
@@ -22,4 +26,8 @@ public interface PlayerServiceI {
 
     void deletePlayer(UUID playerId);
 
+    List<LeaderboardEntryDTO> getLeaderboard(int offset, int limit);
+
+    LeaderboardEntryDTO getPlayerRank(UUID playerId);
+
 }
@@ -0,0 +1,38 @@
+-- The schema ddl-auto=update created before Flyway managed it. Databases created that way are baselined at this
+-- version and skip it.
+
+create table teams (
+    is_random BOOLEAN default false not null,
+    id binary(16) not null,
+    team_name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table players (
+    elo integer not null,
+    hours_played integer not null,
+    losses integer not null,
+    rating_adjustment integer,
+    wins integer not null,
+    id binary(16) not null,
+    team_id binary(16),
+    nickname varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table matches (
+    duration integer not null,
+    id binary(16) not null,
+    team1_id binary(16) not null,
+    team2_id binary(16) not null,
+    winning_team_id binary(16),
+    primary key (id)
+) engine=InnoDB;
+
+alter table players add constraint UK_6fw03el6uda0dcep04s4rwpcx unique (nickname);
+alter table teams add constraint UK_dsqu2wx93en6lbl2bnrjy7kol unique (team_name);
+
+alter table matches add constraint FK3ioil1py4fu8omd77sivakcwi foreign key (team1_id) references teams (id);
+alter table matches add constraint FKdkphr8xw4l2dgywsnbdbe04d7 foreign key (team2_id) references teams (id);
+alter table matches add constraint FKg0y38ebygyr2f5jn8wjcrv841 foreign key (winning_team_id) references teams (id);
+alter table players add constraint FK5nglidr00c4dyybl171v6kask foreign key (team_id) references teams (id);
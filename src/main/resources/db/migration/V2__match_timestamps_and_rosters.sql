@@ -0,0 +1,13 @@
+-- When a match was recorded and who played on which side, for the rating replay. Older matches keep a null created
+-- and no roster.
+alter table matches add column created datetime(6);
+
+create table match_players (
+    team_number integer not null,
+    match_id binary(16) not null,
+    player_id binary(16) not null
+) engine=InnoDB;
+
+alter table match_players add constraint FKgigmeboyk2dqb71mw4fct0j7i foreign key (match_id) references matches (id);
+
+create index idx_matches_created on matches (created, id);
@@ -0,0 +1,13 @@
+create table notification_outbox (
+    attempts integer not null,
+    dead bit not null,
+    created_at datetime(6) not null,
+    next_attempt_at datetime(6) not null,
+    id binary(16) not null,
+    last_error varchar(255),
+    target varchar(255) not null,
+    payload text not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_outbox_due on notification_outbox (dead, next_attempt_at);
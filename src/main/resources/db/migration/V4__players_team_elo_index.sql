@@ -0,0 +1,2 @@
+-- Free players by elo for generate_teams, and the players of a team
+create index idx_players_team_elo on players (team_id, elo desc);
@@ -0,0 +1,4 @@
+-- Random teams left in the table are reaped once they are old enough. Older teams keep a null created_at.
+alter table teams add column created_at datetime(6);
+
+create index idx_teams_random_created on teams (is_random, created_at);
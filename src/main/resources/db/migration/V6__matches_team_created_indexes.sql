@@ -0,0 +1,3 @@
+-- The matches of a team in a time range, in keyset pages
+create index idx_matches_team1_created on matches (team1_id, created);
+create index idx_matches_team2_created on matches (team2_id, created);
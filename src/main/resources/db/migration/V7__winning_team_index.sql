@@ -0,0 +1,7 @@
+-- Deleting a team checks matches.winning_team_id for references. InnoDB only had the implicit index of the foreign
+-- key there, and drops it once this one exists. Every other access path already has an index:
+--   players.team_id         idx_players_team_elo (team_id, elo desc), also free players by elo for generate_teams
+--   players.nickname        the unique constraint, also the nickname pages of GET /players
+--   matches.team1_id/2_id   idx_matches_team1_created / idx_matches_team2_created
+-- players(elo) alone would serve no query (the leaderboard is kept in memory) and cost every rating update.
+create index idx_matches_winning_team on matches (winning_team_id);
@@ -0,0 +1,2 @@
+-- Bumped by every update of a player, see Player.version. Existing rows start at 0.
+alter table players add column version bigint not null default 0;
@@ -0,0 +1,48 @@
+import api.services.audit.AuditHook;
+import api.services.notification.NotificationGateway;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AuditHookTest {
+
+    @Test
+    public void testRecord_SampleRateIsPerEndpoint() {
+        NotificationGateway notificationGateway = mock(NotificationGateway.class);
+        when(notificationGateway.sendEvent(anyString(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("audit.sample-rate.players.list", "1")
+                .withProperty("audit.sample-rate.teams.list", "0");
+        AuditHook auditHook = new AuditHook(notificationGateway, environment, new ObjectMapper());
+
+        auditHook.record("players.list", Map.of("players", 3));
+        auditHook.record("teams.list", Map.of("teams", 1));
+        auditHook.record("matches.list", Map.of("matches", 1));
+
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(notificationGateway, times(1)).sendEvent(eq(NotificationGateway.BUCKET), payload.capture());
+        assertTrue(payload.getValue().contains("\"endpoint\":\"players.list\""));
+        assertTrue(payload.getValue().contains("\"players\":3"));
+    }
+
+    @Test
+    public void testRecord_DefaultRateAppliesToUnconfiguredEndpoints() {
+        NotificationGateway notificationGateway = mock(NotificationGateway.class);
+        when(notificationGateway.sendEvent(anyString(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("audit.sample-rate.default", "1")
+                .withProperty("audit.target", NotificationGateway.EMAIL);
+        AuditHook auditHook = new AuditHook(notificationGateway, environment, new ObjectMapper());
+
+        auditHook.record("teams.list", Map.of());
+
+        verify(notificationGateway).sendEvent(eq(NotificationGateway.EMAIL), anyString());
+    }
+}
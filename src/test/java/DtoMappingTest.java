@@ -0,0 +1,178 @@
+import api.models.Match;
+import api.models.Player;
+import api.models.Team;
+import api.modelsDTO.CreatePlayerRequestDTO;
+import api.modelsDTO.MatchResponseDTO;
+import api.modelsDTO.PlayerResponseDTO;
+import api.modelsDTO.TeamResponseDTO;
+import api.repositories.MatchView;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The hand-written mappers must produce what ModelMapper did, field for field
+public class DtoMappingTest {
+
+    private final ModelMapper modelMapper = new ModelMapper();
+
+    @Test
+    public void testPlayerResponse_MatchesModelMapper() {
+        Team team = team(3);
+        Player withoutTeam = player("solo", null);
+        withoutTeam.setRatingAdjustment(null);
+
+        for (Player player : List.of(team.getPlayers().get(0), withoutTeam)) {
+            assertPlayerEquals(modelMapper.map(player, PlayerResponseDTO.class), new PlayerResponseDTO(player));
+        }
+        assertNull(new PlayerResponseDTO(withoutTeam).getTeamId());
+        assertNull(new PlayerResponseDTO(withoutTeam).getRatingAdjustment());
+    }
+
+    @Test
+    public void testTeamResponse_MatchesModelMapper() {
+        for (Team team : List.of(team(5), team(0))) {
+            TeamResponseDTO expected = modelMapper.map(team, TeamResponseDTO.class);
+            TeamResponseDTO actual = new TeamResponseDTO(team);
+
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getTeamName(), actual.getTeamName());
+            assertEquals(expected.getPlayers().size(), actual.getPlayers().size());
+            for (int i = 0; i < expected.getPlayers().size(); i++) {
+                assertPlayerEquals(expected.getPlayers().get(i), actual.getPlayers().get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testTeamResponse_RandomTeamPlayersGetItsId() {
+        // Random teams only live in memory, their players' team stays null
+        Team randomTeam = team(2);
+        randomTeam.getPlayers().forEach(player -> player.setTeam(null));
+
+        TeamResponseDTO response = new TeamResponseDTO(randomTeam);
+
+        response.getPlayers().forEach(player -> assertEquals(randomTeam.getId(), player.getTeamId()));
+    }
+
+    @Test
+    public void testMatchResponse_MatchesModelMapper() {
+        Team team1 = team(1);
+        Team team2 = team(1);
+        Match won = match(team1, team2, team2, Instant.parse("2024-05-01T10:15:30Z"));
+        Match drawnBeforeCreatedExisted = match(team1, team2, null, null);
+
+        for (Match match : List.of(won, drawnBeforeCreatedExisted)) {
+            MatchResponseDTO expected = modelMapper.map(match, MatchResponseDTO.class);
+            assertMatchEquals(expected, new MatchResponseDTO(match));
+            assertMatchEquals(expected, new MatchResponseDTO(view(match)));
+        }
+    }
+
+    @Test
+    public void testCreatePlayerRequest_MatchesModelMapper() {
+        CreatePlayerRequestDTO request = new CreatePlayerRequestDTO();
+        request.setNickname("newcomer");
+
+        Player expected = modelMapper.map(request, Player.class);
+        Player actual = request.toPlayer();
+
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getNickname(), actual.getNickname());
+        assertEquals(expected.getWins(), actual.getWins());
+        assertEquals(expected.getLosses(), actual.getLosses());
+        assertEquals(expected.getElo(), actual.getElo());
+        assertEquals(expected.getHoursPlayed(), actual.getHoursPlayed());
+        assertEquals(expected.getTeam(), actual.getTeam());
+        assertEquals(expected.getRatingAdjustment(), actual.getRatingAdjustment());
+    }
+
+    private static void assertPlayerEquals(PlayerResponseDTO expected, PlayerResponseDTO actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getNickname(), actual.getNickname());
+        assertEquals(expected.getWins(), actual.getWins());
+        assertEquals(expected.getLosses(), actual.getLosses());
+        assertEquals(expected.getElo(), actual.getElo());
+        assertEquals(expected.getHoursPlayed(), actual.getHoursPlayed());
+        assertEquals(expected.getTeamId(), actual.getTeamId());
+        assertEquals(expected.getRatingAdjustment(), actual.getRatingAdjustment());
+    }
+
+    private static void assertMatchEquals(MatchResponseDTO expected, MatchResponseDTO actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getTeam1Id(), actual.getTeam1Id());
+        assertEquals(expected.getTeam2Id(), actual.getTeam2Id());
+        assertEquals(expected.getWinningTeamId(), actual.getWinningTeamId());
+        assertEquals(expected.getDuration(), actual.getDuration());
+        assertEquals(expected.getCreated(), actual.getCreated());
+    }
+
+    private static Team team(int size) {
+        Team team = new Team();
+        team.setId(UUID.randomUUID());
+        team.setTeamName("team-" + team.getId().toString().substring(0, 8));
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            players.add(player("player-" + i + "-" + team.getTeamName(), team));
+        }
+        team.setPlayers(players);
+        return team;
+    }
+
+    private static Player player(String nickname, Team team) {
+        Player player = new Player();
+        player.setId(UUID.randomUUID());
+        player.setNickname(nickname);
+        player.setWins(12);
+        player.setLosses(7);
+        player.setElo(1540);
+        player.setHoursPlayed(230);
+        player.setRatingAdjustment(50);
+        player.setTeam(team);
+        return player;
+    }
+
+    private static Match match(Team team1, Team team2, Team winner, Instant created) {
+        Match match = new Match();
+        match.setId(UUID.randomUUID());
+        match.setTeam1(team1);
+        match.setTeam2(team2);
+        match.setWinningTeam(winner);
+        match.setDuration(3);
+        match.setCreated(created);
+        return match;
+    }
+
+    private static MatchView view(Match match) {
+        return new MatchView() {
+            public UUID getId() {
+                return match.getId();
+            }
+
+            public UUID getTeam1Id() {
+                return match.getTeam1().getId();
+            }
+
+            public UUID getTeam2Id() {
+                return match.getTeam2().getId();
+            }
+
+            public UUID getWinningTeamId() {
+                return match.getWinningTeam() != null ? match.getWinningTeam().getId() : null;
+            }
+
+            public int getDuration() {
+                return match.getDuration();
+            }
+
+            public Instant getCreated() {
+                return match.getCreated();
+            }
+        };
+    }
+}
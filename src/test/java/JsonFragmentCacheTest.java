@@ -0,0 +1,151 @@
+import api.config.JsonFragmentMessageConverter;
+import api.modelsDTO.MatchResponseDTO;
+import api.modelsDTO.PlayerPageDTO;
+import api.modelsDTO.PlayerResponseDTO;
+import api.modelsDTO.TeamResponseDTO;
+import api.services.cache.JsonFragmentCache;
+import api.services.cache.ResponseCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonFragmentCacheTest {
+
+    private static final Type PLAYER_LIST = new ParameterizedTypeReference<List<PlayerResponseDTO>>() {}.getType();
+    private static final Type TEAM_LIST = new ParameterizedTypeReference<List<TeamResponseDTO>>() {}.getType();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ResponseCache responseCache = new ResponseCache(new SimpleMeterRegistry(), 1000, 1000, 60_000, System::nanoTime);
+    private final JsonFragmentCache fragments = new JsonFragmentCache(objectMapper, meterRegistry, responseCache, 1000, 1000, 60_000, System::nanoTime);
+    private final JsonFragmentMessageConverter converter = new JsonFragmentMessageConverter(fragments);
+
+    @Test
+    public void testConverter_WritesWhatJacksonWrites() throws Exception {
+        UUID teamId = UUID.randomUUID();
+        PlayerResponseDTO inTeam = player("Ærø \"quoted\" \\ ✓", teamId, 50);
+        PlayerResponseDTO free = player("free", null, null);
+        TeamResponseDTO team = new TeamResponseDTO();
+        team.setId(teamId);
+        team.setTeamName("team\t1");
+        team.setPlayers(List.of(inTeam));
+
+        for (int pass = 0; pass < 2; pass++) {
+            assertWritesLikeJackson(inTeam, PlayerResponseDTO.class);
+            assertWritesLikeJackson(free, PlayerResponseDTO.class);
+            assertWritesLikeJackson(team, TeamResponseDTO.class);
+            assertWritesLikeJackson(List.of(inTeam, free), PLAYER_LIST);
+            assertWritesLikeJackson(List.of(), PLAYER_LIST);
+            assertWritesLikeJackson(new PlayerPageDTO(List.of(free, inTeam), "aWQ6\"x\""), PlayerPageDTO.class);
+            assertWritesLikeJackson(new PlayerPageDTO(List.of(), null), PlayerPageDTO.class);
+        }
+    }
+
+    @Test
+    public void testConverter_OnlyWritesPlayerAndTeamResponses() {
+        assertTrue(converter.canWrite(PLAYER_LIST, List.class, MediaType.APPLICATION_JSON));
+        assertTrue(converter.canWrite(PlayerPageDTO.class, PlayerPageDTO.class, null));
+        assertFalse(converter.canWrite(TEAM_LIST, List.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(MatchResponseDTO.class, MatchResponseDTO.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(PlayerResponseDTO.class, PlayerResponseDTO.class, MediaType.APPLICATION_XML));
+        assertFalse(converter.canRead(PlayerResponseDTO.class, MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    public void testFragment_EncodedAgainOnceThePlayerChanged() throws Exception {
+        PlayerResponseDTO player = player("hot", null, null);
+        player.setVersion(responseCache.playerVersion(player.getId()));
+
+        byte[] first = fragments.player(player);
+        assertSame(first, fragments.player(player));
+
+        // Read before the write committed, stamped with the version of then
+        PlayerResponseDTO loadedBefore = player("hot", null, null, player.getId());
+        loadedBefore.setVersion(player.getVersion());
+        responseCache.invalidatePlayer(player.getId());
+        PlayerResponseDTO afterMatch = player("hot", null, null, player.getId());
+        afterMatch.setElo(1525);
+        afterMatch.setVersion(responseCache.playerVersion(player.getId()));
+        byte[] changed = fragments.player(afterMatch);
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(afterMatch), changed);
+        assertSame(changed, fragments.player(afterMatch));
+        assertNotSame(changed, fragments.player(loadedBefore));
+        assertSame(changed, fragments.player(afterMatch));
+        assertEquals(1, meterRegistry.get("cache.fragments.stale").tag("cache", "players.json").counter().count());
+        assertEquals(1, meterRegistry.get("cache.size").tag("cache", "players.json").gauge().value());
+    }
+
+    @Test
+    public void testFragment_ResponsesWithoutVersionAreNotKept() {
+        PlayerResponseDTO created = player("new", null, null);
+
+        assertNotSame(fragments.player(created), fragments.player(created));
+        assertEquals(0, meterRegistry.get("cache.size").tag("cache", "players.json").gauge().value());
+    }
+
+    @Test
+    public void testPlayers_LoadsOnlyPlayersWithoutACurrentFragment() {
+        List<PlayerResponseDTO> stored = List.of(player("a", null, null), player("b", null, null), player("c", null, null));
+        List<UUID> ids = stored.stream().map(PlayerResponseDTO::getId).toList();
+        List<List<UUID>> loads = new ArrayList<>();
+        Function<List<UUID>, List<PlayerResponseDTO>> loader = missing -> {
+            loads.add(missing);
+            return stored.stream().filter(player -> missing.contains(player.getId()))
+                    .map(player -> player(player.getNickname(), null, null, player.getId())).toList();
+        };
+
+        List<PlayerResponseDTO> first = fragments.players(ids, loader);
+        List<PlayerResponseDTO> second = fragments.players(ids, loader);
+        responseCache.invalidatePlayer(ids.get(1));
+        List<PlayerResponseDTO> third = fragments.players(ids, loader);
+
+        assertEquals(List.of("a", "b", "c"), third.stream().map(PlayerResponseDTO::getNickname).toList());
+        assertEquals(2, loads.size());
+        assertEquals(3, loads.get(0).size());
+        assertEquals(List.of(ids.get(1)), loads.get(1));
+        for (int i = 0; i < ids.size(); i++) {
+            assertSame(first.get(i), second.get(i));
+        }
+        assertSame(first.get(0), third.get(0));
+        assertNotSame(first.get(1), third.get(1));
+        assertSame(fragments.player(first.get(0)), fragments.player(third.get(0)));
+    }
+
+    private void assertWritesLikeJackson(Object value, Type type) throws Exception {
+        assertTrue(converter.canWrite(type, value.getClass(), MediaType.APPLICATION_JSON));
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(value, type, MediaType.APPLICATION_JSON, message);
+
+        assertEquals(objectMapper.writeValueAsString(value), message.getBodyAsString());
+        assertEquals(MediaType.APPLICATION_JSON, message.getHeaders().getContentType());
+    }
+
+    private static PlayerResponseDTO player(String nickname, UUID teamId, Integer ratingAdjustment) {
+        return player(nickname, teamId, ratingAdjustment, UUID.randomUUID());
+    }
+
+    private static PlayerResponseDTO player(String nickname, UUID teamId, Integer ratingAdjustment, UUID id) {
+        PlayerResponseDTO player = new PlayerResponseDTO();
+        player.setId(id);
+        player.setNickname(nickname);
+        player.setWins(12);
+        player.setLosses(7);
+        player.setElo(1500);
+        player.setHoursPlayed(230);
+        player.setTeamId(teamId);
+        player.setRatingAdjustment(ratingAdjustment);
+        return player;
+    }
+}
@@ -0,0 +1,67 @@
+import api.models.Player;
+import api.repositories.PlayerRatingView;
+import api.repositories.PlayerRepositoryI;
+import api.services.leaderboard.Leaderboard;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+public class LeaderboardTest {
+
+    @Mock
+    private PlayerRepositoryI playerRepository;
+
+    @Test
+    public void testRebuild_KeepsChangesMadeWhileItReads() {
+        Leaderboard leaderboard = new Leaderboard(playerRepository);
+        Player rated = createPlayer(1000);
+        Player deleted = createPlayer(900);
+        Player created = createPlayer(800);
+
+        // The changes commit while the ratings are read; the read is older than all of them
+        when(playerRepository.findAllRatings()).thenAnswer(invocation -> {
+            rated.setElo(1500);
+            leaderboard.update(rated);
+            leaderboard.remove(deleted.getId());
+            leaderboard.update(created);
+            return List.of(rating(rated.getId(), 1000), rating(deleted.getId(), 900));
+        });
+
+        leaderboard.rebuild();
+
+        assertEquals(2, leaderboard.size());
+        assertEquals(1500, leaderboard.rankOf(rated.getId()).getElo());
+        assertEquals(1, leaderboard.rankOf(rated.getId()).getRank());
+        assertNull(leaderboard.rankOf(deleted.getId()));
+        assertEquals(2, leaderboard.rankOf(created.getId()).getRank());
+
+        // Once rebuilt, changes are no longer recorded for the next one
+        when(playerRepository.findAllRatings()).thenReturn(List.of(rating(rated.getId(), 1500)));
+        leaderboard.rebuild();
+        assertEquals(1, leaderboard.size());
+    }
+
+    private static Player createPlayer(int elo) {
+        Player player = new Player();
+        player.setId(UUID.randomUUID());
+        player.setNickname("Player_" + player.getId());
+        player.setElo(elo);
+        return player;
+    }
+
+    private static PlayerRatingView rating(UUID id, int elo) {
+        return new PlayerRatingView() {
+            public UUID getId() { return id; }
+            public String getNickname() { return "Player_" + id; }
+            public int getElo() { return elo; }
+        };
+    }
+}
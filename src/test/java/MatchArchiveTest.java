@@ -0,0 +1,169 @@
+import api.services.archive.ArchiveSink;
+import api.services.archive.MatchArchive;
+import api.services.events.MatchEvent;
+import api.services.events.MatchEventCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MatchArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testAppend_RollsSegmentsAndFindsEveryEventThroughTheIndex() throws IOException {
+        List<String> uploaded = new ArrayList<>();
+        MatchArchive archive = createArchive((name, data, index) -> uploaded.add(name));
+
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            archive.append(event(id, i));
+        }
+        archive.append("{\"id\":null,\"duration\":1}");
+
+        // Still in the open segment
+        assertEquals(event(ids.get(1_999), 1_999), archive.find(ids.get(1_999)));
+
+        archive.roll();
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(event(ids.get(i), i), archive.find(ids.get(i)));
+        }
+        assertNull(archive.find(UUID.randomUUID()));
+
+        // Every segment is a plain gzip NDJSON file
+        List<Path> segments = files(".ndjson.gz");
+        assertTrue(segments.size() > 1);
+        int lines = 0;
+        for (Path segment : segments) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(segment)), StandardCharsets.UTF_8))) {
+                lines += (int) reader.lines().count();
+            }
+        }
+        assertEquals(2_001, lines);
+
+        archive.uploadSealed();
+        archive.uploadSealed();
+        assertEquals(segments.size(), uploaded.size());
+    }
+
+    @Test
+    public void testUploadSealed_FailedUploadIsRetried() {
+        List<String> uploaded = new ArrayList<>();
+        boolean[] failing = {true};
+        MatchArchive archive = createArchive((name, data, index) -> {
+            if (failing[0]) throw new IOException("bucket unavailable");
+            uploaded.add(name);
+        });
+
+        archive.append(event(UUID.randomUUID(), 1));
+        archive.roll();
+        archive.uploadSealed();
+        assertTrue(uploaded.isEmpty());
+
+        failing[0] = false;
+        archive.uploadSealed();
+        assertEquals(1, uploaded.size());
+    }
+
+    @Test
+    public void testOpen_RecoversSegmentLeftOpenByACrash() throws IOException {
+        MatchArchive crashed = createArchive((name, data, index) -> { });
+        UUID flushed = UUID.randomUUID();
+        crashed.append(event(flushed, 1));
+        crashed.flush();
+
+        // Half written block after the last flush
+        Path part = files(".ndjson.gz.part").get(0);
+        Files.write(part, new byte[]{0x1f, (byte) 0x8b, 8, 0}, StandardOpenOption.APPEND);
+
+        MatchArchive restarted = createArchive((name, data, index) -> { });
+        restarted.open();
+
+        assertTrue(files(".ndjson.gz.part").isEmpty());
+        assertEquals(event(flushed, 1), restarted.find(flushed));
+    }
+
+    @Test
+    public void testBinaryFormat_StoresSmallerSegmentsAndReturnsJson() throws IOException {
+        Path ndjsonDirectory = Files.createDirectory(directory.resolve("ndjson"));
+        Path binaryDirectory = Files.createDirectory(directory.resolve("binary"));
+        MatchArchive ndjson = createArchive((name, data, index) -> { }, ndjsonDirectory, "ndjson");
+        MatchArchive binary = createArchive((name, data, index) -> { }, binaryDirectory, "binary");
+
+        List<String> events = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            MatchEvent event = new MatchEvent();
+            event.setId(UUID.randomUUID());
+            event.setTeam1Id(UUID.nameUUIDFromBytes(("t" + i % 7).getBytes()));
+            event.setTeam2Id(UUID.nameUUIDFromBytes(("t" + (i + 1) % 7).getBytes()));
+            event.setWinningTeamId(i % 3 == 0 ? null : event.getTeam1Id());
+            event.setDuration(i % 5 + 1);
+            event.setCreatedAt(1_700_000_000_000L + i);
+            for (int p = 0; p < 10; p++) {
+                event.addPlayer(UUID.randomUUID(), p < 5 ? 1 : 2, 1000 + p, 1000 + p + (p < 5 ? 8 : -8));
+            }
+            String json = MatchEventCodec.toJson(event);
+            events.add(json);
+            ndjson.append(json);
+            binary.append(json);
+        }
+        binary.roll();
+        ndjson.roll();
+
+        for (String json : events) {
+            assertEquals(json, binary.find(MatchEventCodec.fromJson(json).getId()));
+        }
+        assertTrue(size(binaryDirectory, ".events.gz") < size(ndjsonDirectory, ".ndjson.gz"));
+    }
+
+    private MatchArchive createArchive(ArchiveSink sink) {
+        return createArchive(sink, directory, "ndjson");
+    }
+
+    private MatchArchive createArchive(ArchiveSink sink, Path directory, String format) {
+        MatchArchive archive = new MatchArchive(sink, directory.toString(), format, 1024, 4096, 60_000);
+        try {
+            archive.open();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return archive;
+    }
+
+    private String event(UUID id, int n) {
+        return "{\"id\":\"" + id + "\",\"team1Id\":\"" + UUID.nameUUIDFromBytes(("t" + n % 7).getBytes()) + "\",\"duration\":" + (n % 5 + 1) + "}";
+    }
+
+    private long size(Path directory, String suffix) throws IOException {
+        long size = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(file -> file.getFileName().toString().endsWith(suffix)).toList()) {
+                size += Files.size(file);
+            }
+        }
+        return size;
+    }
+
+    private List<Path> files(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(suffix)).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+import api.services.events.MatchEvent;
+import api.services.events.MatchEventCodec;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MatchEventCodecTest {
+
+    @Test
+    public void testJson_RoundTripsEveryField() {
+        MatchEvent event = createEvent(UUID.randomUUID(), true);
+
+        String json = MatchEventCodec.toJson(event);
+        assertTrue(json.startsWith("{\"id\":\"" + event.getId() + "\""));
+        assertEvent(event, MatchEventCodec.fromJson(json));
+    }
+
+    @Test
+    public void testBinary_RoundTripsEveryFieldAndIsSmallerThanJson() {
+        MatchEvent event = createEvent(UUID.randomUUID(), true);
+
+        byte[] binary = MatchEventCodec.toBinary(event);
+        assertEvent(event, MatchEventCodec.fromBinary(binary, 0, binary.length));
+        assertTrue(binary.length * 2 < MatchEventCodec.toJsonBytes(event).length);
+    }
+
+    @Test
+    public void testDrawWithoutId_OmitsNullsAndRoundTrips() {
+        MatchEvent event = createEvent(null, false);
+
+        String json = MatchEventCodec.toJson(event);
+        assertFalse(json.contains("\"winningTeamId\""));
+        assertEvent(event, MatchEventCodec.fromJson(json));
+
+        byte[] binary = MatchEventCodec.toBinary(event);
+        assertEvent(event, MatchEventCodec.fromBinary(binary, 0, binary.length));
+    }
+
+    @Test
+    public void testFromJson_SkipsUnknownFields() {
+        UUID id = UUID.randomUUID();
+        MatchEvent event = MatchEventCodec.fromJson("{\"id\":\"" + id + "\",\"created\":\"2024-01-01T00:00:00Z\",\"extra\":{\"a\":[1,2]},\"duration\":3}");
+
+        assertEquals(id, event.getId());
+        assertEquals(3, event.getDuration());
+        assertEquals(0, event.getPlayerCount());
+    }
+
+    private MatchEvent createEvent(UUID id, boolean team1Won) {
+        MatchEvent event = new MatchEvent(2);
+        event.setId(id);
+        event.setTeam1Id(UUID.randomUUID());
+        event.setTeam2Id(UUID.randomUUID());
+        event.setWinningTeamId(team1Won ? event.getTeam1Id() : null);
+        event.setDuration(4);
+        event.setCreatedAt(1_700_000_123_456L);
+        for (int i = 0; i < 10; i++) {
+            event.addPlayer(UUID.randomUUID(), i < 5 ? 1 : 2, -300 + i * 250, -300 + i * 250 + (i < 5 ? 17 : -17));
+        }
+        return event;
+    }
+
+    private void assertEvent(MatchEvent expected, MatchEvent actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getTeam1Id(), actual.getTeam1Id());
+        assertEquals(expected.getTeam2Id(), actual.getTeam2Id());
+        assertEquals(expected.getWinningTeamId(), actual.getWinningTeamId());
+        assertEquals(expected.getDuration(), actual.getDuration());
+        assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+        assertEquals(expected.getPlayerCount(), actual.getPlayerCount());
+        for (int i = 0; i < expected.getPlayerCount(); i++) {
+            assertEquals(expected.getPlayerId(i), actual.getPlayerId(i));
+            assertEquals(expected.getTeam(i), actual.getTeam(i));
+            assertEquals(expected.getEloBefore(i), actual.getEloBefore(i));
+            assertEquals(expected.getEloAfter(i), actual.getEloAfter(i));
+        }
+    }
+}
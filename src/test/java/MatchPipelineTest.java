@@ -0,0 +1,290 @@
+import api.exceptions.ServiceBusyException;
+import api.models.Player;
+import api.models.Team;
+import api.repositories.MatchRepositoryI;
+import api.repositories.PlayerRepositoryI;
+import api.repositories.TeamRepositoryI;
+import api.services.leaderboard.Leaderboard;
+import api.services.outbox.NotificationOutbox;
+import api.services.pipeline.MatchPipeline;
+import api.services.pipeline.MatchTask;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+public class MatchPipelineTest {
+
+    @Mock
+    private TeamRepositoryI teamRepository;
+
+    @Mock
+    private MatchRepositoryI matchRepository;
+
+    @Mock
+    private PlayerRepositoryI playerRepository;
+
+    @Mock
+    private Leaderboard leaderboard;
+
+    @Mock
+    private NotificationOutbox notificationOutbox;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<UUID, Player> players = new ConcurrentHashMap<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    public void setUp() {
+        when(playerRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<Player> found = new ArrayList<>();
+            for (Object id : (Iterable<?>) invocation.getArgument(0)) {
+                if (players.containsKey(id)) {
+                    found.add(players.get(id));
+                }
+            }
+            return found;
+        });
+    }
+
+    @Test
+    public void testSubmit_ConcurrentMatchesOfSharedTeamsLoseNoUpdates() throws Exception {
+        MatchPipeline pipeline = createPipeline(3, 4096, 10_000);
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            teams.add(createTeam());
+        }
+
+        int threads = 8;
+        int matchesPerThread = 250;
+        ExecutorService clients = Executors.newFixedThreadPool(threads);
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            done.add(clients.submit(() -> {
+                List<CompletableFuture<UUID>> results = new ArrayList<>();
+                for (int m = 0; m < matchesPerThread; m++) {
+                    Team team1 = teams.get((offset + m) % teams.size());
+                    Team team2 = teams.get((offset + m + 1 + m % 4) % teams.size());
+                    if (team1 == team2) {
+                        team2 = teams.get((offset + m + 1) % teams.size());
+                    }
+                    results.add(pipeline.submit(new MatchTask(team1, team1.getPlayers(), team2, team2.getPlayers(), team1, 1)));
+                }
+                results.forEach(CompletableFuture::join);
+                return null;
+            }));
+        }
+        for (Future<?> future : done) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        clients.shutdown();
+        pipeline.shutdown();
+
+        // Every match adds one hour to ten players and one win to five of them
+        int matches = threads * matchesPerThread;
+        assertEquals(matches * 10L, players.values().stream().mapToLong(Player::getHoursPlayed).sum());
+        assertEquals(matches * 5L, players.values().stream().mapToLong(Player::getWins).sum());
+        assertEquals(matches * 5L, players.values().stream().mapToLong(Player::getLosses).sum());
+        assertEquals(0, pipeline.queueDepth());
+    }
+
+    @Test
+    public void testSubmit_RejectsWhenTheQueueStaysFull() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            blocked.countDown();
+            release.await();
+            return null;
+        });
+
+        MatchPipeline pipeline = createPipeline(1, 2, 200);
+        Team team1 = createTeam();
+        Team team2 = createTeam();
+
+        List<CompletableFuture<UUID>> accepted = new ArrayList<>();
+        accepted.add(pipeline.submit(new MatchTask(team1, team1.getPlayers(), team2, team2.getPlayers(), null, 1)));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        accepted.add(pipeline.submit(new MatchTask(team1, team1.getPlayers(), team2, team2.getPlayers(), null, 1)));
+        accepted.add(pipeline.submit(new MatchTask(team1, team1.getPlayers(), team2, team2.getPlayers(), null, 1)));
+
+        assertThrows(ServiceBusyException.class,
+                () -> pipeline.submit(new MatchTask(team1, team1.getPlayers(), team2, team2.getPlayers(), null, 1)));
+        assertEquals(1.0, meterRegistry.get("matches.pipeline.rejected").counter().count());
+        assertEquals(2.0, meterRegistry.get("matches.pipeline.queue.depth").gauge().value());
+
+        release.countDown();
+        accepted.forEach(CompletableFuture::join);
+        pipeline.shutdown();
+        assertEquals(3, players.values().iterator().next().getHoursPlayed());
+    }
+
+    @Test
+    public void testSubmit_SplitMatchCommitsBothSidesOrNeither() {
+        // Loads hand out copies; what a transaction loaded is stored when it commits. The second commit fails.
+        List<Player> loadedInTransaction = new ArrayList<>();
+        AtomicBoolean inTransaction = new AtomicBoolean();
+        AtomicInteger commits = new AtomicInteger();
+        when(playerRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<Player> found = new ArrayList<>();
+            for (Object id : (Iterable<?>) invocation.getArgument(0)) {
+                if (players.containsKey(id)) {
+                    Player copy = copy(players.get(id));
+                    found.add(copy);
+                    if (inTransaction.get()) {
+                        loadedInTransaction.add(copy);
+                    }
+                }
+            }
+            return found;
+        });
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            loadedInTransaction.clear();
+            inTransaction.set(true);
+            return null;
+        });
+        doAnswer(invocation -> {
+            inTransaction.set(false);
+            if (commits.incrementAndGet() == 2) {
+                throw new TransactionSystemException("Commit failed");
+            }
+            loadedInTransaction.forEach(player -> players.put(player.getId(), player));
+            return null;
+        }).when(transactionManager).commit(any());
+
+        MatchPipeline pipeline = createPipeline(2, 64, 1000);
+        Team team1 = createTeam();
+        Team team2 = createTeam();
+        while (Math.floorMod(team2.getId().hashCode(), 2) == Math.floorMod(team1.getId().hashCode(), 2)) {
+            team2 = createTeam();
+        }
+        MatchTask first = new MatchTask(team1, team1.getPlayers(), team2, team2.getPlayers(), team1, 1);
+        MatchTask second = new MatchTask(team1, team1.getPlayers(), team2, team2.getPlayers(), team1, 1);
+        MatchTask retry = new MatchTask(team1, team1.getPlayers(), team2, team2.getPlayers(), team1, 1);
+
+        pipeline.submit(first).join();
+        assertThrows(CompletionException.class, () -> pipeline.submit(second).join());
+        assertEquals(10, hoursPlayed(team1, team2));
+
+        pipeline.submit(retry).join();
+        assertEquals(20, hoursPlayed(team1, team2));
+        assertEquals(3, commits.get());
+        assertEquals(0, pipeline.queueDepth());
+    }
+
+    @Test
+    public void testSubmit_KeepsAnEditCommittedAfterThePlayersWereLoaded() {
+        // Loads hand out copies; what the transaction loaded is stored when it commits, with the version bumped
+        List<Player> loadedInTransaction = new ArrayList<>();
+        AtomicBoolean inTransaction = new AtomicBoolean();
+        when(playerRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<Player> found = new ArrayList<>();
+            for (Object id : (Iterable<?>) invocation.getArgument(0)) {
+                Player copy = copy(players.get(id));
+                found.add(copy);
+                if (inTransaction.get()) {
+                    loadedInTransaction.add(copy);
+                }
+            }
+            return found;
+        });
+        Team team1 = createTeam();
+        Team team2 = createTeam();
+        Player edited = team1.getPlayers().get(0);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            // An admin sets the player's elo after the partition loaded it
+            Player stored = players.get(edited.getId());
+            stored.setElo(2000);
+            stored.setVersion(stored.getVersion() + 1);
+            inTransaction.set(true);
+            return null;
+        });
+        doAnswer(invocation -> {
+            inTransaction.set(false);
+            loadedInTransaction.forEach(player -> {
+                player.setVersion(player.getVersion() + 1);
+                players.put(player.getId(), player);
+            });
+            return null;
+        }).when(transactionManager).commit(any());
+
+        MatchPipeline pipeline = createPipeline(1, 64, 1000);
+        pipeline.submit(new MatchTask(team1, team1.getPlayers(), team2, team2.getPlayers(), team1, 1)).join();
+
+        Player winner = players.get(edited.getId());
+        Player teammate = players.get(team1.getPlayers().get(1).getId());
+        assertEquals(2000 + teammate.getElo() - 1000, winner.getElo());
+        assertEquals(1, winner.getWins());
+        assertEquals(1, winner.getHoursPlayed());
+        assertEquals(2, winner.getVersion());
+    }
+
+    private int hoursPlayed(Team team1, Team team2) {
+        return Stream.concat(team1.getPlayers().stream(), team2.getPlayers().stream())
+                .mapToInt(player -> players.get(player.getId()).getHoursPlayed())
+                .sum();
+    }
+
+    private static Player copy(Player player) {
+        Player copy = new Player();
+        copy.setId(player.getId());
+        copy.setNickname(player.getNickname());
+        copy.setElo(player.getElo());
+        copy.setHoursPlayed(player.getHoursPlayed());
+        copy.setWins(player.getWins());
+        copy.setLosses(player.getLosses());
+        copy.setRatingAdjustment(player.getRatingAdjustment());
+        copy.setVersion(player.getVersion());
+        return copy;
+    }
+
+    private MatchPipeline createPipeline(int partitions, int queueCapacity, long submitTimeoutMs) {
+        MatchPipeline pipeline = new MatchPipeline(teamRepository, matchRepository, playerRepository, leaderboard, notificationOutbox,
+                transactionManager, meterRegistry, partitions, queueCapacity, 32, submitTimeoutMs);
+        pipeline.start();
+        return pipeline;
+    }
+
+    private Team createTeam() {
+        Team team = new Team();
+        team.setId(UUID.randomUUID());
+        List<Player> roster = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Player player = new Player();
+            player.setId(UUID.randomUUID());
+            player.setNickname("Player_" + player.getId());
+            player.setElo(1000);
+            players.put(player.getId(), player);
+            roster.add(player);
+        }
+        team.setPlayers(roster);
+        return team;
+    }
+}
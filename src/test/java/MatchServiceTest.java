@@ -4,21 +4,49 @@ import api.models.Match;
 import api.models.Player;
 import api.models.Team;
 import api.modelsDTO.CreateMatchRequestDTO;
+import api.modelsDTO.MatchBatchResponseDTO;
+import api.modelsDTO.MatchBatchResultDTO;
+import api.modelsDTO.MatchPageDTO;
+import api.modelsDTO.MatchResponseDTO;
+import api.modelsDTO.PlayerResponseDTO;
 import api.repositories.MatchRepositoryI;
+import api.repositories.MatchView;
 import api.repositories.PlayerRepositoryI;
 import api.repositories.TeamRepositoryI;
 import api.services.MatchService;
+import api.services.archive.MatchArchive;
+import api.services.cache.ResponseCache;
+import api.services.events.MatchEvent;
+import api.services.events.MatchEventCodec;
+import api.services.leaderboard.Leaderboard;
+import api.services.notification.NotificationGateway;
+import api.services.outbox.NotificationOutbox;
+import api.services.pipeline.MatchPipeline;
+import api.services.teams.RandomTeamRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
 
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -34,9 +62,48 @@ public class MatchServiceTest {
     @Mock
     private PlayerRepositoryI playerRepository;
 
-    @InjectMocks
+    @Mock
+    private Leaderboard leaderboard;
+
+    @Mock
+    private NotificationOutbox notificationOutbox;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<UUID, Player> players = new HashMap<>();
+    private MatchPipeline matchPipeline;
+    private RandomTeamRegistry randomTeamRegistry;
+    private ResponseCache responseCache;
     private MatchService matchService;
 
+    @BeforeEach
+    public void setUp() {
+        // The pipeline loads players by id, hand it the same objects the test asserts on
+        when(playerRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<Player> found = new ArrayList<>();
+            for (Object id : (Iterable<?>) invocation.getArgument(0)) {
+                if (players.containsKey(id)) {
+                    found.add(players.get(id));
+                }
+            }
+            return found;
+        });
+
+        matchPipeline = new MatchPipeline(teamRepository, matchRepository, playerRepository, leaderboard, notificationOutbox,
+                transactionManager, new SimpleMeterRegistry(), 4, 64, 16, 1_000);
+        matchPipeline.start();
+        randomTeamRegistry = new RandomTeamRegistry(new SimpleMeterRegistry(), 60_000);
+        responseCache = new ResponseCache(new SimpleMeterRegistry(), 1000, 1000, 60_000, System::nanoTime);
+        matchService = new MatchService(teamRepository, matchRepository, playerRepository, matchPipeline, randomTeamRegistry, responseCache,
+                new ObjectMapper().findAndRegisterModules(), transactionManager);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        matchPipeline.shutdown();
+    }
+
     @Test
     public void testCreateMatch_Success() {
         UUID team1Id = UUID.randomUUID();
@@ -59,15 +126,27 @@ public class MatchServiceTest {
         team1.setPlayers(team1Players);
         team2.setPlayers(team2Players);
 
-        when(teamRepository.findById(team1Id)).thenReturn(Optional.of(team1));
-        when(teamRepository.findById(team2Id)).thenReturn(Optional.of(team2));
-        when(teamRepository.findById(winningTeamId)).thenReturn(Optional.of(team1));
+        when(teamRepository.findWithPlayersById(team1Id)).thenReturn(Optional.of(team1));
+        when(teamRepository.findWithPlayersById(team2Id)).thenReturn(Optional.of(team2));
+        when(teamRepository.findWithPlayersById(winningTeamId)).thenReturn(Optional.of(team1));
+        Player cachedPlayer = team1Players.get(0);
+        responseCache.getPlayer(cachedPlayer.getId(), id -> new PlayerResponseDTO(cachedPlayer));
 
         matchService.createMatch(request);
 
         verify(matchRepository).save(any(Match.class));
 
-        verify(playerRepository, times(team1Players.size() + team2Players.size())).save(any(Player.class));
+        verify(leaderboard, times(team1Players.size() + team2Players.size())).update(any(Player.class));
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(notificationOutbox).enqueueJson(payload.capture(), eq(NotificationGateway.EMAIL), eq(MatchArchive.TARGET));
+        MatchEvent event = MatchEventCodec.fromJson(payload.getValue());
+        assertEquals(team1Id, event.getWinningTeamId());
+        assertEquals(team1Players.size() + team2Players.size(), event.getPlayerCount());
+        assertEquals(team1Players.get(0).getElo(), event.getEloAfter(0));
+        assertTrue(event.getEloAfter(0) > event.getEloBefore(0));
+
+        // The cached response went with the match
+        assertEquals(cachedPlayer.getElo(), responseCache.getPlayer(cachedPlayer.getId(), id -> new PlayerResponseDTO(cachedPlayer)).getElo());
 
         for (Player player : team1Players) {
             assertEquals(1, player.getWins());
@@ -106,17 +185,37 @@ public class MatchServiceTest {
         request.setTeam2Id(team2Id);
         request.setDuration(2);
 
-        when(teamRepository.findById(team1Id)).thenReturn(Optional.empty());
+        when(teamRepository.findWithPlayersById(team1Id)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> matchService.createMatch(request));
 
-        verify(teamRepository).findById(team1Id);
+        verify(teamRepository).findWithPlayersById(team1Id);
 
-        verify(teamRepository, never()).findById(team2Id);
+        verify(teamRepository, never()).findWithPlayersById(team2Id);
         verifyNoInteractions(matchRepository);
         verifyNoInteractions(playerRepository);
     }
 
+    @Test
+    public void testCreateMatch_RandomTeamsPlayOnceAndAreNotStored() {
+        List<Player> roster1 = createPlayersForTeam(null);
+        List<Player> roster2 = createPlayersForTeam(null);
+        List<Team> randomTeams = randomTeamRegistry.create(List.of(roster1, roster2));
+        UUID team1Id = randomTeams.get(0).getId();
+        UUID team2Id = randomTeams.get(1).getId();
+
+        matchService.createMatch(createMatchRequest(team1Id, team2Id, team2Id, 1));
+
+        verify(teamRepository, never()).findWithPlayersById(any(UUID.class));
+        verify(matchRepository, never()).save(any(Match.class));
+        roster2.forEach(player -> assertEquals(1, player.getWins()));
+        roster1.forEach(player -> assertFalse(randomTeamRegistry.isReserved(player.getId())));
+
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class,
+                () -> matchService.createMatch(createMatchRequest(team1Id, team2Id, null, 1)));
+        assertEquals("Team 1 not found", exception.getMessage());
+    }
+
 //    @Test
 //    public void testCreateMatch_InvalidWinningTeam() {
 //        UUID team1Id = UUID.randomUUID();
@@ -139,12 +238,206 @@ public class MatchServiceTest {
 //
 //        verify(teamRepository).findById(team1Id);
 //        verify(teamRepository).findById(team2Id);
-//        verify(teamRepository, never()).findById(invalidWinningTeamId);
+//        verify(teamRepository, never()).findWithPlayersById(invalidWinningTeamId);
 //        verifyNoInteractions(matchRepository);
 //        verifyNoInteractions(playerRepository);
 //    }
 
 
+    @Test
+    public void testCreateMatches_AppliesInOrderWithSetBasedLoads() {
+        Team team1 = createTeam(UUID.randomUUID());
+        Team team2 = createTeam(UUID.randomUUID());
+        List<Player> team1Players = createPlayersForTeam(team1);
+        List<Player> team2Players = createPlayersForTeam(team2);
+        List<Player> allPlayers = new ArrayList<>(team1Players);
+        allPlayers.addAll(team2Players);
+
+        when(teamRepository.findAllById(anyIterable())).thenReturn(List.of(team1, team2));
+        when(playerRepository.findAllByTeamIdIn(anyCollection())).thenReturn(allPlayers);
+
+        CreateMatchRequestDTO first = createMatchRequest(team1.getId(), team2.getId(), team1.getId(), 2);
+        CreateMatchRequestDTO second = createMatchRequest(team1.getId(), team2.getId(), team1.getId(), 3);
+
+        MatchBatchResponseDTO response = matchService.createMatches(List.of(first, second));
+
+        assertEquals(2, response.getApplied());
+        assertEquals(0, response.getRejected());
+        verify(matchRepository, times(2)).save(any(Match.class));
+        verify(teamRepository, never()).findWithPlayersById(any(UUID.class));
+        verify(playerRepository, never()).save(any(Player.class));
+
+        for (Player player : team1Players) {
+            assertEquals(2, player.getWins());
+            assertEquals(5, player.getHoursPlayed());
+        }
+        for (Player player : team2Players) {
+            assertEquals(2, player.getLosses());
+            assertTrue(player.getElo() < 0);
+        }
+    }
+
+    @Test
+    public void testCreateMatches_ReportsRejectedEntries() {
+        Team team1 = createTeam(UUID.randomUUID());
+        Team team2 = createTeam(UUID.randomUUID());
+        List<Player> allPlayers = new ArrayList<>(createPlayersForTeam(team1));
+        allPlayers.addAll(createPlayersForTeam(team2));
+
+        when(teamRepository.findAllById(anyIterable())).thenReturn(List.of(team1, team2));
+        when(playerRepository.findAllByTeamIdIn(anyCollection())).thenReturn(allPlayers);
+
+        CreateMatchRequestDTO unknownTeam = createMatchRequest(team1.getId(), UUID.randomUUID(), null, 2);
+        CreateMatchRequestDTO invalidDuration = createMatchRequest(team1.getId(), team2.getId(), null, 0);
+        CreateMatchRequestDTO valid = createMatchRequest(team1.getId(), team2.getId(), null, 1);
+
+        MatchBatchResponseDTO response = matchService.createMatches(List.of(unknownTeam, invalidDuration, valid));
+
+        assertEquals(1, response.getApplied());
+        assertEquals(2, response.getRejected());
+        assertEquals(MatchBatchResultDTO.REJECTED, response.getResults().get(0).getStatus());
+        assertEquals("Team 2 not found", response.getResults().get(0).getMessage());
+        assertEquals("Duration must be at least 1", response.getResults().get(1).getMessage());
+        assertEquals(MatchBatchResultDTO.APPLIED, response.getResults().get(2).getStatus());
+        verify(matchRepository, times(1)).save(any(Match.class));
+    }
+
+    @Test
+    public void testCreateMatches_CommitsTheBatchInOneTransaction() {
+        // Four teams in four partitions
+        List<Team> teams = new ArrayList<>();
+        List<Player> allPlayers = new ArrayList<>();
+        for (int partition = 0; partition < 4; partition++) {
+            Team team = createTeamInPartition(partition);
+            teams.add(team);
+            allPlayers.addAll(createPlayersForTeam(team));
+        }
+        when(teamRepository.findAllById(anyIterable())).thenReturn(teams);
+        when(playerRepository.findAllByTeamIdIn(anyCollection())).thenReturn(allPlayers);
+
+        MatchBatchResponseDTO response = matchService.createMatches(List.of(
+                createMatchRequest(teams.get(0).getId(), teams.get(1).getId(), teams.get(0).getId(), 1),
+                createMatchRequest(teams.get(2).getId(), teams.get(3).getId(), null, 1),
+                createMatchRequest(teams.get(3).getId(), teams.get(0).getId(), teams.get(3).getId(), 1)));
+
+        assertEquals(3, response.getApplied());
+        verify(transactionManager, times(1)).commit(any());
+        verify(matchRepository, times(3)).save(any(Match.class));
+    }
+
+    @Test
+    public void testCreateMatches_FailedCommitRejectsEveryEntry() {
+        Team team1 = createTeamInPartition(0);
+        Team team2 = createTeamInPartition(1);
+        Team team3 = createTeamInPartition(2);
+        List<Player> allPlayers = new ArrayList<>(createPlayersForTeam(team1));
+        allPlayers.addAll(createPlayersForTeam(team2));
+        allPlayers.addAll(createPlayersForTeam(team3));
+        when(teamRepository.findAllById(anyIterable())).thenReturn(List.of(team1, team2, team3));
+        when(playerRepository.findAllByTeamIdIn(anyCollection())).thenReturn(allPlayers);
+        doThrow(new TransactionSystemException("Commit failed")).when(transactionManager).commit(any());
+
+        MatchBatchResponseDTO response = matchService.createMatches(List.of(
+                createMatchRequest(team1.getId(), team2.getId(), null, 1),
+                createMatchRequest(team1.getId(), UUID.randomUUID(), null, 1),
+                createMatchRequest(team2.getId(), team3.getId(), null, 1)));
+
+        assertEquals(0, response.getApplied());
+        assertEquals("Team 2 not found", response.getResults().get(1).getMessage());
+        assertEquals("Commit failed", response.getResults().get(0).getMessage());
+        assertEquals("Commit failed", response.getResults().get(2).getMessage());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+
+    @Test
+    public void testGetMatches_MergesBothSidesOfTheTeamNewestFirst() {
+        UUID teamId = UUID.randomUUID();
+        Instant now = Instant.parse("2024-05-01T12:00:00Z");
+        MatchView home1 = matchView(teamId, UUID.randomUUID(), now.minusSeconds(10));
+        MatchView away1 = matchView(UUID.randomUUID(), teamId, now.minusSeconds(20));
+        MatchView home2 = matchView(teamId, UUID.randomUUID(), now.minusSeconds(30));
+        MatchView away2 = matchView(UUID.randomUUID(), teamId, now.minusSeconds(40));
+        when(matchRepository.findTeam1PageCreatedBefore(eq(teamId), any(), any(), any(), eq(PageRequest.of(0, 3))))
+                .thenAnswer(invocation -> Stream.of(home1, home2));
+        when(matchRepository.findTeam2PageCreatedBefore(eq(teamId), any(), any(), any(), eq(PageRequest.of(0, 3))))
+                .thenAnswer(invocation -> Stream.of(away1, away2));
+
+        MatchPageDTO page = matchService.getMatches(teamId, null, null, null, 2);
+
+        assertEquals(List.of(home1.getId(), away1.getId()), page.getMatches().stream().map(MatchResponseDTO::getId).toList());
+        assertEquals(teamId, page.getMatches().get(1).getTeam2Id());
+        assertNotNull(page.getNextCursor());
+        verify(matchRepository, never()).findUndatedPage(any(), any(), any());
+        verify(matchRepository, never()).findAll();
+
+        // The next page starts strictly after the last match of this one
+        matchService.getMatches(teamId, null, null, page.getNextCursor(), 2);
+        verify(matchRepository).findTeam1PageCreatedBefore(teamId, Instant.EPOCH, away1.getCreated(), away1.getId(), PageRequest.of(0, 3));
+        verify(matchRepository).findTeam2PageCreatedBefore(teamId, Instant.EPOCH, away1.getCreated(), away1.getId(), PageRequest.of(0, 3));
+    }
+
+    @Test
+    public void testGetMatches_UndatedMatchesComeLast() {
+        MatchView dated = matchView(UUID.randomUUID(), UUID.randomUUID(), Instant.parse("2024-05-01T12:00:00Z"));
+        MatchView undated1 = matchView(UUID.randomUUID(), UUID.randomUUID(), null);
+        MatchView undated2 = matchView(UUID.randomUUID(), UUID.randomUUID(), null);
+        when(matchRepository.findPageCreatedBefore(any(), any(), any(), any())).thenAnswer(invocation -> Stream.of(dated));
+        when(matchRepository.findUndatedPage(null, null, PageRequest.of(0, 2))).thenAnswer(invocation -> Stream.of(undated1, undated2));
+        when(matchRepository.findUndatedPage(null, undated1.getId(), PageRequest.of(0, 3))).thenAnswer(invocation -> Stream.of(undated2));
+
+        MatchPageDTO first = matchService.getMatches(null, null, null, null, 2);
+        assertEquals(List.of(dated.getId(), undated1.getId()), first.getMatches().stream().map(MatchResponseDTO::getId).toList());
+
+        MatchPageDTO last = matchService.getMatches(null, null, null, first.getNextCursor(), 2);
+        assertEquals(List.of(undated2.getId()), last.getMatches().stream().map(MatchResponseDTO::getId).toList());
+        assertNull(last.getNextCursor());
+        verify(matchRepository, times(1)).findPageCreatedBefore(any(), any(), any(), any());
+
+        // A time range leaves them out
+        matchService.getMatches(null, Instant.EPOCH, null, null, 2);
+        verify(matchRepository, times(2)).findUndatedPage(any(), any(), any());
+    }
+
+    @Test
+    public void testStreamMatches_WritesWhatJacksonWritesForThePage() throws Exception {
+        UUID teamId = UUID.randomUUID();
+        Instant now = Instant.parse("2024-05-01T12:00:00Z");
+        MatchView home = matchView(teamId, UUID.randomUUID(), now.minusSeconds(10));
+        MatchView away = matchView(UUID.randomUUID(), teamId, now.minusSeconds(20));
+        MatchView older = matchView(teamId, UUID.randomUUID(), now.minusSeconds(30));
+        when(matchRepository.findTeam1PageCreatedBefore(eq(teamId), any(), any(), any(), any())).thenAnswer(invocation -> Stream.of(home, older));
+        when(matchRepository.findTeam2PageCreatedBefore(eq(teamId), any(), any(), any(), any())).thenAnswer(invocation -> Stream.of(away));
+        when(matchRepository.findUndatedPage(any(), any(), any())).thenAnswer(invocation -> Stream.empty());
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+        for (int limit : new int[]{2, 10}) {
+            ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+            matchService.streamMatches(teamId, null, null, null, limit).accept(streamed);
+
+            assertEquals(objectMapper.writeValueAsString(matchService.getMatches(teamId, null, null, null, limit)), streamed.toString());
+        }
+    }
+
+    @Test
+    public void testStreamMatches_RejectsBadInputBeforeWriting() {
+        assertThrows(InvalidInputException.class, () -> matchService.streamMatches(null, null, null, null, 0));
+        assertThrows(InvalidInputException.class, () -> matchService.streamMatches(null, null, null, "garbage!", 10));
+        verifyNoInteractions(matchRepository);
+    }
+
+    @Test
+    public void testGetMatches_RejectsBadInput() {
+        Instant now = Instant.now();
+
+        assertThrows(InvalidInputException.class, () -> matchService.getMatches(null, null, null, null, 0));
+        assertThrows(InvalidInputException.class, () -> matchService.getMatches(null, null, null, null, 1001));
+        assertThrows(InvalidInputException.class, () -> matchService.getMatches(null, now, now, null, 10));
+        assertThrows(InvalidInputException.class, () -> matchService.getMatches(null, null, null, "garbage!", 10));
+        assertThrows(InvalidInputException.class, () -> matchService.getMatches(null, null, null, "eC95", 10));
+        verifyNoInteractions(matchRepository);
+    }
+
     // Helper methods
     private Team createTeam(UUID teamId) {
         Team team = new Team();
@@ -153,6 +446,36 @@ public class MatchServiceTest {
         return team;
     }
 
+    // The test pipeline has four partitions, picked by the team id's hash
+    private Team createTeamInPartition(int partition) {
+        UUID teamId = UUID.randomUUID();
+        while (Math.floorMod(teamId.hashCode(), 4) != partition) {
+            teamId = UUID.randomUUID();
+        }
+        return createTeam(teamId);
+    }
+
+    private CreateMatchRequestDTO createMatchRequest(UUID team1Id, UUID team2Id, UUID winningTeamId, int duration) {
+        CreateMatchRequestDTO request = new CreateMatchRequestDTO();
+        request.setTeam1Id(team1Id);
+        request.setTeam2Id(team2Id);
+        request.setWinningTeamId(winningTeamId);
+        request.setDuration(duration);
+        return request;
+    }
+
+    private MatchView matchView(UUID team1Id, UUID team2Id, Instant created) {
+        UUID id = UUID.randomUUID();
+        return new MatchView() {
+            public UUID getId() { return id; }
+            public UUID getTeam1Id() { return team1Id; }
+            public UUID getTeam2Id() { return team2Id; }
+            public UUID getWinningTeamId() { return team1Id; }
+            public int getDuration() { return 1; }
+            public Instant getCreated() { return created; }
+        };
+    }
+
     private List<Player> createPlayersForTeam(Team team) {
         return IntStream.range(0, 5).mapToObj(i -> {
             Player player = new Player();
@@ -163,6 +486,7 @@ public class MatchServiceTest {
             player.setWins(0);
             player.setLosses(0);
             player.setHoursPlayed(0);
+            players.put(player.getId(), player);
             return player;
         }).collect(Collectors.toList());
     }
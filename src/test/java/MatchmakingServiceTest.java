@@ -0,0 +1,200 @@
+import api.exceptions.DuplicateResourceException;
+import api.exceptions.InvalidInputException;
+import api.exceptions.ResourceNotFoundException;
+import api.models.Player;
+import api.models.Team;
+import api.modelsDTO.JoinMatchmakingRequestDTO;
+import api.modelsDTO.MatchmakingTicketDTO;
+import api.repositories.PlayerRepositoryI;
+import api.services.matchmaking.MatchmakingService;
+import api.services.teams.RandomTeamRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+public class MatchmakingServiceTest {
+
+    @Mock
+    private PlayerRepositoryI playerRepository;
+
+    private final AtomicLong now = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RandomTeamRegistry randomTeamRegistry;
+    private MatchmakingService matchmakingService;
+
+    @BeforeEach
+    public void setUp() {
+        randomTeamRegistry = new RandomTeamRegistry(meterRegistry, 60_000);
+        // Windows start at 50 elo and widen by 10 per second up to 500
+        matchmakingService = new MatchmakingService(playerRepository, randomTeamRegistry, meterRegistry,
+                50, 10, 500, 50, 1024, 60_000, now::get);
+    }
+
+    @Test
+    public void testJoin_RejectsPlayersInATeamAndDuplicates() {
+        Player inTeam = createPlayer(1000);
+        inTeam.setTeam(new Team());
+        when(playerRepository.findById(inTeam.getId())).thenReturn(Optional.of(inTeam));
+        assertThrows(InvalidInputException.class, () -> matchmakingService.join(joinRequest(inTeam, 5)));
+
+        Player free = createPlayer(1000);
+        when(playerRepository.findById(free.getId())).thenReturn(Optional.of(free));
+        MatchmakingTicketDTO ticket = matchmakingService.join(joinRequest(free, 5));
+        assertEquals("WAITING", ticket.getStatus());
+        assertEquals(50, ticket.getEloWindow());
+        assertThrows(DuplicateResourceException.class, () -> matchmakingService.join(joinRequest(free, 5)));
+
+        assertThrows(ResourceNotFoundException.class, () -> matchmakingService.getTicket(UUID.randomUUID()));
+    }
+
+    @Test
+    public void testTick_FormsBalancedRandomTeams() {
+        List<Player> players = new ArrayList<>();
+        int[] elo = {1000, 1010, 1020, 1030, 1040, 1005, 1015, 1025, 1035, 1045};
+        for (int value : elo) {
+            Player player = createPlayer(value);
+            players.add(player);
+            matchmakingService.enqueue(player, 5);
+        }
+
+        matchmakingService.tick();
+
+        MatchmakingTicketDTO ticket = matchmakingService.getTicket(players.get(0).getId());
+        assertEquals("MATCHED", ticket.getStatus());
+        Team team1 = randomTeamRegistry.find(ticket.getTeamId()).orElseThrow();
+        Team team2 = randomTeamRegistry.find(ticket.getOpponentTeamId()).orElseThrow();
+        assertEquals(5, team1.getPlayers().size());
+        assertEquals(5, team2.getPlayers().size());
+        // The elo sum is 10225, so the best split is 5110 against 5115
+        int difference = team1.getPlayers().stream().mapToInt(Player::getElo).sum()
+                - team2.getPlayers().stream().mapToInt(Player::getElo).sum();
+        assertEquals(5, Math.abs(difference));
+        assertEquals(0, matchmakingService.queueSize());
+        assertEquals(10, meterRegistry.get("matchmaking.queue.time").timer().count());
+    }
+
+    @Test
+    public void testTick_WidensTheWindowWithWaitingTime() {
+        Player low = createPlayer(1000);
+        Player high = createPlayer(1200);
+        matchmakingService.enqueue(low, 1);
+        matchmakingService.enqueue(high, 1);
+
+        matchmakingService.tick();
+        assertEquals("WAITING", matchmakingService.getTicket(low.getId()).getStatus());
+
+        // 50 + 10 * 15 = 200 after fifteen seconds
+        now.addAndGet(TimeUnit.SECONDS.toNanos(15));
+        assertEquals(200, matchmakingService.getTicket(high.getId()).getEloWindow());
+        matchmakingService.tick();
+
+        MatchmakingTicketDTO ticket = matchmakingService.getTicket(high.getId());
+        assertEquals("MATCHED", ticket.getStatus());
+        assertEquals(15_000, ticket.getWaitedMs());
+    }
+
+    @Test
+    public void testLeave_TakesThePlayerOutOfTheQueue() {
+        Player first = createPlayer(1000);
+        Player second = createPlayer(1000);
+        matchmakingService.enqueue(first, 1);
+        matchmakingService.enqueue(second, 1);
+
+        matchmakingService.leave(first.getId());
+        matchmakingService.tick();
+
+        assertThrows(ResourceNotFoundException.class, () -> matchmakingService.getTicket(first.getId()));
+        assertEquals("WAITING", matchmakingService.getTicket(second.getId()).getStatus());
+        assertEquals(1, matchmakingService.queueSize());
+    }
+
+    @Test
+    public void testJoin_HoldsQueuedPlayersUntilTheyLeaveOrAreMatched() {
+        Player first = createPlayer(1000);
+        Player second = createPlayer(1000);
+        matchmakingService.enqueue(first, 1);
+        matchmakingService.enqueue(second, 1);
+
+        // createTeam, generate_teams and deletePlayer reserve a player before touching them and get nothing back
+        assertTrue(randomTeamRegistry.reserve(UUID.randomUUID(), List.of(first, second), 2).isEmpty());
+
+        Player inRandomTeam = createPlayer(1000);
+        randomTeamRegistry.create(List.of(List.of(inRandomTeam)));
+        assertThrows(InvalidInputException.class, () -> matchmakingService.enqueue(inRandomTeam, 1));
+
+        matchmakingService.leave(first.getId());
+        assertFalse(randomTeamRegistry.isReserved(first.getId()));
+        matchmakingService.enqueue(first, 1);
+        assertTrue(randomTeamRegistry.isReserved(first.getId()));
+
+        // The queue's reservations go to the teams of the match
+        matchmakingService.tick();
+        MatchmakingTicketDTO ticket = matchmakingService.getTicket(first.getId());
+        assertEquals("MATCHED", ticket.getStatus());
+        randomTeamRegistry.release(randomTeamRegistry.find(ticket.getTeamId()).orElseThrow());
+        randomTeamRegistry.release(randomTeamRegistry.find(ticket.getOpponentTeamId()).orElseThrow());
+        assertFalse(randomTeamRegistry.isReserved(first.getId()));
+        assertFalse(randomTeamRegistry.isReserved(second.getId()));
+    }
+
+    @Test
+    public void testTick_MatchesTensOfThousandsOfPlayersOnce() {
+        Random random = new Random(3);
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            Player player = createPlayer(1500 + (int) (random.nextGaussian() * 300));
+            players.add(player);
+            matchmakingService.enqueue(player, 5);
+        }
+
+        matchmakingService.tick();
+
+        Map<UUID, Integer> teamSizes = new HashMap<>();
+        Set<UUID> matched = new HashSet<>();
+        for (Player player : players) {
+            MatchmakingTicketDTO ticket = matchmakingService.getTicket(player.getId());
+            if ("MATCHED".equals(ticket.getStatus())) {
+                matched.add(player.getId());
+                teamSizes.merge(ticket.getTeamId(), 1, Integer::sum);
+            }
+        }
+        assertTrue(matched.size() > 19_000, "matched " + matched.size());
+        assertTrue(teamSizes.values().stream().allMatch(size -> size == 5));
+        assertEquals(20_000 - matched.size(), matchmakingService.queueSize());
+        assertEquals(matched.size() / 10, (long) meterRegistry.get("matchmaking.matches").counter().count());
+    }
+
+    private JoinMatchmakingRequestDTO joinRequest(Player player, int teamSize) {
+        JoinMatchmakingRequestDTO request = new JoinMatchmakingRequestDTO();
+        request.setPlayerId(player.getId());
+        request.setTeamSize(teamSize);
+        return request;
+    }
+
+    private Player createPlayer(int elo) {
+        Player player = new Player();
+        player.setId(UUID.randomUUID());
+        player.setNickname("Player_" + player.getId().toString().substring(0, 5));
+        player.setElo(elo);
+        return player;
+    }
+}
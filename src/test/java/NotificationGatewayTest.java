@@ -0,0 +1,117 @@
+import api.services.notification.CircuitBreaker;
+import api.services.notification.LocalNotificationTransport;
+import api.services.notification.NotificationGateway;
+import api.services.notification.NotificationRejectedException;
+import api.services.notification.NotificationTransport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NotificationGatewayTest {
+
+    @Test
+    public void testCircuitOpensAfterFailuresAndRejectsWithoutCallingDownstream() {
+        AtomicInteger calls = new AtomicInteger();
+        NotificationTransport failing = (target, payload, event) -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("downstream error");
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        NotificationGateway gateway = createGateway(failing, registry, 16, 60_000);
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IllegalStateException.class, () -> gateway.send(NotificationGateway.EMAIL, "x"));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, gateway.getCircuitState(NotificationGateway.EMAIL));
+
+        assertThrows(NotificationRejectedException.class, () -> gateway.send(NotificationGateway.EMAIL, "x"));
+        assertEquals(4, calls.get());
+        assertEquals(CircuitBreaker.State.CLOSED, gateway.getCircuitState(NotificationGateway.BUCKET));
+
+        assertEquals(4, registry.get("notifications.calls").tag("target", NotificationGateway.EMAIL).tag("outcome", "failure").timer().count());
+        assertEquals(1.0, registry.get("notifications.rejected").tag("reason", "circuit_open").counter().count());
+        gateway.shutdown();
+    }
+
+    @Test
+    public void testBulkheadRejectsCallsOverTheLimit() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        NotificationTransport slow = (target, payload, event) -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        NotificationGateway gateway = createGateway(slow, new SimpleMeterRegistry(), 1, 60_000);
+
+        CompletableFuture<Void> first = gateway.sendEvent(NotificationGateway.BUCKET, "first");
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        ExecutionException rejected = assertThrows(ExecutionException.class,
+                () -> gateway.sendEvent(NotificationGateway.BUCKET, "second").get(5, TimeUnit.SECONDS));
+        assertInstanceOf(NotificationRejectedException.class, rejected.getCause());
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        gateway.shutdown();
+    }
+
+    @Test
+    public void testEventInvocationReachesTransport() throws Exception {
+        LocalNotificationTransport transport = new LocalNotificationTransport();
+        NotificationGateway gateway = createGateway(transport, new SimpleMeterRegistry(), 16, 60_000);
+
+        gateway.sendEvent(NotificationGateway.EMAIL, "hello").get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, transport.getSent(NotificationGateway.EMAIL).size());
+        gateway.shutdown();
+    }
+
+    @Test
+    public void testCircuitBreaker_HalfOpenTrialCallsCloseOrReopen() {
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker(4, 4, 50, 1_000, 2, now::get);
+
+        for (int i = 0; i < 2; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onSuccess();
+        }
+        for (int i = 0; i < 2; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+
+        // After the open period two trial calls are let through, a failing one reopens the breaker
+        now.addAndGet(1_000);
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        now.addAndGet(1_000);
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        breaker.onSuccess();
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    // Window of 4 calls, opens at 50% failures
+    private NotificationGateway createGateway(NotificationTransport transport, SimpleMeterRegistry registry, int maxConcurrentCalls, long openMs) {
+        return new NotificationGateway(transport, registry, maxConcurrentCalls, 0, 3000, 4, 4, 50, openMs, 2, 2, 10);
+    }
+}
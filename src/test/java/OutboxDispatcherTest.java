@@ -0,0 +1,113 @@
+import api.models.OutboxEvent;
+import api.repositories.OutboxRepositoryI;
+import api.services.archive.MatchArchive;
+import api.services.notification.LocalNotificationTransport;
+import api.services.notification.NotificationGateway;
+import api.services.outbox.OutboxDispatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+public class OutboxDispatcherTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Mock
+    private OutboxRepositoryI outboxRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private MatchArchive matchArchive;
+
+    private LocalNotificationTransport transport;
+    private NotificationGateway gateway;
+    private OutboxDispatcher dispatcher;
+
+    @BeforeEach
+    public void setUp() {
+        transport = new LocalNotificationTransport();
+        gateway = new NotificationGateway(transport, new SimpleMeterRegistry(), 16, 100, 3000, 20, 10, 50, 30_000, 3, 1, 10);
+        dispatcher = new OutboxDispatcher(outboxRepository, gateway, matchArchive, transactionManager, 100, 4, MAX_ATTEMPTS, 1000, 60_000, 60_000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        dispatcher.shutdown();
+        gateway.shutdown();
+    }
+
+    @Test
+    public void testDrain_DeliveredEventsAreDeleted() {
+        OutboxEvent email = createEvent(NotificationGateway.EMAIL, "{\"id\":1}", 0);
+        OutboxEvent bucket = createEvent(NotificationGateway.BUCKET, "{\"id\":1}", 0);
+        when(outboxRepository.findDue(any(Instant.class), any(Pageable.class))).thenReturn(List.of(email, bucket));
+
+        dispatcher.drain();
+
+        assertEquals(List.of("{\"id\":1}"), transport.getSent(NotificationGateway.EMAIL));
+        assertEquals(List.of("{\"id\":1}"), transport.getSent(NotificationGateway.BUCKET));
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(email.getId(), bucket.getId()));
+        verify(outboxRepository, never()).saveAll(anyIterable());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDrain_FailedEventsAreRescheduledWithBackoff() {
+        OutboxEvent event = createEvent(NotificationGateway.EMAIL, "{}", 0);
+        when(outboxRepository.findDue(any(Instant.class), any(Pageable.class))).thenReturn(List.of(event));
+        transport.setFailing(true);
+
+        Instant before = Instant.now();
+        dispatcher.drain();
+
+        ArgumentCaptor<List<OutboxEvent>> saved = ArgumentCaptor.forClass(List.class);
+        verify(outboxRepository).saveAll(saved.capture());
+        OutboxEvent rescheduled = saved.getValue().get(0);
+        assertEquals(1, rescheduled.getAttempts());
+        assertFalse(rescheduled.isDead());
+        assertTrue(rescheduled.getLastError().contains("Local transport is set to fail"));
+        assertTrue(rescheduled.getNextAttemptAt().isAfter(before));
+        verify(outboxRepository, never()).deleteAllByIdInBatch(anyIterable());
+    }
+
+    @Test
+    public void testDrain_EventIsMarkedDeadAfterMaxAttempts() {
+        OutboxEvent event = createEvent(NotificationGateway.BUCKET, "{}", MAX_ATTEMPTS - 1);
+        when(outboxRepository.findDue(any(Instant.class), any(Pageable.class))).thenReturn(List.of(event));
+        transport.setFailing(true);
+
+        dispatcher.drain();
+
+        assertEquals(MAX_ATTEMPTS, event.getAttempts());
+        assertTrue(event.isDead());
+        verify(outboxRepository).saveAll(List.of(event));
+    }
+
+    private OutboxEvent createEvent(String target, String payload, int attempts) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(UUID.randomUUID());
+        event.setTarget(target);
+        event.setPayload(payload);
+        event.setCreatedAt(Instant.now());
+        event.setNextAttemptAt(Instant.now());
+        event.setAttempts(attempts);
+        return event;
+    }
+}
@@ -0,0 +1,74 @@
+import api.modelsDTO.PlayerResponseDTO;
+import api.repositories.PlayerRepositoryI;
+import api.services.players.PlayerExporter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+public class PlayerExporterTest {
+
+    @Mock
+    private PlayerRepositoryI playerRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testExport_WritesEveryRowAsOneJsonArray() throws Exception {
+        UUID teamId = UUID.randomUUID();
+        List<Object[]> rows = IntStream.range(0, 1000)
+                .mapToObj(i -> new Object[]{UUID.randomUUID(), "Player" + i, i, 2 * i, 1000 + i, 3, i % 2 == 0 ? teamId : null, null})
+                .toList();
+        AtomicBoolean closed = new AtomicBoolean();
+        when(playerRepository.streamAllForExport()).thenReturn(rows.stream().onClose(() -> closed.set(true)));
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PlayerExporter exporter = new PlayerExporter(playerRepository, transactionManager, objectMapper, meterRegistry);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(out);
+
+        PlayerResponseDTO[] players = objectMapper.readValue(out.toByteArray(), PlayerResponseDTO[].class);
+        assertEquals(1000, players.length);
+        assertEquals(rows.get(10)[0], players[10].getId());
+        assertEquals("Player10", players[10].getNickname());
+        assertEquals(20, players[10].getLosses());
+        assertEquals(1010, players[10].getElo());
+        assertEquals(teamId, players[10].getTeamId());
+        assertNull(players[11].getTeamId());
+        assertNull(players[11].getRatingAdjustment());
+
+        // The cursor is closed and read in a read-only transaction
+        assertTrue(closed.get());
+        verify(transactionManager).getTransaction(argThat(TransactionDefinition::isReadOnly));
+        assertEquals(1000, meterRegistry.get("players.exported").counter().count());
+    }
+
+    @Test
+    public void testExport_EmptyTable() throws Exception {
+        when(playerRepository.streamAllForExport()).thenReturn(Stream.empty());
+
+        PlayerExporter exporter = new PlayerExporter(playerRepository, transactionManager, objectMapper, new SimpleMeterRegistry());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(out);
+
+        assertEquals("[]", out.toString());
+    }
+}
@@ -4,16 +4,30 @@ import api.exceptions.ResourceNotFoundException;
 import api.models.Player;
 import api.models.Team;
 import api.modelsDTO.CreatePlayerRequestDTO;
+import api.modelsDTO.LeaderboardEntryDTO;
+import api.modelsDTO.PlayerPageDTO;
 import api.modelsDTO.PlayerResponseDTO;
 import api.modelsDTO.UpdatePlayerRequestDTO;
+import api.repositories.PlayerKeyView;
 import api.repositories.PlayerRepositoryI;
 import api.services.PlayerService;
+import api.services.audit.AuditHook;
+import api.services.cache.JsonFragmentCache;
+import api.services.cache.ResponseCache;
+import api.services.leaderboard.Leaderboard;
+import api.services.teams.RandomTeamRegistry;
+import api.services.notification.NotificationGateway;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.modelmapper.ModelMapper;
+import org.mockito.Spy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.env.MockEnvironment;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 import java.util.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,7 +40,23 @@ public class PlayerServiceTest {
     private PlayerRepositoryI playerRepository;
 
     @Mock
-    private ModelMapper modelMapper;
+    private Leaderboard leaderboard;
+
+    @Mock
+    private AuditHook auditHook;
+
+    @Spy
+    private RandomTeamRegistry randomTeamRegistry = new RandomTeamRegistry(new SimpleMeterRegistry(), 60_000);
+
+    @Spy
+    private ResponseCache responseCache = new ResponseCache(new SimpleMeterRegistry(), 1000, 1000, 60_000, System::nanoTime);
+
+    @Spy
+    private JsonFragmentCache fragments = new JsonFragmentCache(new ObjectMapper(), new SimpleMeterRegistry(), responseCache,
+            1000, 1000, 60_000, System::nanoTime);
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
     @InjectMocks
     private PlayerService playerService;
@@ -38,9 +68,6 @@ public class PlayerServiceTest {
 
         when(playerRepository.existsByNickname(request.getNickname())).thenReturn(false);
 
-        Player player = new Player();
-        player.setNickname(request.getNickname());
-
         Player savedPlayer = new Player();
         savedPlayer.setId(UUID.randomUUID());
         savedPlayer.setNickname(request.getNickname());
@@ -50,8 +77,7 @@ public class PlayerServiceTest {
         savedPlayer.setHoursPlayed(0);
         savedPlayer.setRatingAdjustment(50);
 
-        when(modelMapper.map(request, Player.class)).thenReturn(player);
-        when(playerRepository.save(player)).thenReturn(savedPlayer);
+        when(playerRepository.save(any(Player.class))).thenReturn(savedPlayer);
 
         PlayerResponseDTO responseDTO = new PlayerResponseDTO();
         responseDTO.setId(savedPlayer.getId());
@@ -62,8 +88,6 @@ public class PlayerServiceTest {
         responseDTO.setHoursPlayed(savedPlayer.getHoursPlayed());
         responseDTO.setTeamId(null);
 
-        when(modelMapper.map(savedPlayer, PlayerResponseDTO.class)).thenReturn(responseDTO);
-
         PlayerResponseDTO result = playerService.createPlayer(request);
 
         assertNotNull(result);
@@ -76,7 +100,8 @@ public class PlayerServiceTest {
         assertEquals(responseDTO.getTeamId(), result.getTeamId());
 
         verify(playerRepository).existsByNickname(request.getNickname());
-        verify(playerRepository).save(player);
+        verify(playerRepository).save(argThat(player -> "NewPlayer".equals(player.getNickname()) && player.getTeam() == null));
+        verify(leaderboard).update(savedPlayer);
     }
 
     @Test
@@ -115,7 +140,6 @@ public class PlayerServiceTest {
         responseDTO.setTeamId(null);
 
         when(playerRepository.findById(playerId)).thenReturn(Optional.of(player));
-        when(modelMapper.map(player, PlayerResponseDTO.class)).thenReturn(responseDTO);
 
         PlayerResponseDTO result = playerService.getPlayerById(playerId);
 
@@ -129,6 +153,28 @@ public class PlayerServiceTest {
         assertEquals(responseDTO.getTeamId(), result.getTeamId());
     }
 
+    @Test
+    public void testGetPlayerById_CachedUntilThePlayerChanges() {
+        UUID playerId = UUID.randomUUID();
+        Player player = new Player();
+        player.setId(playerId);
+        player.setNickname("TestPlayer");
+        when(playerRepository.findById(playerId)).thenReturn(Optional.of(player));
+
+        PlayerResponseDTO first = playerService.getPlayerById(playerId);
+        assertSame(first, playerService.getPlayerById(playerId));
+        verify(playerRepository, times(1)).findById(playerId);
+
+        UpdatePlayerRequestDTO request = new UpdatePlayerRequestDTO();
+        request.setNickname("TestPlayer");
+        request.setElo(1700);
+        when(playerRepository.save(player)).thenReturn(player);
+        playerService.updatePlayer(playerId, request);
+
+        assertEquals(1700, playerService.getPlayerById(playerId).getElo());
+        verify(playerRepository, times(3)).findById(playerId);
+    }
+
     @Test
     public void testGetPlayerById_PlayerDoesNotExist() {
         UUID playerId = UUID.randomUUID();
@@ -151,44 +197,110 @@ public class PlayerServiceTest {
 
         List<Player> players = Arrays.asList(player1, player2);
 
-        when(playerRepository.findAll()).thenReturn(players);
-
-        PlayerResponseDTO dto1 = new PlayerResponseDTO();
-        dto1.setId(player1.getId());
-        dto1.setNickname(player1.getNickname());
-        dto1.setTeamId(null);
-
-        PlayerResponseDTO dto2 = new PlayerResponseDTO();
-        dto2.setId(player2.getId());
-        dto2.setNickname(player2.getNickname());
-        dto2.setTeamId(null);
-
-        when(modelMapper.map(player1, PlayerResponseDTO.class)).thenReturn(dto1);
-        when(modelMapper.map(player2, PlayerResponseDTO.class)).thenReturn(dto2);
+        mockStored(players);
 
         List<PlayerResponseDTO> result = playerService.getAllPlayers();
 
         assertNotNull(result);
         assertEquals(2, result.size());
-        assertTrue(result.contains(dto1));
-        assertTrue(result.contains(dto2));
+        assertEquals(player1.getId(), result.get(0).getId());
+        assertEquals("PlayerOne", result.get(0).getNickname());
+        assertNull(result.get(0).getTeamId());
+        assertEquals(player2.getId(), result.get(1).getId());
+        assertEquals("PlayerTwo", result.get(1).getNickname());
+        assertNull(result.get(1).getTeamId());
 
         // Verify that the repository method was called
-        verify(playerRepository).findAll();
+        verify(playerRepository).findAllIds();
+        verify(playerRepository, never()).findAll();
+    }
+
+    @Test
+    public void testGetAllPlayers_MakesNoOutboundCalls() {
+        NotificationGateway notificationGateway = mock(NotificationGateway.class);
+        AuditHook defaultAuditHook = new AuditHook(notificationGateway, new MockEnvironment(), new ObjectMapper());
+        PlayerService service = new PlayerService(playerRepository, null, randomTeamRegistry, leaderboard, defaultAuditHook, responseCache, fragments,
+                transactionManager);
+
+        Player player = new Player();
+        player.setId(UUID.randomUUID());
+        mockStored(List.of(player));
+
+        for (int i = 0; i < 100; i++) {
+            service.getAllPlayers();
+        }
+
+        verifyNoInteractions(notificationGateway);
     }
 
     @Test
     public void testGetAllPlayers_NoPlayersExist() {
-        when(playerRepository.findAll()).thenReturn(Collections.emptyList());
+        when(playerRepository.findAllIds()).thenReturn(Collections.emptyList());
 
         List<PlayerResponseDTO> result = playerService.getAllPlayers();
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
 
-        verify(playerRepository).findAll();
+        verify(playerRepository).findAllIds();
+        verify(playerRepository, never()).findAllById(any());
+    }
 
-        verify(modelMapper, never()).map(any(Player.class), eq(PlayerResponseDTO.class));
+    @Test
+    public void testGetPlayers_FollowsCursorToLastPage() {
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Player player = new Player();
+            player.setId(UUID.randomUUID());
+            player.setNickname("Player" + i);
+            players.add(player);
+        }
+        mockStored(players);
+        when(playerRepository.findPageOrderByNickname(PageRequest.of(0, 3))).thenReturn(keys(players.subList(0, 3)));
+        when(playerRepository.findPageOrderByNicknameAfter("Player1", PageRequest.of(0, 3))).thenReturn(keys(players.subList(2, 5)));
+        when(playerRepository.findPageOrderByNicknameAfter("Player3", PageRequest.of(0, 3))).thenReturn(keys(players.subList(4, 5)));
+
+        PlayerPageDTO first = playerService.getPlayers("nickname", null, 2);
+        PlayerPageDTO second = playerService.getPlayers("nickname", first.getNextCursor(), 2);
+        PlayerPageDTO last = playerService.getPlayers("nickname", second.getNextCursor(), 2);
+
+        assertEquals(List.of("Player0", "Player1"), first.getPlayers().stream().map(PlayerResponseDTO::getNickname).toList());
+        assertEquals(List.of("Player2", "Player3"), second.getPlayers().stream().map(PlayerResponseDTO::getNickname).toList());
+        assertEquals(List.of("Player4"), last.getPlayers().stream().map(PlayerResponseDTO::getNickname).toList());
+        assertNull(last.getNextCursor());
+        verify(playerRepository, never()).findAll();
+    }
+
+    @Test
+    public void testGetPlayers_ById() {
+        Player player = new Player();
+        player.setId(UUID.randomUUID());
+        Player next = new Player();
+        next.setId(UUID.randomUUID());
+        mockStored(List.of(player, next));
+        when(playerRepository.findPageOrderById(PageRequest.of(0, 2))).thenReturn(keys(List.of(player, next)));
+
+        PlayerPageDTO page = playerService.getPlayers("id", null, 1);
+        assertEquals(player.getId(), page.getPlayers().get(0).getId());
+
+        playerService.getPlayers("id", page.getNextCursor(), 1);
+        verify(playerRepository).findPageOrderByIdAfter(player.getId(), PageRequest.of(0, 2));
+    }
+
+    @Test
+    public void testGetPlayers_RejectsBadInput() {
+        when(playerRepository.findPageOrderById(any())).thenReturn(List.of());
+
+        assertThrows(InvalidInputException.class, () -> playerService.getPlayers("id", null, 0));
+        assertThrows(InvalidInputException.class, () -> playerService.getPlayers("id", null, 1001));
+        assertThrows(InvalidInputException.class, () -> playerService.getPlayers("elo", null, 10));
+        assertThrows(InvalidInputException.class, () -> playerService.getPlayers("id", "not a cursor!", 10));
+        assertThrows(InvalidInputException.class, () -> playerService.getPlayers("id", "aWQ6bm90LWEtdXVpZA", 10));
+
+        // A nickname cursor can not be replayed against the id order
+        String nicknameCursor = Base64.getUrlEncoder().withoutPadding().encodeToString("nickname:Player1".getBytes());
+        assertThrows(InvalidInputException.class, () -> playerService.getPlayers("id", nicknameCursor, 10));
+        assertEquals(0, playerService.getPlayers("id", null, 10).getPlayers().size());
     }
 
 
@@ -221,19 +333,9 @@ public class PlayerServiceTest {
         updatedPlayer.setHoursPlayed(150);
         updatedPlayer.setTeam(null);
 
-        PlayerResponseDTO responseDTO = new PlayerResponseDTO();
-        responseDTO.setId(updatedPlayer.getId());
-        responseDTO.setNickname(updatedPlayer.getNickname());
-        responseDTO.setWins(updatedPlayer.getWins());
-        responseDTO.setLosses(updatedPlayer.getLosses());
-        responseDTO.setElo(updatedPlayer.getElo());
-        responseDTO.setHoursPlayed(updatedPlayer.getHoursPlayed());
-        responseDTO.setTeamId(null);
-
         when(playerRepository.findById(playerId)).thenReturn(Optional.of(existingPlayer));
         when(playerRepository.existsByNickname("UpdatedNickname")).thenReturn(false);
         when(playerRepository.save(existingPlayer)).thenReturn(updatedPlayer);
-        when(modelMapper.map(updatedPlayer, PlayerResponseDTO.class)).thenReturn(responseDTO);
 
         // Act
         PlayerResponseDTO result = playerService.updatePlayer(playerId, request);
@@ -252,7 +354,6 @@ public class PlayerServiceTest {
         verify(playerRepository).findById(playerId);
         verify(playerRepository).existsByNickname("UpdatedNickname");
         verify(playerRepository).save(existingPlayer);
-        verify(modelMapper).map(updatedPlayer, PlayerResponseDTO.class);
     }
 
     @Test
@@ -279,7 +380,6 @@ public class PlayerServiceTest {
         verify(playerRepository).findById(playerId);
         verify(playerRepository, never()).existsByNickname(anyString());
         verify(playerRepository, never()).save(any(Player.class));
-        verifyNoInteractions(modelMapper);
     }
 
     @Test
@@ -316,7 +416,6 @@ public class PlayerServiceTest {
         verify(playerRepository).findById(playerId);
         verify(playerRepository).existsByNickname("ExistingNickname");
         verify(playerRepository, never()).save(any(Player.class));
-        verifyNoInteractions(modelMapper);
     }
 
     @Test
@@ -337,6 +436,7 @@ public class PlayerServiceTest {
         // Assert
         verify(playerRepository).findById(playerId);
         verify(playerRepository).delete(existingPlayer);
+        verify(leaderboard).remove(playerId);
     }
 
     @Test
@@ -384,4 +484,105 @@ public class PlayerServiceTest {
         verify(playerRepository).findById(playerId);
         verify(playerRepository, never()).delete(any(Player.class));
     }
+
+    @Test
+    public void testDeletePlayer_PlayerInRandomTeam() {
+        UUID playerId = UUID.randomUUID();
+        Player existingPlayer = new Player();
+        existingPlayer.setId(playerId);
+        existingPlayer.setNickname("PlayerInRandomTeam");
+        when(playerRepository.findById(playerId)).thenReturn(Optional.of(existingPlayer));
+
+        // Random teams are never stored, the player row still has no team
+        List<Team> randomTeams = randomTeamRegistry.create(List.of(List.of(existingPlayer)));
+
+        InvalidInputException exception = assertThrows(InvalidInputException.class, () -> playerService.deletePlayer(playerId));
+        assertEquals("Cannot delete player who is part of a team.", exception.getMessage());
+        verify(playerRepository, never()).delete(any(Player.class));
+        verify(leaderboard, never()).remove(playerId);
+
+        // Once the random team is gone the player is held until the row is deleted, then let go
+        randomTeamRegistry.release(randomTeams.get(0));
+        doAnswer(invocation -> {
+            assertTrue(randomTeamRegistry.isReserved(playerId));
+            return null;
+        }).when(playerRepository).delete(existingPlayer);
+        playerService.deletePlayer(playerId);
+        verify(playerRepository).delete(existingPlayer);
+        assertFalse(randomTeamRegistry.isReserved(playerId));
+    }
+
+    @Test
+    public void testGetPlayerRank_Ranked() {
+        UUID playerId = UUID.randomUUID();
+        LeaderboardEntryDTO entry = new LeaderboardEntryDTO(3, playerId, "Ranked", 1200);
+        when(leaderboard.rankOf(playerId)).thenReturn(entry);
+
+        assertSame(entry, playerService.getPlayerRank(playerId));
+        verifyNoInteractions(playerRepository);
+    }
+
+    @Test
+    public void testGetPlayerRank_NotRanked() {
+        UUID playerId = UUID.randomUUID();
+        when(leaderboard.rankOf(playerId)).thenReturn(null);
+
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> {
+            playerService.getPlayerRank(playerId);
+        });
+
+        assertEquals("Player not found", exception.getMessage());
+    }
+
+    @Test
+    public void testGetLeaderboard_InvalidLimit() {
+        assertThrows(InvalidInputException.class, () -> playerService.getLeaderboard(0, 0));
+        assertThrows(InvalidInputException.class, () -> playerService.getLeaderboard(-1, 10));
+        verifyNoInteractions(leaderboard);
+    }
+
+    @Test
+    public void testGetPlayers_RereadLoadsOnlyChangedPlayers() {
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Player player = new Player();
+            player.setId(UUID.randomUUID());
+            player.setNickname("Player" + i);
+            players.add(player);
+        }
+        mockStored(players);
+        when(playerRepository.findPageOrderByNickname(PageRequest.of(0, 4))).thenReturn(keys(players));
+
+        PlayerPageDTO first = playerService.getPlayers("nickname", null, 3);
+        players.get(2).setElo(1700);
+        responseCache.invalidatePlayer(players.get(2).getId());
+        PlayerPageDTO second = playerService.getPlayers("nickname", null, 3);
+
+        assertSame(first.getPlayers().get(0), second.getPlayers().get(0));
+        assertEquals(1700, second.getPlayers().get(2).getElo());
+        verify(playerRepository).findAllById(List.of(players.get(2).getId()));
+        verify(playerRepository, times(2)).findAllById(any());
+    }
+
+    private void mockStored(List<Player> players) {
+        when(playerRepository.findAllIds()).thenReturn(players.stream().map(Player::getId).toList());
+        when(playerRepository.findAllById(any())).thenAnswer(invocation -> {
+            Collection<?> ids = invocation.getArgument(0);
+            return players.stream().filter(player -> ids.contains(player.getId())).toList();
+        });
+    }
+
+    private static List<PlayerKeyView> keys(List<Player> players) {
+        return players.stream().map(player -> (PlayerKeyView) new PlayerKeyView() {
+            @Override
+            public UUID getId() {
+                return player.getId();
+            }
+
+            @Override
+            public String getNickname() {
+                return player.getNickname();
+            }
+        }).toList();
+    }
 }
@@ -0,0 +1,88 @@
+import api.repositories.PlayerRepositoryI;
+import api.repositories.TeamRepositoryI;
+import api.services.cache.ResponseCache;
+import api.services.teams.RandomTeamReaper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+public class RandomTeamReaperTest {
+
+    @Mock
+    private TeamRepositoryI teamRepository;
+
+    @Mock
+    private PlayerRepositoryI playerRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ResponseCache responseCache;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void testReap_ReleasesPlayersAndDeletesStaleTeamsInChunks() {
+        List<UUID> firstChunk = createIds(3);
+        List<UUID> secondChunk = createIds(1);
+        when(teamRepository.findStaleRandomTeamIds(any(Instant.class), any(Pageable.class))).thenReturn(firstChunk, secondChunk);
+
+        RandomTeamReaper reaper = new RandomTeamReaper(teamRepository, playerRepository, transactionManager, responseCache, meterRegistry,
+                60_000, 3, () -> 1_000_000L);
+        reaper.reap();
+
+        ArgumentCaptor<Instant> cutoff = ArgumentCaptor.forClass(Instant.class);
+        verify(teamRepository, times(2)).findStaleRandomTeamIds(cutoff.capture(), eq(PageRequest.of(0, 3)));
+        assertEquals(Instant.ofEpochMilli(940_000), cutoff.getValue());
+
+        // Each chunk frees its players before its teams go, in its own transaction
+        InOrder order = inOrder(playerRepository, teamRepository, transactionManager);
+        for (List<UUID> chunk : List.of(firstChunk, secondChunk)) {
+            order.verify(transactionManager).getTransaction(any());
+            order.verify(playerRepository).releaseFromTeams(chunk);
+            order.verify(teamRepository).deleteAllByIdInBatch(chunk);
+            order.verify(transactionManager).commit(any());
+        }
+
+        assertEquals(4.0, meterRegistry.get("teams.random.reaped").counter().count());
+        assertEquals(1, meterRegistry.get("teams.random.reaper.run").timer().count());
+        verify(responseCache).invalidateAll();
+    }
+
+    @Test
+    public void testReap_NothingStaleTouchesNothing() {
+        when(teamRepository.findStaleRandomTeamIds(any(Instant.class), any(Pageable.class))).thenReturn(List.of());
+
+        new RandomTeamReaper(teamRepository, playerRepository, transactionManager, responseCache, meterRegistry, 60_000, 500, () -> 0L).reap();
+
+        verify(teamRepository).findStaleRandomTeamIds(any(Instant.class), any(Pageable.class));
+        verify(playerRepository, never()).releaseFromTeams(anyCollection());
+        verify(teamRepository, never()).deleteAllByIdInBatch(anyIterable());
+        assertEquals(0.0, meterRegistry.get("teams.random.reaped").counter().count());
+    }
+
+    private List<UUID> createIds(int count) {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(UUID.randomUUID());
+        }
+        return ids;
+    }
+}
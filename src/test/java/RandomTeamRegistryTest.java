@@ -0,0 +1,105 @@
+import api.models.Player;
+import api.models.Team;
+import api.services.teams.RandomTeamRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RandomTeamRegistryTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RandomTeamRegistry registry = new RandomTeamRegistry(meterRegistry, 1_000, now::get);
+
+    @Test
+    public void testCreate_ReservesAllPlayersOrNone() {
+        List<Player> roster1 = createPlayers(2);
+        List<Player> roster2 = createPlayers(2);
+        List<Team> teams = registry.create(List.of(roster1, roster2));
+
+        assertEquals(2, teams.size());
+        assertTrue(teams.get(0).isRandom());
+        assertTrue(registry.find(teams.get(1).getId()).isPresent());
+        assertTrue(registry.isReserved(roster2.get(0).getId()));
+
+        // One taken player fails the whole request and leaves the free one unreserved
+        List<Player> overlapping = createPlayers(1);
+        overlapping.add(roster1.get(0));
+        assertNull(registry.create(List.of(overlapping)));
+        assertFalse(registry.isReserved(overlapping.get(0).getId()));
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    public void testReserve_SkipsPlayersHeldByAnotherHolder() {
+        List<Player> candidates = createPlayers(4);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        assertEquals(candidates.subList(1, 3), registry.reserve(first, candidates.subList(1, 3), 2));
+
+        List<Player> reserved = registry.reserve(second, candidates, 2);
+        assertEquals(List.of(candidates.get(0), candidates.get(3)), reserved);
+
+        List<Team> teams = registry.create(second, List.of(reserved.subList(0, 1), reserved.subList(1, 2)));
+        assertEquals(2, registry.size());
+        assertThrows(IllegalStateException.class, () -> registry.create(second, List.of(candidates.subList(1, 2))));
+
+        // Releasing a holder leaves the players now held by teams alone
+        registry.release(first, candidates);
+        assertFalse(registry.isReserved(candidates.get(1).getId()));
+        assertTrue(registry.isReserved(candidates.get(0).getId()));
+        assertTrue(registry.claim(teams));
+    }
+
+    @Test
+    public void testClaim_OnlyOnceAndReleasesPlayersAfterwards() {
+        List<Player> roster = createPlayers(2);
+        List<Team> teams = registry.create(List.of(roster));
+
+        assertTrue(registry.claim(teams));
+        assertFalse(registry.claim(teams));
+        assertTrue(registry.find(teams.get(0).getId()).isEmpty());
+        assertTrue(registry.isReserved(roster.get(0).getId()));
+
+        registry.release(teams.get(0));
+        assertFalse(registry.isReserved(roster.get(0).getId()));
+    }
+
+    @Test
+    public void testExpiredTeams_AreEvictedAndTheirPlayersReused() {
+        List<Player> roster = createPlayers(2);
+        List<Team> teams = registry.create(List.of(roster));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertTrue(registry.find(teams.get(0).getId()).isEmpty());
+        assertFalse(registry.claim(teams));
+
+        // Expired holders do not block the next generated team
+        List<Team> next = registry.create(List.of(roster));
+        assertNotNull(next);
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        registry.evictExpired();
+        assertEquals(0, registry.size());
+        assertFalse(registry.isReserved(roster.get(1).getId()));
+        assertEquals(2.0, meterRegistry.get("teams.random.expired").counter().count());
+    }
+
+    private List<Player> createPlayers(int count) {
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Player player = new Player();
+            player.setId(UUID.randomUUID());
+            player.setNickname("Player_" + i);
+            players.add(player);
+        }
+        return players;
+    }
+}
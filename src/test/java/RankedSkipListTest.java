@@ -0,0 +1,70 @@
+import api.services.leaderboard.RankedSkipList;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RankedSkipListTest {
+
+    private static final Comparator<Map.Entry<UUID, Integer>> ORDER =
+            Map.Entry.<UUID, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+    @Test
+    public void testRandomOperations_MatchSortedReference() {
+        Random random = new Random(3);
+        RankedSkipList list = new RankedSkipList();
+        Map<UUID, Integer> reference = new HashMap<>();
+        List<UUID> ids = new ArrayList<>();
+
+        for (int step = 0; step < 20_000; step++) {
+            int op = random.nextInt(10);
+            if (op < 5 || ids.isEmpty()) {
+                UUID id = UUID.randomUUID();
+                int elo = random.nextInt(200) - 100; // narrow range so there are plenty of ties
+                ids.add(id);
+                reference.put(id, elo);
+                list.put(id, "p" + step, elo);
+            } else if (op < 8) {
+                UUID id = ids.get(random.nextInt(ids.size()));
+                int elo = random.nextInt(200) - 100;
+                reference.put(id, elo);
+                list.put(id, "p" + step, elo);
+            } else {
+                UUID id = ids.remove(random.nextInt(ids.size()));
+                reference.remove(id);
+                assertTrue(list.remove(id));
+            }
+
+            if (step % 1000 == 0) {
+                assertMatches(reference, list);
+            }
+        }
+        assertMatches(reference, list);
+    }
+
+    @Test
+    public void testEmptyList() {
+        RankedSkipList list = new RankedSkipList();
+
+        assertNull(list.atPosition(1));
+        assertEquals(0, list.position(UUID.randomUUID()));
+        assertEquals(0, list.countAbove(0));
+        assertFalse(list.remove(UUID.randomUUID()));
+    }
+
+    private void assertMatches(Map<UUID, Integer> reference, RankedSkipList list) {
+        List<Map.Entry<UUID, Integer>> sorted = new ArrayList<>(reference.entrySet());
+        sorted.sort(ORDER);
+
+        assertEquals(sorted.size(), list.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            UUID id = sorted.get(i).getKey();
+            int elo = sorted.get(i).getValue();
+            assertEquals(id, list.atPosition(i + 1).getId());
+            assertEquals(i + 1, list.position(id));
+            assertEquals(sorted.stream().filter(e -> e.getValue() > elo).count(), list.countAbove(elo));
+        }
+        assertNull(list.atPosition(sorted.size() + 1));
+    }
+}
@@ -0,0 +1,96 @@
+import api.services.rating.RatingEngine;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RatingEngineTest {
+
+    @Test
+    public void testExpectedScore_MatchesFormula() {
+        for (int diff = -5000; diff <= 5000; diff += 7) {
+            assertEquals(1 / (1 + Math.pow(10, diff / 400.0)), RatingEngine.expectedScore(diff));
+        }
+    }
+
+    @Test
+    public void testKFactor_Boundaries() {
+        assertEquals(50, RatingEngine.kFactor(499));
+        assertEquals(40, RatingEngine.kFactor(500));
+        assertEquals(30, RatingEngine.kFactor(1000));
+        assertEquals(20, RatingEngine.kFactor(3000));
+        assertEquals(10, RatingEngine.kFactor(5000));
+    }
+
+    @Test
+    public void testRateMatch_SameResultsAsLegacyCalculation() {
+        Random random = new Random(7);
+        double[] scores = {RatingEngine.TEAM1_WIN, RatingEngine.DRAW, RatingEngine.TEAM2_WIN};
+
+        for (int round = 0; round < 10_000; round++) {
+            int teamSize = 1 + random.nextInt(6);
+            int size = teamSize * 2;
+            int[] elo = new int[size];
+            int[] hours = new int[size];
+            // Wide spread so both the lookup table and the fallback outside it are exercised
+            for (int i = 0; i < size; i++) {
+                elo[i] = random.nextInt(12_000) - 6_000;
+                hours[i] = random.nextInt(6_000);
+            }
+            double team1Score = scores[random.nextInt(scores.length)];
+            int duration = 1 + random.nextInt(10);
+
+            int[] expectedElo = elo.clone();
+            int[] expectedHours = hours.clone();
+            int[] expectedK = new int[size];
+            legacyRateMatch(expectedElo, expectedHours, expectedK, teamSize, team1Score, duration);
+
+            int[] k = new int[size];
+            RatingEngine.rateMatch(elo, hours, k, teamSize, teamSize, team1Score, duration);
+
+            assertArrayEquals(expectedElo, elo);
+            assertArrayEquals(expectedHours, hours);
+            assertArrayEquals(expectedK, k);
+        }
+    }
+
+    @Test
+    public void testRateMatch_RosterOverloadMatchesContiguousLayout() {
+        int[] elo = {100, 250, -40, 900, 30, 400};
+        int[] hours = {10, 600, 1200, 0, 4000, 7000};
+        int[] k = new int[6];
+        int[] contiguousElo = elo.clone();
+        int[] contiguousHours = hours.clone();
+        int[] contiguousK = new int[6];
+
+        // Same players as the contiguous layout, just listed in a shuffled roster slice
+        int[] roster = {-1, 0, 1, 2, 3, 4, 5};
+        RatingEngine.rateMatch(elo, hours, k, roster, 1, 3, 3, RatingEngine.TEAM2_WIN, 4);
+        RatingEngine.rateMatch(contiguousElo, contiguousHours, contiguousK, 3, 3, RatingEngine.TEAM2_WIN, 4);
+
+        assertArrayEquals(contiguousElo, elo);
+        assertArrayEquals(contiguousHours, hours);
+        assertArrayEquals(contiguousK, k);
+    }
+
+    // The calculation MatchService did before RatingEngine existed
+    private void legacyRateMatch(int[] elo, int[] hours, int[] k, int teamSize, double team1Score, int duration) {
+        int sum1 = 0, sum2 = 0;
+        for (int i = 0; i < teamSize; i++) sum1 += elo[i];
+        for (int i = teamSize; i < teamSize * 2; i++) sum2 += elo[i];
+        int avg1 = sum1 / teamSize;
+        int avg2 = sum2 / teamSize;
+
+        for (int i = 0; i < teamSize * 2; i++) {
+            boolean team1 = i < teamSize;
+            double S = team1 ? team1Score : 1.0 - team1Score;
+            double E = 1 / (1 + Math.pow(10, ((team1 ? avg2 : avg1) - elo[i]) / 400.0));
+            int hoursPlayed = hours[i] + duration;
+            int K = hoursPlayed < 500 ? 50 : hoursPlayed < 1000 ? 40 : hoursPlayed < 3000 ? 30 : hoursPlayed < 5000 ? 20 : 10;
+            elo[i] = (int) Math.round(elo[i] + K * (S - E));
+            hours[i] = hoursPlayed;
+            k[i] = K;
+        }
+    }
+}
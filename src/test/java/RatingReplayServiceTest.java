@@ -0,0 +1,177 @@
+import api.models.Player;
+import api.modelsDTO.RatingReplayProgressDTO;
+import api.repositories.MatchRepositoryI;
+import api.repositories.PlayerRepositoryI;
+import api.repositories.PlayerVersionView;
+import api.services.cache.ResponseCache;
+import api.services.leaderboard.Leaderboard;
+import api.services.pipeline.MatchPipeline;
+import api.services.replay.RatingReplayService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+public class RatingReplayServiceTest {
+
+    @Mock
+    private MatchRepositoryI matchRepository;
+
+    @Mock
+    private PlayerRepositoryI playerRepository;
+
+    @Mock
+    private Leaderboard leaderboard;
+
+    @Mock
+    private ResponseCache responseCache;
+
+    @Mock
+    private MatchPipeline matchPipeline;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RatingReplayService replayService;
+
+    @AfterEach
+    public void tearDown() {
+        replayService.shutdown();
+    }
+
+    @Test
+    public void testReplay_WritesOnlyPlayersWhoseHistoryItCovers() throws Exception {
+        Player covered = createPlayer(1, 0, 2);
+        Player coveredOpponent = createPlayer(0, 1, 2);
+        // Also played a random team match for 3 hours, which is not stored
+        Player playedRandomMatch = createPlayer(0, 1, 5);
+        List<Object[]> rows = new ArrayList<>();
+        UUID team1Id = UUID.randomUUID();
+        rows.add(new Object[]{UUID.randomUUID(), 2, team1Id, team1Id, covered.getId(), 1});
+        rows.add(new Object[]{rows.get(0)[0], 2, team1Id, team1Id, coveredOpponent.getId(), 2});
+        UUID secondMatch = UUID.randomUUID();
+        rows.add(new Object[]{secondMatch, 2, team1Id, team1Id, UUID.randomUUID(), 1});
+        rows.add(new Object[]{secondMatch, 2, team1Id, team1Id, playedRandomMatch.getId(), 2});
+        mockHistory(2, rows, covered, coveredOpponent, playedRandomMatch);
+
+        RatingReplayProgressDTO progress = runReplay();
+
+        assertEquals("COMPLETED", progress.getState());
+        assertEquals(2, progress.getPlayersWritten());
+        assertEquals(1, progress.getPlayersSkipped());
+        assertTrue(covered.getElo() > 0);
+        assertTrue(coveredOpponent.getElo() < 0);
+        assertEquals(1000, playedRandomMatch.getElo());
+        assertEquals(5, playedRandomMatch.getHoursPlayed());
+    }
+
+    @Test
+    public void testReplay_WritesPlayersCoveredByTheMatchesWithARoster() throws Exception {
+        Player player = createPlayer(1, 0, 2);
+        Player opponent = createPlayer(0, 1, 2);
+        // Played one of the matches stored before rosters were kept
+        Player playedOldMatch = createPlayer(1, 0, 1);
+        UUID matchId = UUID.randomUUID();
+        UUID team1Id = UUID.randomUUID();
+        // Three stored matches, only one with a roster
+        mockHistory(3, List.of(
+                new Object[]{matchId, 2, team1Id, team1Id, player.getId(), 1},
+                new Object[]{matchId, 2, team1Id, team1Id, opponent.getId(), 2}), player, opponent, playedOldMatch);
+
+        RatingReplayProgressDTO progress = runReplay();
+
+        assertEquals("COMPLETED", progress.getState());
+        assertEquals(2, progress.getMatchesSkipped());
+        assertEquals(2, progress.getPlayersWritten());
+        assertEquals(1, progress.getPlayersSkipped());
+        assertTrue(player.getElo() > 0);
+        assertTrue(opponent.getElo() < 0);
+        assertEquals(1000, playedOldMatch.getElo());
+    }
+
+    @Test
+    public void testReplay_SkipsPlayersChangedSinceItStarted() throws Exception {
+        Player player = createPlayer(1, 0, 2);
+        Player opponent = createPlayer(0, 1, 2);
+        UUID matchId = UUID.randomUUID();
+        UUID team1Id = UUID.randomUUID();
+        mockHistory(1, List.of(
+                new Object[]{matchId, 2, team1Id, team1Id, player.getId(), 1},
+                new Object[]{matchId, 2, team1Id, team1Id, opponent.getId(), 2}), player, opponent);
+        // A match or an edit committed while the history was read
+        opponent.setVersion(1);
+
+        RatingReplayProgressDTO progress = runReplay();
+
+        assertEquals("COMPLETED", progress.getState());
+        assertEquals(1, progress.getPlayersWritten());
+        assertEquals(1, progress.getPlayersSkipped());
+        assertTrue(player.getElo() > 0);
+        assertEquals(1000, opponent.getElo());
+    }
+
+    @Test
+    public void testReplay_PipelinePausedOnlyWhileWritingBack() throws Exception {
+        Player player = createPlayer(0, 0, 0);
+        mockHistory(0, List.of(), player);
+
+        assertEquals("COMPLETED", runReplay().getState());
+
+        InOrder order = inOrder(matchPipeline, matchRepository, playerRepository, leaderboard);
+        order.verify(playerRepository).findAllVersions();
+        order.verify(matchRepository).streamRostersInPlayOrder();
+        order.verify(matchPipeline).pause();
+        order.verify(playerRepository).findAllById(anyIterable());
+        order.verify(matchPipeline).resume();
+        order.verify(leaderboard).rebuild();
+    }
+
+    private void mockHistory(long storedMatches, List<Object[]> rosterRows, Player... players) {
+        when(matchRepository.count()).thenReturn(storedMatches);
+        when(matchRepository.streamRostersInPlayOrder()).thenAnswer(invocation -> rosterRows.stream());
+        // The versions as the replay starts
+        List<PlayerVersionView> versions = Stream.of(players).map(player -> version(player.getId(), player.getVersion())).toList();
+        when(playerRepository.findAllVersions()).thenReturn(versions);
+        when(playerRepository.findAllById(anyIterable())).thenReturn(List.of(players));
+    }
+
+    private RatingReplayProgressDTO runReplay() throws InterruptedException {
+        replayService = new RatingReplayService(matchRepository, playerRepository, leaderboard, responseCache, matchPipeline,
+                transactionManager, 2, 16, 100);
+        replayService.start();
+        for (int i = 0; i < 500 && "RUNNING".equals(replayService.getProgress().getState()); i++) {
+            Thread.sleep(10);
+        }
+        return replayService.getProgress();
+    }
+
+    private static PlayerVersionView version(UUID id, long version) {
+        return new PlayerVersionView() {
+            public UUID getId() { return id; }
+            public long getVersion() { return version; }
+        };
+    }
+
+    private static Player createPlayer(int wins, int losses, int hoursPlayed) {
+        Player player = new Player();
+        player.setId(UUID.randomUUID());
+        player.setNickname("Player_" + player.getId());
+        player.setWins(wins);
+        player.setLosses(losses);
+        player.setHoursPlayed(hoursPlayed);
+        player.setElo(1000);
+        return player;
+    }
+}
@@ -0,0 +1,83 @@
+import api.services.rating.RatingEngine;
+import api.services.replay.RatingReplayer;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RatingReplayerTest {
+
+    @Test
+    public void testParallelReplay_SameRatingsAsSequential() {
+        Random random = new Random(11);
+        int playerCount = 400;
+        List<UUID> players = new ArrayList<>();
+        for (int i = 0; i < playerCount; i++) players.add(UUID.randomUUID());
+
+        int[] elo = new int[playerCount];
+        int[] hours = new int[playerCount];
+        int[] k = new int[playerCount];
+        int[] wins = new int[playerCount];
+        int[] losses = new int[playerCount];
+        double[] outcomes = {RatingEngine.TEAM1_WIN, RatingEngine.DRAW, RatingEngine.TEAM2_WIN};
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        RatingReplayer replayer = new RatingReplayer(pool, 500);
+        players.forEach(replayer::addPlayer);
+
+        for (int match = 0; match < 5_000; match++) {
+            int teamSize = 1 + random.nextInt(5);
+            List<Integer> picked = new ArrayList<>();
+            while (picked.size() < teamSize * 2) {
+                int player = random.nextInt(playerCount);
+                if (!picked.contains(player)) picked.add(player);
+            }
+            double team1Score = outcomes[random.nextInt(outcomes.length)];
+            int duration = 1 + random.nextInt(200);
+
+            replayer.beginMatch(team1Score, duration);
+            for (int i = 0; i < picked.size(); i++) {
+                replayer.addMatchPlayer(players.get(picked.get(i)), i < teamSize);
+            }
+            replayer.endMatch();
+
+            int[] roster = picked.stream().mapToInt(Integer::intValue).toArray();
+            RatingEngine.rateMatch(elo, hours, k, roster, 0, teamSize, teamSize, team1Score, duration);
+            for (int i = 0; i < roster.length; i++) {
+                boolean team1 = i < teamSize;
+                if (team1Score == RatingEngine.DRAW) continue;
+                if (team1 == (team1Score == RatingEngine.TEAM1_WIN)) wins[roster[i]]++;
+                else losses[roster[i]]++;
+            }
+        }
+        replayer.finish();
+        pool.shutdown();
+
+        assertEquals(5_000, replayer.getMatchesReplayed());
+        for (int i = 0; i < playerCount; i++) {
+            int index = replayer.indexOf(players.get(i));
+            assertEquals(elo[i], replayer.getElo(index));
+            assertEquals(hours[i], replayer.getHours(index));
+            assertEquals(k[i], replayer.getK(index));
+            assertEquals(wins[i], replayer.getWins(index));
+            assertEquals(losses[i], replayer.getLosses(index));
+        }
+    }
+
+    @Test
+    public void testMatchWithoutOpponents_IsSkipped() {
+        RatingReplayer replayer = new RatingReplayer(ForkJoinPool.commonPool(), 16);
+        UUID player = UUID.randomUUID();
+
+        replayer.beginMatch(RatingEngine.TEAM1_WIN, 2);
+        replayer.addMatchPlayer(player, true);
+        replayer.endMatch();
+        replayer.finish();
+
+        assertEquals(0, replayer.getMatchesReplayed());
+        assertEquals(1, replayer.getMatchesSkipped());
+        assertEquals(0, replayer.getElo(replayer.indexOf(player)));
+    }
+}
@@ -0,0 +1,122 @@
+import api.Levi9Api;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.dialect.MySQL8Dialect;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.sql.Connection;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Applies the migrations to H2 in MySQL mode with the MySQL dialect and ddl-auto=validate, as on startup: the context
+ * only starts when Hibernate finds every mapped table and column in the migrated schema.
+ * <p>
+ * A database ddl-auto=update created for the baseline commit is baselined at V1 and migrated from there.
+ * <p>
+ * H2 reports MySQL's text columns as varchar, where MySQL reports TEXT, so the dialect accepts varchar for them.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migrations;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=SchemaMigrationTest$H2MySqlDialect",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.show-sql=false"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = Levi9Api.class)
+public class SchemaMigrationTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testMigrations_AllAppliedAndValid() {
+        assertEquals(0, flyway.info().pending().length);
+        assertEquals("8", flyway.info().current().getVersion().getVersion());
+        assertDoesNotThrow(() -> flyway.validate());
+    }
+
+    @Test
+    public void testMigrations_OutboxHoldsAMatchEvent() {
+        String payload = "x".repeat(4000);
+        jdbcTemplate.update("insert into notification_outbox (attempts, dead, created_at, next_attempt_at, id, target, payload) "
+                + "values (0, false, current_timestamp, current_timestamp, ?, 'email', ?)", new byte[16], payload);
+
+        assertEquals(payload, jdbcTemplate.queryForObject("select payload from notification_outbox", String.class));
+    }
+
+    @Test
+    public void testMigrations_IndexTheAccessPaths() {
+        List<String> indexes = jdbcTemplate.queryForList(
+                "select index_name from information_schema.indexes where table_schema = 'public'", String.class);
+
+        assertTrue(indexes.containsAll(List.of(
+                "idx_players_team_elo", "idx_teams_random_created", "idx_matches_created",
+                "idx_matches_team1_created", "idx_matches_team2_created", "idx_matches_winning_team", "idx_outbox_due")),
+                indexes.toString());
+    }
+
+    @Test
+    public void testMigrations_BaselineCommitDatabaseMigratesToAValidSchema() throws Exception {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:baseline;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/baseline-commit-schema.sql"));
+        }
+
+        // The application's Flyway settings, on the old database
+        Flyway existing = Flyway.configure().configuration(flyway.getConfiguration()).dataSource(dataSource).load();
+        MigrateResult result = existing.migrate();
+
+        assertEquals("1", existing.info().applied()[0].getVersion().getVersion());
+        assertEquals(7, result.migrationsExecuted);
+        assertEquals("8", result.targetSchemaVersion);
+
+        LocalContainerEntityManagerFactoryBean validating = new LocalContainerEntityManagerFactoryBean();
+        validating.setDataSource(dataSource);
+        validating.setPackagesToScan("api.models");
+        validating.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        validating.setJpaPropertyMap(Map.of(
+                "hibernate.dialect", H2MySqlDialect.class.getName(),
+                "hibernate.hbm2ddl.auto", "validate",
+                // Spring Boot's naming, which the application runs with
+                "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName(),
+                "hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName()));
+        assertDoesNotThrow(validating::afterPropertiesSet);
+        validating.destroy();
+
+        JdbcTemplate baseline = new JdbcTemplate(dataSource);
+        assertEquals(2, baseline.queryForObject("select count(*) from players", Integer.class));
+        assertEquals(1, baseline.queryForObject("select count(*) from matches where created is null", Integer.class));
+    }
+
+    @SuppressWarnings("deprecation")
+    public static class H2MySqlDialect extends MySQL8Dialect {
+
+        @Override
+        public boolean equivalentTypes(int typeCode1, int typeCode2) {
+            return super.equivalentTypes(typeCode1, typeCode2)
+                    || typeCode1 == Types.CLOB && typeCode2 == Types.VARCHAR;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+import api.models.Player;
+import api.modelsDTO.PlayerResponseDTO;
+import api.repositories.PlayerRepositoryI;
+import api.services.PlayerService;
+import api.services.cache.ResponseCache;
+import api.services.cache.SingleFlight;
+import api.services.cache.TinyLfuCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class SingleFlightTest {
+
+    private static final int HERD = 200;
+
+    @Test
+    public void testLoad_ConcurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<String, Object> flight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Function<String, Object> loader = key -> {
+            loads.incrementAndGet();
+            await(release);
+            return new Object();
+        };
+
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        List<Future<Object>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            results.add(callers.submit(() -> flight.load("team", loader)));
+        }
+        // Hold the load until every other caller has joined it
+        while (flight.coalescedCount() < 15) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        Object shared = results.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<Object> result : results) {
+            assertSame(shared, result.get(5, TimeUnit.SECONDS));
+        }
+        callers.shutdown();
+        assertEquals(1, loads.get());
+
+        // Finished loads are not remembered
+        assertNotSame(shared, flight.load("team", key -> new Object()));
+    }
+
+    @Test
+    public void testLoad_FailureReachesEveryWaiterAndIsNotKept() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        Future<String> leader = callers.submit(() -> flight.load("player", key -> {
+            await(release);
+            throw new IllegalStateException("database down");
+        }));
+        while (flight.coalescedCount() < 1) {
+            callers.submit(() -> flight.load("player", key -> "unused"));
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        Exception error = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        callers.shutdown();
+        assertTrue(callers.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals("loaded", flight.load("player", key -> "loaded"));
+    }
+
+    // A finished match invalidates a hot player, then HERD requests for it arrive at once
+    @Test
+    public void testGetPlayerById_ThunderingHerdRunsOneQuery() throws Exception {
+        UUID playerId = UUID.randomUUID();
+        Player player = new Player();
+        player.setId(playerId);
+        player.setNickname("hot");
+
+        AtomicInteger queries = new AtomicInteger();
+        PlayerRepositoryI playerRepository = mock(PlayerRepositoryI.class);
+        when(playerRepository.findById(playerId)).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            Thread.sleep(50);
+            return Optional.of(player);
+        });
+
+        // The cache alone: every request misses while the first one is still loading
+        TinyLfuCache<UUID, PlayerResponseDTO> uncoalesced = new TinyLfuCache<>(1000, 60_000, value -> 1);
+        int withoutCoalescing = herd(() -> uncoalesced.get(playerId,
+                id -> new PlayerResponseDTO(playerRepository.findById(id).orElseThrow())), queries);
+
+        ResponseCache responseCache = new ResponseCache(new SimpleMeterRegistry(), 1000, 1000, 60_000, System::nanoTime);
+        PlayerService playerService = new PlayerService(playerRepository, null, null, null, null, responseCache, null,
+                mock(PlatformTransactionManager.class));
+        int withCoalescing = herd(() -> playerService.getPlayerById(playerId), queries);
+
+        System.out.printf("%d concurrent GET /players/{id}: %d queries without coalescing, %d with%n",
+                HERD, withoutCoalescing, withCoalescing);
+        assertTrue(withCoalescing <= 2, withCoalescing + " queries");
+        assertTrue(withoutCoalescing >= withCoalescing);
+    }
+
+    private static int herd(Runnable request, AtomicInteger queries) throws Exception {
+        queries.set(0);
+        ExecutorService clients = Executors.newFixedThreadPool(HERD);
+        CountDownLatch ready = new CountDownLatch(HERD);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> done = new ArrayList<>();
+        for (int i = 0; i < HERD; i++) {
+            done.add(clients.submit(() -> {
+                ready.countDown();
+                await(start);
+                request.run();
+            }));
+        }
+        ready.await();
+        start.countDown();
+        for (Future<?> future : done) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        clients.shutdown();
+        return queries.get();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+import api.Levi9Api;
+import api.models.Match;
+import api.models.Player;
+import api.models.Team;
+import api.repositories.MatchRepositoryI;
+import api.repositories.PlayerRepositoryI;
+import api.repositories.TeamRepositoryI;
+import api.services.MatchService;
+import api.services.PlayerService;
+import api.services.TeamService;
+import api.services.audit.AuditHook;
+import api.services.cache.JsonFragmentCache;
+import api.services.cache.ResponseCache;
+import api.services.leaderboard.Leaderboard;
+import api.services.players.PlayerExporter;
+import api.services.teams.RandomTeamRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The exact number of SQL statements behind each read endpoint, against H2 with Hibernate statistics. A lazy
+ * association walked per row shows up here as a count that grows with the data.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"})
+@ContextConfiguration(classes = Levi9Api.class)
+public class StatementCountTest {
+
+    private static final int PLAYERS_PER_TEAM = 5;
+    private static final int MATCHES = 4;
+
+    @Autowired
+    private PlayerRepositoryI playerRepository;
+
+    @Autowired
+    private TeamRepositoryI teamRepository;
+
+    @Autowired
+    private MatchRepositoryI matchRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+    private PlayerService playerService;
+    private TeamService teamService;
+    private MatchService matchService;
+    private PlayerExporter playerExporter;
+    private Team team1;
+    private Team team2;
+    private Player player;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        ResponseCache responseCache = new ResponseCache(new SimpleMeterRegistry(), 1000, 1000, 60_000, System::nanoTime);
+        RandomTeamRegistry randomTeamRegistry = new RandomTeamRegistry(new SimpleMeterRegistry(), 60_000);
+        JsonFragmentCache fragments = new JsonFragmentCache(new ObjectMapper(), new SimpleMeterRegistry(), responseCache,
+                1000, 1000, 60_000, System::nanoTime);
+        playerService = new PlayerService(playerRepository, teamRepository, randomTeamRegistry, mock(Leaderboard.class), mock(AuditHook.class),
+                responseCache, fragments, transactionManager);
+        teamService = new TeamService(teamRepository, playerRepository, matchRepository, randomTeamRegistry, null,
+                responseCache, transactionManager);
+        matchService = new MatchService(teamRepository, matchRepository, playerRepository, null, randomTeamRegistry,
+                responseCache, new ObjectMapper(), transactionManager);
+        playerExporter = new PlayerExporter(playerRepository, transactionManager, new ObjectMapper(), new SimpleMeterRegistry());
+
+        team1 = persistTeam("Team1");
+        team2 = persistTeam("Team2");
+        player = team1.getPlayers().get(0);
+        Instant created = Instant.parse("2024-05-01T12:00:00Z");
+        for (int i = 0; i < MATCHES; i++) {
+            Match match = new Match();
+            match.setTeam1(i % 2 == 0 ? team1 : team2);
+            match.setTeam2(i % 2 == 0 ? team2 : team1);
+            match.setWinningTeam(team1);
+            match.setDuration(1);
+            match.setCreated(created.plusSeconds(i));
+            entityManager.persist(match);
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    public void testGetPlayerById() {
+        assertEquals(1, statements(() -> playerService.getPlayerById(player.getId())));
+        assertEquals(0, statements(() -> playerService.getPlayerById(player.getId())));
+    }
+
+    @Test
+    public void testGetPlayers() {
+        // The page's keys, then the players not in JsonFragmentCache yet
+        assertEquals(2, statements(() -> assertEquals(3, playerService.getPlayers("nickname", null, 3).getPlayers().size())));
+        assertEquals(1, statements(() -> assertEquals(3, playerService.getPlayers("nickname", null, 3).getPlayers().size())));
+    }
+
+    @Test
+    public void testGetAllPlayersUnpaged() {
+        assertEquals(2, statements(() -> assertEquals(2 * PLAYERS_PER_TEAM, playerService.getAllPlayers().size())));
+        assertEquals(1, statements(() -> assertEquals(2 * PLAYERS_PER_TEAM, playerService.getAllPlayers().size())));
+    }
+
+    @Test
+    public void testExportPlayers() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(1, statements(() -> playerExporter.export(out)));
+        assertTrue(out.toString().contains(player.getNickname()));
+    }
+
+    @Test
+    public void testGetTeamById() {
+        assertEquals(1, statements(() -> assertEquals(PLAYERS_PER_TEAM, teamService.getTeamById(team1.getId()).getPlayers().size())));
+        assertEquals(0, statements(() -> teamService.getTeamById(team1.getId())));
+    }
+
+    @Test
+    public void testGetMatches() {
+        Instant from = Instant.parse("2024-01-01T00:00:00Z");
+
+        // Without a time range the last page also looks for matches that have no created time
+        assertEquals(2, statements(() -> assertEquals(MATCHES, matchService.getMatches(null, null, null, null, 100).getMatches().size())));
+        assertEquals(1, statements(() -> assertEquals(MATCHES, matchService.getMatches(null, from, null, null, 100).getMatches().size())));
+        // One query per side of the team, no Team loaded for any match
+        assertEquals(2, statements(() -> assertEquals(MATCHES, matchService.getMatches(team1.getId(), from, null, null, 100).getMatches().size())));
+        assertEquals(3, statements(() -> assertEquals(MATCHES, matchService.getMatches(team1.getId(), null, null, null, 100).getMatches().size())));
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    private long statements(Runnable call) {
+        entityManager.clear();
+        statistics.clear();
+        call.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Team persistTeam(String name) {
+        Team team = new Team();
+        team.setTeamName(name);
+        team.setPlayers(new ArrayList<>());
+        entityManager.persist(team);
+        for (int i = 0; i < PLAYERS_PER_TEAM; i++) {
+            Player member = new Player();
+            member.setNickname(name + "_" + i);
+            member.setTeam(team);
+            entityManager.persist(member);
+            team.getPlayers().add(member);
+        }
+        return team;
+    }
+}
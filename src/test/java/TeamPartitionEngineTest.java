@@ -0,0 +1,148 @@
+import api.models.Player;
+import api.services.teams.partition.EnumerationPartition;
+import api.services.teams.partition.ExactPartition;
+import api.services.teams.partition.KarmarkarKarpPartition;
+import api.services.teams.partition.LocalSearchPartition;
+import api.services.teams.partition.TeamPartitionEngine;
+import api.services.teams.partition.TeamSplit;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TeamPartitionEngineTest {
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE / 2;
+
+    @Test
+    public void testExactPartition_MatchesBruteForce() {
+        Random random = new Random(7);
+        ExactPartition exact = new ExactPartition(10_000_000);
+        for (int round = 0; round < 200; round++) {
+            int[] elo = randomElo(random, 2 + 2 * random.nextInt(7), -200, 3000);
+
+            TeamSplit split = exact.split(elo, null, System.nanoTime() + TimeUnit.SECONDS.toNanos(10));
+
+            assertEqualTeams(elo, split);
+            assertEquals(bruteForce(elo), split.getDifference());
+        }
+    }
+
+    @Test
+    public void testEnumerationPartition_MatchesBruteForce() {
+        Random random = new Random(9);
+        EnumerationPartition enumeration = new EnumerationPartition(16);
+        for (int round = 0; round < 200; round++) {
+            int[] elo = randomElo(random, 2 + 2 * random.nextInt(8), -200, 3000);
+
+            TeamSplit split = enumeration.split(elo, null, NO_DEADLINE);
+
+            assertEqualTeams(elo, split);
+            assertEquals(bruteForce(elo), split.getDifference());
+        }
+        assertNull(enumeration.split(new int[18], null, NO_DEADLINE));
+    }
+
+    @Test
+    public void testExactPartition_GivesUpAboveTheCellLimit() {
+        int[] elo = randomElo(new Random(1), 200, 0, 3000);
+        assertNull(new ExactPartition(1_000).split(elo, null, NO_DEADLINE));
+    }
+
+    @Test
+    public void testKarmarkarKarp_KeepsTeamsEqualAndClose() {
+        int[] elo = randomElo(new Random(3), 1000, 0, 3000);
+
+        TeamSplit split = new KarmarkarKarpPartition().split(elo, null, NO_DEADLINE);
+
+        assertEqualTeams(elo, split);
+        assertTrue(split.getDifference() < 100, "difference " + split.getDifference());
+    }
+
+    @Test
+    public void testLocalSearch_ClosesTheGapOfABadStart() {
+        int[] elo = randomElo(new Random(5), 200, 0, 3000);
+        // Even players against odd players, whatever their elo
+        boolean[] team1 = new boolean[elo.length];
+        for (int i = 0; i < elo.length; i += 2) {
+            team1[i] = true;
+        }
+        TeamSplit start = new TeamSplit(elo, team1);
+
+        TeamSplit split = new LocalSearchPartition(1).split(elo, start, System.nanoTime() + TimeUnit.SECONDS.toNanos(5));
+
+        assertEqualTeams(elo, split);
+        assertTrue(split.getDifference() <= 1, "difference " + split.getDifference());
+        assertTrue(team1[0] && !team1[1], "the start split is left untouched");
+    }
+
+    @Test
+    public void testEngine_SplitsALargePoolWithinBudget() {
+        List<Player> players = new ArrayList<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 100_000; i++) {
+            Player player = new Player();
+            player.setId(UUID.randomUUID());
+            player.setElo(random.nextInt(3000));
+            players.add(player);
+        }
+        TeamPartitionEngine engine = new TeamPartitionEngine(100, 4, 2_000_000);
+
+        long started = System.nanoTime();
+        List<List<Player>> teams = engine.split(players);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        engine.shutdown();
+
+        assertEquals(50_000, teams.get(0).size());
+        assertEquals(50_000, teams.get(1).size());
+        long difference = teams.get(0).stream().mapToLong(Player::getElo).sum() - teams.get(1).stream().mapToLong(Player::getElo).sum();
+        assertTrue(Math.abs(difference) <= 1, "difference " + difference);
+        assertTrue(elapsedMs < 2_000, "took " + elapsedMs + " ms");
+    }
+
+    @Test
+    public void testEngine_RejectsAnOddPool() {
+        TeamPartitionEngine engine = new TeamPartitionEngine(10, 1, 1_000);
+        assertThrows(IllegalArgumentException.class, () -> engine.split(new int[]{1, 2, 3}));
+        engine.shutdown();
+    }
+
+    private static int[] randomElo(Random random, int size, int min, int max) {
+        int[] elo = new int[size];
+        for (int i = 0; i < size; i++) {
+            elo[i] = min + random.nextInt(max - min);
+        }
+        return elo;
+    }
+
+    private static void assertEqualTeams(int[] elo, TeamSplit split) {
+        int team1 = 0;
+        long difference = 0;
+        for (int i = 0; i < elo.length; i++) {
+            team1 += split.isTeam1(i) ? 1 : 0;
+            difference += split.isTeam1(i) ? elo[i] : -elo[i];
+        }
+        assertEquals(elo.length / 2, team1);
+        assertEquals(Math.abs(difference), split.getDifference());
+    }
+
+    private static long bruteForce(int[] elo) {
+        long best = Long.MAX_VALUE;
+        for (int mask = 0; mask < 1 << elo.length; mask++) {
+            if (Integer.bitCount(mask) != elo.length / 2) {
+                continue;
+            }
+            long difference = 0;
+            for (int i = 0; i < elo.length; i++) {
+                difference += (mask & (1 << i)) != 0 ? elo[i] : -elo[i];
+            }
+            best = Math.min(best, Math.abs(difference));
+        }
+        return best;
+    }
+}
@@ -1,7 +1,6 @@
 import api.exceptions.DuplicateResourceException;
 import api.exceptions.InvalidInputException;
 import api.exceptions.ResourceNotFoundException;
-import api.models.Match;
 import api.models.Player;
 import api.models.Team;
 import api.modelsDTO.*;
@@ -9,14 +8,26 @@ import api.repositories.MatchRepositoryI;
 import api.repositories.PlayerRepositoryI;
 import api.repositories.TeamRepositoryI;
 import api.services.TeamService;
+import api.services.cache.ResponseCache;
+import api.services.teams.RandomTeamRegistry;
+import api.services.teams.partition.TeamPartitionEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.modelmapper.ModelMapper;
+import org.mockito.Spy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -34,7 +45,16 @@ public class TeamServiceTest {
     private MatchRepositoryI matchRepository;
 
     @Mock
-    private ModelMapper modelMapper;
+    private RandomTeamRegistry randomTeamRegistry;
+
+    @Mock
+    private TeamPartitionEngine teamPartitionEngine;
+
+    @Spy
+    private ResponseCache responseCache = new ResponseCache(new SimpleMeterRegistry(), 1000, 1000, 60_000, System::nanoTime);
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
     @InjectMocks
     private TeamService teamService;
@@ -53,6 +73,7 @@ public class TeamServiceTest {
 
         List<Player> players = createPlayers(playerIds, false);
         when(playerRepository.findAllById(playerIds)).thenReturn(players);
+        when(randomTeamRegistry.reserve(any(UUID.class), anyList(), anyInt())).thenAnswer(invocation -> invocation.getArgument(1));
 
         Team team = new Team();
         team.setTeamName(request.getTeamName());
@@ -72,21 +93,17 @@ public class TeamServiceTest {
         List<PlayerResponseDTO> playerResponseDTOs = createPlayerResponseDTOs(players, savedTeam.getId());
         responseDTO.setPlayers(playerResponseDTOs);
 
-        when(modelMapper.map(savedTeam, TeamResponseDTO.class)).thenReturn(responseDTO);
-        for (Player player : players) {
-            PlayerResponseDTO playerDTO = playerResponseDTOs.stream()
-                    .filter(dto -> dto.getId().equals(player.getId()))
-                    .findFirst()
-                    .orElse(null);
-            when(modelMapper.map(player, PlayerResponseDTO.class)).thenReturn(playerDTO);
-        }
-
         TeamResponseDTO result = teamService.createTeam(request);
 
         assertNotNull(result);
         assertEquals(responseDTO.getId(), result.getId());
         assertEquals(responseDTO.getTeamName(), result.getTeamName());
-        assertEquals(responseDTO.getPlayers(), result.getPlayers());
+        assertEquals(responseDTO.getPlayers().size(), result.getPlayers().size());
+        for (int i = 0; i < playerResponseDTOs.size(); i++) {
+            assertEquals(playerResponseDTOs.get(i).getId(), result.getPlayers().get(i).getId());
+            assertEquals(playerResponseDTOs.get(i).getNickname(), result.getPlayers().get(i).getNickname());
+            assertEquals(savedTeam.getId(), result.getPlayers().get(i).getTeamId());
+        }
 
         verify(teamRepository).existsByTeamName(request.getTeamName());
         verify(playerRepository).findAllById(playerIds);
@@ -163,6 +180,37 @@ public class TeamServiceTest {
         });
     }
 
+    @Test
+    public void testCreateTeam_PlayerInRandomTeam() {
+        RandomTeamRegistry registry = new RandomTeamRegistry(new SimpleMeterRegistry(), 60_000);
+        TeamService service = new TeamService(teamRepository, playerRepository, matchRepository, registry,
+                new TeamPartitionEngine(20, 1, 100_000), responseCache, transactionManager);
+
+        CreateTeamRequestDTO request = new CreateTeamRequestDTO();
+        request.setTeamName("NewTeam");
+        List<UUID> playerIds = Arrays.asList(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        request.setPlayers(playerIds);
+
+        List<Player> players = createPlayers(playerIds, false);
+        when(playerRepository.findAllById(playerIds)).thenReturn(players);
+        List<Team> randomTeams = registry.create(List.of(List.of(players.get(2))));
+
+        InvalidInputException exception = assertThrows(InvalidInputException.class, () -> service.createTeam(request));
+        assertEquals("Player '" + players.get(2).getNickname() + "' is already in a random team.", exception.getMessage());
+        verify(teamRepository, never()).save(any(Team.class));
+        assertFalse(registry.isReserved(playerIds.get(0)));
+        assertTrue(registry.isReserved(playerIds.get(2)));
+
+        // Once the random team is gone the players are held until the stored team is saved, then let go
+        registry.release(randomTeams.get(0));
+        when(teamRepository.save(any(Team.class))).thenAnswer(invocation -> {
+            assertTrue(playerIds.stream().allMatch(registry::isReserved));
+            return invocation.getArgument(0);
+        });
+        service.createTeam(request);
+        assertTrue(playerIds.stream().noneMatch(registry::isReserved));
+    }
+
     // Helper methods
     private List<Player> createPlayers(List<UUID> playerIds, boolean assignTeams) {
         return playerIds.stream().map(id -> {
@@ -198,25 +246,20 @@ public class TeamServiceTest {
         Team existingTeam = createTeam(teamId, "OldTeamName");
         Team updatedTeam = createTeam(teamId, "UpdatedTeamName");
 
-        TeamResponseDTO responseDTO = new TeamResponseDTO();
-        responseDTO.setId(teamId);
-        responseDTO.setTeamName("UpdatedTeamName");
-        responseDTO.setPlayers(new ArrayList<>());
-
-        when(teamRepository.findById(teamId)).thenReturn(Optional.of(existingTeam));
+        when(teamRepository.findWithPlayersById(teamId)).thenReturn(Optional.of(existingTeam));
         when(teamRepository.existsByTeamName("UpdatedTeamName")).thenReturn(false);
         when(teamRepository.save(existingTeam)).thenReturn(updatedTeam);
-        when(modelMapper.map(updatedTeam, TeamResponseDTO.class)).thenReturn(responseDTO);
 
         TeamResponseDTO result = teamService.updateTeam(teamId, request);
 
         assertNotNull(result);
+        assertEquals(teamId, result.getId());
         assertEquals("UpdatedTeamName", result.getTeamName());
+        assertTrue(result.getPlayers().isEmpty());
 
-        verify(teamRepository).findById(teamId);
+        verify(teamRepository).findWithPlayersById(teamId);
         verify(teamRepository).existsByTeamName("UpdatedTeamName");
         verify(teamRepository).save(existingTeam);
-        verify(modelMapper).map(updatedTeam, TeamResponseDTO.class);
     }
 
     @Test
@@ -225,7 +268,7 @@ public class TeamServiceTest {
         UpdateTeamRequestDTO request = new UpdateTeamRequestDTO();
         request.setTeamName("UpdatedTeamName");
 
-        when(teamRepository.findById(teamId)).thenReturn(Optional.empty());
+        when(teamRepository.findWithPlayersById(teamId)).thenReturn(Optional.empty());
 
         ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> {
             teamService.updateTeam(teamId, request);
@@ -233,10 +276,9 @@ public class TeamServiceTest {
 
         assertEquals("Team not found", exception.getMessage());
 
-        verify(teamRepository).findById(teamId);
+        verify(teamRepository).findWithPlayersById(teamId);
         verify(teamRepository, never()).existsByTeamName(anyString());
         verify(teamRepository, never()).save(any(Team.class));
-        verifyNoInteractions(modelMapper);
     }
 
     @Test
@@ -247,7 +289,7 @@ public class TeamServiceTest {
 
         Team existingTeam = createTeam(teamId, "OldTeamName");
 
-        when(teamRepository.findById(teamId)).thenReturn(Optional.of(existingTeam));
+        when(teamRepository.findWithPlayersById(teamId)).thenReturn(Optional.of(existingTeam));
         when(teamRepository.existsByTeamName("ExistingTeamName")).thenReturn(true);
 
         DuplicateResourceException exception = assertThrows(DuplicateResourceException.class, () -> {
@@ -256,10 +298,9 @@ public class TeamServiceTest {
 
         assertEquals("Team name 'ExistingTeamName' already exists.", exception.getMessage());
 
-        verify(teamRepository).findById(teamId);
+        verify(teamRepository).findWithPlayersById(teamId);
         verify(teamRepository).existsByTeamName("ExistingTeamName");
         verify(teamRepository, never()).save(any(Team.class));
-        verifyNoInteractions(modelMapper);
     }
 
     @Test
@@ -268,15 +309,13 @@ public class TeamServiceTest {
         Team existingTeam = createTeam(teamId, "TeamToDelete");
         existingTeam.setPlayers(new ArrayList<>());
 
-        List<Match> matches = new ArrayList<>();
-
         when(teamRepository.findById(teamId)).thenReturn(Optional.of(existingTeam));
-        when(matchRepository.findByTeam1OrTeam2(existingTeam, existingTeam)).thenReturn(matches);
 
         assertDoesNotThrow(() -> teamService.deleteTeam(teamId));
 
         verify(teamRepository).findById(teamId);
-        verify(matchRepository).findByTeam1OrTeam2(existingTeam, existingTeam);
+        verify(matchRepository).existsByTeam1Id(teamId);
+        verify(matchRepository).existsByTeam2Id(teamId);
         verify(teamRepository).delete(existingTeam);
     }
 
@@ -294,7 +333,7 @@ public class TeamServiceTest {
 
         verify(teamRepository).findById(teamId);
         verify(teamRepository, never()).delete(any(Team.class));
-        verify(matchRepository, never()).findByTeam1OrTeam2(any(Team.class), any(Team.class));
+        verifyNoInteractions(matchRepository);
     }
 
     @Test
@@ -308,6 +347,7 @@ public class TeamServiceTest {
         existingTeam.setPlayers(Arrays.asList(player));
 
         when(teamRepository.findById(teamId)).thenReturn(Optional.of(existingTeam));
+        when(playerRepository.existsByTeamId(teamId)).thenReturn(true);
 
         InvalidInputException exception = assertThrows(InvalidInputException.class, () -> {
             teamService.deleteTeam(teamId);
@@ -317,7 +357,7 @@ public class TeamServiceTest {
 
         verify(teamRepository).findById(teamId);
         verify(teamRepository, never()).delete(any(Team.class));
-        verify(matchRepository, never()).findByTeam1OrTeam2(any(Team.class), any(Team.class));
+        verifyNoInteractions(matchRepository);
     }
 
     @Test
@@ -326,15 +366,8 @@ public class TeamServiceTest {
         Team existingTeam = createTeam(teamId, "TeamWithMatches");
         existingTeam.setPlayers(new ArrayList<>());
 
-        Match match = new Match();
-        match.setId(UUID.randomUUID());
-        match.setTeam1(existingTeam);
-        match.setTeam2(new Team());
-
-        List<Match> matches = Arrays.asList(match);
-
         when(teamRepository.findById(teamId)).thenReturn(Optional.of(existingTeam));
-        when(matchRepository.findByTeam1OrTeam2(existingTeam, existingTeam)).thenReturn(matches);
+        when(matchRepository.existsByTeam2Id(teamId)).thenReturn(true);
 
         InvalidInputException exception = assertThrows(InvalidInputException.class, () -> {
             teamService.deleteTeam(teamId);
@@ -343,7 +376,7 @@ public class TeamServiceTest {
         assertEquals("Cannot delete team with associated matches.", exception.getMessage());
 
         verify(teamRepository).findById(teamId);
-        verify(matchRepository).findByTeam1OrTeam2(existingTeam, existingTeam);
+        verify(matchRepository).existsByTeam2Id(teamId);
         verify(teamRepository, never()).delete(any(Team.class));
     }
 
@@ -477,6 +510,142 @@ public class TeamServiceTest {
         verify(playerRepository, never()).saveAll(anyList());
     }
 
+    @Test
+    public void testGenerateTeams_KeepsRandomTeamsInMemory() {
+        RandomTeamRegistry registry = new RandomTeamRegistry(new SimpleMeterRegistry(), 60_000);
+        TeamService service = new TeamService(teamRepository, playerRepository, matchRepository, registry,
+                new TeamPartitionEngine(20, 1, 100_000), responseCache, transactionManager);
+
+        List<Player> freePlayers = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Player player = createPlayer(UUID.randomUUID(), null);
+            player.setElo(1600 - i * 10);
+            freePlayers.add(player);
+        }
+        mockFreePlayers(freePlayers);
+
+        List<TeamResponseDTO> teams = service.generateTeams(2);
+
+        assertEquals(2, teams.size());
+        assertEquals(2, registry.size());
+        for (TeamResponseDTO team : teams) {
+            assertEquals(2, team.getPlayers().size());
+        }
+        verify(teamRepository, never()).save(any(Team.class));
+        freePlayers.forEach(player -> assertNull(player.getTeam()));
+        // Only the four best players were read
+        verify(playerRepository).findAllForGeneratedTeam(PageRequest.of(0, 4));
+        assertTrue(freePlayers.subList(0, 4).stream().allMatch(player -> registry.isReserved(player.getId())));
+
+        // The four reserved players are skipped in one page sized past them, two free players are not enough for another match
+        assertThrows(RuntimeException.class, () -> service.generateTeams(2));
+        verify(playerRepository).findAllForGeneratedTeam(PageRequest.of(0, 8));
+        verify(playerRepository, never()).findAllForGeneratedTeamAfter(anyInt(), any(UUID.class), any(Pageable.class));
+        assertThrows(InvalidInputException.class, () -> service.generateTeams(0));
+    }
+
+    @Test
+    public void testGenerateTeams_ConcurrentCallsNeverShareAPlayer() throws Exception {
+        RandomTeamRegistry registry = new RandomTeamRegistry(new SimpleMeterRegistry(), 60_000);
+        TeamService service = new TeamService(teamRepository, playerRepository, matchRepository, registry,
+                new TeamPartitionEngine(20, 1, 100_000), responseCache, transactionManager);
+
+        List<Player> freePlayers = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Player player = createPlayer(UUID.randomUUID(), null);
+            player.setElo(3000 - i);
+            freePlayers.add(player);
+        }
+        mockFreePlayers(freePlayers);
+
+        // Every thread starts from the same best players and keeps generating until the pool runs dry
+        int threads = 8;
+        ExecutorService clients = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<UUID>>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(clients.submit(() -> {
+                start.await();
+                List<UUID> teamIds = new ArrayList<>();
+                while (true) {
+                    try {
+                        service.generateTeams(5).forEach(team -> teamIds.add(team.getId()));
+                    } catch (RuntimeException e) {
+                        assertEquals("Not enough players for this match", e.getMessage());
+                        return teamIds;
+                    }
+                }
+            }));
+        }
+        start.countDown();
+
+        Set<UUID> players = new HashSet<>();
+        int teams = 0;
+        for (Future<List<UUID>> result : results) {
+            for (UUID teamId : result.get(30, TimeUnit.SECONDS)) {
+                for (Player player : registry.find(teamId).orElseThrow().getPlayers()) {
+                    assertTrue(players.add(player.getId()), "Player in two random teams");
+                }
+                teams++;
+            }
+        }
+        clients.shutdown();
+
+        assertEquals(200, teams);
+        assertEquals(1000, players.size());
+    }
+
+    // Free players in (elo desc, id) order; the keyset query continues after the given player
+    private void mockFreePlayers(List<Player> freePlayers) {
+        when(playerRepository.findAllForGeneratedTeam(any(Pageable.class))).thenAnswer(invocation ->
+                page(freePlayers, 0, invocation.getArgument(0)));
+        when(playerRepository.findAllForGeneratedTeamAfter(anyInt(), any(UUID.class), any(Pageable.class))).thenAnswer(invocation -> {
+            UUID lastId = invocation.getArgument(1);
+            int from = 0;
+            while (!freePlayers.get(from).getId().equals(lastId)) {
+                from++;
+            }
+            return page(freePlayers, from + 1, invocation.getArgument(2));
+        });
+    }
+
+    private static List<Player> page(List<Player> players, int from, Pageable page) {
+        assertEquals(0, page.getOffset());
+        return players.subList(from, Math.min(from + page.getPageSize(), players.size()));
+    }
+
+    @Test
+    public void testGetTeamById_CachedUntilPlayersAreSwapped() {
+        Team team1 = createTeam(UUID.randomUUID(), "Team1");
+        Team team2 = createTeam(UUID.randomUUID(), "Team2");
+        Player player1 = createPlayer(UUID.randomUUID(), team1);
+        Player player2 = createPlayer(UUID.randomUUID(), team2);
+        team1.getPlayers().add(player1);
+        team2.getPlayers().add(player2);
+
+        when(teamRepository.findWithPlayersById(team1.getId())).thenReturn(Optional.of(team1));
+        when(teamRepository.findWithPlayersById(team2.getId())).thenReturn(Optional.of(team2));
+        when(teamRepository.findById(team1.getId())).thenReturn(Optional.of(team1));
+        when(teamRepository.findById(team2.getId())).thenReturn(Optional.of(team2));
+        when(playerRepository.findAllById(List.of(player1.getId()))).thenReturn(List.of(player1));
+        when(playerRepository.findAllById(List.of(player2.getId()))).thenReturn(List.of(player2));
+
+        TeamResponseDTO cached = teamService.getTeamById(team1.getId());
+        assertSame(cached, teamService.getTeamById(team1.getId()));
+        verify(teamRepository, times(1)).findWithPlayersById(team1.getId());
+
+        SwapPlayersRequestDTO request = new SwapPlayersRequestDTO();
+        request.setTeam1Id(team1.getId());
+        request.setTeam2Id(team2.getId());
+        request.setTeam1PlayerIds(List.of(player1.getId()));
+        request.setTeam2PlayerIds(List.of(player2.getId()));
+        teamService.swapPlayers(request);
+
+        assertNotSame(cached, teamService.getTeamById(team1.getId()));
+        verify(responseCache).invalidateTeam(team2.getId());
+        verify(responseCache).invalidatePlayers(List.of(player1.getId()));
+    }
+
     // Helper methods
     private Team createTeam(UUID teamId, String teamName) {
         Team team = new Team();
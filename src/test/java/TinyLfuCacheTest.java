@@ -0,0 +1,87 @@
+import api.services.cache.TinyLfuCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TinyLfuCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void testGet_LoadsOnceAndCachesUntilTtl() {
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(100, 1_000, value -> 1, now::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("1", cache.get(1, key -> { loads.incrementAndGet(); return "1"; }));
+        assertEquals("1", cache.get(1, key -> { loads.incrementAndGet(); return "x"; }));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+
+        // Null loads are not cached
+        assertNull(cache.get(2, key -> null));
+        assertEquals(1, cache.size());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals("x", cache.get(1, key -> "x"));
+    }
+
+    @Test
+    public void testEviction_KeepsTheHotSetThroughAScan() {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(1000, 60_000, value -> 1, now::get);
+        for (int round = 0; round < 5; round++) {
+            for (int key = 0; key < 500; key++) {
+                cache.get(key, key2 -> key2);
+            }
+        }
+
+        // A scan of 10x the capacity of keys read once
+        for (int key = 1000; key < 11_000; key++) {
+            cache.get(key, key2 -> key2);
+        }
+
+        long hotHits = cache.hitCount();
+        for (int key = 0; key < 500; key++) {
+            cache.get(key, key2 -> key2);
+        }
+        assertTrue(cache.hitCount() - hotHits >= 490, "hot keys evicted by the scan");
+        assertTrue(cache.weight() <= 1000);
+        assertTrue(cache.evictionCount() >= 10_000 - 500);
+    }
+
+    @Test
+    public void testWeight_BoundsTheCache() {
+        TinyLfuCache<Integer, int[]> cache = new TinyLfuCache<>(100, 60_000, value -> value.length, now::get);
+        for (int key = 0; key < 100; key++) {
+            cache.get(key, key2 -> new int[7]);
+        }
+        assertTrue(cache.weight() <= 100);
+        assertTrue(cache.size() <= 14);
+
+        // Heavier than the whole cache, never kept
+        cache.get(-1, key -> new int[101]);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(-1, key -> { loads.incrementAndGet(); return new int[101]; });
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testInvalidate_DuringALoadDropsTheLoadedValue() {
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(100, 60_000, value -> 1, now::get);
+
+        assertEquals("old", cache.get(1, key -> {
+            cache.invalidate(1); // the write lands while the read is still loading
+            return "old";
+        }));
+        assertEquals("new", cache.get(1, key -> "new"));
+        assertEquals("new", cache.get(1, key -> "newer"));
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+        assertEquals("newer", cache.get(1, key -> "newer"));
+    }
+}
@@ -0,0 +1,95 @@
+import api.models.ids.UuidV7;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UuidV7Test {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    public void testNext_VersionVariantAndTimestamp() {
+        UUID id = new UuidV7(() -> NOW).next();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertEquals(NOW, UuidV7.timestamp(id));
+        assertEquals(id, UUID.fromString(id.toString()));
+    }
+
+    @Test
+    public void testNext_IncreasingAsStoredBytesWithinOneMillisecond() {
+        UuidV7 ids = new UuidV7(() -> NOW);
+
+        byte[] previous = bytes(ids.next());
+        Set<UUID> seen = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            UUID id = ids.next();
+            byte[] current = bytes(id);
+            assertTrue(Arrays.compareUnsigned(previous, current) < 0, id.toString());
+            assertTrue(seen.add(id));
+            previous = current;
+        }
+    }
+
+    @Test
+    public void testNext_CounterOverflowAndClockGoingBackStayIncreasing() {
+        AtomicLong clock = new AtomicLong(NOW);
+        UuidV7 ids = new UuidV7(clock::get);
+
+        UUID last = null;
+        for (int i = 0; i < 4096; i++) {
+            last = ids.next();
+        }
+        assertEquals(NOW, UuidV7.timestamp(last));
+
+        UUID overflowed = ids.next();
+        assertEquals(NOW + 1, UuidV7.timestamp(overflowed));
+
+        clock.set(NOW - 5_000);
+        UUID afterSetBack = ids.next();
+        assertTrue(Arrays.compareUnsigned(bytes(overflowed), bytes(afterSetBack)) < 0);
+
+        clock.set(NOW + 10);
+        assertEquals(NOW + 10, UuidV7.timestamp(ids.next()));
+    }
+
+    @Test
+    public void testNext_UniqueAcrossThreads() throws Exception {
+        UuidV7 ids = new UuidV7();
+        Set<UUID> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> workers = List.of(1, 2, 3, 4).stream()
+                    .<Future<?>>map(worker -> executor.submit(() -> {
+                        for (int i = 0; i < 25_000; i++) {
+                            seen.add(ids.next());
+                        }
+                    }))
+                    .toList();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(100_000, seen.size());
+    }
+
+    // The order MySQL compares BINARY(16) keys in
+    private static byte[] bytes(UUID id) {
+        return ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array();
+    }
+}
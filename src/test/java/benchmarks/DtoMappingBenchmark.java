@@ -0,0 +1,141 @@
+package benchmarks;
+
+import api.models.Match;
+import api.models.Player;
+import api.models.Team;
+import api.modelsDTO.MatchResponseDTO;
+import api.modelsDTO.PlayerResponseDTO;
+import api.modelsDTO.TeamResponseDTO;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps the responses of a player list, a page of teams and a page of matches the way the services used to, through
+ * ModelMapper plus the hand patched teamId, and with the DTO constructors that replaced it. One operation is one
+ * response object; a team counts its players too.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    private static final int TEAMS = 100;
+    private static final int TEAM_SIZE = 5;
+    private static final int MATCHES = 500;
+
+    private final ModelMapper modelMapper = new ModelMapper();
+    private final List<Team> teams = new ArrayList<>();
+    private final List<Player> players = new ArrayList<>();
+    private final List<Match> matches = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(1);
+        for (int t = 0; t < TEAMS; t++) {
+            Team team = new Team();
+            team.setId(UUID.randomUUID());
+            team.setTeamName("team-" + t);
+            List<Player> members = new ArrayList<>();
+            for (int i = 0; i < TEAM_SIZE; i++) {
+                Player player = new Player();
+                player.setId(UUID.randomUUID());
+                player.setNickname("player-" + t + "-" + i);
+                player.setElo(random.nextInt(3000));
+                player.setHoursPlayed(random.nextInt(6000));
+                player.setWins(random.nextInt(200));
+                player.setLosses(random.nextInt(200));
+                player.setRatingAdjustment(random.nextBoolean() ? 50 : null);
+                player.setTeam(team);
+                members.add(player);
+            }
+            team.setPlayers(members);
+            teams.add(team);
+            players.addAll(members);
+        }
+        for (int m = 0; m < MATCHES; m++) {
+            Match match = new Match();
+            match.setId(UUID.randomUUID());
+            match.setTeam1(teams.get(random.nextInt(TEAMS)));
+            match.setTeam2(teams.get(random.nextInt(TEAMS)));
+            match.setWinningTeam(random.nextBoolean() ? match.getTeam1() : null);
+            match.setDuration(1 + random.nextInt(5));
+            match.setCreated(Instant.ofEpochMilli(1_700_000_000_000L + m));
+            matches.add(match);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TEAMS * TEAM_SIZE)
+    public void playersModelMapper(Blackhole blackhole) {
+        for (Player player : players) {
+            PlayerResponseDTO dto = modelMapper.map(player, PlayerResponseDTO.class);
+            dto.setTeamId(player.getTeam() != null ? player.getTeam().getId() : null);
+            blackhole.consume(dto);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TEAMS * TEAM_SIZE)
+    public void playersConstructor(Blackhole blackhole) {
+        for (Player player : players) {
+            blackhole.consume(new PlayerResponseDTO(player));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TEAMS * (TEAM_SIZE + 1))
+    public void teamsModelMapper(Blackhole blackhole) {
+        for (Team team : teams) {
+            TeamResponseDTO dto = modelMapper.map(team, TeamResponseDTO.class);
+            List<PlayerResponseDTO> members = new ArrayList<>();
+            for (Player player : team.getPlayers()) {
+                PlayerResponseDTO member = modelMapper.map(player, PlayerResponseDTO.class);
+                member.setTeamId(team.getId());
+                members.add(member);
+            }
+            dto.setPlayers(members);
+            blackhole.consume(dto);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TEAMS * (TEAM_SIZE + 1))
+    public void teamsConstructor(Blackhole blackhole) {
+        for (Team team : teams) {
+            blackhole.consume(new TeamResponseDTO(team));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MATCHES)
+    public void matchesModelMapper(Blackhole blackhole) {
+        for (Match match : matches) {
+            blackhole.consume(modelMapper.map(match, MatchResponseDTO.class));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MATCHES)
+    public void matchesConstructor(Blackhole blackhole) {
+        for (Match match : matches) {
+            blackhole.consume(new MatchResponseDTO(match));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(DtoMappingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,137 @@
+package benchmarks;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Compares the two ways generate_teams can pick its players: reading every free player sorted by elo and keeping the
+ * first 2 * teamSize (what the service used to do), against the top-K query with a limit that idx_players_team_elo
+ * serves without a sort. Runs against the application's database, whose schema the application created:
+ * <pre>
+ * java -cp target/test-classes:... benchmarks.GenerateTeamsQueryBenchmark -Dbench.url=jdbc:mysql://localhost:3306/levi9
+ *      -Dbench.user=admin -Dbench.password=... -Dbench.seed=1000000
+ * </pre>
+ * bench.seed inserts that many free players first (nicknames prefixed with "bench-").
+ */
+public class GenerateTeamsQueryBenchmark {
+
+    private static final String ALL_FREE = "select * from players where team_id is null order by elo desc";
+    private static final String TOP_K = "select * from players where team_id is null order by elo desc, id limit ?";
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("bench.url", "jdbc:mysql://localhost:3306/levi9");
+        int seed = Integer.getInteger("bench.seed", 0);
+        int teamSize = Integer.getInteger("bench.teamSize", 5);
+        int runs = Integer.getInteger("bench.runs", 10);
+
+        try (Connection connection = DriverManager.getConnection(url, System.getProperty("bench.user", "admin"),
+                System.getProperty("bench.password", ""))) {
+            if (seed > 0) {
+                seed(connection, seed);
+            }
+
+            int limit = teamSize * 2;
+            long[] allFree = new long[runs];
+            long[] topK = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                long start = System.nanoTime();
+                int read = readAllFree(connection, limit);
+                allFree[run] = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                if (readTopK(connection, limit) != read) {
+                    throw new IllegalStateException("The two queries picked a different number of players");
+                }
+                topK[run] = System.nanoTime() - start;
+            }
+
+            System.out.printf("all free players, limit in Java : median %.2f ms%n", median(allFree));
+            System.out.printf("top-%d in the database          : median %.2f ms%n", limit, median(topK));
+            System.out.printf("speedup                         : %.0fx%n", median(allFree) / median(topK));
+            explain(connection, limit);
+        }
+    }
+
+    private static int readAllFree(Connection connection, int limit) throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(ALL_FREE)) {
+            int picked = 0;
+            while (rows.next()) {
+                if (picked < limit) {
+                    rows.getObject("id");
+                    picked++;
+                }
+            }
+            return picked;
+        }
+    }
+
+    private static int readTopK(Connection connection, int limit) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement(TOP_K)) {
+            statement.setInt(1, limit);
+            try (ResultSet rows = statement.executeQuery()) {
+                int picked = 0;
+                while (rows.next()) {
+                    rows.getObject("id");
+                    picked++;
+                }
+                return picked;
+            }
+        }
+    }
+
+    private static void explain(Connection connection, int limit) throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet plan = statement.executeQuery("explain " + TOP_K.replace("?", Integer.toString(limit)))) {
+            int columns = plan.getMetaData().getColumnCount();
+            while (plan.next()) {
+                StringBuilder line = new StringBuilder();
+                for (int i = 1; i <= columns; i++) {
+                    line.append(plan.getMetaData().getColumnLabel(i)).append('=').append(plan.getString(i)).append(' ');
+                }
+                System.out.println(line.toString().trim());
+            }
+        }
+    }
+
+    private static void seed(Connection connection, int players) throws Exception {
+        boolean mysql = connection.getMetaData().getDatabaseProductName().equalsIgnoreCase("MySQL");
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        Random random = new Random(42);
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into players (id, nickname, wins, losses, elo, hours_played) values (?, ?, 0, 0, ?, 0)")) {
+            for (int i = 0; i < players; i++) {
+                UUID id = UUID.randomUUID();
+                if (mysql) {
+                    insert.setBytes(1, ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array());
+                } else {
+                    insert.setObject(1, id);
+                }
+                insert.setString(2, "bench-" + runId + "-" + i);
+                insert.setInt(3, random.nextInt(3000));
+                insert.addBatch();
+                if ((i + 1) % 10_000 == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+        connection.setAutoCommit(true);
+    }
+
+    private static double median(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2] / 1e6;
+    }
+}
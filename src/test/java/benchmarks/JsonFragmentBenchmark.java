@@ -0,0 +1,108 @@
+package benchmarks;
+
+import api.modelsDTO.PlayerResponseDTO;
+import api.services.cache.JsonFragmentCache;
+import api.services.cache.ResponseCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a page of players the way the list endpoints did (responses built again from the rows, then Jackson
+ * serializing the List<PlayerResponseDTO>) and from the warm JsonFragmentCache, which finds each player's fragment by
+ * id and version and copies its bytes. Setup checks both write the same bytes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonFragmentBenchmark {
+
+    @Param({"100", "1000"})
+    public int pageSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectWriter listWriter = objectMapper.writerFor(objectMapper.getTypeFactory()
+            .constructCollectionType(List.class, PlayerResponseDTO.class));
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20);
+    private final List<PlayerResponseDTO> page = new ArrayList<>();
+    private final List<UUID> ids = new ArrayList<>();
+    private JsonFragmentCache fragments;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ResponseCache responseCache = new ResponseCache(new SimpleMeterRegistry(), 100_000, 100_000, 3_600_000, System::nanoTime);
+        fragments = new JsonFragmentCache(objectMapper, new SimpleMeterRegistry(), responseCache, 100_000, 100_000, 3_600_000,
+                System::nanoTime);
+        Random random = new Random(1);
+        UUID teamId = UUID.randomUUID();
+        for (int i = 0; i < pageSize; i++) {
+            PlayerResponseDTO player = new PlayerResponseDTO();
+            player.setId(UUID.randomUUID());
+            player.setNickname("player-" + i);
+            player.setWins(random.nextInt(200));
+            player.setLosses(random.nextInt(200));
+            player.setElo(random.nextInt(3000));
+            player.setHoursPlayed(random.nextInt(6000));
+            player.setTeamId(random.nextBoolean() ? teamId : null);
+            player.setRatingAdjustment(random.nextBoolean() ? 50 : null);
+            page.add(player);
+            ids.add(player.getId());
+        }
+
+        byte[] jackson = jackson();
+        if (!Arrays.equals(jackson, fragments()) || !Arrays.equals(jackson, fragments())) {
+            throw new IllegalStateException("Fragments and Jackson write different JSON");
+        }
+    }
+
+    @Benchmark
+    public byte[] jackson() throws IOException {
+        out.reset();
+        listWriter.writeValue(out, reread());
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] fragments() throws IOException {
+        out.reset();
+        fragments.writePlayers(fragments.players(ids, missing -> reread()), out);
+        return out.toByteArray();
+    }
+
+    // The responses built from the rows of a page read from the database again
+    private List<PlayerResponseDTO> reread() {
+        List<PlayerResponseDTO> copies = new ArrayList<>(page.size());
+        for (PlayerResponseDTO player : page) {
+            PlayerResponseDTO copy = new PlayerResponseDTO();
+            copy.setId(player.getId());
+            copy.setNickname(player.getNickname());
+            copy.setWins(player.getWins());
+            copy.setLosses(player.getLosses());
+            copy.setElo(player.getElo());
+            copy.setHoursPlayed(player.getHoursPlayed());
+            copy.setTeamId(player.getTeamId());
+            copy.setRatingAdjustment(player.getRatingAdjustment());
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(JsonFragmentBenchmark.class.getSimpleName()).build()).run();
+    }
+}
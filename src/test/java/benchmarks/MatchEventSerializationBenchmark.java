@@ -0,0 +1,150 @@
+package benchmarks;
+
+import api.models.Match;
+import api.models.MatchPlayer;
+import api.models.Player;
+import api.models.Team;
+import api.services.events.MatchEvent;
+import api.services.events.MatchEventCodec;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes the same 5v5 matches the way MatchService used to (the Match entity through ObjectMapper, which walks
+ * both teams and their players) and as a MatchEvent with the codec's JSON and binary encodings. The entity graph
+ * needs Player.team ignored, otherwise the player/team back-reference recurses until it fails. Setup prints the
+ * average payload sizes and checks that both event encodings decode back to the same event.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatchEventSerializationBenchmark {
+
+    private static final int MATCHES = 256;
+    private static final int TEAM_SIZE = 5;
+
+    private final List<Match> matches = new ArrayList<>();
+    private final List<MatchEvent> events = new ArrayList<>();
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .addMixIn(Player.class, PlayerWithoutTeam.class);
+
+    abstract static class PlayerWithoutTeam {
+        @JsonIgnore
+        abstract Team getTeam();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        Random random = new Random(1);
+        for (int m = 0; m < MATCHES; m++) {
+            Team team1 = team(random, m * 2);
+            Team team2 = team(random, m * 2 + 1);
+
+            Match match = new Match();
+            match.setId(UUID.randomUUID());
+            match.setTeam1(team1);
+            match.setTeam2(team2);
+            match.setWinningTeam(random.nextBoolean() ? team1 : null);
+            match.setDuration(1 + random.nextInt(5));
+            match.setCreated(Instant.ofEpochMilli(1_700_000_000_000L + m));
+
+            MatchEvent event = new MatchEvent(TEAM_SIZE * 2);
+            event.setId(match.getId());
+            event.setTeam1Id(team1.getId());
+            event.setTeam2Id(team2.getId());
+            event.setWinningTeamId(match.getWinningTeam() != null ? match.getWinningTeam().getId() : null);
+            event.setDuration(match.getDuration());
+            event.setCreatedAt(match.getCreated().toEpochMilli());
+            for (int i = 0; i < TEAM_SIZE * 2; i++) {
+                Player player = (i < TEAM_SIZE ? team1 : team2).getPlayers().get(i % TEAM_SIZE);
+                match.getRoster().add(new MatchPlayer(player.getId(), i < TEAM_SIZE ? 1 : 2));
+                event.addPlayer(player.getId(), i < TEAM_SIZE ? 1 : 2, player.getElo(), player.getElo() + random.nextInt(41) - 20);
+            }
+            matches.add(match);
+            events.add(event);
+        }
+
+        long entityBytes = 0;
+        long jsonBytes = 0;
+        long binaryBytes = 0;
+        for (int m = 0; m < MATCHES; m++) {
+            entityBytes += objectMapper.writeValueAsBytes(matches.get(m)).length;
+            byte[] json = MatchEventCodec.toJsonBytes(events.get(m));
+            byte[] binary = MatchEventCodec.toBinary(events.get(m));
+            jsonBytes += json.length;
+            binaryBytes += binary.length;
+
+            String expected = MatchEventCodec.toJson(events.get(m));
+            if (!expected.equals(MatchEventCodec.toJson(MatchEventCodec.fromJson(new String(json))))
+                    || !expected.equals(MatchEventCodec.toJson(MatchEventCodec.fromBinary(binary, 0, binary.length)))) {
+                throw new IllegalStateException("Match event encodings differ for match " + m);
+            }
+        }
+        System.out.printf("%nAverage bytes per match: entity %d, event JSON %d, event binary %d%n",
+                entityBytes / MATCHES, jsonBytes / MATCHES, binaryBytes / MATCHES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MATCHES)
+    public void entityObjectMapper(Blackhole blackhole) throws JsonProcessingException {
+        for (Match match : matches) {
+            blackhole.consume(objectMapper.writeValueAsString(match));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MATCHES)
+    public void eventJson(Blackhole blackhole) {
+        for (MatchEvent event : events) {
+            blackhole.consume(MatchEventCodec.toJson(event));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MATCHES)
+    public void eventBinary(Blackhole blackhole) {
+        for (MatchEvent event : events) {
+            blackhole.consume(MatchEventCodec.toBinary(event));
+        }
+    }
+
+    private Team team(Random random, int n) {
+        Team team = new Team();
+        team.setId(UUID.randomUUID());
+        team.setTeamName("team-" + n);
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < TEAM_SIZE; i++) {
+            Player player = new Player();
+            player.setId(UUID.randomUUID());
+            player.setNickname("player-" + n + "-" + i);
+            player.setElo(random.nextInt(3000));
+            player.setHoursPlayed(random.nextInt(6000));
+            player.setWins(random.nextInt(200));
+            player.setLosses(random.nextInt(200));
+            player.setRatingAdjustment(50);
+            player.setTeam(team);
+            players.add(player);
+        }
+        team.setPlayers(players);
+        return team;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(MatchEventSerializationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,101 @@
+package benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * End-to-end comparison of N single POST /matches calls against one POST /matches/batch with the same N matches.
+ * Runs against a live instance:
+ * <pre>
+ * java -cp target/test-classes:... benchmarks.MatchIngestionBenchmark -Dbench.baseUrl=http://localhost:8080 -Dbench.matches=10000
+ * </pre>
+ */
+public class MatchIngestionBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("bench.baseUrl", "http://localhost:8080");
+        int matches = Integer.getInteger("bench.matches", 10_000);
+        int teams = Integer.getInteger("bench.teams", 20);
+        int teamSize = Integer.getInteger("bench.teamSize", 5);
+
+        List<String> teamIds = createTeams(baseUrl, teams, teamSize);
+        ArrayNode requests = randomMatches(teamIds, matches, new Random(42));
+
+        long start = System.nanoTime();
+        for (JsonNode request : requests) {
+            post(baseUrl + "/matches", MAPPER.writeValueAsString(request));
+        }
+        long singleNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        String batchResponse = post(baseUrl + "/matches/batch", MAPPER.writeValueAsString(requests));
+        long batchNanos = System.nanoTime() - start;
+
+        JsonNode summary = MAPPER.readTree(batchResponse);
+        System.out.printf("single posts : %d matches in %d ms (%.0f matches/s)%n",
+                matches, singleNanos / 1_000_000, matches / (singleNanos / 1e9));
+        System.out.printf("batch post   : %d matches in %d ms (%.0f matches/s), applied=%d rejected=%d%n",
+                matches, batchNanos / 1_000_000, matches / (batchNanos / 1e9),
+                summary.path("applied").asInt(), summary.path("rejected").asInt());
+        System.out.printf("speedup      : %.1fx%n", (double) singleNanos / batchNanos);
+    }
+
+    private static List<String> createTeams(String baseUrl, int teams, int teamSize) throws Exception {
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        List<String> teamIds = new ArrayList<>();
+        for (int t = 0; t < teams; t++) {
+            ArrayNode playerIds = MAPPER.createArrayNode();
+            for (int p = 0; p < teamSize; p++) {
+                ObjectNode player = MAPPER.createObjectNode().put("nickname", "bench-" + runId + "-" + t + "-" + p);
+                playerIds.add(MAPPER.readTree(post(baseUrl + "/players/create", player.toString())).get("id").asText());
+            }
+            ObjectNode team = MAPPER.createObjectNode().put("teamName", "bench-" + runId + "-" + t);
+            team.set("players", playerIds);
+            teamIds.add(MAPPER.readTree(post(baseUrl + "/teams", team.toString())).get("id").asText());
+        }
+        return teamIds;
+    }
+
+    private static ArrayNode randomMatches(List<String> teamIds, int count, Random random) {
+        ArrayNode requests = MAPPER.createArrayNode();
+        for (int i = 0; i < count; i++) {
+            int team1 = random.nextInt(teamIds.size());
+            int team2 = (team1 + 1 + random.nextInt(teamIds.size() - 1)) % teamIds.size();
+            ObjectNode request = requests.addObject()
+                    .put("team1Id", teamIds.get(team1))
+                    .put("team2Id", teamIds.get(team2))
+                    .put("duration", 1 + random.nextInt(3));
+            switch (random.nextInt(3)) {
+                case 0 -> request.put("winningTeamId", teamIds.get(team1));
+                case 1 -> request.put("winningTeamId", teamIds.get(team2));
+                default -> request.putNull("winningTeamId");
+            }
+        }
+        return requests;
+    }
+
+    private static String post(String url, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException(url + " returned " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,79 @@
+package benchmarks;
+
+import api.models.Player;
+import api.services.matchmaking.MatchmakingService;
+import api.services.teams.RandomTeamRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady-state matchmaking ticks (5v5) with 10k to 100k players waiting. The waiting players are 60 elo apart from
+ * each other, so no ten of them fit a 50 elo window and they stay queued; before every tick 1000 players join at one
+ * elo and form 100 matches. A tick merges the arrivals into the sorted pool, scans all of it, splits the groups into
+ * teams and registers them as random teams. Setup checks that every arrival was matched and nobody else was.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatchmakingTickBenchmark {
+
+    private static final int ARRIVALS = 1000;
+
+    @Param({"10000", "50000", "100000"})
+    private int queued;
+
+    private MatchmakingService matchmakingService;
+    private int serial;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // A clock that never moves keeps every window at 50
+        matchmakingService = new MatchmakingService(null, new RandomTeamRegistry(meterRegistry, 3_600_000), meterRegistry,
+                50, 10, 500, 50, 8192, 3_600_000, () -> 0L);
+        for (int i = 0; i < queued; i++) {
+            matchmakingService.enqueue(player(i * 60), 5);
+        }
+
+        join();
+        matchmakingService.tick();
+        if (matchmakingService.queueSize() != queued) {
+            throw new IllegalStateException("Expected " + queued + " players left, found " + matchmakingService.queueSize());
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void join() {
+        for (int i = 0; i < ARRIVALS; i++) {
+            matchmakingService.enqueue(player(-1000), 5);
+        }
+    }
+
+    @Benchmark
+    public int tick() {
+        matchmakingService.tick();
+        return matchmakingService.queueSize();
+    }
+
+    private Player player(int elo) {
+        Player player = new Player();
+        player.setId(UUID.randomUUID());
+        player.setNickname("player-" + serial++);
+        player.setElo(elo);
+        return player;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(MatchmakingTickBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,139 @@
+package benchmarks;
+
+import api.models.Player;
+import api.services.rating.RatingEngine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rates the same 5v5 matches with the entity/stream/Math.pow code MatchService used before and with RatingEngine.
+ * Setup fails if the two produce different ratings.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RatingEngineBenchmark {
+
+    private static final int MATCHES = 1024;
+    private static final int TEAM_SIZE = 5;
+
+    private final List<List<Player>> team1s = new ArrayList<>();
+    private final List<List<Player>> team2s = new ArrayList<>();
+    private double[] team1Scores;
+    private int[] durations;
+
+    // One flat block of elo/hours/k per match, same layout RatingEngine.rateMatch expects
+    private int[][] elo;
+    private int[][] hours;
+    private int[][] k;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(1);
+        double[] outcomes = {RatingEngine.TEAM1_WIN, RatingEngine.DRAW, RatingEngine.TEAM2_WIN};
+        team1Scores = new double[MATCHES];
+        durations = new int[MATCHES];
+        elo = new int[MATCHES][TEAM_SIZE * 2];
+        hours = new int[MATCHES][TEAM_SIZE * 2];
+        k = new int[MATCHES][TEAM_SIZE * 2];
+
+        for (int m = 0; m < MATCHES; m++) {
+            List<Player> team1 = new ArrayList<>();
+            List<Player> team2 = new ArrayList<>();
+            for (int i = 0; i < TEAM_SIZE * 2; i++) {
+                Player player = new Player();
+                player.setElo(random.nextInt(3000) - 500);
+                player.setHoursPlayed(random.nextInt(6000));
+                (i < TEAM_SIZE ? team1 : team2).add(player);
+                elo[m][i] = player.getElo();
+                hours[m][i] = player.getHoursPlayed();
+            }
+            team1s.add(team1);
+            team2s.add(team2);
+            team1Scores[m] = outcomes[random.nextInt(outcomes.length)];
+            durations[m] = 1 + random.nextInt(5);
+        }
+
+        verifySameResults();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MATCHES)
+    public void legacyEntityStreams() {
+        for (int m = 0; m < MATCHES; m++) {
+            legacyUpdatePlayerStats(team1s.get(m), team2s.get(m), team1Scores[m], durations[m]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MATCHES)
+    public void ratingEngine() {
+        for (int m = 0; m < MATCHES; m++) {
+            RatingEngine.rateMatch(elo[m], hours[m], k[m], TEAM_SIZE, TEAM_SIZE, team1Scores[m], durations[m]);
+        }
+    }
+
+    private void verifySameResults() {
+        for (int m = 0; m < MATCHES; m++) {
+            int[] e = elo[m].clone();
+            int[] h = hours[m].clone();
+            int[] kk = new int[TEAM_SIZE * 2];
+            RatingEngine.rateMatch(e, h, kk, TEAM_SIZE, TEAM_SIZE, team1Scores[m], durations[m]);
+
+            List<Player> team1 = copy(team1s.get(m));
+            List<Player> team2 = copy(team2s.get(m));
+            legacyUpdatePlayerStats(team1, team2, team1Scores[m], durations[m]);
+            for (int i = 0; i < TEAM_SIZE * 2; i++) {
+                Player player = i < TEAM_SIZE ? team1.get(i) : team2.get(i - TEAM_SIZE);
+                if (player.getElo() != e[i] || player.getHoursPlayed() != h[i] || player.getRatingAdjustment() != kk[i]) {
+                    throw new IllegalStateException("RatingEngine differs from legacy rating in match " + m
+                            + ": " + Arrays.toString(e));
+                }
+            }
+        }
+    }
+
+    private static List<Player> copy(List<Player> players) {
+        List<Player> copies = new ArrayList<>();
+        for (Player player : players) {
+            Player copy = new Player();
+            copy.setElo(player.getElo());
+            copy.setHoursPlayed(player.getHoursPlayed());
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    // MatchService.updatePlayerStats/updatePlayerElo as they were before RatingEngine
+    private static void legacyUpdatePlayerStats(List<Player> team1Players, List<Player> team2Players, double S_team1, int duration) {
+        int avgEloTeam1 = team1Players.stream().mapToInt(Player::getElo).sum() / team1Players.size();
+        int avgEloTeam2 = team2Players.stream().mapToInt(Player::getElo).sum() / team2Players.size();
+        for (Player player : team1Players)
+            legacyUpdatePlayerElo(player, avgEloTeam2, S_team1, duration);
+        for (Player player : team2Players)
+            legacyUpdatePlayerElo(player, avgEloTeam1, 1.0 - S_team1, duration);
+    }
+
+    private static void legacyUpdatePlayerElo(Player player, int opponentAvgElo, double S, int duration) {
+        double E = 1 / (1 + Math.pow(10, (opponentAvgElo - player.getElo()) / 400.0));
+        int hoursPlayed = player.getHoursPlayed() + duration;
+        int K = hoursPlayed < 500 ? 50 : hoursPlayed < 1000 ? 40 : hoursPlayed < 3000 ? 30 : hoursPlayed < 5000 ? 20 : 10;
+        player.setElo((int) Math.round(player.getElo() + K * (S - E)));
+        player.setHoursPlayed(hoursPlayed);
+        player.setRatingAdjustment(K);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(RatingEngineBenchmark.class.getSimpleName()).build()).run();
+    }
+}
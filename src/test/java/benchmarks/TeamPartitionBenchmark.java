@@ -0,0 +1,95 @@
+package benchmarks;
+
+import api.services.teams.partition.ExactPartition;
+import api.services.teams.partition.KarmarkarKarpPartition;
+import api.services.teams.partition.TeamPartitionEngine;
+import api.services.teams.partition.TeamSplit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits pools of 10 to 100k players (elo uniform in [0, 3000)) with the snake draft generateTeams used before
+ * (sorted by elo, ABBA picks), with Karmarkar–Karp alone and with the whole engine (Karmarkar–Karp, then the exact DP
+ * and local search in parallel within a 50 ms budget). Setup prints the elo difference each one leaves and checks
+ * that the engine is never worse than the draft.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TeamPartitionBenchmark {
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE / 2;
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    private int poolSize;
+
+    private int[] elo;
+    private final KarmarkarKarpPartition karmarkarKarp = new KarmarkarKarpPartition();
+    private TeamPartitionEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(poolSize);
+        elo = new int[poolSize];
+        for (int i = 0; i < poolSize; i++) {
+            elo[i] = random.nextInt(3000);
+        }
+        engine = new TeamPartitionEngine(50, Runtime.getRuntime().availableProcessors(), 2_000_000);
+
+        long draft = snakeDraft(elo).getDifference();
+        long kk = karmarkarKarp.split(elo, null, NO_DEADLINE).getDifference();
+        long engineDifference = engine.split(elo).getDifference();
+        TeamSplit exact = new ExactPartition(2_000_000).split(elo, null, NO_DEADLINE);
+        System.out.printf("%nElo difference for %d players: snake draft %d, Karmarkar-Karp %d, engine %d, optimal %s%n",
+                poolSize, draft, kk, engineDifference, exact != null ? String.valueOf(exact.getDifference()) : "-");
+        if (engineDifference > draft) {
+            throw new IllegalStateException("Engine split is worse than the snake draft");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public TeamSplit snakeDraft() {
+        return snakeDraft(elo);
+    }
+
+    @Benchmark
+    public TeamSplit karmarkarKarp() {
+        return karmarkarKarp.split(elo, null, NO_DEADLINE);
+    }
+
+    @Benchmark
+    public TeamSplit engine() {
+        return engine.split(elo);
+    }
+
+    // Strongest to team 1, the next two to team 2, the next two to team 1 and so on
+    private static TeamSplit snakeDraft(int[] elo) {
+        long[] keys = new long[elo.length];
+        for (int i = 0; i < elo.length; i++) {
+            keys[i] = ((long) elo[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+        boolean[] team1 = new boolean[elo.length];
+        for (int pick = 0; pick < elo.length; pick++) {
+            team1[(int) keys[elo.length - 1 - pick]] = ((pick + 1) / 2) % 2 == 0;
+        }
+        return new TeamSplit(elo, team1);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(TeamPartitionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,105 @@
+package benchmarks;
+
+import api.models.ids.UuidV7;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Inserts the same rows into a table keyed like players (BINARY(16) primary key), once with random v4 keys and once
+ * with UUIDv7 keys, and prints the insert rate of every tenth of the rows: with v4 keys it drops once the primary key
+ * no longer fits the buffer pool, with v7 keys every insert goes to the last page. Then the table size, where the half
+ * filled pages of the v4 table show. Uses its own table, bench_uuid_keys, which it drops and creates again:
+ * <pre>
+ * java -cp target/test-classes:target/classes:... benchmarks.UuidKeyInsertBenchmark -Dbench.url=jdbc:mysql://localhost:3306/levi9
+ *      -Dbench.user=admin -Dbench.password=... -Dbench.rows=10000000
+ * </pre>
+ */
+public class UuidKeyInsertBenchmark {
+
+    private static final String CREATE = "create table bench_uuid_keys (id binary(16) not null, nickname varchar(255) not null, "
+            + "elo integer not null, wins integer not null, losses integer not null, hours_played integer not null, "
+            + "primary key (id))";
+    private static final String INSERT = "insert into bench_uuid_keys (id, nickname, elo, wins, losses, hours_played) values (?, ?, ?, ?, ?, ?)";
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("bench.url", "jdbc:mysql://localhost:3306/levi9?rewriteBatchedStatements=true");
+        int rows = Integer.getInteger("bench.rows", 10_000_000);
+        int batchSize = Integer.getInteger("bench.batch", 1000);
+
+        try (Connection connection = DriverManager.getConnection(url, System.getProperty("bench.user", "admin"),
+                System.getProperty("bench.password", ""))) {
+            UuidV7 v7 = new UuidV7();
+            run(connection, "v4", UUID::randomUUID, rows, batchSize);
+            run(connection, "v7", v7::next, rows, batchSize);
+            drop(connection);
+        }
+    }
+
+    private static void run(Connection connection, String name, Supplier<UUID> keys, int rows, int batchSize) throws Exception {
+        drop(connection);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE);
+        }
+
+        Random random = new Random(42);
+        int slice = Math.max(rows / 10, batchSize);
+        long start = System.nanoTime();
+        long sliceStart = start;
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            for (int i = 0; i < rows; i++) {
+                UUID id = keys.get();
+                insert.setBytes(1, ByteBuffer.allocate(16).putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array());
+                insert.setString(2, "bench-" + i);
+                insert.setInt(3, random.nextInt(3000));
+                insert.setInt(4, random.nextInt(200));
+                insert.setInt(5, random.nextInt(200));
+                insert.setInt(6, random.nextInt(6000));
+                insert.addBatch();
+                if ((i + 1) % batchSize == 0 || i + 1 == rows) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+                if ((i + 1) % slice == 0) {
+                    long now = System.nanoTime();
+                    System.out.printf("%s rows %,12d : %,10.0f rows/s%n", name, i + 1, slice / ((now - sliceStart) / 1e9));
+                    sliceStart = now;
+                }
+            }
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        System.out.printf("%s total       : %,10.0f rows/s, %.1f s%n", name, rows / ((System.nanoTime() - start) / 1e9),
+                (System.nanoTime() - start) / 1e9);
+        size(connection, name);
+    }
+
+    private static void size(Connection connection, String name) throws Exception {
+        if (!connection.getMetaData().getDatabaseProductName().equalsIgnoreCase("MySQL")) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("analyze table bench_uuid_keys");
+            try (ResultSet status = statement.executeQuery("show table status like 'bench_uuid_keys'")) {
+                if (status.next()) {
+                    System.out.printf("%s table size  : %,d MB data, %,d MB free%n", name,
+                            status.getLong("Data_length") >> 20, status.getLong("Data_free") >> 20);
+                }
+            }
+        }
+    }
+
+    private static void drop(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists bench_uuid_keys");
+        }
+    }
+}